@@ -0,0 +1,65 @@
+package io.threadcast.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Todo step 진행 상태 처리 설정
+ */
+@Configuration
+@ConfigurationProperties(prefix = "threadcast.step")
+@Data
+public class StepConfig {
+
+    /**
+     * todo 별 step 상태 변경 직렬화(mailbox) 설정
+     */
+    private MailboxConfig mailbox = new MailboxConfig();
+
+    /**
+     * step update webhook 적용 방식
+     */
+    private UpdateMode updateMode = UpdateMode.ENTITY;
+
+    public enum UpdateMode {
+        /**
+         * todo 와 모든 step 을 읽어 entity 로 변경 후 저장 (기존 동작)
+         */
+        ENTITY,
+
+        /**
+         * 현재 상태를 조건으로 한 UPDATE 문으로 step 만 변경. todo 완료 판단은 집계 쿼리 하나로,
+         * entity 는 timeline 기록과 todo 완료(orchestration) 때만 읽음
+         */
+        CONDITIONAL
+    }
+
+    @Data
+    public static class MailboxConfig {
+        /**
+         * false 이면 호출 스레드에서 바로 트랜잭션을 열어 처리 (기존 동작)
+         */
+        private boolean enabled = true;
+
+        /**
+         * 모든 todo 가 공유하는 처리 스레드 수. 한 todo 의 변경은 한 번에 한 스레드에서만 처리
+         */
+        private int workers = 4;
+
+        /**
+         * 한 트랜잭션에 묶어 처리하는 같은 todo 의 연속된 변경 최대 수
+         */
+        private int maxBatchSize = 32;
+
+        /**
+         * 호출자가 처리 결과를 기다리는 최대 시간 (ms)
+         */
+        private long callTimeoutMs = 30_000;
+
+        /**
+         * 종료 시 남은 변경을 처리하기 위해 기다리는 최대 시간 (ms)
+         */
+        private long shutdownTimeoutMs = 10_000;
+    }
+}
@@ -0,0 +1,161 @@
+package io.threadcast.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Todo 터미널 화면 스트리밍 설정
+ */
+@Configuration
+@ConfigurationProperties(prefix = "threadcast.terminal")
+@Data
+public class TerminalConfig {
+
+    /**
+     * SSE 화면 스트림 설정
+     */
+    private StreamConfig stream = new StreamConfig();
+
+    /**
+     * 터미널 세션 녹화 설정
+     */
+    private RecordingConfig recording = new RecordingConfig();
+
+    /**
+     * Claude Code 실행 단계별 대기 설정
+     */
+    private LaunchConfig launch = new LaunchConfig();
+
+    /**
+     * 세션별 API 토큰 사용량 집계 설정
+     */
+    private UsageConfig usage = new UsageConfig();
+
+    /**
+     * 세션 라우팅 캐시 설정
+     */
+    private RouteConfig route = new RouteConfig();
+
+    @Data
+    public static class StreamConfig {
+        /**
+         * delta 모드 허용 여부 (false 면 ?delta=true 요청에도 전체 화면을 보냄)
+         */
+        private boolean deltaEnabled = true;
+
+        /**
+         * delta 모드에서 이 프레임 수마다 전체 화면(keyframe)을 보냄
+         */
+        private int keyframeIntervalFrames = 100;
+
+        /**
+         * delta 모드에서 마지막 keyframe 이후 이 시간이 지나면 keyframe 을 보냄 (ms)
+         */
+        private long keyframeIntervalMs = 10_000;
+    }
+
+    @Data
+    public static class RecordingConfig {
+        /**
+         * 세션 시작부터 종료까지 화면을 디스크에 녹화할지 여부
+         */
+        private boolean enabled = true;
+
+        /**
+         * 녹화 파일 디렉토리 (todo 별 하위 디렉토리)
+         */
+        private String dir = "./data/terminal-recordings";
+
+        /**
+         * 이 프레임 수마다 전체 화면(keyframe)을 기록 (seek 시 최대 재생 프레임 수)
+         */
+        private int keyframeIntervalFrames = 200;
+
+        /**
+         * 마지막 keyframe 이후 이 시간이 지나면 keyframe 을 기록 (ms)
+         */
+        private long keyframeIntervalMs = 30_000;
+
+        /**
+         * 녹화 파일 하나의 최대 크기, 넘으면 해당 세션 녹화 중단 (byte)
+         */
+        private long maxBytesPerRecording = 256L * 1024 * 1024;
+
+        /**
+         * 녹화가 끝난 뒤 보관 일수 (0 이하면 todo 가 삭제될 때만 지움)
+         */
+        private int retentionDays = 30;
+
+        /**
+         * 보관 기간 / 삭제된 todo 정리 실행 간격 (ms)
+         */
+        private long sweepIntervalMs = 3_600_000;
+    }
+
+    @Data
+    public static class LaunchConfig {
+        /**
+         * Claude Code 가 입력 대기 상태임을 나타내는 화면 패턴 (정규식, ANSI escape 제거 후 비교)
+         */
+        private String claudeReadyPattern = "\\? for shortcuts";
+
+        /**
+         * 실행 명령 후 Claude Code 준비 화면을 기다리는 최대 시간 (ms)
+         */
+        private long claudeReadyTimeoutMs = 5_000;
+
+        /**
+         * /clear 후 session_created webhook 을 기다리는 최대 시간 (ms)
+         */
+        private long clearTimeoutMs = 3_000;
+
+        /**
+         * register_session 후 session-mapping webhook 을 기다리는 최대 시간 (ms)
+         */
+        private long registerTimeoutMs = 3_000;
+
+        /**
+         * 프롬프트 입력 후 제출용 Enter 를 보내기까지의 간격 (ms)
+         */
+        private long promptSubmitDelayMs = 500;
+
+        /**
+         * 자동 시작 시 동시에 실행(worktree 생성 ~ Claude 실행 중)할 수 있는 todo 최대 수, 넘으면 대기열에서 기다림
+         */
+        private int maxConcurrent = 8;
+
+        /**
+         * workspace 하나에서 동시에 실행할 수 있는 todo 최대 수
+         */
+        private int maxConcurrentPerWorkspace = 4;
+
+        /**
+         * 끝난 todo / 사라진 세션의 실행 슬롯을 회수하는 주기 (ms)
+         */
+        private long reconcileIntervalMs = 30_000;
+    }
+
+    @Data
+    public static class UsageConfig {
+        /**
+         * 메모리에 모은 토큰 사용량을 DB 에 반영하는 주기 (ms, 0 이하면 webhook 마다 바로 반영)
+         * 비정상 종료 시 마지막 반영 이후의 사용량은 유실됨
+         */
+        private long flushIntervalMs = 5_000;
+    }
+
+    @Data
+    public static class RouteConfig {
+        /**
+         * 매핑이 없는 세션/트레이스 ID 를 기억하는 시간 (ms, 0 이하면 기억하지 않음)
+         * 등록 전에 도착한 webhook 이 몰려도 키마다 이 주기에 한 번만 DB 를 조회
+         */
+        private long missTtlMs = 2_000;
+
+        /**
+         * 기억하는 미매핑 키의 최대 개수 (넘으면 만료된 키부터 정리)
+         */
+        private int maxMisses = 10_000;
+    }
+}
@@ -0,0 +1,206 @@
+package io.threadcast.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Timeline 기록 파이프라인 설정
+ */
+@Configuration
+@ConfigurationProperties(prefix = "threadcast.timeline")
+@Data
+public class TimelineConfig {
+
+    /**
+     * Timeline 이벤트 저장 방식 설정
+     */
+    private WriterConfig writer = new WriterConfig();
+
+    /**
+     * 일별 통계 롤업 설정
+     */
+    private RollupConfig rollup = new RollupConfig();
+
+    /**
+     * 오래된 이벤트 보관(아카이브) 설정
+     */
+    private RetentionConfig retention = new RetentionConfig();
+
+    /**
+     * AI 활동 / step 진행 이벤트 병합 설정
+     */
+    private CoalesceConfig coalesce = new CoalesceConfig();
+
+    public enum DurabilityMode {
+        /**
+         * 호출자 트랜잭션 안에서 바로 INSERT (기존 동작)
+         */
+        SYNC,
+
+        /**
+         * 메모리 큐에 쌓았다가 백그라운드에서 JDBC batch INSERT
+         */
+        WRITE_BEHIND
+    }
+
+    public enum OverflowPolicy {
+        /**
+         * 큐가 가득 차면 offer-timeout 만큼 기다린 뒤 버림
+         */
+        BLOCK,
+
+        /**
+         * 큐가 가득 차면 즉시 버림
+         */
+        DROP,
+
+        /**
+         * 큐가 가득 차면 호출 스레드에서 직접 INSERT
+         */
+        CALLER_RUNS
+    }
+
+    @Data
+    public static class WriterConfig {
+        /**
+         * SYNC 또는 WRITE_BEHIND
+         */
+        private DurabilityMode mode = DurabilityMode.SYNC;
+
+        /**
+         * 메모리 큐 최대 크기
+         */
+        private int queueCapacity = 10_000;
+
+        /**
+         * 한 번에 INSERT 할 최대 이벤트 수
+         */
+        private int batchSize = 200;
+
+        /**
+         * 첫 이벤트가 들어온 뒤 batch 를 채우기 위해 기다리는 최대 시간 (ms)
+         */
+        private long flushIntervalMs = 250;
+
+        /**
+         * 큐가 가득 찼을 때의 처리 방식
+         */
+        private OverflowPolicy overflowPolicy = OverflowPolicy.CALLER_RUNS;
+
+        /**
+         * BLOCK 정책에서 큐 자리를 기다리는 최대 시간 (ms)
+         */
+        private long offerTimeoutMs = 50;
+
+        /**
+         * 종료 시 남은 이벤트를 비우기 위해 기다리는 최대 시간 (ms)
+         */
+        private long shutdownTimeoutMs = 10_000;
+    }
+
+    @Data
+    public static class RollupConfig {
+        /**
+         * 시작 시 롤업 추적 이전에 생성된 timeline_event 를 한 번 집계 (DB 당 한 번, system_settings 에 완료 기록)
+         */
+        private boolean backfillOnStartup = true;
+
+        /**
+         * 기간 통계 조회 시 허용하는 최대 일수
+         */
+        private int maxRangeDays = 90;
+
+        /**
+         * SYNC 모드에서 커밋된 이벤트 카운트를 모아 반영하는 주기 (ms).
+         * 0 이하면 호출자 트랜잭션 안에서 이벤트마다 바로 UPSERT
+         */
+        private long flushIntervalMs = 1_000;
+    }
+
+    @Data
+    public static class RetentionConfig {
+        /**
+         * 아카이브 작업 활성화 여부
+         */
+        private boolean enabled = false;
+
+        /**
+         * 워크스페이스에 별도 설정이 없을 때 timeline_event 에 남겨둘 일수 (0 이하면 아카이브 안 함)
+         */
+        private int defaultRetentionDays = 90;
+
+        /**
+         * 압축 세그먼트 파일을 저장할 디렉토리
+         */
+        private String archiveDir = "./data/timeline-archive";
+
+        /**
+         * 세그먼트 파일 보관 일수 (0 이하면 영구 보관)
+         */
+        private int archiveRetentionDays = 0;
+
+        /**
+         * 아카이브 작업 실행 간격 (ms)
+         */
+        private long intervalMs = 3_600_000;
+
+        /**
+         * 시작 후 첫 실행까지 대기 시간 (ms)
+         */
+        private long initialDelayMs = 60_000;
+
+        /**
+         * 세그먼트 하나에 담을 최대 이벤트 수 (한 번의 DELETE 크기)
+         */
+        private int batchSize = 1000;
+
+        /**
+         * batch 사이 대기 시간 (ms) - 라이브 쓰기와 경합을 줄이기 위한 throttle
+         */
+        private long pauseMs = 200;
+
+        /**
+         * 한 번 실행에서 처리할 최대 batch 수
+         */
+        private int maxBatchesPerRun = 100;
+    }
+
+    @Data
+    public static class CoalesceConfig {
+        /**
+         * 병합 활성화 여부 (false 면 이벤트마다 한 건씩 기록)
+         */
+        private boolean enabled = true;
+
+        /**
+         * usage_logged AI 활동 병합 window (ms, 마지막 이벤트 기준). 0 이면 병합 안 함
+         */
+        private long aiActivityWindowMs = 5_000;
+
+        /**
+         * step_update 진행 이벤트 병합 window (ms, 마지막 이벤트 기준). 0 이면 병합 안 함
+         */
+        private long stepProgressWindowMs = 3_000;
+
+        /**
+         * 이벤트가 계속 들어와도 하나의 병합 이벤트가 열려 있을 수 있는 최대 시간 (ms)
+         */
+        private long maxWindowMs = 30_000;
+
+        /**
+         * 하나의 병합 이벤트에 담을 최대 원본 이벤트 수
+         */
+        private int maxEvents = 200;
+
+        /**
+         * 만료된 window 를 확인하는 주기 (ms)
+         */
+        private long sweepIntervalMs = 250;
+
+        /**
+         * 디버깅용: 병합 전 원본 이벤트를 /topic/todos/{id}/timeline/raw 로 그대로 전송 (저장은 안 함)
+         */
+        private boolean rawStream = false;
+    }
+}
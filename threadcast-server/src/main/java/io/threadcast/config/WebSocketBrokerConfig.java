@@ -0,0 +1,202 @@
+package io.threadcast.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * WebSocket(STOMP) 브로커 및 채널 설정
+ */
+@Configuration
+@ConfigurationProperties(prefix = "threadcast.websocket")
+@Data
+public class WebSocketBrokerConfig {
+
+    /**
+     * 브로커 방식
+     */
+    private BrokerMode broker = BrokerMode.SIMPLE;
+
+    /**
+     * 외부 STOMP 브로커 relay 설정 (broker=RELAY 일 때)
+     */
+    private RelayConfig relay = new RelayConfig();
+
+    /**
+     * 클라이언트 heartbeat 설정
+     */
+    private HeartbeatConfig heartbeat = new HeartbeatConfig();
+
+    /**
+     * 클라이언트 → 서버 메시지 처리 스레드 풀
+     */
+    private ChannelConfig inbound = new ChannelConfig();
+
+    /**
+     * 서버 → 클라이언트 메시지 전송 스레드 풀
+     */
+    private ChannelConfig outbound = new ChannelConfig();
+
+    /**
+     * 세션별 전송 버퍼 / conflation 설정
+     */
+    private SessionConfig session = new SessionConfig();
+
+    /**
+     * 재접속 클라이언트용 이벤트 순번 / 재전송 버퍼 설정
+     */
+    private ReplayConfig replay = new ReplayConfig();
+
+    /**
+     * 메시지 본문 인코딩 설정
+     */
+    private EncodingConfig encoding = new EncodingConfig();
+
+    public enum BrokerMode {
+        /**
+         * JVM 내 in-memory 브로커 (단일 인스턴스 전용)
+         */
+        SIMPLE,
+
+        /**
+         * 외부 STOMP 브로커(ActiveMQ/Artemis 등)로 relay - 여러 인스턴스 간 fan-out
+         */
+        RELAY
+    }
+
+    public enum OverflowPolicy {
+        /**
+         * 버퍼가 가득 차면 가장 오래된 메시지부터 버림
+         */
+        DROP,
+
+        /**
+         * 버퍼가 가득 차면 세션을 끊음 (클라이언트가 재접속 후 다시 조회)
+         */
+        TERMINATE
+    }
+
+    @Data
+    public static class RelayConfig {
+        private String host = "localhost";
+        private int port = 61613;
+
+        /**
+         * 클라이언트 세션마다 브로커에 접속할 때 쓰는 계정
+         */
+        private String clientLogin = "guest";
+        private String clientPasscode = "guest";
+
+        /**
+         * 서버가 메시지를 발행하는 공유 system 세션 계정
+         */
+        private String systemLogin = "guest";
+        private String systemPasscode = "guest";
+
+        /**
+         * 브로커 virtual host (비어 있으면 설정 안 함)
+         */
+        private String virtualHost;
+
+        /**
+         * system 세션 heartbeat 송신/수신 간격 (ms)
+         */
+        private long systemHeartbeatSendIntervalMs = 10_000;
+        private long systemHeartbeatReceiveIntervalMs = 10_000;
+    }
+
+    @Data
+    public static class HeartbeatConfig {
+        /**
+         * 서버 → 클라이언트 heartbeat 간격 (ms, 0 이면 사용 안 함). SIMPLE 모드 전용
+         */
+        private long serverMs = 10_000;
+
+        /**
+         * 클라이언트 → 서버 heartbeat 기대 간격 (ms, 0 이면 사용 안 함). SIMPLE 모드 전용
+         */
+        private long clientMs = 10_000;
+    }
+
+    @Data
+    public static class ChannelConfig {
+        /**
+         * 기본 스레드 수 (0 이면 Spring 기본값: CPU 코어 수 x 2)
+         */
+        private int corePoolSize = 0;
+
+        /**
+         * 최대 스레드 수 (0 이면 Spring 기본값: 무제한). queue-capacity 가 찼을 때만 늘어남
+         */
+        private int maxPoolSize = 0;
+
+        /**
+         * 대기 큐 크기 (0 이면 Spring 기본값: 무제한)
+         */
+        private int queueCapacity = 0;
+
+        /**
+         * 기본 스레드 수를 넘는 유휴 스레드 유지 시간 (초)
+         */
+        private int keepAliveSeconds = 60;
+    }
+
+    @Data
+    public static class SessionConfig {
+        /**
+         * 최신 값만 의미 있는 이벤트(진행률, 사용량, PM Agent 상태)를 느린 세션에서 병합할지 여부
+         */
+        private boolean conflation = true;
+
+        /**
+         * 세션당 전송 대기 버퍼 최대 크기 (bytes)
+         */
+        private int sendBufferSizeLimit = 512 * 1024;
+
+        /**
+         * 메시지 하나를 보내는 데 허용되는 최대 시간 (ms). 넘으면 세션을 끊음
+         */
+        private int sendTimeLimitMs = 10_000;
+
+        /**
+         * 버퍼가 가득 찼을 때 동작
+         */
+        private OverflowPolicy overflow = OverflowPolicy.DROP;
+
+        /**
+         * 세션 버퍼를 비우는 전송 스레드 수
+         */
+        private int senderThreads = 4;
+    }
+
+    @Data
+    public static class ReplayConfig {
+        /**
+         * topic 별 순번(seq) 부여 및 재전송 버퍼 사용 여부
+         */
+        private boolean enabled = true;
+
+        /**
+         * topic 당 보관하는 최근 이벤트 수
+         */
+        private int capacityPerTopic = 256;
+
+        /**
+         * 이 시간 동안 구독/재개가 없던 topic 의 버퍼는 삭제 (ms). 다시 생기면 새 epoch 로 시작
+         */
+        private long topicIdleTtlMs = 30 * 60 * 1000L;
+
+        /**
+         * 유휴 topic 정리 주기 (ms)
+         */
+        private long sweepIntervalMs = 60_000;
+    }
+
+    @Data
+    public static class EncodingConfig {
+        /**
+         * CONNECT 헤더 body-encoding:cbor 로 요청한 세션에 CBOR 본문을 보낼지 여부 (기본은 JSON)
+         */
+        private boolean cborEnabled = true;
+    }
+}
@@ -1,30 +1,119 @@
 package io.threadcast.config;
 
+import io.threadcast.service.websocket.WebSocketBodyEncoding;
+import io.threadcast.service.websocket.WebSocketOutboundConflator;
+import io.threadcast.service.websocket.WebSocketResumeInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.TaskExecutorRegistration;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.StringUtils;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final WebSocketBrokerConfig brokerConfig;
+    private final WebSocketOutboundConflator outboundConflator;
+    private final WebSocketResumeInterceptor resumeInterceptor;
+    private final WebSocketBodyEncoding bodyEncoding;
+
+    private TaskScheduler messageBrokerTaskScheduler;
+
+    @Autowired
+    public void setMessageBrokerTaskScheduler(@Lazy @Qualifier("messageBrokerTaskScheduler") TaskScheduler scheduler) {
+        this.messageBrokerTaskScheduler = scheduler;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // Enable a simple in-memory broker for subscriptions
-        config.enableSimpleBroker("/topic", "/queue");
+        if (brokerConfig.getBroker() == WebSocketBrokerConfig.BrokerMode.RELAY) {
+            // Relay to an external STOMP broker so every instance sees every published event
+            WebSocketBrokerConfig.RelayConfig relay = brokerConfig.getRelay();
+            var registration = config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relay.getHost())
+                    .setRelayPort(relay.getPort())
+                    .setClientLogin(relay.getClientLogin())
+                    .setClientPasscode(relay.getClientPasscode())
+                    .setSystemLogin(relay.getSystemLogin())
+                    .setSystemPasscode(relay.getSystemPasscode())
+                    .setSystemHeartbeatSendInterval(relay.getSystemHeartbeatSendIntervalMs())
+                    .setSystemHeartbeatReceiveInterval(relay.getSystemHeartbeatReceiveIntervalMs())
+                    // Resolve /user destinations across instances
+                    .setUserDestinationBroadcast("/topic/unresolved-user")
+                    .setUserRegistryBroadcast("/topic/user-registry");
+            if (StringUtils.hasText(relay.getVirtualHost())) {
+                registration.setVirtualHost(relay.getVirtualHost());
+            }
+        } else {
+            // Enable a simple in-memory broker for subscriptions
+            WebSocketBrokerConfig.HeartbeatConfig heartbeat = brokerConfig.getHeartbeat();
+            config.enableSimpleBroker("/topic", "/queue")
+                    .setHeartbeatValue(new long[]{heartbeat.getServerMs(), heartbeat.getClientMs()})
+                    .setTaskScheduler(messageBrokerTaskScheduler);
+        }
         // Prefix for messages bound for @MessageMapping methods
         config.setApplicationDestinationPrefixes("/app");
         // Prefix for user-specific messages
         config.setUserDestinationPrefix("/user");
+        // Keep per-session ordering when the outbound channel has more than one thread
+        config.setPreservePublishOrder(true);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        applyPool(registration.taskExecutor(), brokerConfig.getInbound());
+        // Replay missed events to clients subscribing with last-seq
+        registration.interceptors(resumeInterceptor);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        applyPool(registration.taskExecutor(), brokerConfig.getOutbound());
+        // Transcode bodies to CBOR for sessions that negotiated it
+        registration.interceptors(bodyEncoding);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        WebSocketBrokerConfig.SessionConfig session = brokerConfig.getSession();
+        registration.setSendBufferSizeLimit(session.getSendBufferSizeLimit())
+                .setSendTimeLimit(session.getSendTimeLimitMs());
+        if (session.isConflation()) {
+            // Queue per session and merge "latest value wins" events while a client is behind
+            registration.addDecoratorFactory(outboundConflator);
+        }
+    }
+
+    private void applyPool(TaskExecutorRegistration executor, WebSocketBrokerConfig.ChannelConfig pool) {
+        if (pool.getCorePoolSize() > 0) {
+            executor.corePoolSize(pool.getCorePoolSize());
+        }
+        if (pool.getMaxPoolSize() > 0) {
+            executor.maxPoolSize(pool.getMaxPoolSize());
+        }
+        if (pool.getQueueCapacity() > 0) {
+            executor.queueCapacity(pool.getQueueCapacity());
+        }
+        executor.keepAliveSeconds(pool.getKeepAliveSeconds());
     }
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         // WebSocket endpoint (no SockJS - for native WebSocket clients)
         registry.addEndpoint("/ws")
-                .setAllowedOriginPatterns("*");
+                .setAllowedOriginPatterns("*")
+                .addInterceptors(bodyEncoding.binaryCapableHandshake());
 
         // SockJS fallback endpoint
         registry.addEndpoint("/ws-sockjs")
@@ -0,0 +1,125 @@
+package io.threadcast.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * SwiftCast webhook 수신 설정
+ */
+@Configuration
+@ConfigurationProperties(prefix = "threadcast.webhook")
+@Data
+public class WebhookConfig {
+
+    /**
+     * Webhook 처리 큐 설정
+     */
+    private IngestConfig ingest = new IngestConfig();
+
+    /**
+     * 재전송된 webhook 중복 처리 방지 설정
+     */
+    private DedupConfig dedup = new DedupConfig();
+
+    public enum IngestMode {
+        /**
+         * 요청 스레드에서 바로 처리한 뒤 응답 (기존 동작)
+         */
+        SYNC,
+
+        /**
+         * 큐에 넣고 바로 응답, todo 별 lane 에서 순서대로 처리
+         */
+        ASYNC
+    }
+
+    public enum OverflowPolicy {
+        /**
+         * lane 이 가득 차면 offer-timeout 만큼 기다린 뒤 버림
+         */
+        BLOCK,
+
+        /**
+         * lane 이 가득 차면 즉시 버림
+         */
+        DROP,
+
+        /**
+         * lane 이 가득 차면 요청 스레드에서 직접 처리 (같은 todo 의 대기 중 이벤트보다 먼저 처리될 수 있음)
+         */
+        CALLER_RUNS
+    }
+
+    @Data
+    public static class IngestConfig {
+        /**
+         * SYNC 또는 ASYNC
+         */
+        private IngestMode mode = IngestMode.SYNC;
+
+        /**
+         * 처리 lane(스레드) 수. 같은 todo 의 이벤트는 항상 같은 lane 에서 순서대로 처리
+         */
+        private int lanes = 8;
+
+        /**
+         * lane 별 대기 큐 최대 크기
+         */
+        private int laneCapacity = 1_000;
+
+        /**
+         * lane 이 가득 찼을 때의 처리 방식
+         */
+        private OverflowPolicy overflowPolicy = OverflowPolicy.CALLER_RUNS;
+
+        /**
+         * BLOCK 정책에서 큐 자리를 기다리는 최대 시간 (ms)
+         */
+        private long offerTimeoutMs = 100;
+
+        /**
+         * 종료 시 남은 이벤트를 처리하기 위해 기다리는 최대 시간 (ms)
+         */
+        private long shutdownTimeoutMs = 10_000;
+
+        /**
+         * batch 요청 하나에 허용하는 최대 이벤트 수
+         */
+        private int maxBatchSize = 5_000;
+    }
+
+    @Data
+    public static class DedupConfig {
+        /**
+         * 중복 이벤트 무시 여부
+         */
+        private boolean enabled = true;
+
+        /**
+         * 메모리에 유지하는 최근 이벤트 키 수 (LRU)
+         */
+        private int cacheSize = 100_000;
+
+        /**
+         * 키를 processed_webhook_event 테이블에도 저장할 이벤트 (재시작 후에도 중복 인식)
+         * 이벤트 처리와 같은 트랜잭션에서 저장되므로, 상태를 진행시키는 이벤트만 기본 포함
+         * (비우면 메모리에서만 중복 확인)
+         */
+        private Set<String> persistentEvents = new LinkedHashSet<>(List.of("step_update", "session_complete"));
+
+        /**
+         * 저장된 이벤트 키 보관 시간 (시간). 이후 도착한 재전송은 다시 처리됨
+         */
+        private int retentionHours = 24;
+
+        /**
+         * 만료된 이벤트 키 정리 주기 (ms)
+         */
+        private long sweepIntervalMs = 3_600_000;
+    }
+}
@@ -0,0 +1,32 @@
+package io.threadcast.controller;
+
+import io.threadcast.dto.response.ApiResponse;
+import io.threadcast.dto.response.LaunchQueueResponse;
+import io.threadcast.service.terminal.TodoLaunchScheduler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+/**
+ * REST API for the auto-start launch queue.
+ * Live updates for a mission are sent as LAUNCH_QUEUE events on /topic/missions/{missionId}.
+ */
+@RestController
+@RequestMapping("/api/launch-queue")
+@RequiredArgsConstructor
+public class LaunchQueueController {
+
+    private final TodoLaunchScheduler launchScheduler;
+
+    /**
+     * Queued, launching and running auto-started todos, optionally for one mission or workspace.
+     */
+    @GetMapping
+    public ResponseEntity<ApiResponse<LaunchQueueResponse>> getQueue(
+            @RequestParam(required = false) UUID missionId,
+            @RequestParam(required = false) UUID workspaceId) {
+        return ResponseEntity.ok(ApiResponse.success(launchScheduler.snapshot(missionId, workspaceId)));
+    }
+}
@@ -9,6 +9,7 @@ import io.threadcast.dto.request.UpdateMetaRequest;
 import io.threadcast.dto.request.UpdateMissionStatusRequest;
 import io.threadcast.dto.response.AIAnalysisResponse;
 import io.threadcast.dto.response.ApiResponse;
+import io.threadcast.dto.response.CursorPage;
 import io.threadcast.dto.response.MissionResponse;
 import io.threadcast.exception.NotFoundException;
 import io.threadcast.repository.MissionRepository;
@@ -51,6 +52,19 @@ public class MissionController {
         return ResponseEntity.ok(ApiResponse.success(missions));
     }
 
+    /**
+     * Cursor-paginated mission list, newest first.
+     */
+    @GetMapping("/scroll")
+    public ResponseEntity<ApiResponse<CursorPage<MissionResponse>>> scrollMissions(
+            @RequestParam UUID workspaceId,
+            @RequestParam(required = false) MissionStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<MissionResponse> missions = missionService.getMissions(workspaceId, status, cursor, size);
+        return ResponseEntity.ok(ApiResponse.success(missions));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<MissionResponse>> getMission(@PathVariable UUID id) {
         MissionResponse mission = missionService.getMission(id);
@@ -3,18 +3,20 @@ package io.threadcast.controller;
 import io.threadcast.dto.request.SendKeysRequest;
 import io.threadcast.dto.response.ApiResponse;
 import io.threadcast.dto.response.TerminalStatusResponse;
+import io.threadcast.service.terminal.TerminalRecorder;
+import io.threadcast.service.terminal.TerminalScreenHub;
 import io.threadcast.service.terminal.TodoTerminalService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.io.IOException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.time.Instant;
+import java.util.List;
 
 /**
  * REST API for managing Todo terminal sessions.
@@ -26,7 +28,8 @@ import java.util.concurrent.Executors;
 public class TerminalController {
 
     private final TodoTerminalService terminalService;
-    private final ExecutorService sseExecutor = Executors.newCachedThreadPool();
+    private final TerminalScreenHub screenHub;
+    private final TerminalRecorder recorder;
 
     /**
      * Start a terminal session for a Todo.
@@ -100,37 +103,65 @@ public class TerminalController {
 
     /**
      * Stream terminal screen updates via Server-Sent Events.
+     * All viewers of a Todo share one screen subscription.
+     * With delta=true the stream starts with a keyframe and then sends only changed lines
+     * ("screen-delta" events) between periodic keyframes.
      */
     @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public SseEmitter streamScreen(@PathVariable String todoId) {
+    public SseEmitter streamScreen(
+            @PathVariable String todoId,
+            @RequestParam(defaultValue = "false") boolean delta) {
         SseEmitter emitter = new SseEmitter(0L);  // No timeout
 
-        sseExecutor.execute(() -> {
-            try {
-                var subscription = terminalService.subscribeToScreen(todoId, data -> {
-                    try {
-                        emitter.send(SseEmitter.event()
-                            .name("screen")
-                            .data(data.getBase64Content()));
-                    } catch (IOException e) {
-                        log.debug("SSE send failed for todo {}: {}", todoId, e.getMessage());
-                        emitter.completeWithError(e);
-                    }
-                });
-
-                emitter.onCompletion(subscription::dispose);
-                emitter.onTimeout(subscription::dispose);
-                emitter.onError(e -> subscription.dispose());
-
-            } catch (Exception e) {
-                log.error("Failed to start screen stream for todo {}: {}", todoId, e.getMessage());
-                emitter.completeWithError(e);
-            }
-        });
+        try {
+            screenHub.join(todoId, emitter, delta);
+        } catch (Exception e) {
+            log.error("Failed to start screen stream for todo {}: {}", todoId, e.getMessage());
+            emitter.completeWithError(e);
+        }
 
         return emitter;
     }
 
+    /**
+     * Ask for a keyframe on the next screen update (delta stream client that lost its base frame).
+     */
+    @PostMapping("/stream/keyframe")
+    public ResponseEntity<ApiResponse<Void>> requestKeyframe(@PathVariable String todoId) {
+        screenHub.requestKeyframe(todoId);
+        return ResponseEntity.ok(ApiResponse.success(null));
+    }
+
+    /**
+     * Get the Todo's terminal recording summary.
+     */
+    @GetMapping("/recording")
+    public ResponseEntity<ApiResponse<TerminalRecorder.RecordingInfo>> getRecording(@PathVariable String todoId) {
+        return recorder.info(todoId)
+            .map(info -> ResponseEntity.ok(ApiResponse.success(info)))
+            .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(ApiResponse.error("RECORDING_NOT_FOUND", "No terminal recording for todo: " + todoId)));
+    }
+
+    /**
+     * Get recorded screens for playback: the screen at {@code from} (epoch ms) and the changes after it.
+     */
+    @GetMapping("/recording/frames")
+    public ResponseEntity<ApiResponse<List<TerminalRecorder.RecordedFrame>>> getRecordedFrames(
+            @PathVariable String todoId,
+            @RequestParam long from,
+            @RequestParam(defaultValue = "1") int limit) {
+        try {
+            List<TerminalRecorder.RecordedFrame> frames =
+                recorder.frames(todoId, Instant.ofEpochMilli(from), Math.min(limit, 1000));
+            return ResponseEntity.ok(ApiResponse.success(frames));
+        } catch (Exception e) {
+            log.error("Failed to read terminal recording for todo {}: {}", todoId, e.getMessage());
+            return ResponseEntity.internalServerError()
+                .body(ApiResponse.error("RECORDING_READ_ERROR", "Failed to read recording: " + e.getMessage()));
+        }
+    }
+
     /**
      * Get terminal status for a Todo.
      */
@@ -141,6 +172,8 @@ public class TerminalController {
             .sessionName(terminalService.getSessionName(todoId))
             .sessionActive(terminalService.isSessionActive(todoId))
             .activeSessions(terminalService.getActiveSessions())
+            .viewers(screenHub.viewerCount(todoId))
+            .viewerCounts(screenHub.viewerCounts())
             .build();
 
         return ResponseEntity.ok(ApiResponse.success(status));
@@ -2,19 +2,29 @@ package io.threadcast.controller;
 
 import io.threadcast.domain.enums.ActorType;
 import io.threadcast.domain.enums.EventType;
+import io.threadcast.dto.request.TimelineFilter;
 import io.threadcast.dto.response.ApiResponse;
+import io.threadcast.dto.response.CursorPage;
 import io.threadcast.dto.response.TimelineEventResponse;
 import io.threadcast.service.TimelineService;
+import io.threadcast.service.timeline.TimelineExportService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
 import java.util.Map;
 import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/timeline")
@@ -22,10 +32,12 @@ import java.util.UUID;
 public class TimelineController {
 
     private final TimelineService timelineService;
+    private final TimelineExportService timelineExportService;
 
     /**
-     * Get timeline events with various filters.
+     * Get timeline events with various filters. All given filters are combined (AND).
      * workspaceId is optional when todoId is provided (for todo-specific timelines).
+     * from/to are ISO date-times bounding createdAt (inclusive).
      */
     @GetMapping
     public ResponseEntity<ApiResponse<Page<TimelineEventResponse>>> getTimeline(
@@ -34,27 +46,129 @@ public class TimelineController {
             @RequestParam(required = false) UUID todoId,
             @RequestParam(required = false) EventType eventType,
             @RequestParam(required = false) ActorType actorType,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
             @PageableDefault(size = 50, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
         // workspaceId is required unless todoId is provided
         if (workspaceId == null && todoId == null) {
             return ResponseEntity.badRequest().body(
                 ApiResponse.error("VALIDATION_ERROR", "workspaceId is required when todoId is not provided"));
         }
-        Page<TimelineEventResponse> events = timelineService.getTimeline(
-                workspaceId, missionId, todoId, eventType, actorType, pageable);
+        TimelineFilter filter = TimelineFilter.builder()
+                .workspaceId(workspaceId)
+                .missionId(missionId)
+                .todoId(todoId)
+                .eventType(eventType)
+                .actorType(actorType)
+                .from(from)
+                .to(to)
+                .build();
+        Page<TimelineEventResponse> events = timelineService.getTimeline(filter, pageable);
         return ResponseEntity.ok(ApiResponse.success(events));
     }
 
+    /**
+     * Cursor-paginated timeline for infinite scroll.
+     * Pass the returned nextCursor to load the next (older) page.
+     */
+    @GetMapping("/scroll")
+    public ResponseEntity<ApiResponse<CursorPage<TimelineEventResponse>>> scrollTimeline(
+            @RequestParam(required = false) UUID workspaceId,
+            @RequestParam(required = false) UUID missionId,
+            @RequestParam(required = false) UUID todoId,
+            @RequestParam(required = false) EventType eventType,
+            @RequestParam(required = false) ActorType actorType,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        if (workspaceId == null && todoId == null) {
+            return ResponseEntity.badRequest().body(
+                ApiResponse.error("VALIDATION_ERROR", "workspaceId is required when todoId is not provided"));
+        }
+        TimelineFilter filter = TimelineFilter.builder()
+                .workspaceId(workspaceId)
+                .missionId(missionId)
+                .todoId(todoId)
+                .eventType(eventType)
+                .actorType(actorType)
+                .from(from)
+                .to(to)
+                .build();
+        CursorPage<TimelineEventResponse> events = timelineService.getTimeline(filter, cursor, size);
+        return ResponseEntity.ok(ApiResponse.success(events));
+    }
+
+    /**
+     * Stream every matching event as NDJSON or CSV, oldest first, including events already
+     * moved to archive segments. Output is written while rows are read, so exports of any
+     * size use constant memory.
+     * gzip defaults to true for CSV and false for NDJSON.
+     */
+    @GetMapping("/export")
+    public void exportTimeline(
+            @RequestParam(required = false) UUID workspaceId,
+            @RequestParam(required = false) UUID missionId,
+            @RequestParam(required = false) UUID todoId,
+            @RequestParam(required = false) EventType eventType,
+            @RequestParam(required = false) ActorType actorType,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) Boolean gzip,
+            HttpServletResponse response) throws IOException {
+        TimelineExportService.Format exportFormat = TimelineExportService.Format.parse(format);
+        boolean compress = gzip != null ? gzip : exportFormat == TimelineExportService.Format.CSV;
+        TimelineFilter filter = TimelineFilter.builder()
+                .workspaceId(workspaceId)
+                .missionId(missionId)
+                .todoId(todoId)
+                .eventType(eventType)
+                .actorType(actorType)
+                .from(from)
+                .to(to)
+                .build();
+        filter.validate();
+
+        String fileName = "timeline-" + (workspaceId != null ? workspaceId : todoId) + "."
+                + exportFormat.getExtension() + (compress ? ".gz" : "");
+        response.setContentType(compress ? "application/gzip" : exportFormat.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+
+        OutputStream out = response.getOutputStream();
+        timelineExportService.export(filter, exportFormat, compress ? new GZIPOutputStream(out, 64 * 1024) : out);
+    }
+
     @GetMapping("/stats/today")
     public ResponseEntity<ApiResponse<Map<String, Object>>> getTodayStats(@RequestParam UUID workspaceId) {
         Map<String, Object> stats = timelineService.getTodayStats(workspaceId);
         return ResponseEntity.ok(ApiResponse.success(stats));
     }
 
+    /**
+     * Daily event counts for the last N days, served from the rollup table.
+     */
+    @GetMapping("/stats/daily")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getDailyStats(
+            @RequestParam UUID workspaceId,
+            @RequestParam(defaultValue = "7") int days) {
+        Map<String, Object> stats = timelineService.getDailyStats(workspaceId, days);
+        return ResponseEntity.ok(ApiResponse.success(stats));
+    }
+
     @GetMapping("/recent")
     public ResponseEntity<ApiResponse<Page<TimelineEventResponse>>> getRecentActivity(
             @PageableDefault(size = 10, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
         Page<TimelineEventResponse> events = timelineService.getRecentActivity(pageable);
         return ResponseEntity.ok(ApiResponse.success(events));
     }
+
+    @GetMapping("/recent/scroll")
+    public ResponseEntity<ApiResponse<CursorPage<TimelineEventResponse>>> scrollRecentActivity(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<TimelineEventResponse> events = timelineService.getRecentActivity(cursor, size);
+        return ResponseEntity.ok(ApiResponse.success(events));
+    }
 }
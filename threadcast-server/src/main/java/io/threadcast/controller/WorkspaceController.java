@@ -133,7 +133,8 @@ public class WorkspaceController {
         return ResponseEntity.ok(ApiResponse.success(new WorkspaceSettingsResponse(
                 workspace.getId(),
                 workspace.getAutonomy(),
-                workspace.getMeta()
+                workspace.getMeta(),
+                workspace.getTimelineRetentionDays()
         )));
     }
 
@@ -155,12 +156,17 @@ public class WorkspaceController {
         if (request.meta() != null) {
             workspace.setMeta(request.meta());
         }
+        if (request.timelineRetentionDays() != null) {
+            // 0 or less disables archival for this workspace
+            workspace.setTimelineRetentionDays(Math.max(0, request.timelineRetentionDays()));
+        }
 
         workspace = workspaceRepository.save(workspace);
         return ResponseEntity.ok(ApiResponse.success(new WorkspaceSettingsResponse(
                 workspace.getId(),
                 workspace.getAutonomy(),
-                workspace.getMeta()
+                workspace.getMeta(),
+                workspace.getTimelineRetentionDays()
         )));
     }
 
@@ -416,12 +422,14 @@ public class WorkspaceController {
     public record WorkspaceSettingsResponse(
             UUID id,
             Integer autonomy,
-            String meta
+            String meta,
+            Integer timelineRetentionDays
     ) {}
 
     public record UpdateSettingsRequest(
             Integer autonomy,
-            String meta
+            String meta,
+            Integer timelineRetentionDays
     ) {}
 
     private UUID getUserIdFromToken(String authHeader) {
@@ -2,7 +2,9 @@ package io.threadcast.controller.admin;
 
 import io.threadcast.domain.Mission;
 import io.threadcast.domain.enums.MissionStatus;
+import io.threadcast.dto.request.PageCursor;
 import io.threadcast.dto.response.ApiResponse;
+import io.threadcast.dto.response.CursorPage;
 import io.threadcast.dto.response.admin.AdminMissionResponse;
 import io.threadcast.exception.NotFoundException;
 import io.threadcast.repository.MissionRepository;
@@ -54,6 +56,29 @@ public class AdminMissionController {
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 
+    /**
+     * Cursor-paginated mission list. Filters are applied in the query, not on the page.
+     */
+    @GetMapping("/scroll")
+    @Transactional(readOnly = true)
+    public ResponseEntity<ApiResponse<CursorPage<AdminMissionResponse>>> scrollMissions(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String search) {
+        PageCursor position = PageCursor.decode(cursor);
+        int limit = PageCursor.clampSize(size);
+        MissionStatus statusFilter = status == null || status.isEmpty() || status.equals("All")
+                ? null : MissionStatus.valueOf(status);
+        String titlePattern = search == null || search.isEmpty() ? null : "%" + search.toLowerCase() + "%";
+
+        List<Mission> rows = missionRepository.findAllBefore(
+                statusFilter, titlePattern, position.createdAt(), position.id(), PageRequest.of(0, limit + 1));
+
+        return ResponseEntity.ok(ApiResponse.success(
+                CursorPage.of(rows, limit, Mission::getCreatedAt, Mission::getId, AdminMissionResponse::from)));
+    }
+
     @GetMapping("/{id}")
     @Transactional(readOnly = true)
     public ResponseEntity<ApiResponse<AdminMissionResponse>> getMission(@PathVariable java.util.UUID id) {
@@ -1,7 +1,9 @@
 package io.threadcast.controller.admin;
 
 import io.threadcast.domain.Workspace;
+import io.threadcast.dto.request.PageCursor;
 import io.threadcast.dto.response.ApiResponse;
+import io.threadcast.dto.response.CursorPage;
 import io.threadcast.dto.response.admin.AdminWorkspaceResponse;
 import io.threadcast.exception.NotFoundException;
 import io.threadcast.repository.WorkspaceRepository;
@@ -51,6 +53,26 @@ public class AdminWorkspaceController {
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 
+    /**
+     * Cursor-paginated workspace list. The name filter is applied in the query, not on the page.
+     */
+    @GetMapping("/scroll")
+    @Transactional(readOnly = true)
+    public ResponseEntity<ApiResponse<CursorPage<AdminWorkspaceResponse>>> scrollWorkspaces(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String search) {
+        PageCursor position = PageCursor.decode(cursor);
+        int limit = PageCursor.clampSize(size);
+        String namePattern = search == null || search.isEmpty() ? null : "%" + search.toLowerCase() + "%";
+
+        List<Workspace> rows = workspaceRepository.findAllBefore(
+                namePattern, position.createdAt(), position.id(), PageRequest.of(0, limit + 1));
+
+        return ResponseEntity.ok(ApiResponse.success(
+                CursorPage.of(rows, limit, Workspace::getCreatedAt, Workspace::getId, AdminWorkspaceResponse::from)));
+    }
+
     @GetMapping("/{id}")
     @Transactional(readOnly = true)
     public ResponseEntity<ApiResponse<AdminWorkspaceResponse>> getWorkspace(@PathVariable UUID id) {
@@ -11,7 +11,11 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
-@Table(name = "mission")
+@Table(name = "mission", indexes = {
+    @Index(name = "idx_mission_created_id", columnList = "created_at DESC, id DESC"),
+    @Index(name = "idx_mission_workspace_created_id", columnList = "workspace_id, created_at DESC, id DESC"),
+    @Index(name = "idx_mission_workspace_status_created_id", columnList = "workspace_id, status, created_at DESC, id DESC")
+})
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
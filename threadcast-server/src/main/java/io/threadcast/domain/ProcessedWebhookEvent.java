@@ -0,0 +1,31 @@
+package io.threadcast.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Key of a webhook event that has already been handled.
+ * Lets retried webhooks be recognised as duplicates after a restart; rows older than the
+ * dedup retention are swept (see WebhookDeduplicator).
+ */
+@Entity
+@Table(name = "processed_webhook_event", indexes = {
+    @Index(name = "idx_processed_webhook_received_at", columnList = "received_at")
+})
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor
+public class ProcessedWebhookEvent {
+
+    /**
+     * SHA-256 (hex) of the event id, or of the event content when no id is sent.
+     */
+    @Id
+    @Column(name = "event_key", length = 64)
+    private String eventKey;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+}
@@ -4,6 +4,7 @@ import io.threadcast.domain.enums.SessionStatus;
 import io.threadcast.domain.enums.StepType;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -18,6 +19,7 @@ import java.util.UUID;
  * - SwiftCast trace IDs (sentry-trace)
  */
 @Entity
+@DynamicUpdate
 @Table(name = "terminal_session_mapping", indexes = {
     @Index(name = "idx_tmux_session_name", columnList = "tmuxSessionName"),
     @Index(name = "idx_session_status", columnList = "status")
@@ -47,7 +49,8 @@ public class TerminalSessionMapping extends BaseTimeEntity {
     @ElementCollection
     @CollectionTable(
         name = "terminal_session_trace_ids",
-        joinColumns = @JoinColumn(name = "mapping_id")
+        joinColumns = @JoinColumn(name = "mapping_id"),
+        indexes = @Index(name = "idx_trace_id", columnList = "trace_id")
     )
     @Column(name = "trace_id", length = 64)
     @Builder.Default
@@ -76,6 +79,8 @@ public class TerminalSessionMapping extends BaseTimeEntity {
 
     /**
      * Total API token usage for this session.
+     * Only incremented in place by the repository (see TokenUsageAccumulator); with dynamic
+     * updates, saving the mapping for other changes never writes back a stale total.
      */
     @Builder.Default
     private Long totalInputTokens = 0L;
@@ -120,15 +125,6 @@ public class TerminalSessionMapping extends BaseTimeEntity {
         this.lastActivityAt = LocalDateTime.now();
     }
 
-    /**
-     * Add token usage.
-     */
-    public void addTokenUsage(long inputTokens, long outputTokens) {
-        this.totalInputTokens += inputTokens;
-        this.totalOutputTokens += outputTokens;
-        updateActivity();
-    }
-
     /**
      * Mark session as stopped.
      */
@@ -0,0 +1,61 @@
+package io.threadcast.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Index entry for one compressed, immutable file of archived timeline events.
+ * The file holds every archived event of the workspace in [fromTime, toTime].
+ */
+@Entity
+@Table(name = "timeline_archive_segment", indexes = {
+    @Index(name = "idx_archive_segment_workspace_to", columnList = "workspace_id, to_time DESC")
+})
+@Getter
+@Setter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor
+@Builder
+public class TimelineArchiveSegment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "workspace_id", nullable = false)
+    private UUID workspaceId;
+
+    @Column(name = "from_time", nullable = false)
+    private LocalDateTime fromTime;
+
+    @Column(name = "to_time", nullable = false)
+    private LocalDateTime toTime;
+
+    @Column(nullable = false)
+    private Integer eventCount;
+
+    @Column(nullable = false, length = 1000)
+    private String path;
+
+    @Column(nullable = false)
+    private Long sizeBytes;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    public static TimelineArchiveSegment create(UUID workspaceId, LocalDateTime fromTime, LocalDateTime toTime,
+                                                int eventCount, String path, long sizeBytes) {
+        return TimelineArchiveSegment.builder()
+                .workspaceId(workspaceId)
+                .fromTime(fromTime)
+                .toTime(toTime)
+                .eventCount(eventCount)
+                .path(path)
+                .sizeBytes(sizeBytes)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
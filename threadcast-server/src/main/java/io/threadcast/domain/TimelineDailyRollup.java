@@ -0,0 +1,43 @@
+package io.threadcast.domain;
+
+import io.threadcast.domain.enums.EventType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Per-day event counts for a workspace.
+ * Maintained incrementally as timeline events are written, so dashboard stats
+ * never have to count rows in timeline_event.
+ */
+@Entity
+@Table(name = "timeline_daily_rollup", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_timeline_rollup_key", columnNames = {"workspace_id", "event_date", "event_type"})
+})
+@Getter
+@Setter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor
+@Builder
+public class TimelineDailyRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "workspace_id", nullable = false)
+    private UUID workspaceId;
+
+    @Column(name = "event_date", nullable = false)
+    private LocalDate eventDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false)
+    private EventType eventType;
+
+    @Column(name = "event_count", nullable = false)
+    @Builder.Default
+    private Long eventCount = 0L;
+}
@@ -12,7 +12,14 @@ import java.util.Map;
 import java.util.UUID;
 
 @Entity
-@Table(name = "timeline_event")
+@Table(name = "timeline_event", indexes = {
+    @Index(name = "idx_timeline_created_id", columnList = "created_at DESC, id DESC"),
+    @Index(name = "idx_timeline_workspace_created_id", columnList = "workspace_id, created_at DESC, id DESC"),
+    @Index(name = "idx_timeline_workspace_created_type_actor",
+            columnList = "workspace_id, created_at DESC, event_type, actor_type"),
+    @Index(name = "idx_timeline_mission_created_id", columnList = "mission_id, created_at DESC, id DESC"),
+    @Index(name = "idx_timeline_todo_created_id", columnList = "todo_id, created_at DESC, id DESC")
+})
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
@@ -56,7 +63,10 @@ public class TimelineEvent {
 
     @PrePersist
     protected void onCreate() {
-        this.createdAt = LocalDateTime.now();
+        // Coalesced events carry the time of their first activity
+        if (this.createdAt == null) {
+            this.createdAt = LocalDateTime.now();
+        }
     }
 
     public static TimelineEvent create(Workspace workspace, Mission mission, Todo todo,
@@ -8,7 +8,9 @@ import java.util.Set;
 import java.util.UUID;
 
 @Entity
-@Table(name = "workspace")
+@Table(name = "workspace", indexes = {
+    @Index(name = "idx_workspace_created_id", columnList = "created_at DESC, id DESC")
+})
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
@@ -51,6 +53,12 @@ public class Workspace extends BaseTimeEntity {
     @Builder.Default
     private Integer autonomy = 50;
 
+    /**
+     * Timeline 이벤트를 hot 테이블에 남겨둘 일수.
+     * null 이면 threadcast.timeline.retention.default-retention-days, 0 이하면 아카이브하지 않음
+     */
+    private Integer timelineRetentionDays;
+
     /**
      * 워크스페이스 메타데이터 (JSON)
      * 모든 Mission/Todo에 상속됨
@@ -0,0 +1,58 @@
+package io.threadcast.dto.request;
+
+import io.threadcast.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Keyset position for feeds ordered by (createdAt DESC, id DESC).
+ * Clients only ever see the opaque encoded form.
+ */
+public record PageCursor(LocalDateTime createdAt, UUID id) {
+
+    /**
+     * Position before the newest row - used when no cursor is given.
+     */
+    public static final PageCursor FIRST = new PageCursor(
+            LocalDateTime.of(9999, 12, 31, 23, 59, 59),
+            new UUID(-1L, -1L));
+
+    public static final int DEFAULT_SIZE = 50;
+    public static final int MAX_SIZE = 100;
+
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor from a request. A null or blank cursor means the first page.
+     */
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return FIRST;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new PageCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    UUID.fromString(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        }
+    }
+
+    /**
+     * Clamp a requested page size to [1, MAX_SIZE].
+     */
+    public static int clampSize(Integer size) {
+        if (size == null) {
+            return DEFAULT_SIZE;
+        }
+        return Math.max(1, Math.min(size, MAX_SIZE));
+    }
+}
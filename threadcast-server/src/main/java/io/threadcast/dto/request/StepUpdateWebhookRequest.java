@@ -23,6 +23,13 @@ import lombok.Data;
 @Data
 public class StepUpdateWebhookRequest {
 
+    /**
+     * Unique ID of the event, the same on every retry.
+     * Optional - without it, retries are recognised by content and timestamp.
+     */
+    @JsonProperty("event_id")
+    private String eventId;
+
     @JsonProperty("todo_id")
     private String todoId;
 
@@ -8,6 +8,12 @@ import lombok.Data;
 public class SwiftcastWebhookRequest {
     private String event;
 
+    /**
+     * Unique ID of the event, the same on every retry. Optional.
+     */
+    @JsonProperty("event_id")
+    private String eventId;
+
     @JsonProperty("todo_id")
     private String todoId;
 
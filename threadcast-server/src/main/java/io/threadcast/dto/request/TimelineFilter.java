@@ -0,0 +1,48 @@
+package io.threadcast.dto.request;
+
+import io.threadcast.domain.enums.ActorType;
+import io.threadcast.domain.enums.EventType;
+import io.threadcast.exception.BadRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Timeline query filters. Every field is optional and any combination is
+ * applied together (AND) in a single query.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimelineFilter {
+
+    private UUID workspaceId;
+    private UUID missionId;
+    private UUID todoId;
+    private EventType eventType;
+    private ActorType actorType;
+
+    /**
+     * Inclusive lower bound on createdAt
+     */
+    private LocalDateTime from;
+
+    /**
+     * Inclusive upper bound on createdAt
+     */
+    private LocalDateTime to;
+
+    public void validate() {
+        if (workspaceId == null && todoId == null) {
+            throw new BadRequestException("workspaceId is required when todoId is not provided");
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new BadRequestException("from must not be after to");
+        }
+    }
+}
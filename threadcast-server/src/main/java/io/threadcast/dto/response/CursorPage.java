@@ -0,0 +1,49 @@
+package io.threadcast.dto.response;
+
+import io.threadcast.dto.request.PageCursor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated feed.
+ * No total count is computed; pass nextCursor back to fetch the following page.
+ */
+@Data
+@Builder
+public class CursorPage<T> {
+
+    private List<T> content;
+    private String nextCursor;
+    private boolean hasNext;
+    private int size;
+
+    /**
+     * Build a page from rows fetched with limit size + 1.
+     * The extra row only signals that another page exists and is not returned.
+     */
+    public static <E, T> CursorPage<T> of(List<E> rows, int size,
+                                          Function<E, LocalDateTime> createdAt,
+                                          Function<E, UUID> id,
+                                          Function<E, T> mapper) {
+        boolean hasNext = rows.size() > size;
+        List<E> page = hasNext ? rows.subList(0, size) : rows;
+
+        String nextCursor = null;
+        if (hasNext) {
+            E last = page.get(page.size() - 1);
+            nextCursor = new PageCursor(createdAt.apply(last), id.apply(last)).encode();
+        }
+
+        return CursorPage.<T>builder()
+                .content(page.stream().map(mapper).toList())
+                .nextCursor(nextCursor)
+                .hasNext(hasNext)
+                .size(size)
+                .build();
+    }
+}
@@ -0,0 +1,53 @@
+package io.threadcast.dto.response;
+
+import io.threadcast.domain.enums.Priority;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Auto-start launch queue: which todos wait for a slot, which are being launched
+ * (worktree + Claude start-up) and which hold a slot while Claude runs.
+ * Returned by the API and sent via WebSocket (LAUNCH_QUEUE) to the mission topic.
+ */
+@Data
+@Builder
+public class LaunchQueueResponse {
+
+    private int maxConcurrent;
+    private int maxConcurrentPerWorkspace;
+
+    private int queued;
+    private int launching;
+    private int running;
+
+    private List<Entry> todos;
+
+    public enum State {
+        QUEUED,
+        LAUNCHING,
+        RUNNING
+    }
+
+    @Data
+    @Builder
+    public static class Entry {
+        private UUID todoId;
+        private UUID missionId;
+        private UUID workspaceId;
+        private String title;
+        private Priority priority;
+        private State state;
+
+        /**
+         * 1-based place in the mission's queue (QUEUED only).
+         */
+        private Integer queuePosition;
+
+        private LocalDateTime queuedAt;
+        private LocalDateTime launchedAt;
+    }
+}
@@ -17,4 +17,14 @@ public class TerminalStatusResponse {
     private String sessionName;
     private boolean sessionActive;
     private Map<String, String> activeSessions;
+
+    /**
+     * SSE clients currently watching this Todo's screen.
+     */
+    private int viewers;
+
+    /**
+     * todoId -> screen viewer count, for Todos with viewers.
+     */
+    private Map<String, Integer> viewerCounts;
 }
@@ -0,0 +1,92 @@
+package io.threadcast.dto.response;
+
+import io.threadcast.dto.request.SwiftcastWebhookRequest;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a SwiftCast webhook batch, one result per event in request order.
+ */
+@Data
+@Builder
+public class WebhookBatchResponse {
+
+    private int total;
+    private int processed;
+    private int queued;
+    private int skipped;
+    private int failed;
+    private int dropped;
+    private int duplicate;
+
+    private List<Result> results;
+
+    public enum Status {
+        /**
+         * Handled before the response was sent
+         */
+        PROCESSED,
+
+        /**
+         * Accepted into the todo's lane, handled after the response
+         */
+        QUEUED,
+
+        /**
+         * Unknown event type, ignored
+         */
+        SKIPPED,
+
+        /**
+         * Handling threw, or the todo group's transaction rolled back
+         */
+        FAILED,
+
+        /**
+         * The todo's lane was full
+         */
+        DROPPED,
+
+        /**
+         * Already handled, ignored
+         */
+        DUPLICATE
+    }
+
+    @Data
+    @Builder
+    public static class Result {
+        private int index;
+        private String event;
+        private String todoId;
+        private Status status;
+    }
+
+    public static WebhookBatchResponse of(List<SwiftcastWebhookRequest> requests, List<Status> statuses) {
+        List<Result> results = new ArrayList<>(requests.size());
+        int[] counts = new int[Status.values().length];
+        for (int i = 0; i < requests.size(); i++) {
+            Status status = statuses.get(i);
+            counts[status.ordinal()]++;
+            results.add(Result.builder()
+                    .index(i)
+                    .event(requests.get(i).getEvent())
+                    .todoId(requests.get(i).getTodoId())
+                    .status(status)
+                    .build());
+        }
+        return WebhookBatchResponse.builder()
+                .total(requests.size())
+                .processed(counts[Status.PROCESSED.ordinal()])
+                .queued(counts[Status.QUEUED.ordinal()])
+                .skipped(counts[Status.SKIPPED.ordinal()])
+                .failed(counts[Status.FAILED.ordinal()])
+                .dropped(counts[Status.DROPPED.ordinal()])
+                .duplicate(counts[Status.DUPLICATE.ordinal()])
+                .results(results)
+                .build();
+    }
+}
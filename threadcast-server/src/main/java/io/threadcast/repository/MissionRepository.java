@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -18,6 +19,44 @@ public interface MissionRepository extends JpaRepository<Mission, UUID> {
 
     Page<Mission> findByWorkspaceIdAndStatus(UUID workspaceId, MissionStatus status, Pageable pageable);
 
+    /**
+     * Keyset page of a workspace's missions in (createdAt DESC, id DESC) order.
+     */
+    @Query("SELECT m FROM Mission m WHERE m.workspace.id = :workspaceId " +
+           "AND m.createdAt <= :createdAt AND (m.createdAt < :createdAt OR m.id < :id) " +
+           "ORDER BY m.createdAt DESC, m.id DESC")
+    List<Mission> findByWorkspaceIdBefore(
+            @Param("workspaceId") UUID workspaceId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") UUID id,
+            Pageable limit);
+
+    @Query("SELECT m FROM Mission m WHERE m.workspace.id = :workspaceId AND m.status = :status " +
+           "AND m.createdAt <= :createdAt AND (m.createdAt < :createdAt OR m.id < :id) " +
+           "ORDER BY m.createdAt DESC, m.id DESC")
+    List<Mission> findByWorkspaceIdAndStatusBefore(
+            @Param("workspaceId") UUID workspaceId,
+            @Param("status") MissionStatus status,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") UUID id,
+            Pageable limit);
+
+    /**
+     * Keyset page of all missions for the admin console.
+     * status and titlePattern (already lower-cased, with wildcards) are optional.
+     */
+    @Query("SELECT m FROM Mission m JOIN FETCH m.workspace " +
+           "WHERE (:status IS NULL OR m.status = :status) " +
+           "AND (:titlePattern IS NULL OR LOWER(m.title) LIKE :titlePattern) " +
+           "AND m.createdAt <= :createdAt AND (m.createdAt < :createdAt OR m.id < :id) " +
+           "ORDER BY m.createdAt DESC, m.id DESC")
+    List<Mission> findAllBefore(
+            @Param("status") MissionStatus status,
+            @Param("titlePattern") String titlePattern,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") UUID id,
+            Pageable limit);
+
     List<Mission> findByWorkspaceIdAndStatusIn(UUID workspaceId, List<MissionStatus> statuses);
 
     @Query("SELECT m FROM Mission m LEFT JOIN FETCH m.todos WHERE m.id = :id")
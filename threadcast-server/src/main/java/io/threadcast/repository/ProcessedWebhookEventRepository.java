@@ -0,0 +1,19 @@
+package io.threadcast.repository;
+
+import io.threadcast.domain.ProcessedWebhookEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface ProcessedWebhookEventRepository extends JpaRepository<ProcessedWebhookEvent, String> {
+
+    /**
+     * Forget event keys received before the cutoff.
+     */
+    @Modifying
+    @Query("DELETE FROM ProcessedWebhookEvent e WHERE e.receivedAt < :cutoff")
+    int deleteReceivedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
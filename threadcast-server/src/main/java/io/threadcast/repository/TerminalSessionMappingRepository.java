@@ -3,9 +3,11 @@ package io.threadcast.repository;
 import io.threadcast.domain.TerminalSessionMapping;
 import io.threadcast.domain.enums.SessionStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -24,8 +26,9 @@ public interface TerminalSessionMappingRepository extends JpaRepository<Terminal
 
     /**
      * Find mapping by SwiftCast trace ID.
+     * Joins the trace table on its indexed trace_id column instead of a MEMBER OF subquery per mapping.
      */
-    @Query("SELECT m FROM TerminalSessionMapping m WHERE :traceId MEMBER OF m.swiftcastTraceIds")
+    @Query("SELECT m FROM TerminalSessionMapping m JOIN m.swiftcastTraceIds t WHERE t = :traceId")
     Optional<TerminalSessionMapping> findBySwiftcastTraceId(@Param("traceId") String traceId);
 
     /**
@@ -63,4 +66,18 @@ public interface TerminalSessionMappingRepository extends JpaRepository<Terminal
      */
     @Query("SELECT m FROM TerminalSessionMapping m LEFT JOIN FETCH m.todo t LEFT JOIN FETCH t.mission WHERE m.todo.id = :todoId")
     Optional<TerminalSessionMapping> findByTodoIdWithTodoAndMission(@Param("todoId") UUID todoId);
+
+    /**
+     * Add aggregated token usage in place, without loading the mapping.
+     */
+    @Modifying
+    @Query("UPDATE TerminalSessionMapping m SET " +
+           "m.totalInputTokens = m.totalInputTokens + :inputTokens, " +
+           "m.totalOutputTokens = m.totalOutputTokens + :outputTokens, " +
+           "m.lastActivityAt = :now " +
+           "WHERE m.todo.id = :todoId")
+    int addTokenUsage(@Param("todoId") UUID todoId,
+                      @Param("inputTokens") long inputTokens,
+                      @Param("outputTokens") long outputTokens,
+                      @Param("now") LocalDateTime now);
 }
@@ -0,0 +1,29 @@
+package io.threadcast.repository;
+
+import io.threadcast.domain.TimelineArchiveSegment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface TimelineArchiveSegmentRepository extends JpaRepository<TimelineArchiveSegment, UUID> {
+
+    /**
+     * Segments overlapping [from, to], newest first.
+     */
+    @Query("SELECT s FROM TimelineArchiveSegment s WHERE s.workspaceId = :workspaceId " +
+            "AND s.fromTime <= :to AND s.toTime >= :from ORDER BY s.toTime DESC")
+    List<TimelineArchiveSegment> findOverlapping(
+            @Param("workspaceId") UUID workspaceId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    List<TimelineArchiveSegment> findByToTimeBefore(LocalDateTime cutoff);
+
+    List<TimelineArchiveSegment> findByWorkspaceId(UUID workspaceId);
+
+    boolean existsByWorkspaceId(UUID workspaceId);
+}
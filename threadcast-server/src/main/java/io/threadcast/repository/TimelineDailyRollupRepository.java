@@ -0,0 +1,33 @@
+package io.threadcast.repository;
+
+import io.threadcast.domain.TimelineDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+public interface TimelineDailyRollupRepository extends JpaRepository<TimelineDailyRollup, UUID> {
+
+    /**
+     * Event counts per type for a date range (inclusive), summed over days.
+     * Returns rows of [EventType, Long].
+     */
+    @Query("SELECT r.eventType, SUM(r.eventCount) FROM TimelineDailyRollup r " +
+            "WHERE r.workspaceId = :workspaceId AND r.eventDate >= :from AND r.eventDate <= :to " +
+            "GROUP BY r.eventType")
+    List<Object[]> sumByEventType(
+            @Param("workspaceId") UUID workspaceId,
+            @Param("from") LocalDate from,
+            @Param("to") LocalDate to);
+
+    List<TimelineDailyRollup> findByWorkspaceIdAndEventDateBetweenOrderByEventDateAsc(
+            UUID workspaceId, LocalDate from, LocalDate to);
+
+    @Modifying
+    @Query("DELETE FROM TimelineDailyRollup r WHERE r.workspaceId = :workspaceId")
+    int deleteByWorkspaceId(@Param("workspaceId") UUID workspaceId);
+}
@@ -6,6 +6,7 @@ import io.threadcast.domain.enums.EventType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -13,7 +14,12 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
-public interface TimelineEventRepository extends JpaRepository<TimelineEvent, UUID> {
+/**
+ * Multi-filter queries go through {@link JpaSpecificationExecutor} with
+ * {@link TimelineEventSpecifications}.
+ */
+public interface TimelineEventRepository extends JpaRepository<TimelineEvent, UUID>,
+        JpaSpecificationExecutor<TimelineEvent> {
 
     Page<TimelineEvent> findAllByOrderByCreatedAtDesc(Pageable pageable);
 
@@ -45,6 +51,15 @@ public interface TimelineEventRepository extends JpaRepository<TimelineEvent, UU
             @Param("from") LocalDateTime from,
             @Param("to") LocalDateTime to);
 
+    // Keyset pagination: rows strictly after (createdAt, id) in (createdAt DESC, id DESC) order.
+    // The redundant "createdAt <= :createdAt" bound lets the planner range-scan the composite index.
+    // Filtered keyset queries use TimelineEventSpecifications.before(cursor).
+
+    @Query("SELECT t FROM TimelineEvent t WHERE t.createdAt <= :createdAt " +
+            "AND (t.createdAt < :createdAt OR t.id < :id) ORDER BY t.createdAt DESC, t.id DESC")
+    List<TimelineEvent> findAllBefore(
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") UUID id, Pageable limit);
+
     /**
      * Delete all timeline events associated with a todo
      */
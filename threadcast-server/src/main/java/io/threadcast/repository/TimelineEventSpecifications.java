@@ -0,0 +1,77 @@
+package io.threadcast.repository;
+
+import io.threadcast.domain.TimelineEvent;
+import io.threadcast.dto.request.PageCursor;
+import io.threadcast.dto.request.TimelineFilter;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Composable criteria for {@link TimelineEvent} queries.
+ *
+ * All filters compile into one WHERE clause. Association filters compare the
+ * foreign key column directly (no join), so a workspace query with any mix of
+ * eventType / actorType / time range stays on
+ * idx_timeline_workspace_created_type_actor.
+ */
+public final class TimelineEventSpecifications {
+
+    /**
+     * Keyset order matching the (…, created_at DESC, id DESC) indexes.
+     */
+    public static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+
+    private TimelineEventSpecifications() {
+    }
+
+    public static Specification<TimelineEvent> matching(TimelineFilter filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+
+            if (filter.getWorkspaceId() != null) {
+                predicates.add(cb.equal(root.get("workspace").get("id"), filter.getWorkspaceId()));
+            }
+            if (filter.getMissionId() != null) {
+                predicates.add(cb.equal(root.get("mission").get("id"), filter.getMissionId()));
+            }
+            if (filter.getTodoId() != null) {
+                predicates.add(cb.equal(root.get("todo").get("id"), filter.getTodoId()));
+            }
+            if (filter.getEventType() != null) {
+                predicates.add(cb.equal(root.get("eventType"), filter.getEventType()));
+            }
+            if (filter.getActorType() != null) {
+                predicates.add(cb.equal(root.get("actorType"), filter.getActorType()));
+            }
+            if (filter.getFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), filter.getFrom()));
+            }
+            if (filter.getTo() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("createdAt"), filter.getTo()));
+            }
+
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * Rows strictly after the cursor in {@link #NEWEST_FIRST} order.
+     * The redundant "createdAt <= cursor" bound lets the planner range-scan the index.
+     */
+    public static Specification<TimelineEvent> before(PageCursor cursor) {
+        return (root, query, cb) -> {
+            Path<LocalDateTime> createdAt = root.get("createdAt");
+            return cb.and(
+                    cb.lessThanOrEqualTo(createdAt, cursor.createdAt()),
+                    cb.or(
+                            cb.lessThan(createdAt, cursor.createdAt()),
+                            cb.lessThan(root.get("id"), cursor.id())));
+        };
+    }
+}
@@ -153,4 +153,17 @@ public interface TodoRepository extends JpaRepository<Todo, UUID> {
     @Query("UPDATE Todo t SET t.status = 'THREADING', t.startedAt = CURRENT_TIMESTAMP " +
            "WHERE t.id = :id AND t.status = 'PENDING'")
     int atomicStartTodo(@Param("id") UUID id);
+
+    /**
+     * Mark a todo TANGLED unless it already is. Returns 1 if the status changed, 0 otherwise.
+     */
+    @Modifying
+    @Query("UPDATE Todo t SET t.status = 'TANGLED' WHERE t.id = :id AND t.status <> 'TANGLED'")
+    int atomicFailTodo(@Param("id") UUID id);
+
+    /**
+     * Find todo by ID with its mission and workspace, but not its steps.
+     */
+    @Query("SELECT t FROM Todo t JOIN FETCH t.mission m JOIN FETCH m.workspace WHERE t.id = :id")
+    Optional<Todo> findByIdWithMission(@Param("id") UUID id);
 }
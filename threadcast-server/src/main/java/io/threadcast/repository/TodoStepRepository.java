@@ -3,8 +3,14 @@ package io.threadcast.repository;
 import io.threadcast.domain.TodoStep;
 import io.threadcast.domain.enums.StepStatus;
 import io.threadcast.domain.enums.StepType;
+import io.threadcast.domain.enums.TodoStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -16,4 +22,75 @@ public interface TodoStepRepository extends JpaRepository<TodoStep, UUID> {
     Optional<TodoStep> findByTodoIdAndStepType(UUID todoId, StepType stepType);
 
     Optional<TodoStep> findByTodoIdAndStatus(UUID todoId, StepStatus status);
+
+    /**
+     * Current state of one step and its todo's status, without loading the todo or its other steps.
+     */
+    @Query("SELECT s.id AS id, s.status AS status, s.startedAt AS startedAt, s.completedAt AS completedAt, " +
+           "s.output AS output, s.todo.status AS todoStatus, s.todo.mission.id AS missionId " +
+           "FROM TodoStep s WHERE s.todo.id = :todoId AND s.stepType = :stepType")
+    Optional<StepState> findStepState(@Param("todoId") UUID todoId, @Param("stepType") StepType stepType);
+
+    /**
+     * Step counts of a todo in one aggregate query.
+     */
+    @Query("SELECT COUNT(s) AS total, " +
+           "COALESCE(SUM(CASE WHEN s.status = 'COMPLETED' THEN 1 ELSE 0 END), 0) AS completed, " +
+           "COALESCE(SUM(CASE WHEN s.status = 'COMPLETED' OR s.status = 'SKIPPED' THEN 1 ELSE 0 END), 0) AS finished " +
+           "FROM TodoStep s WHERE s.todo.id = :todoId")
+    StepCounts countSteps(@Param("todoId") UUID todoId);
+
+    /**
+     * The following transitions only apply while the step is still in the expected status.
+     * Returns 1 if the step was updated, 0 if its status changed in the meantime.
+     */
+    @Modifying
+    @Query("UPDATE TodoStep s SET s.status = 'IN_PROGRESS', s.startedAt = :now " +
+           "WHERE s.id = :id AND s.status = :expected")
+    int startIfStatus(@Param("id") UUID id, @Param("expected") StepStatus expected, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE TodoStep s SET s.status = 'COMPLETED', s.completedAt = :now, s.output = :output " +
+           "WHERE s.id = :id AND s.status = :expected")
+    int completeIfStatus(@Param("id") UUID id, @Param("expected") StepStatus expected,
+                         @Param("output") String output, @Param("now") LocalDateTime now);
+
+    /**
+     * Move to FAILED or SKIPPED.
+     */
+    @Modifying
+    @Query("UPDATE TodoStep s SET s.status = :status, s.completedAt = :now " +
+           "WHERE s.id = :id AND s.status = :expected")
+    int finishIfStatus(@Param("id") UUID id, @Param("expected") StepStatus expected,
+                       @Param("status") StepStatus status, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE TodoStep s SET s.status = 'PENDING', s.startedAt = NULL, s.completedAt = NULL " +
+           "WHERE s.id = :id AND s.status = :expected")
+    int resetIfStatus(@Param("id") UUID id, @Param("expected") StepStatus expected);
+
+    /**
+     * Skip the todo's steps of the given types that have not started.
+     */
+    @Modifying
+    @Query("UPDATE TodoStep s SET s.status = 'SKIPPED', s.completedAt = :now " +
+           "WHERE s.todo.id = :todoId AND s.stepType IN :stepTypes AND s.status = 'PENDING'")
+    int skipPending(@Param("todoId") UUID todoId, @Param("stepTypes") Collection<StepType> stepTypes,
+                    @Param("now") LocalDateTime now);
+
+    interface StepState {
+        UUID getId();
+        StepStatus getStatus();
+        LocalDateTime getStartedAt();
+        LocalDateTime getCompletedAt();
+        String getOutput();
+        TodoStatus getTodoStatus();
+        UUID getMissionId();
+    }
+
+    interface StepCounts {
+        long getTotal();
+        long getCompleted();
+        long getFinished();
+    }
 }
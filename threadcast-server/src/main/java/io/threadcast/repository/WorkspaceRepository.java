@@ -1,10 +1,12 @@
 package io.threadcast.repository;
 
 import io.threadcast.domain.Workspace;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -13,6 +15,26 @@ public interface WorkspaceRepository extends JpaRepository<Workspace, UUID> {
 
     List<Workspace> findByOwnerId(UUID ownerId);
 
+    /**
+     * Keyset page of all workspaces for the admin console.
+     * namePattern (already lower-cased, with wildcards) is optional.
+     */
+    @Query("SELECT w FROM Workspace w " +
+           "WHERE (:namePattern IS NULL OR LOWER(w.name) LIKE :namePattern) " +
+           "AND w.createdAt <= :createdAt AND (w.createdAt < :createdAt OR w.id < :id) " +
+           "ORDER BY w.createdAt DESC, w.id DESC")
+    List<Workspace> findAllBefore(
+            @Param("namePattern") String namePattern,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") UUID id,
+            Pageable limit);
+
+    /**
+     * Timeline retention setting of every workspace, as rows of [UUID id, Integer days].
+     */
+    @Query("SELECT w.id, w.timelineRetentionDays FROM Workspace w")
+    List<Object[]> findTimelineRetentionSettings();
+
     @Query("SELECT DISTINCT w FROM Workspace w " +
            "LEFT JOIN FETCH w.projects " +
            "WHERE w.owner.id = :ownerId")
@@ -5,7 +5,9 @@ import io.threadcast.domain.Todo;
 import io.threadcast.domain.Workspace;
 import io.threadcast.domain.enums.MissionStatus;
 import io.threadcast.dto.request.CreateMissionRequest;
+import io.threadcast.dto.request.PageCursor;
 import io.threadcast.dto.request.StartWeavingRequest;
+import io.threadcast.dto.response.CursorPage;
 import io.threadcast.dto.response.MissionResponse;
 import io.threadcast.exception.BadRequestException;
 import io.threadcast.exception.NotFoundException;
@@ -14,13 +16,16 @@ import io.threadcast.repository.MissionRepository;
 import io.threadcast.repository.TimelineEventRepository;
 import io.threadcast.repository.TodoRepository;
 import io.threadcast.repository.WorkspaceRepository;
+import io.threadcast.service.terminal.TodoTerminalService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -36,6 +41,7 @@ public class MissionService {
     private final TimelineService timelineService;
     private final WebSocketService webSocketService;
     private final GitWorktreeService worktreeService;
+    private final TodoTerminalService terminalService;
 
     @Transactional(readOnly = true)
     public Page<MissionResponse> getMissions(UUID workspaceId, MissionStatus status, Pageable pageable) {
@@ -48,6 +54,23 @@ public class MissionService {
         return missions.map(MissionResponse::from);
     }
 
+    /**
+     * Keyset-paginated variant of {@link #getMissions}, newest first.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<MissionResponse> getMissions(UUID workspaceId, MissionStatus status, String cursor, Integer size) {
+        PageCursor position = PageCursor.decode(cursor);
+        int limit = PageCursor.clampSize(size);
+        Pageable window = PageRequest.of(0, limit + 1);
+
+        List<Mission> rows = status != null
+                ? missionRepository.findByWorkspaceIdAndStatusBefore(
+                        workspaceId, status, position.createdAt(), position.id(), window)
+                : missionRepository.findByWorkspaceIdBefore(workspaceId, position.createdAt(), position.id(), window);
+
+        return CursorPage.of(rows, limit, Mission::getCreatedAt, Mission::getId, MissionResponse::from);
+    }
+
     @Transactional(readOnly = true)
     public MissionResponse getMission(UUID id) {
         Mission mission = missionRepository.findByIdWithTodos(id);
@@ -211,10 +234,16 @@ public class MissionService {
 
         UUID workspaceId = mission.getWorkspace().getId();
 
+        // Keep daily stats consistent with the events being removed
+        timelineService.removeMissionFromStats(id);
+        timelineService.removeMissionFromArchive(workspaceId, id);
+
         // Delete related data for all todos in this mission first
         for (Todo todo : mission.getTodos()) {
             aiQuestionRepository.deleteByTodoId(todo.getId());
             timelineEventRepository.deleteByTodoId(todo.getId());
+            terminalService.endRecording(todo.getId());
+            terminalService.evictRoute(todo.getId());
         }
 
         // Delete timeline events for the mission itself
@@ -12,7 +12,6 @@ import io.threadcast.service.terminal.TodoTerminalService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Lazy;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -28,17 +27,17 @@ public class PmAgentService {
 
     private final PmAgentRepository pmAgentRepository;
     private final WorkspaceRepository workspaceRepository;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final WebSocketService webSocketService;
     private final TodoTerminalService terminalService;
 
     public PmAgentService(
             PmAgentRepository pmAgentRepository,
             WorkspaceRepository workspaceRepository,
-            SimpMessagingTemplate messagingTemplate,
+            WebSocketService webSocketService,
             @Lazy TodoTerminalService terminalService) {
         this.pmAgentRepository = pmAgentRepository;
         this.workspaceRepository = workspaceRepository;
-        this.messagingTemplate = messagingTemplate;
+        this.webSocketService = webSocketService;
         this.terminalService = terminalService;
     }
 
@@ -211,11 +210,7 @@ public class PmAgentService {
      */
     private void broadcastStatus(UUID workspaceId, PmAgent agent) {
         try {
-            PmAgentStatusResponse status = PmAgentStatusResponse.from(agent);
-            messagingTemplate.convertAndSend(
-                    "/topic/workspace/" + workspaceId + "/pm-agent",
-                    status
-            );
+            webSocketService.notifyPmAgentStatus(workspaceId, agent);
         } catch (Exception e) {
             log.warn("Failed to broadcast PM Agent status: {}", e.getMessage());
         }
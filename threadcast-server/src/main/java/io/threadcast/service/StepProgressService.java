@@ -1,5 +1,6 @@
 package io.threadcast.service;
 
+import io.threadcast.config.StepConfig;
 import io.threadcast.domain.Todo;
 import io.threadcast.domain.TodoStep;
 import io.threadcast.domain.enums.StepStatus;
@@ -11,19 +12,27 @@ import io.threadcast.exception.NotFoundException;
 import io.threadcast.repository.TerminalSessionMappingRepository;
 import io.threadcast.repository.TodoRepository;
 import io.threadcast.repository.TodoStepRepository;
+import io.threadcast.service.step.StepTransitionMailbox;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.BooleanSupplier;
 
 /**
  * Service for handling step progress updates from AI workers.
  *
  * Manages step state transitions and notifies frontend via WebSocket.
+ * Transitions of one todo are applied in order through its {@link StepTransitionMailbox}, so
+ * concurrent webhooks for the same todo cannot interleave. Their side effects (WebSocket
+ * pushes, prompts, orchestration) run after the transition commits.
  */
 @Slf4j
 @Service
@@ -36,6 +45,8 @@ public class StepProgressService {
     private final TimelineService timelineService;
     private final io.threadcast.service.terminal.TodoTerminalService terminalService;
     private final TodoOrchestrationService orchestrationService;
+    private final StepTransitionMailbox stepMailbox;
+    private final StepConfig stepConfig;
 
     public StepProgressService(
             TodoRepository todoRepository,
@@ -44,7 +55,9 @@ public class StepProgressService {
             WebSocketService webSocketService,
             TimelineService timelineService,
             io.threadcast.service.terminal.TodoTerminalService terminalService,
-            @org.springframework.context.annotation.Lazy TodoOrchestrationService orchestrationService) {
+            @org.springframework.context.annotation.Lazy TodoOrchestrationService orchestrationService,
+            StepTransitionMailbox stepMailbox,
+            StepConfig stepConfig) {
         this.todoRepository = todoRepository;
         this.todoStepRepository = todoStepRepository;
         this.mappingRepository = mappingRepository;
@@ -52,6 +65,8 @@ public class StepProgressService {
         this.timelineService = timelineService;
         this.terminalService = terminalService;
         this.orchestrationService = orchestrationService;
+        this.stepMailbox = stepMailbox;
+        this.stepConfig = stepConfig;
     }
 
     /**
@@ -60,9 +75,26 @@ public class StepProgressService {
      * @param request The step update request
      * @return StepProgressResponse with updated step info
      */
-    @Transactional
     public StepProgressResponse processStepUpdate(StepUpdateWebhookRequest request) {
+        return processStepUpdate(request, () -> true);
+    }
+
+    /**
+     * Process a step update, first running {@code claim} in the transaction that applies it (e.g. to
+     * record the webhook as handled together with its writes). If {@code claim} returns false the
+     * update was already applied: nothing changes and the current progress is returned.
+     */
+    public StepProgressResponse processStepUpdate(StepUpdateWebhookRequest request, BooleanSupplier claim) {
         UUID todoId = UUID.fromString(request.getTodoId());
+        return stepMailbox.call(todoId, () -> claim.getAsBoolean()
+                ? applyStepUpdate(todoId, request)
+                : getCurrentProgress(todoId));
+    }
+
+    private StepProgressResponse applyStepUpdate(UUID todoId, StepUpdateWebhookRequest request) {
+        if (stepConfig.getUpdateMode() == StepConfig.UpdateMode.CONDITIONAL && !isLoaded(todoId)) {
+            return applyStepUpdateConditionally(todoId, request);
+        }
 
         Todo todo = todoRepository.findByIdWithSteps(todoId)
                 .orElseThrow(() -> new NotFoundException("Todo not found: " + todoId));
@@ -99,7 +131,8 @@ public class StepProgressService {
         );
 
         // Notify via WebSocket
-        webSocketService.notifyStepProgress(todo.getMission().getId(), response);
+        UUID missionId = todo.getMission().getId();
+        afterCommit(() -> webSocketService.notifyStepProgress(missionId, response));
 
         log.info("Step updated: todoId={}, step={}, status={}, progress={}",
                 todoId, request.getStepType(), request.getStatus(), request.getProgress());
@@ -107,6 +140,140 @@ public class StepProgressService {
         return response;
     }
 
+    /**
+     * Apply a step update with UPDATE statements guarded by the step's current status, instead of
+     * loading the todo and all its steps. If the status changes between reading and updating, the
+     * step is read again. The todo is loaded only to record a status change on the timeline and to
+     * complete it, which triggers orchestration of dependent todos.
+     *
+     * Unlike the entity path, earlier PENDING steps are skipped only when the step actually starts,
+     * and a todo that is already WOVEN is not completed again.
+     */
+    private StepProgressResponse applyStepUpdateConditionally(UUID todoId, StepUpdateWebhookRequest request) {
+        StepType stepType = request.getStepType();
+        StepStatus status = request.getStatus();
+        LocalDateTime now = LocalDateTime.now();
+
+        TodoStepRepository.StepState state = null;
+        for (int attempt = 0; state == null; attempt++) {
+            if (attempt == MAX_TRANSITION_ATTEMPTS) {
+                throw new IllegalStateException("Step " + stepType + " of Todo " + todoId + " kept changing concurrently");
+            }
+            TodoStepRepository.StepState current = todoStepRepository.findStepState(todoId, stepType)
+                    .orElseThrow(() -> todoRepository.existsById(todoId)
+                            ? new NotFoundException("Step not found: " + stepType + " for Todo: " + todoId)
+                            : new NotFoundException("Todo not found: " + todoId));
+            if (transitionStep(current, request, now)) {
+                state = current;
+            }
+        }
+        boolean changed = state.getStatus() != status;
+
+        if (changed && status == StepStatus.IN_PROGRESS) {
+            int index = STEP_ORDER.indexOf(stepType);
+            if (index > 0 && todoStepRepository.skipPending(todoId, STEP_ORDER.subList(0, index), now) > 0) {
+                log.info("Steps before {} skipped: todoId={}", stepType, todoId);
+            }
+        }
+        if (status == StepStatus.IN_PROGRESS && state.getTodoStatus() == TodoStatus.PENDING
+                && todoRepository.atomicStartTodo(todoId) > 0) {
+            log.info("Todo started automatically: {}", todoId);
+        }
+        if (status == StepStatus.FAILED && todoRepository.atomicFailTodo(todoId) > 0) {
+            log.info("Todo failed due to step failure: {}", todoId);
+            terminalService.endRecording(todoId);
+        }
+
+        TodoStepRepository.StepCounts counts = todoStepRepository.countSteps(todoId);
+
+        Todo todo = null;
+        if (changed && status == StepStatus.COMPLETED && state.getTodoStatus() != TodoStatus.WOVEN
+                && counts.getFinished() == counts.getTotal()) {
+            todo = loadTodo(todoId);
+            todo.complete();
+            todoRepository.save(todo);
+            log.info("Todo completed automatically: {}", todoId);
+            terminalService.endRecording(todoId);
+            // Trigger orchestration for dependent todos
+            Todo completed = todo;
+            afterCommit(() -> orchestrationService.onTodoCompleted(completed));
+        }
+        if (changed) {
+            timelineService.recordStepEvent(todo != null ? todo : loadTodo(todoId), stepType, status,
+                    stepEventTitle(stepType, status), request.getMessage());
+        }
+
+        StepProgressResponse response = StepProgressResponse.builder()
+                .todoId(todoId)
+                .missionId(state.getMissionId())
+                .stepId(state.getId())
+                .stepType(stepType)
+                .status(status)
+                .progress(request.getProgress())
+                .message(request.getMessage())
+                .output(status == StepStatus.COMPLETED ? request.getOutput() : state.getOutput())
+                .startedAt(switch (status) {
+                    case IN_PROGRESS -> changed ? now : state.getStartedAt();
+                    case PENDING -> null;
+                    default -> state.getStartedAt();
+                })
+                .completedAt(switch (status) {
+                    case COMPLETED, FAILED, SKIPPED -> now;
+                    case PENDING -> null;
+                    default -> state.getCompletedAt();
+                })
+                .completedSteps((int) counts.getCompleted())
+                .totalSteps((int) counts.getTotal())
+                .build();
+
+        // Notify via WebSocket
+        UUID missionId = state.getMissionId();
+        afterCommit(() -> webSocketService.notifyStepProgress(missionId, response));
+
+        log.info("Step updated: todoId={}, step={}, status={}, progress={}",
+                todoId, stepType, status, request.getProgress());
+
+        return response;
+    }
+
+    /**
+     * Move the step to the requested status if it is still in the status it was read with.
+     * Mirrors {@link #updateStepStatus}: IN_PROGRESS only changes a step that is not in progress,
+     * the other statuses always apply.
+     *
+     * @return false if the step's status changed since it was read
+     */
+    private boolean transitionStep(TodoStepRepository.StepState state, StepUpdateWebhookRequest request,
+                                   LocalDateTime now) {
+        StepStatus expected = state.getStatus();
+        int updated = switch (request.getStatus()) {
+            case IN_PROGRESS -> expected == StepStatus.IN_PROGRESS
+                    ? 1
+                    : todoStepRepository.startIfStatus(state.getId(), expected, now);
+            case COMPLETED -> todoStepRepository.completeIfStatus(state.getId(), expected, request.getOutput(), now);
+            case FAILED, SKIPPED -> todoStepRepository.finishIfStatus(state.getId(), expected, request.getStatus(), now);
+            case PENDING -> todoStepRepository.resetIfStatus(state.getId(), expected);
+        };
+        return updated > 0;
+    }
+
+    /**
+     * Whether the current transaction already holds the todo as an entity, e.g. from an earlier
+     * transition in the same mailbox batch. Bulk updates would leave that entity stale, so such
+     * updates go through the entity path instead.
+     */
+    private boolean isLoaded(UUID todoId) {
+        Todo todo = todoRepository.getReferenceById(todoId);
+        return todo != null && Hibernate.isInitialized(todo);
+    }
+
+    private Todo loadTodo(UUID todoId) {
+        return todoRepository.findByIdWithMission(todoId)
+                .orElseThrow(() -> new NotFoundException("Todo not found: " + todoId));
+    }
+
+    private static final int MAX_TRANSITION_ATTEMPTS = 3;
+
     /**
      * Step order for determining which steps to skip.
      */
@@ -190,8 +357,9 @@ public class StepProgressService {
                 todo.complete();
                 todoRepository.save(todo);
                 log.info("Todo completed automatically: {}", todo.getId());
+                terminalService.endRecording(todo.getId());
                 // Trigger orchestration for dependent todos
-                orchestrationService.onTodoCompleted(todo);
+                afterCommit(() -> orchestrationService.onTodoCompleted(todo));
             }
         }
 
@@ -200,6 +368,7 @@ public class StepProgressService {
             todo.fail();
             todoRepository.save(todo);
             log.info("Todo failed due to step failure: {}", todo.getId());
+            terminalService.endRecording(todo.getId());
         }
     }
 
@@ -207,15 +376,18 @@ public class StepProgressService {
      * Record timeline event for step changes.
      */
     private void recordTimelineEvent(Todo todo, TodoStep step, StepUpdateWebhookRequest request) {
-        String title = switch (request.getStatus()) {
-            case IN_PROGRESS -> "Step started: " + step.getStepType().name();
-            case COMPLETED -> "Step completed: " + step.getStepType().name();
-            case FAILED -> "Step failed: " + step.getStepType().name();
-            case SKIPPED -> "Step skipped: " + step.getStepType().name();
-            default -> "Step updated: " + step.getStepType().name();
-        };
+        timelineService.recordStepEvent(todo, step,
+                stepEventTitle(step.getStepType(), request.getStatus()), request.getMessage());
+    }
 
-        timelineService.recordStepEvent(todo, step, title, request.getMessage());
+    private static String stepEventTitle(StepType stepType, StepStatus status) {
+        return switch (status) {
+            case IN_PROGRESS -> "Step started: " + stepType.name();
+            case COMPLETED -> "Step completed: " + stepType.name();
+            case FAILED -> "Step failed: " + stepType.name();
+            case SKIPPED -> "Step skipped: " + stepType.name();
+            default -> "Step updated: " + stepType.name();
+        };
     }
 
     /**
@@ -223,8 +395,14 @@ public class StepProgressService {
      * Called when Todo execution begins.
      * Sets currentPmStep=ANALYSIS in the session mapping.
      */
-    @Transactional
     public void startFirstStep(UUID todoId) {
+        stepMailbox.call(todoId, () -> {
+            applyStartFirstStep(todoId);
+            return null;
+        });
+    }
+
+    private void applyStartFirstStep(UUID todoId) {
         Todo todo = todoRepository.findByIdWithSteps(todoId)
                 .orElseThrow(() -> new NotFoundException("Todo not found: " + todoId));
 
@@ -249,8 +427,9 @@ public class StepProgressService {
             log.info("PM: Started first step ANALYSIS for todoId={}", todoId);
 
             // Notify via WebSocket
-            webSocketService.notifyStepProgress(todo.getMission().getId(),
-                StepProgressResponse.from(analysisStep, 0, "ANALYSIS started"));
+            UUID missionId = todo.getMission().getId();
+            StepProgressResponse started = StepProgressResponse.from(analysisStep, 0, "ANALYSIS started");
+            afterCommit(() -> webSocketService.notifyStepProgress(missionId, started));
         } else {
             log.info("PM: ANALYSIS step already started or not found for todoId={}", todoId);
         }
@@ -293,8 +472,14 @@ public class StepProgressService {
      * 3. Determine and start the next step in the workflow
      * 4. If all steps done, mark Todo as WOVEN
      */
-    @Transactional
     public void completeSession(UUID todoId) {
+        stepMailbox.call(todoId, () -> {
+            applyCompleteSession(todoId);
+            return null;
+        });
+    }
+
+    private void applyCompleteSession(UUID todoId) {
         Todo todo = todoRepository.findByIdWithSteps(todoId)
                 .orElseThrow(() -> new NotFoundException("Todo not found: " + todoId));
 
@@ -342,8 +527,9 @@ public class StepProgressService {
                 log.info("PM: Step completed: todoId={}, step={}", todoId, currentStep.getStepType());
 
                 // Notify step completion via WebSocket
-                webSocketService.notifyStepProgress(todo.getMission().getId(),
-                    StepProgressResponse.from(currentStep, 100, "Step completed"));
+                UUID missionId = todo.getMission().getId();
+                StepProgressResponse completed = StepProgressResponse.from(currentStep, 100, "Step completed");
+                afterCommit(() -> webSocketService.notifyStepProgress(missionId, completed));
             } else {
                 log.info("PM: Step already completed: todoId={}, step={}", todoId, currentStep.getStepType());
             }
@@ -390,8 +576,9 @@ public class StepProgressService {
                     todoStepRepository.save(nextStep);
 
                     // Notify step start via WebSocket
-                    webSocketService.notifyStepProgress(todo.getMission().getId(),
-                        StepProgressResponse.from(nextStep, 0, "Step started"));
+                    UUID missionId = todo.getMission().getId();
+                    StepProgressResponse started = StepProgressResponse.from(nextStep, 0, "Step started");
+                    afterCommit(() -> webSocketService.notifyStepProgress(missionId, started));
                 }
 
                 // Execute next step via SessionCast (this also sets currentPmStep in mapping)
@@ -407,14 +594,16 @@ public class StepProgressService {
         log.info("PM: All steps completed, marking Todo as WOVEN: {}", todoId);
         todo.complete();
         todoRepository.save(todo);
+        terminalService.endRecording(todoId);
 
         // Notify via WebSocket
-        webSocketService.notifyTodoUpdated(todo.getMission().getId(), todo);
+        UUID missionId = todo.getMission().getId();
+        afterCommit(() -> webSocketService.notifyTodoUpdated(missionId, todo));
 
         log.info("PM: Todo completed: todoId={}, status={}", todoId, todo.getStatus());
 
         // Trigger orchestration for dependent todos
-        orchestrationService.onTodoCompleted(todo);
+        afterCommit(() -> orchestrationService.onTodoCompleted(todo));
     }
 
     /**
@@ -463,16 +652,35 @@ public class StepProgressService {
         // Build prompt for the next step
         String prompt = buildStepPrompt(stepName, missionTitle, todoTitle, todo.getDescription(), previousContext);
 
-        // Send to Claude Code via SessionCast
-        try {
-            terminalService.sendKeys(todoId, prompt, true)
-                .thenRun(() -> log.info("PM: Sent {} prompt to Claude: todoId={}", stepName, todoId))
-                .exceptionally(e -> {
-                    log.error("PM: Failed to send prompt: {}", e.getMessage());
-                    return null;
-                });
-        } catch (Exception e) {
-            log.error("PM: Failed to execute next step: {}", e.getMessage());
+        // Send to Claude Code via SessionCast, once the step change is committed
+        afterCommit(() -> {
+            try {
+                terminalService.sendKeys(todoId, prompt, true)
+                    .thenRun(() -> log.info("PM: Sent {} prompt to Claude: todoId={}", stepName, todoId))
+                    .exceptionally(e -> {
+                        log.error("PM: Failed to send prompt: {}", e.getMessage());
+                        return null;
+                    });
+            } catch (Exception e) {
+                log.error("PM: Failed to execute next step: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Run an action once the current transaction commits, or right away outside a transaction.
+     * A mailbox batch that rolls back and replays must not have pushed or prompted already.
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
         }
     }
 
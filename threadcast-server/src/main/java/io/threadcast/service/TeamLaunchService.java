@@ -6,15 +6,15 @@ import io.threadcast.domain.Workspace;
 import io.threadcast.exception.NotFoundException;
 import io.threadcast.repository.MissionRepository;
 import io.threadcast.repository.WorkspaceRepository;
+import io.threadcast.service.terminal.TerminalReadiness;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
@@ -39,7 +39,8 @@ public class TeamLaunchService {
     private final TeamTaskGenerator taskGenerator;
     private final MissionRepository missionRepository;
     private final WorkspaceRepository workspaceRepository;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final WebSocketService webSocketService;
+    private final TerminalReadiness readiness;
 
     @Value("${server.port:21000}")
     private int serverPort;
@@ -61,12 +62,14 @@ public class TeamLaunchService {
             TeamTaskGenerator taskGenerator,
             MissionRepository missionRepository,
             WorkspaceRepository workspaceRepository,
-            SimpMessagingTemplate messagingTemplate) {
+            WebSocketService webSocketService,
+            TerminalReadiness readiness) {
         this.sessionCast = sessionCast;
         this.taskGenerator = taskGenerator;
         this.missionRepository = missionRepository;
         this.workspaceRepository = workspaceRepository;
-        this.messagingTemplate = messagingTemplate;
+        this.webSocketService = webSocketService;
+        this.readiness = readiness;
     }
 
     /**
@@ -119,7 +122,7 @@ public class TeamLaunchService {
                     session.status = TeamSessionStatus.RUNNING;
                     log.info("Claude Code Team launched for mission {}", missionId);
 
-                    notifyTeamLaunched(missionId, sessionName);
+                    webSocketService.notifyTeamLaunched(missionId, sessionName);
 
                     return session;
                 })
@@ -166,18 +169,13 @@ public class TeamLaunchService {
                 tasksFile.toAbsolutePath()
         );
 
+        // Wait for Claude Code to initialize: its prompt on screen, or LAUNCH_WAIT_SECONDS at most
+        CompletableFuture<Boolean> claudeReady = readiness.awaitClaudeReady(
+                sessionName, Duration.ofSeconds(LAUNCH_WAIT_SECONDS));
+
         return sessionCast.sendKeys(sessionName, launchCommand, true)
-                .thenCompose(v -> {
-                    // Wait for Claude Code to initialize
-                    return CompletableFuture.runAsync(() -> {
-                        try {
-                            Thread.sleep(LAUNCH_WAIT_SECONDS * 1000L);
-                        } catch (InterruptedException e) {
-                            Thread.currentThread().interrupt();
-                        }
-                    });
-                })
-                .thenCompose(v -> {
+                .thenCompose(v -> claudeReady)
+                .thenCompose(ready -> {
                     // Send the prompt to the running Claude Code session
                     log.info("Sending team prompt to session {}", sessionName);
                     return sessionCast.sendKeys(sessionName, prompt, true);
@@ -215,21 +213,6 @@ public class TeamLaunchService {
                 });
     }
 
-    private void notifyTeamLaunched(UUID missionId, String sessionName) {
-        Map<String, Object> payload = new HashMap<>();
-        payload.put("missionId", missionId.toString());
-        payload.put("sessionName", sessionName);
-        payload.put("status", "RUNNING");
-
-        Map<String, Object> event = new HashMap<>();
-        event.put("eventId", UUID.randomUUID().toString());
-        event.put("eventType", "TEAM_LAUNCHED");
-        event.put("timestamp", LocalDateTime.now());
-        event.put("payload", payload);
-
-        messagingTemplate.convertAndSend("/topic/missions/" + missionId, event);
-    }
-
     private String buildApiUrl() {
         int port = callbackPort != null ? callbackPort : serverPort;
         return String.format("%s://%s:%d/api", callbackScheme, callbackHost, port);
@@ -1,25 +1,44 @@
 package io.threadcast.service;
 
+import io.threadcast.config.TimelineConfig;
 import io.threadcast.domain.Mission;
+import io.threadcast.domain.TimelineDailyRollup;
 import io.threadcast.domain.TimelineEvent;
 import io.threadcast.domain.Todo;
 import io.threadcast.domain.enums.ActorType;
 import io.threadcast.domain.enums.EventType;
+import io.threadcast.dto.request.PageCursor;
+import io.threadcast.dto.request.TimelineFilter;
+import io.threadcast.dto.response.CursorPage;
 import io.threadcast.dto.response.TimelineEventResponse;
 import io.threadcast.repository.TimelineEventRepository;
+import io.threadcast.repository.TimelineEventSpecifications;
+import io.threadcast.service.timeline.TimelineActivityCoalescer;
+import io.threadcast.service.timeline.TimelineArchiveService;
+import io.threadcast.service.timeline.TimelineEventWriter;
+import io.threadcast.service.timeline.TimelineRollupService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
 
 @Slf4j
 @Service
@@ -27,6 +46,11 @@ import java.util.UUID;
 public class TimelineService {
 
     private final TimelineEventRepository timelineEventRepository;
+    private final TimelineEventWriter timelineEventWriter;
+    private final TimelineRollupService timelineRollupService;
+    private final TimelineArchiveService timelineArchiveService;
+    private final TimelineActivityCoalescer activityCoalescer;
+    private final TimelineConfig timelineConfig;
     private final WebSocketService webSocketService;
 
     @Transactional(readOnly = true)
@@ -35,54 +59,179 @@ public class TimelineService {
         return events.map(TimelineEventResponse::from);
     }
 
+    /**
+     * Timeline events matching every given filter, compiled to a single query.
+     * When sorted newest first, pages past the live rows continue into archived segments.
+     * Archived events are only read once a page reaches past the live rows; until then the
+     * total counts live rows plus one when the segment index shows older events may exist,
+     * so {@code hasNext()} stays true on the last live page.
+     */
     @Transactional(readOnly = true)
-    public Page<TimelineEventResponse> getTimeline(UUID workspaceId, UUID missionId, UUID todoId,
-                                                    EventType eventType, ActorType actorType,
-                                                    Pageable pageable) {
-        Page<TimelineEvent> events;
-
-        if (todoId != null) {
-            events = timelineEventRepository.findByTodoIdOrderByCreatedAtDesc(todoId, pageable);
-        } else if (missionId != null) {
-            events = timelineEventRepository.findByMissionIdOrderByCreatedAtDesc(missionId, pageable);
-        } else if (eventType != null) {
-            events = timelineEventRepository.findByWorkspaceIdAndEventTypeOrderByCreatedAtDesc(
-                    workspaceId, eventType, pageable);
-        } else if (actorType != null) {
-            events = timelineEventRepository.findByWorkspaceIdAndActorTypeOrderByCreatedAtDesc(
-                    workspaceId, actorType, pageable);
-        } else {
-            events = timelineEventRepository.findByWorkspaceIdOrderByCreatedAtDesc(workspaceId, pageable);
+    public Page<TimelineEventResponse> getTimeline(TimelineFilter filter, Pageable pageable) {
+        filter.validate();
+        Page<TimelineEvent> events = timelineEventRepository.findAll(
+                TimelineEventSpecifications.matching(filter), pageable);
+        Page<TimelineEventResponse> live = events.map(TimelineEventResponse::from);
+        if (!timelineArchiveService.isEnabled() || pageable.isUnpaged() || !isNewestFirst(pageable.getSort())) {
+            return live;
         }
 
-        return events.map(TimelineEventResponse::from);
+        long liveTotal = events.getTotalElements();
+        if (pageable.getOffset() + pageable.getPageSize() <= liveTotal) {
+            long older = timelineArchiveService.mayContain(filter) ? 1 : 0;
+            return new PageImpl<>(live.getContent(), pageable, liveTotal + older);
+        }
+
+        // Archived events are all older than live ones, so they follow the last live row
+        List<TimelineEventResponse> content = new ArrayList<>(live.getContent());
+        int skip = (int) Math.max(0, pageable.getOffset() - liveTotal);
+        int wanted = pageable.getPageSize() - content.size();
+        List<TimelineEventResponse> archived = timelineArchiveService.read(filter, PageCursor.FIRST, skip, wanted + 1);
+        boolean more = archived.size() > wanted;
+        content.addAll(more ? archived.subList(0, wanted) : archived);
+        long total = liveTotal + skip + (content.size() - live.getNumberOfElements()) + (more ? 1 : 0);
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    private static boolean isNewestFirst(Sort sort) {
+        Sort.Order first = sort.stream().findFirst().orElse(null);
+        return first == null || ("createdAt".equals(first.getProperty()) && first.isDescending());
+    }
+
+    /**
+     * Keyset-paginated variant of {@link #getRecentActivity}.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<TimelineEventResponse> getRecentActivity(String cursor, Integer size) {
+        PageCursor position = PageCursor.decode(cursor);
+        int limit = PageCursor.clampSize(size);
+        List<TimelineEvent> rows = timelineEventRepository.findAllBefore(
+                position.createdAt(), position.id(), PageRequest.of(0, limit + 1));
+        return toCursorPage(rows, limit);
+    }
+
+    /**
+     * Keyset-paginated variant of {@link #getTimeline}: same filters, no COUNT query,
+     * constant cost per page regardless of how far back the client has scrolled.
+     * Once the live table runs out, the page continues into archived segments.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<TimelineEventResponse> getTimeline(TimelineFilter filter, String cursor, Integer size) {
+        filter.validate();
+        PageCursor position = PageCursor.decode(cursor);
+        int limit = PageCursor.clampSize(size);
+
+        Specification<TimelineEvent> spec = TimelineEventSpecifications.matching(filter)
+                .and(TimelineEventSpecifications.before(position));
+        List<TimelineEvent> rows = timelineEventRepository.findBy(spec, query -> query
+                .sortBy(TimelineEventSpecifications.NEWEST_FIRST)
+                .limit(limit + 1)
+                .all());
+
+        if (rows.size() > limit || !timelineArchiveService.isEnabled()) {
+            return toCursorPage(rows, limit);
+        }
+
+        // Archived events are all older than live ones, so they simply continue the page
+        List<TimelineEventResponse> content = new ArrayList<>(rows.size() + limit);
+        rows.forEach(row -> content.add(TimelineEventResponse.from(row)));
+        PageCursor archiveCursor = rows.isEmpty()
+                ? position
+                : new PageCursor(rows.get(rows.size() - 1).getCreatedAt(), rows.get(rows.size() - 1).getId());
+        content.addAll(timelineArchiveService.read(filter, archiveCursor, limit + 1 - rows.size()));
+
+        return CursorPage.of(content, limit, TimelineEventResponse::getCreatedAt, TimelineEventResponse::getId,
+                Function.identity());
+    }
+
+    private CursorPage<TimelineEventResponse> toCursorPage(List<TimelineEvent> rows, int limit) {
+        return CursorPage.of(rows, limit, TimelineEvent::getCreatedAt, TimelineEvent::getId,
+                TimelineEventResponse::from);
     }
 
     @Transactional(readOnly = true)
     public Map<String, Object> getTodayStats(UUID workspaceId) {
-        LocalDateTime startOfDay = LocalDate.now().atStartOfDay();
-        LocalDateTime endOfDay = LocalDate.now().atTime(LocalTime.MAX);
+        LocalDate today = LocalDate.now();
+        Map<EventType, Long> counts = timelineRollupService.getCounts(workspaceId, today, today);
 
         Map<String, Object> stats = new HashMap<>();
-        stats.put("date", LocalDate.now());
-        stats.put("todosWoven", timelineEventRepository.countByWorkspaceIdAndEventTypeAndDateRange(
-                workspaceId, EventType.TODO_COMPLETED, startOfDay, endOfDay));
-        stats.put("todosStarted", timelineEventRepository.countByWorkspaceIdAndEventTypeAndDateRange(
-                workspaceId, EventType.TODO_STARTED, startOfDay, endOfDay));
-        stats.put("todosFailed", timelineEventRepository.countByWorkspaceIdAndEventTypeAndDateRange(
-                workspaceId, EventType.TODO_FAILED, startOfDay, endOfDay));
-        stats.put("filesCreated", timelineEventRepository.countByWorkspaceIdAndEventTypeAndDateRange(
-                workspaceId, EventType.FILE_CREATED, startOfDay, endOfDay));
-        stats.put("filesModified", timelineEventRepository.countByWorkspaceIdAndEventTypeAndDateRange(
-                workspaceId, EventType.FILE_MODIFIED, startOfDay, endOfDay));
-        stats.put("aiQuestionsAsked", timelineEventRepository.countByWorkspaceIdAndEventTypeAndDateRange(
-                workspaceId, EventType.AI_QUESTION, startOfDay, endOfDay));
-        stats.put("commentsAdded", timelineEventRepository.countByWorkspaceIdAndEventTypeAndDateRange(
-                workspaceId, EventType.COMMENT_ADDED, startOfDay, endOfDay));
+        stats.put("date", today);
+        stats.put("todosWoven", counts.getOrDefault(EventType.TODO_COMPLETED, 0L));
+        stats.put("todosStarted", counts.getOrDefault(EventType.TODO_STARTED, 0L));
+        stats.put("todosFailed", counts.getOrDefault(EventType.TODO_FAILED, 0L));
+        stats.put("filesCreated", counts.getOrDefault(EventType.FILE_CREATED, 0L));
+        stats.put("filesModified", counts.getOrDefault(EventType.FILE_MODIFIED, 0L));
+        stats.put("aiQuestionsAsked", counts.getOrDefault(EventType.AI_QUESTION, 0L));
+        stats.put("commentsAdded", counts.getOrDefault(EventType.COMMENT_ADDED, 0L));
+
+        return stats;
+    }
+
+    /**
+     * Daily event counts for the last N days (today included), one series per event type.
+     * Each series is aligned with "dates" and zero-filled for days without events.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getDailyStats(UUID workspaceId, int days) {
+        int range = Math.max(1, Math.min(days, timelineConfig.getRollup().getMaxRangeDays()));
+        LocalDate to = LocalDate.now();
+        LocalDate from = to.minusDays(range - 1L);
+
+        List<LocalDate> dates = new ArrayList<>(range);
+        for (int i = 0; i < range; i++) {
+            dates.add(from.plusDays(i));
+        }
 
+        Map<EventType, long[]> series = new EnumMap<>(EventType.class);
+        for (TimelineDailyRollup rollup : timelineRollupService.getDailyRollups(workspaceId, from, to)) {
+            int index = (int) ChronoUnit.DAYS.between(from, rollup.getEventDate());
+            series.computeIfAbsent(rollup.getEventType(), type -> new long[range])[index] += rollup.getEventCount();
+        }
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("from", from);
+        stats.put("to", to);
+        stats.put("dates", dates);
+        stats.put("counts", series);
         return stats;
     }
 
+    /**
+     * Remove a mission's events from the daily stats before the events themselves are deleted.
+     */
+    @Transactional
+    public void removeMissionFromStats(UUID missionId) {
+        timelineRollupService.subtractMission(missionId);
+    }
+
+    /**
+     * Remove a deleted mission's archived events, so workspace timelines stop returning them,
+     * and take them out of the daily stats.
+     */
+    @Transactional
+    public void removeMissionFromArchive(UUID workspaceId, UUID missionId) {
+        List<TimelineArchiveService.ArchivedEvent> purged = timelineArchiveService.purgeMission(workspaceId, missionId);
+        timelineRollupService.subtractArchived(workspaceId, purged);
+    }
+
+    /**
+     * Remove a todo's events from the daily stats before the events themselves are deleted.
+     */
+    @Transactional
+    public void removeTodoFromStats(UUID todoId) {
+        timelineRollupService.subtractTodo(todoId);
+    }
+
+    /**
+     * Remove a deleted todo's archived events, so workspace timelines stop returning them,
+     * and take them out of the daily stats.
+     */
+    @Transactional
+    public void removeTodoFromArchive(UUID workspaceId, UUID todoId) {
+        List<TimelineArchiveService.ArchivedEvent> purged = timelineArchiveService.purgeTodo(workspaceId, todoId);
+        timelineRollupService.subtractArchived(workspaceId, purged);
+    }
+
     @Transactional
     public void recordMissionCreated(Mission mission) {
         TimelineEvent event = TimelineEvent.create(
@@ -94,7 +243,7 @@ public class TimelineService {
                 "Mission created: " + mission.getTitle(),
                 null
         );
-        timelineEventRepository.save(event);
+        timelineEventWriter.write(event);
         webSocketService.notifyTimelineEvent(mission.getWorkspace().getId(), event);
     }
 
@@ -109,7 +258,7 @@ public class TimelineService {
                 "Mission threading started: " + mission.getTitle(),
                 null
         );
-        timelineEventRepository.save(event);
+        timelineEventWriter.write(event);
         webSocketService.notifyTimelineEvent(mission.getWorkspace().getId(), event);
     }
 
@@ -124,7 +273,7 @@ public class TimelineService {
                 "Mission woven: " + mission.getTitle(),
                 null
         );
-        timelineEventRepository.save(event);
+        timelineEventWriter.write(event);
         webSocketService.notifyTimelineEvent(mission.getWorkspace().getId(), event);
     }
 
@@ -139,7 +288,7 @@ public class TimelineService {
                 "Mission dropped: " + mission.getTitle(),
                 null
         );
-        timelineEventRepository.save(event);
+        timelineEventWriter.write(event);
         webSocketService.notifyTimelineEvent(mission.getWorkspace().getId(), event);
     }
 
@@ -154,7 +303,7 @@ public class TimelineService {
                 "Todo created: " + todo.getTitle(),
                 null
         );
-        timelineEventRepository.save(event);
+        timelineEventWriter.write(event);
         webSocketService.notifyTimelineEvent(todo.getMission().getWorkspace().getId(), event);
     }
 
@@ -169,7 +318,7 @@ public class TimelineService {
                 "Todo threading started: " + todo.getTitle(),
                 null
         );
-        timelineEventRepository.save(event);
+        timelineEventWriter.write(event);
         webSocketService.notifyTimelineEvent(todo.getMission().getWorkspace().getId(), event);
     }
 
@@ -188,7 +337,7 @@ public class TimelineService {
                 "Todo woven: " + todo.getTitle(),
                 metadata
         );
-        timelineEventRepository.save(event);
+        timelineEventWriter.write(event);
         webSocketService.notifyTimelineEvent(todo.getMission().getWorkspace().getId(), event);
     }
 
@@ -203,21 +352,31 @@ public class TimelineService {
                 "Todo tangled: " + todo.getTitle(),
                 null
         );
-        timelineEventRepository.save(event);
+        timelineEventWriter.write(event);
         webSocketService.notifyTimelineEvent(todo.getMission().getWorkspace().getId(), event);
     }
 
     @Transactional
     public void recordStepEvent(Todo todo, io.threadcast.domain.TodoStep step, String title, String message) {
-        EventType eventType = switch (step.getStatus()) {
+        recordStepEvent(todo, step.getStepType(), step.getStatus(), title, message);
+    }
+
+    /**
+     * Variant of {@link #recordStepEvent(Todo, io.threadcast.domain.TodoStep, String, String)} for
+     * callers that updated the step without loading it.
+     */
+    @Transactional
+    public void recordStepEvent(Todo todo, io.threadcast.domain.enums.StepType stepType,
+                                io.threadcast.domain.enums.StepStatus status, String title, String message) {
+        EventType eventType = switch (status) {
             case IN_PROGRESS -> EventType.STEP_STARTED;
             case COMPLETED -> EventType.STEP_COMPLETED;
             default -> EventType.STEP_STARTED;
         };
 
         Map<String, Object> metadata = new HashMap<>();
-        metadata.put("stepType", step.getStepType().name());
-        metadata.put("stepStatus", step.getStatus().name());
+        metadata.put("stepType", stepType.name());
+        metadata.put("stepStatus", status.name());
         if (message != null) {
             metadata.put("message", message);
         }
@@ -231,7 +390,7 @@ public class TimelineService {
                 title,
                 metadata
         );
-        timelineEventRepository.save(event);
+        timelineEventWriter.write(event);
         webSocketService.notifyTimelineEvent(todo.getMission().getWorkspace().getId(), event);
     }
 
@@ -262,6 +421,13 @@ public class TimelineService {
         // Create title from message, e.g., "Using Read" -> "📖 Reading files"
         String title = formatStepMessage(stepType, message);
 
+        // Bursts of tool usage within the same step become one event
+        if (activityCoalescer.isCoalescing(TimelineActivityCoalescer.Kind.STEP_PROGRESS)) {
+            activityCoalescer.add(TimelineActivityCoalescer.Kind.STEP_PROGRESS, todo,
+                    stepType + ":" + status, title, metadata, null, 0, 0);
+            return;
+        }
+
         TimelineEvent event = TimelineEvent.create(
                 todo.getMission().getWorkspace(),
                 todo.getMission(),
@@ -271,9 +437,9 @@ public class TimelineService {
                 title,
                 metadata
         );
-        timelineEventRepository.save(event);
-        webSocketService.notifyTimelineEvent(todo.getMission().getWorkspace().getId(), event);
-        webSocketService.notifyTodoTimelineEvent(todo.getId(), event);
+        timelineEventWriter.write(event);
+        UUID workspaceId = todo.getMission().getWorkspace().getId();
+        afterCommit(() -> webSocketService.notifyTimelineEvent(workspaceId, todo.getId(), event));
     }
 
     private String formatStepMessage(String stepType, String message) {
@@ -326,6 +492,13 @@ public class TimelineService {
         log.info("Recording AI activity: todoId={}, missionId={}, workspaceId={}",
             todo.getId(), todo.getMission().getId(), todo.getMission().getWorkspace().getId());
 
+        // Consecutive responses within the window become one event with summed tokens
+        if (activityCoalescer.isCoalescing(TimelineActivityCoalescer.Kind.AI_ACTIVITY)) {
+            activityCoalescer.add(TimelineActivityCoalescer.Kind.AI_ACTIVITY, todo,
+                    null, title, metadata, model, inputTokens, outputTokens);
+            return;
+        }
+
         TimelineEvent event = TimelineEvent.create(
                 todo.getMission().getWorkspace(),
                 todo.getMission(),
@@ -335,13 +508,27 @@ public class TimelineService {
                 title,
                 metadata
         );
-        TimelineEvent saved = timelineEventRepository.save(event);
-        log.info("AI activity saved: eventId={}, todoId={}", saved.getId(),
-            saved.getTodo() != null ? saved.getTodo().getId() : "null");
+        timelineEventWriter.write(event);
+        log.info("AI activity saved: eventId={}, todoId={}", event.getId(), todo.getId());
 
-        webSocketService.notifyTimelineEvent(todo.getMission().getWorkspace().getId(), event);
+        UUID workspaceId = todo.getMission().getWorkspace().getId();
+        afterCommit(() -> webSocketService.notifyTimelineEvent(workspaceId, todo.getId(), event));
+    }
 
-        // Also notify todo-specific channel
-        webSocketService.notifyTodoTimelineEvent(todo.getId(), event);
+    /**
+     * Run an action once the current transaction commits, or right away outside a transaction.
+     * Webhook activity is pushed only once its event is written, so a rolled-back batch pushes nothing.
+     */
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
     }
 }
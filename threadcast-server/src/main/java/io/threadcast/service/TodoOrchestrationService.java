@@ -3,8 +3,10 @@ package io.threadcast.service;
 import io.threadcast.domain.Mission;
 import io.threadcast.domain.Todo;
 import io.threadcast.domain.enums.MissionStatus;
+import io.threadcast.domain.enums.Priority;
 import io.threadcast.domain.enums.TodoStatus;
 import io.threadcast.repository.TodoRepository;
+import io.threadcast.service.terminal.TodoLaunchScheduler;
 import io.threadcast.service.terminal.TodoTerminalService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Lazy;
@@ -14,6 +16,7 @@ import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service for orchestrating Todo execution based on dependencies.
@@ -22,7 +25,8 @@ import java.util.UUID;
  * 2. Finds all todos that depended on it
  * 3. Checks if they are now ready to start
  * 4. If mission.autoStartEnabled is true and mission is THREADING, auto-starts them
- * 5. Creates worktree and starts terminal session with Claude Code for auto-started todos
+ * 5. Creates worktree and starts terminal session with Claude Code for auto-started todos,
+ *    through {@link TodoLaunchScheduler} so only a bounded number launch and run at once
  * 6. Notifies frontend via WebSocket
  */
 @Slf4j
@@ -35,6 +39,7 @@ public class TodoOrchestrationService {
     private final TodoTerminalService terminalService;
     private final GitWorktreeService worktreeService;
     private final TransactionTemplate transactionTemplate;
+    private final TodoLaunchScheduler launchScheduler;
 
     public TodoOrchestrationService(
             TodoRepository todoRepository,
@@ -42,13 +47,15 @@ public class TodoOrchestrationService {
             WebSocketService webSocketService,
             @Lazy TodoTerminalService terminalService,
             GitWorktreeService worktreeService,
-            TransactionTemplate transactionTemplate) {
+            TransactionTemplate transactionTemplate,
+            TodoLaunchScheduler launchScheduler) {
         this.todoRepository = todoRepository;
         this.timelineService = timelineService;
         this.webSocketService = webSocketService;
         this.terminalService = terminalService;
         this.worktreeService = worktreeService;
         this.transactionTemplate = transactionTemplate;
+        this.launchScheduler = launchScheduler;
     }
 
     /**
@@ -65,6 +72,7 @@ public class TodoOrchestrationService {
         // Capture values before async - avoid LazyInitializationException
         final UUID todoId = completedTodo.getId();
         final UUID missionId = completedTodo.getMission().getId();
+        final UUID workspaceId = completedTodo.getMission().getWorkspace().getId();
         final boolean autoStartEnabled = Boolean.TRUE.equals(completedTodo.getMission().getAutoStartEnabled());
         final MissionStatus missionStatus = completedTodo.getMission().getStatus();
 
@@ -72,12 +80,14 @@ public class TodoOrchestrationService {
         worktreeService.commitWorktree(completedTodo)
             .thenRun(() -> {
                 log.info("Worktree committed for todo: {}", todoId);
-                startDependentTodos(todoId, missionId, autoStartEnabled, missionStatus);
+                launchScheduler.release(todoId);
+                startDependentTodos(todoId, missionId, workspaceId, autoStartEnabled, missionStatus);
             })
             .exceptionally(e -> {
                 log.error("Failed to commit worktree for todo {}: {}", todoId, e.getMessage());
                 // Still try to start dependent todos even if commit failed
-                startDependentTodos(todoId, missionId, autoStartEnabled, missionStatus);
+                launchScheduler.release(todoId);
+                startDependentTodos(todoId, missionId, workspaceId, autoStartEnabled, missionStatus);
                 return null;
             });
     }
@@ -87,7 +97,8 @@ public class TodoOrchestrationService {
      * Called from async context after worktree commit.
      * Uses atomic database operation to prevent race conditions.
      */
-    private void startDependentTodos(UUID completedTodoId, UUID missionId, boolean autoStartEnabled, MissionStatus missionStatus) {
+    private void startDependentTodos(UUID completedTodoId, UUID missionId, UUID workspaceId,
+                                     boolean autoStartEnabled, MissionStatus missionStatus) {
         // Reload the completed todo to get fresh data
         Todo completedTodo = todoRepository.findById(completedTodoId).orElse(null);
         if (completedTodo == null) {
@@ -117,9 +128,9 @@ public class TodoOrchestrationService {
 
             // Check if auto-start is enabled and mission is threading
             if (autoStartEnabled && missionStatus == MissionStatus.THREADING) {
-                // Use atomic operation to start the todo - prevents race condition
-                // This will only succeed if the todo is currently PENDING
-                tryAtomicAutoStart(dependentId, dependentTitle, missionId);
+                // Queue for launch; the atomic start runs once a launch slot is free
+                // and only succeeds if the todo is still PENDING
+                scheduleAutoStart(dependentId, dependentTitle, missionId, workspaceId, dependent.getPriority());
             } else {
                 // Just notify if manual start is required
                 if (dependent.getStatus() == TodoStatus.PENDING) {
@@ -130,12 +141,26 @@ public class TodoOrchestrationService {
         }
     }
 
+    /**
+     * Queue a ready todo in the launch scheduler. It stays PENDING until a slot is free,
+     * then {@link #tryAtomicAutoStart} runs.
+     */
+    public void scheduleAutoStart(UUID todoId, String todoTitle, UUID missionId, UUID workspaceId, Priority priority) {
+        if (!launchScheduler.submit(todoId, todoTitle, missionId, workspaceId, priority,
+                () -> tryAtomicAutoStart(todoId, todoTitle, missionId))) {
+            log.info("Todo {} is already queued or launching, skipping", todoTitle);
+        }
+    }
+
     /**
      * Attempt to atomically start a todo.
      * Uses database-level atomic update to prevent race conditions.
      * Uses programmatic transaction to ensure atomicity even when called from async context.
+     *
+     * @return completes true once the terminal session with Claude Code is up, false if the todo
+     *         was already started or completed
      */
-    public void tryAtomicAutoStart(UUID todoId, String todoTitle, UUID missionId) {
+    public CompletableFuture<Boolean> tryAtomicAutoStart(UUID todoId, String todoTitle, UUID missionId) {
         // Use programmatic transaction since this may be called from async context
         // where @Transactional proxy doesn't work
         Boolean started = transactionTemplate.execute(status -> {
@@ -154,7 +179,7 @@ public class TodoOrchestrationService {
 
             if (todo == null) {
                 log.error("Todo not found after atomic start: {}", todoId);
-                return;
+                return CompletableFuture.completedFuture(false);
             }
 
             // Record timeline event
@@ -165,26 +190,30 @@ public class TodoOrchestrationService {
             webSocketService.notifyTodoReadyToStart(missionId, todo);
 
             // Create worktree and start terminal session
-            worktreeService.createWorktree(todo)
+            return worktreeService.createWorktree(todo)
                 .thenCompose(worktreePath -> {
                     log.info("Worktree created for todo {}: {}", todoId, worktreePath);
                     return terminalService.startSession(todoId.toString(), worktreePath, true);
                 })
-                .thenRun(() -> log.info("Terminal session started in worktree for todo: {}", todoId))
+                .thenApply(sessionName -> {
+                    log.info("Terminal session started in worktree for todo: {}", todoId);
+                    return true;
+                })
                 .exceptionally(e -> {
                     log.error("Failed to setup worktree/terminal for todo {}: {}", todoId, e.getMessage());
-                    return null;
+                    return false;
                 });
         } else {
             // Another thread/process already started or completed this todo
             log.info("Atomic auto-start skipped for todo {} - already started or completed", todoTitle);
+            return CompletableFuture.completedFuture(false);
         }
     }
 
     /**
      * Check all pending todos in a mission and start any that are ready.
      * Useful when mission starts threading or when manually triggered.
-     * Uses atomic operation to prevent race conditions.
+     * Todos are queued in the launch scheduler; each starts atomically once a slot is free.
      */
     @Transactional
     public void startReadyTodos(Mission mission) {
@@ -199,11 +228,12 @@ public class TodoOrchestrationService {
         }
 
         UUID missionId = mission.getId();
+        UUID workspaceId = mission.getWorkspace().getId();
         List<Todo> readyTodos = todoRepository.findReadyToStart(missionId);
         log.info("Found {} ready todos for mission {}", readyTodos.size(), missionId);
 
         for (Todo todo : readyTodos) {
-            tryAtomicAutoStart(todo.getId(), todo.getTitle(), missionId);
+            scheduleAutoStart(todo.getId(), todo.getTitle(), missionId, workspaceId, todo.getPriority());
         }
     }
 }
@@ -12,6 +12,7 @@ import io.threadcast.repository.AIQuestionRepository;
 import io.threadcast.repository.MissionRepository;
 import io.threadcast.repository.TimelineEventRepository;
 import io.threadcast.repository.TodoRepository;
+import io.threadcast.service.terminal.TodoTerminalService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
@@ -32,6 +33,7 @@ public class TodoService {
     private final TimelineService timelineService;
     private final WebSocketService webSocketService;
     private final TodoOrchestrationService orchestrationService;
+    private final TodoTerminalService terminalService;
 
     public TodoService(
             TodoRepository todoRepository,
@@ -40,7 +42,8 @@ public class TodoService {
             AIQuestionRepository aiQuestionRepository,
             TimelineService timelineService,
             WebSocketService webSocketService,
-            @Lazy TodoOrchestrationService orchestrationService) {
+            @Lazy TodoOrchestrationService orchestrationService,
+            @Lazy TodoTerminalService terminalService) {
         this.todoRepository = todoRepository;
         this.missionRepository = missionRepository;
         this.timelineEventRepository = timelineEventRepository;
@@ -48,6 +51,7 @@ public class TodoService {
         this.timelineService = timelineService;
         this.webSocketService = webSocketService;
         this.orchestrationService = orchestrationService;
+        this.terminalService = terminalService;
     }
 
     @Transactional(readOnly = true)
@@ -130,12 +134,14 @@ public class TodoService {
             case WOVEN -> {
                 todo.complete();
                 timelineService.recordTodoCompleted(todo);
+                terminalService.endRecording(id);
                 // Trigger orchestration to start next ready todos
                 orchestrationService.onTodoCompleted(todo);
             }
             case TANGLED -> {
                 todo.fail();
                 timelineService.recordTodoFailed(todo);
+                terminalService.endRecording(id);
             }
             default -> todo.setStatus(status);
         }
@@ -185,10 +191,14 @@ public class TodoService {
 
         // Delete related data first to avoid FK constraint violation
         aiQuestionRepository.deleteByTodoId(id);
+        timelineService.removeTodoFromStats(id);
         timelineEventRepository.deleteByTodoId(id);
+        timelineService.removeTodoFromArchive(mission.getWorkspace().getId(), id);
 
         mission.getTodos().remove(todo);
         todoRepository.delete(todo);
+        terminalService.endRecording(id);
+        terminalService.evictRoute(id);
 
         // Update mission progress
         mission.updateProgress();
@@ -1,24 +1,38 @@
 package io.threadcast.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.threadcast.domain.AIQuestion;
 import io.threadcast.domain.Mission;
+import io.threadcast.domain.PmAgent;
 import io.threadcast.domain.TimelineEvent;
 import io.threadcast.domain.Todo;
 import io.threadcast.domain.enums.MissionStatus;
 import io.threadcast.domain.enums.TodoStatus;
 import io.threadcast.dto.response.AIQuestionResponse;
+import io.threadcast.dto.response.LaunchQueueResponse;
 import io.threadcast.dto.response.MissionResponse;
+import io.threadcast.dto.response.PmAgentStatusResponse;
 import io.threadcast.dto.response.TimelineEventResponse;
 import io.threadcast.dto.response.TodoResponse;
+import io.threadcast.service.websocket.WebSocketEventLog;
+import io.threadcast.service.websocket.WebSocketOutboundConflator;
+import io.threadcast.service.websocket.WebSocketSubscriptions;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
 
 @Slf4j
 @Service
@@ -26,10 +40,12 @@ import java.util.UUID;
 public class WebSocketService {
 
     private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final WebSocketEventLog eventLog;
+    private final WebSocketSubscriptions subscriptions;
 
     public void notifyMissionCreated(UUID workspaceId, Mission mission) {
-        Map<String, Object> event = createEvent("MISSION_CREATED", MissionResponse.from(mission));
-        messagingTemplate.convertAndSend("/topic/workspaces/" + workspaceId, event);
+        publish("MISSION_CREATED", () -> MissionResponse.from(mission), "/topic/workspaces/" + workspaceId);
     }
 
     public void notifyMissionStatusChanged(UUID workspaceId, Mission mission, MissionStatus previousStatus) {
@@ -41,22 +57,20 @@ public class WebSocketService {
         payload.put("startedAt", mission.getStartedAt());
         payload.put("completedAt", mission.getCompletedAt());
 
-        Map<String, Object> event = createEvent("MISSION_STATUS_CHANGED", payload);
-        messagingTemplate.convertAndSend("/topic/workspaces/" + workspaceId, event);
-        messagingTemplate.convertAndSend("/topic/missions/" + mission.getId(), event);
+        publish("MISSION_STATUS_CHANGED", () -> payload,
+                "/topic/workspaces/" + workspaceId,
+                "/topic/missions/" + mission.getId());
     }
 
     public void notifyMissionDeleted(UUID workspaceId, UUID missionId) {
         Map<String, Object> payload = new HashMap<>();
         payload.put("missionId", missionId);
 
-        Map<String, Object> event = createEvent("MISSION_DELETED", payload);
-        messagingTemplate.convertAndSend("/topic/workspaces/" + workspaceId, event);
+        publish("MISSION_DELETED", () -> payload, "/topic/workspaces/" + workspaceId);
     }
 
     public void notifyTodoCreated(UUID missionId, Todo todo) {
-        Map<String, Object> event = createEvent("TODO_CREATED", TodoResponse.from(todo, false));
-        messagingTemplate.convertAndSend("/topic/missions/" + missionId, event);
+        publish("TODO_CREATED", () -> TodoResponse.from(todo, false), "/topic/missions/" + missionId);
     }
 
     public void notifyTodoStatusChanged(UUID missionId, Todo todo, TodoStatus previousStatus) {
@@ -69,15 +83,15 @@ public class WebSocketService {
         payload.put("completedAt", todo.getCompletedAt());
         payload.put("currentStep", todo.getCurrentStep());
 
-        Map<String, Object> event = createEvent("TODO_STATUS_CHANGED", payload);
-        messagingTemplate.convertAndSend("/topic/missions/" + missionId, event);
-        messagingTemplate.convertAndSend("/topic/todos/" + todo.getId(), event);
+        publish("TODO_STATUS_CHANGED", () -> payload,
+                "/topic/missions/" + missionId,
+                "/topic/todos/" + todo.getId());
     }
 
     public void notifyTodoUpdated(UUID missionId, Todo todo) {
-        Map<String, Object> event = createEvent("TODO_UPDATED", TodoResponse.from(todo, false));
-        messagingTemplate.convertAndSend("/topic/missions/" + missionId, event);
-        messagingTemplate.convertAndSend("/topic/todos/" + todo.getId(), event);
+        publish("TODO_UPDATED", () -> TodoResponse.from(todo, false),
+                "/topic/missions/" + missionId,
+                "/topic/todos/" + todo.getId());
     }
 
     public void notifyTodoDeleted(UUID missionId, UUID todoId) {
@@ -85,13 +99,21 @@ public class WebSocketService {
         payload.put("todoId", todoId);
         payload.put("missionId", missionId);
 
-        Map<String, Object> event = createEvent("TODO_DELETED", payload);
-        messagingTemplate.convertAndSend("/topic/missions/" + missionId, event);
+        publish("TODO_DELETED", () -> payload, "/topic/missions/" + missionId);
     }
 
     public void notifyTimelineEvent(UUID workspaceId, TimelineEvent timelineEvent) {
-        Map<String, Object> event = createEvent("TIMELINE_EVENT", TimelineEventResponse.from(timelineEvent));
-        messagingTemplate.convertAndSend("/topic/timeline/" + workspaceId, event);
+        publish("TIMELINE_EVENT", () -> TimelineEventResponse.from(timelineEvent), "/topic/timeline/" + workspaceId);
+    }
+
+    /**
+     * Notify a todo's timeline event on the workspace timeline and the todo topics in one send.
+     */
+    public void notifyTimelineEvent(UUID workspaceId, UUID todoId, TimelineEvent timelineEvent) {
+        publish("TIMELINE_EVENT", () -> TimelineEventResponse.from(timelineEvent),
+                "/topic/timeline/" + workspaceId,
+                "/topic/todos/" + todoId + "/timeline",
+                "/topic/todos/" + todoId);
     }
 
     /**
@@ -99,22 +121,29 @@ public class WebSocketService {
      * Used for AI activity updates during weaving.
      */
     public void notifyTodoTimelineEvent(UUID todoId, TimelineEvent timelineEvent) {
-        Map<String, Object> event = createEvent("TIMELINE_EVENT", TimelineEventResponse.from(timelineEvent));
-        messagingTemplate.convertAndSend("/topic/todos/" + todoId + "/timeline", event);
-        // Also send to main todo topic for UI updates
-        messagingTemplate.convertAndSend("/topic/todos/" + todoId, event);
+        // Also sent to the main todo topic for UI updates
+        publish("TIMELINE_EVENT", () -> TimelineEventResponse.from(timelineEvent),
+                "/topic/todos/" + todoId + "/timeline",
+                "/topic/todos/" + todoId);
+    }
+
+    /**
+     * Debug stream of un-coalesced AI activity for a todo. Not persisted.
+     */
+    public void notifyTodoRawActivity(UUID todoId, Map<String, Object> activity) {
+        publish("RAW_ACTIVITY", () -> activity, "/topic/todos/" + todoId + "/timeline/raw");
     }
 
     public void notifyQuestionCreated(UUID workspaceId, AIQuestion question) {
-        Map<String, Object> event = createEvent("AI_QUESTION_CREATED", AIQuestionResponse.from(question));
-        messagingTemplate.convertAndSend("/topic/ai/questions/" + workspaceId, event);
-        messagingTemplate.convertAndSend("/topic/todos/" + question.getTodo().getId(), event);
+        publish("AI_QUESTION_CREATED", () -> AIQuestionResponse.from(question),
+                "/topic/ai/questions/" + workspaceId,
+                "/topic/todos/" + question.getTodo().getId());
     }
 
     public void notifyQuestionAnswered(UUID workspaceId, AIQuestion question) {
-        Map<String, Object> event = createEvent("AI_QUESTION_ANSWERED", AIQuestionResponse.from(question));
-        messagingTemplate.convertAndSend("/topic/ai/questions/" + workspaceId, event);
-        messagingTemplate.convertAndSend("/topic/todos/" + question.getTodo().getId(), event);
+        publish("AI_QUESTION_ANSWERED", () -> AIQuestionResponse.from(question),
+                "/topic/ai/questions/" + workspaceId,
+                "/topic/todos/" + question.getTodo().getId());
     }
 
     /**
@@ -122,9 +151,73 @@ public class WebSocketService {
      * Sends to both mission topic and specific todo topic.
      */
     public void notifyStepProgress(UUID missionId, io.threadcast.dto.response.StepProgressResponse progress) {
-        Map<String, Object> event = createEvent("STEP_PROGRESS", progress);
-        messagingTemplate.convertAndSend("/topic/missions/" + missionId, event);
-        messagingTemplate.convertAndSend("/topic/todos/" + progress.getTodoId(), event);
+        publishLatest("STEP_PROGRESS", () -> progress,
+                "STEP_PROGRESS:" + progress.getTodoId() + ":" + progress.getStepType(),
+                "/topic/missions/" + missionId,
+                "/topic/todos/" + progress.getTodoId());
+    }
+
+    /**
+     * Notify frontend about token usage reported for a todo.
+     * Only the latest update is delivered to a client that is behind.
+     */
+    public void notifyUsageUpdate(String todoId, String model, long inputTokens, long outputTokens) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("todoId", todoId);
+        payload.put("model", model);
+        payload.put("inputTokens", inputTokens);
+        payload.put("outputTokens", outputTokens);
+
+        publishLatest("USAGE_UPDATE", () -> payload, "USAGE_UPDATE:" + todoId, "/topic/todos/" + todoId);
+    }
+
+    /**
+     * Notify frontend that the AI asked a question in the terminal (SwiftCast hook).
+     */
+    public void notifyAIQuestionDetected(String todoId, String question, String context) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("todoId", todoId);
+        payload.put("question", question);
+        payload.put("context", context);
+
+        publish("AI_QUESTION_DETECTED", () -> payload, "/topic/todos/" + todoId);
+    }
+
+    /**
+     * Notify frontend that Claude finished a session for a todo.
+     */
+    public void notifySessionComplete(String todoId, String stopReason) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("todoId", todoId);
+        payload.put("stopReason", stopReason);
+        payload.put("status", "WOVEN");
+
+        publish("SESSION_COMPLETE", () -> payload, "/topic/todos/" + todoId);
+    }
+
+    /**
+     * Notify frontend that a Claude Code team session was launched for a mission.
+     */
+    public void notifyTeamLaunched(UUID missionId, String sessionName) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("missionId", missionId.toString());
+        payload.put("sessionName", sessionName);
+        payload.put("status", "RUNNING");
+
+        publish("TEAM_LAUNCHED", () -> payload, "/topic/missions/" + missionId);
+    }
+
+    /**
+     * Broadcast a workspace's PM Agent status. Sent without the event envelope.
+     */
+    public void notifyPmAgentStatus(UUID workspaceId, PmAgent agent) {
+        String destination = "/topic/workspace/" + workspaceId + "/pm-agent";
+        boolean watched = subscriptions.isWatched(destination);
+        subscriptions.record("PM_AGENT_STATUS", watched);
+        if (watched) {
+            messagingTemplate.convertAndSend(destination, PmAgentStatusResponse.from(agent),
+                    Map.of(WebSocketOutboundConflator.CONFLATION_KEY_HEADER, "PM_AGENT_STATUS:" + workspaceId));
+        }
     }
 
     /**
@@ -137,11 +230,18 @@ public class WebSocketService {
         payload.put("title", todo.getTitle());
         payload.put("status", todo.getStatus());
 
-        Map<String, Object> event = createEvent("TODO_READY_TO_START", payload);
-        messagingTemplate.convertAndSend("/topic/missions/" + missionId, event);
+        publish("TODO_READY_TO_START", () -> payload, "/topic/missions/" + missionId);
         log.info("Notified todo ready to start: {} ({})", todo.getTitle(), todo.getId());
     }
 
+    /**
+     * Notify frontend about the mission's auto-start launch queue (queued / launching / running todos).
+     * Only the latest state is delivered to a client that is behind.
+     */
+    public void notifyLaunchQueueChanged(UUID missionId, LaunchQueueResponse queue) {
+        publishLatest("LAUNCH_QUEUE", () -> queue, "LAUNCH_QUEUE:" + missionId, "/topic/missions/" + missionId);
+    }
+
     /**
      * Notify that a todo's dependencies have changed.
      */
@@ -155,9 +255,9 @@ public class WebSocketService {
         payload.put("isBlocked", todo.isBlocked());
         payload.put("isReadyToStart", todo.isReadyToStart());
 
-        Map<String, Object> event = createEvent("TODO_DEPENDENCIES_CHANGED", payload);
-        messagingTemplate.convertAndSend("/topic/missions/" + missionId, event);
-        messagingTemplate.convertAndSend("/topic/todos/" + todo.getId(), event);
+        publish("TODO_DEPENDENCIES_CHANGED", () -> payload,
+                "/topic/missions/" + missionId,
+                "/topic/todos/" + todo.getId());
         log.info("Notified todo dependencies changed: {} ({})", todo.getTitle(), todo.getId());
     }
 
@@ -170,9 +270,9 @@ public class WebSocketService {
         payload.put("status", status);
         payload.put("analysis", analysis);
 
-        Map<String, Object> event = createEvent("ANALYSIS_COMPLETED", payload);
-        messagingTemplate.convertAndSend("/topic/workspaces/" + workspaceId + "/analysis", event);
-        messagingTemplate.convertAndSend("/topic/workspaces/" + workspaceId, event);
+        publish("ANALYSIS_COMPLETED", () -> payload,
+                "/topic/workspaces/" + workspaceId + "/analysis",
+                "/topic/workspaces/" + workspaceId);
         log.info("Notified analysis completed: {} (status: {})", requestId, status);
     }
 
@@ -184,17 +284,106 @@ public class WebSocketService {
         payload.put("requestId", requestId);
         payload.put("status", status);
 
-        Map<String, Object> event = createEvent("ANALYSIS_STATUS_CHANGED", payload);
-        messagingTemplate.convertAndSend("/topic/workspaces/" + workspaceId + "/analysis", event);
+        publish("ANALYSIS_STATUS_CHANGED", () -> payload, "/topic/workspaces/" + workspaceId + "/analysis");
         log.info("Notified analysis status changed: {} -> {}", requestId, status);
     }
 
-    private Map<String, Object> createEvent(String eventType, Object payload) {
-        Map<String, Object> event = new HashMap<>();
-        event.put("eventId", UUID.randomUUID().toString());
-        event.put("eventType", eventType);
-        event.put("timestamp", LocalDateTime.now());
-        event.put("payload", payload);
-        return event;
+    /**
+     * Wire format of every event: {eventId, eventType, timestamp, payload}.
+     */
+    record OutboundEvent(String eventId, String eventType, LocalDateTime timestamp, Object payload) {
+    }
+
+    /**
+     * Build the event once, serialize it once, and send the same bytes to every destination.
+     * Bypasses the broker template's message converter, which would re-serialize per destination.
+     * The payload is only built if at least one destination has a subscriber or a replay buffer.
+     */
+    void publish(String eventType, Supplier<?> payload, String... destinations) {
+        send(eventType, payload, null, destinations);
+    }
+
+    /**
+     * Publish an event whose newest value supersedes older ones with the same key,
+     * so a slow client only receives the latest (see {@link WebSocketOutboundConflator}).
+     */
+    void publishLatest(String eventType, Supplier<?> payload, String conflationKey, String... destinations) {
+        send(eventType, payload, conflationKey, destinations);
+    }
+
+    private void send(String eventType, Supplier<?> payload, String conflationKey, String... destinations) {
+        EventBody body = new EventBody(eventType, payload);
+        for (String destination : destinations) {
+            boolean watched = subscriptions.isWatched(destination);
+            if (!eventLog.isEnabled() || (!watched && !eventLog.isTracking(destination))) {
+                subscriptions.record(eventType, watched);
+                if (watched && body.get() != null) {
+                    messagingTemplate.send(destination, MessageBuilder.createMessage(body.get(), headers(conflationKey).getMessageHeaders()));
+                }
+                continue;
+            }
+            // Tracked topics buffer the body even with nobody subscribed, so a client that
+            // dropped off can resume; the subscription is re-checked under the topic lock
+            eventLog.publish(destination, () -> subscriptions.isWatched(destination), (epoch, seq, watchedNow) -> {
+                subscriptions.record(eventType, watchedNow);
+                if (!watchedNow || body.get() == null) {
+                    return body.get();
+                }
+                SimpMessageHeaderAccessor accessor = headers(conflationKey);
+                accessor.setNativeHeader(WebSocketEventLog.SEQ_HEADER, Long.toString(seq));
+                accessor.setNativeHeader(WebSocketEventLog.EPOCH_HEADER, epoch);
+                messagingTemplate.send(destination, MessageBuilder.createMessage(body.get(), accessor.getMessageHeaders()));
+                return body.get();
+            });
+        }
+    }
+
+    /**
+     * Serialized event, built on first use and shared by every destination.
+     */
+    private final class EventBody {
+        private final String eventType;
+        private final Supplier<?> payload;
+        private boolean built;
+        private byte[] bytes;
+
+        private EventBody(String eventType, Supplier<?> payload) {
+            this.eventType = eventType;
+            this.payload = payload;
+        }
+
+        /**
+         * @return the JSON bytes, or null if the event could not be serialized
+         */
+        private byte[] get() {
+            if (!built) {
+                built = true;
+                try {
+                    bytes = objectMapper.writeValueAsBytes(
+                            new OutboundEvent(nextEventId(), eventType, LocalDateTime.now(), payload.get()));
+                } catch (JsonProcessingException e) {
+                    log.error("Failed to serialize {} event: {}", eventType, e.getMessage(), e);
+                }
+            }
+            return bytes;
+        }
+    }
+
+    private static SimpMessageHeaderAccessor headers(String conflationKey) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        if (conflationKey != null) {
+            accessor.setNativeHeader(WebSocketOutboundConflator.CONFLATION_KEY_HEADER, conflationKey);
+        }
+        accessor.setLeaveMutable(true);
+        return accessor;
+    }
+
+    /**
+     * Event ids only need to be unique, not unpredictable, so skip SecureRandom.
+     */
+    private static String nextEventId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new UUID(random.nextLong(), random.nextLong()).toString();
     }
 }
@@ -6,6 +6,7 @@ import io.sessioncast.core.SessionCastClient;
 import io.threadcast.domain.Workspace;
 import io.threadcast.dto.response.WorkspaceAgentStatusResponse;
 import io.threadcast.repository.WorkspaceRepository;
+import io.threadcast.service.terminal.TerminalReadiness;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -16,6 +17,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Map;
 import java.util.UUID;
@@ -44,6 +46,7 @@ public class WorkspaceAgentService {
     private final SessionCastClient sessionCast;
     private final WorkspaceRepository workspaceRepository;
     private final ObjectMapper objectMapper;
+    private final TerminalReadiness readiness;
 
     @Value("${server.port:21000}")
     private int serverPort;
@@ -56,9 +59,11 @@ public class WorkspaceAgentService {
 
     public WorkspaceAgentService(
             SessionCastClient sessionCast,
-            WorkspaceRepository workspaceRepository) {
+            WorkspaceRepository workspaceRepository,
+            TerminalReadiness readiness) {
         this.sessionCast = sessionCast;
         this.workspaceRepository = workspaceRepository;
+        this.readiness = readiness;
         this.objectMapper = new ObjectMapper();
         this.objectMapper.registerModule(new JavaTimeModule());
     }
@@ -163,17 +168,13 @@ public class WorkspaceAgentService {
                 workspaceId, requestDir, callbackUrl
         );
 
+        // Wait for Claude to initialize: its prompt on screen, or SPAWN_WAIT_SECONDS at most
+        CompletableFuture<Boolean> claudeReady = readiness.awaitClaudeReady(
+                sessionName, Duration.ofSeconds(SPAWN_WAIT_SECONDS));
+
         return sessionCast.sendKeys(sessionName, launchCommand, true)
-                .thenCompose(v -> {
-                    // Wait for Claude to initialize
-                    return CompletableFuture.runAsync(() -> {
-                        try {
-                            Thread.sleep(SPAWN_WAIT_SECONDS * 1000L);
-                        } catch (InterruptedException e) {
-                            Thread.currentThread().interrupt();
-                        }
-                    });
-                });
+                .thenCompose(v -> claudeReady)
+                .thenAccept(ready -> log.info("Workspace agent {} launched (claudeReady={})", sessionName, ready));
     }
 
     /**
@@ -0,0 +1,294 @@
+package io.threadcast.service.step;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.threadcast.config.StepConfig;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Applies a todo's step and status transitions one at a time, in arrival order.
+ *
+ * Each todo with pending transitions has a mailbox; a mailbox is drained by one worker of a
+ * shared pool at a time, so concurrent webhooks for the same todo (a step update racing a
+ * session_complete) no longer interleave, while different todos proceed in parallel. Mailboxes
+ * exist only while they hold work, so idle todos cost nothing.
+ *
+ * Consecutive transitions that queued up for a todo are applied in one transaction. If any of
+ * them throws, or the commit fails, the batch is rolled back and each transition is replayed in
+ * its own transaction, so one bad update does not fail its neighbours. Transitions should
+ * therefore defer external side effects (WebSocket pushes, prompts) until after commit.
+ *
+ * Callers block until their transition has committed and get its result or exception. A caller
+ * that already has a transaction open (such as a SwiftCast webhook, applied in the processor's
+ * transaction) applies the transition inline in that transaction instead, as does a transition that
+ * calls back into the mailbox.
+ *
+ * Every transaction that applies transitions first locks the todo's row ({@code SELECT ... FOR UPDATE}),
+ * so inline transitions and mailbox batches for the same todo, whichever path or node they arrive on,
+ * still run one after the other. The mailbox only saves them from queueing on that lock.
+ */
+@Slf4j
+@Component
+public class StepTransitionMailbox {
+
+    // Set on a thread while it applies transitions
+    private static final ThreadLocal<Boolean> APPLYING = ThreadLocal.withInitial(() -> false);
+
+    private static final String LOCK_SQL = "SELECT id FROM todo WHERE id = ? FOR UPDATE";
+
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final StepConfig.MailboxConfig config;
+    private final ExecutorService workers;
+
+    // A todo is present while its mailbox holds work or is being drained; guarded by compute()
+    private final ConcurrentHashMap<UUID, ArrayDeque<Transition<?>>> mailboxes = new ConcurrentHashMap<>();
+
+    private final Timer waitTimer;
+    private final Timer applyTimer;
+    private final DistributionSummary batchSizeSummary;
+    private final Counter replayCounter;
+
+    public StepTransitionMailbox(
+            TransactionTemplate transactionTemplate,
+            JdbcTemplate jdbcTemplate,
+            StepConfig stepConfig,
+            MeterRegistry meterRegistry) {
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.config = stepConfig.getMailbox();
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, config.getWorkers()), runnable -> {
+            Thread thread = new Thread(runnable, "step-mailbox-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("threadcast.step.mailbox.active", mailboxes, ConcurrentHashMap::size)
+                .description("Todos with pending step transitions")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("threadcast.step.mailbox.wait")
+                .description("Time a step transition waited in its todo's mailbox")
+                .register(meterRegistry);
+        this.applyTimer = Timer.builder("threadcast.step.mailbox.apply")
+                .description("Time to apply and commit a batch of step transitions")
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("threadcast.step.mailbox.batch.size")
+                .description("Step transitions committed together")
+                .register(meterRegistry);
+        this.replayCounter = Counter.builder("threadcast.step.mailbox.replayed")
+                .description("Batches rolled back and replayed one transition at a time")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(config.getShutdownTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                log.warn("Step mailboxes not drained within {}ms", config.getShutdownTimeoutMs());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Apply a transition on the todo's mailbox and wait for it to commit.
+     *
+     * @return the transition's result
+     * @throws RuntimeException whatever the transition threw, or if it did not commit in time
+     */
+    public <T> T call(UUID todoId, Supplier<T> transition) {
+        if (APPLYING.get() || TransactionSynchronizationManager.isActualTransactionActive()) {
+            // Already inside a transition, or a caller's transaction whose row locks a worker
+            // could wait on while we wait on the worker: join it instead of queueing
+            lock(todoId);
+            return transition.get();
+        }
+        if (!config.isEnabled() || workers.isShutdown()) {
+            return transactionTemplate.execute(status -> {
+                lock(todoId);
+                return transition.get();
+            });
+        }
+
+        Transition<T> pending = new Transition<>(transition);
+        boolean[] created = {false};
+        mailboxes.compute(todoId, (id, mailbox) -> {
+            if (mailbox == null) {
+                mailbox = new ArrayDeque<>();
+                created[0] = true;
+            }
+            mailbox.add(pending);
+            return mailbox;
+        });
+        if (created[0]) {
+            schedule(todoId);
+        }
+        return pending.await(config.getCallTimeoutMs());
+    }
+
+    public int getActiveMailboxes() {
+        return mailboxes.size();
+    }
+
+    private void schedule(UUID todoId) {
+        try {
+            workers.execute(() -> drain(todoId));
+        } catch (RejectedExecutionException e) {
+            // Shutting down - drain on the caller rather than strand the mailbox
+            drain(todoId);
+        }
+    }
+
+    /**
+     * Apply the next batch of a todo's transitions, then yield the worker: the mailbox is
+     * rescheduled behind other todos if more arrived, or retired if it is empty.
+     */
+    private void drain(UUID todoId) {
+        List<Transition<?>> batch = new ArrayList<>();
+        mailboxes.computeIfPresent(todoId, (id, mailbox) -> {
+            while (!mailbox.isEmpty() && batch.size() < Math.max(1, config.getMaxBatchSize())) {
+                batch.add(mailbox.poll());
+            }
+            return mailbox;
+        });
+
+        APPLYING.set(true);
+        try {
+            apply(todoId, batch);
+        } finally {
+            APPLYING.set(false);
+        }
+
+        boolean[] more = {false};
+        mailboxes.computeIfPresent(todoId, (id, mailbox) -> {
+            if (mailbox.isEmpty()) {
+                return null;
+            }
+            more[0] = true;
+            return mailbox;
+        });
+        if (more[0]) {
+            schedule(todoId);
+        }
+    }
+
+    private void apply(UUID todoId, List<Transition<?>> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long now = System.nanoTime();
+        for (Transition<?> transition : batch) {
+            waitTimer.record(now - transition.enqueuedAt, TimeUnit.NANOSECONDS);
+        }
+        batchSizeSummary.record(batch.size());
+
+        Timer.Sample sample = Timer.start();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                lock(todoId);
+                for (Transition<?> transition : batch) {
+                    transition.apply();
+                }
+            });
+            batch.forEach(Transition::complete);
+        } catch (RuntimeException | Error e) {
+            if (batch.size() == 1) {
+                batch.get(0).fail(e);
+            } else {
+                log.warn("Step transition batch for todo {} rolled back ({} transitions), replaying one by one: {}",
+                        todoId, batch.size(), e.getMessage());
+                replayCounter.increment();
+                for (Transition<?> transition : batch) {
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> {
+                            lock(todoId);
+                            transition.apply();
+                        });
+                        transition.complete();
+                    } catch (RuntimeException | Error replayError) {
+                        transition.fail(replayError);
+                    }
+                }
+            }
+        } finally {
+            sample.stop(applyTimer);
+        }
+    }
+
+    /**
+     * Hold the todo's row until the current transaction ends. Taking it again in the same
+     * transaction is a no-op; a deleted todo has no row and is left to the transition to report.
+     */
+    private void lock(UUID todoId) {
+        jdbcTemplate.queryForList(LOCK_SQL, UUID.class, todoId);
+    }
+
+    private static final class Transition<T> {
+        private final Supplier<T> body;
+        private final long enqueuedAt = System.nanoTime();
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private T value;
+
+        private Transition(Supplier<T> body) {
+            this.body = body;
+        }
+
+        void apply() {
+            value = body.get();
+        }
+
+        void complete() {
+            result.complete(value);
+        }
+
+        void fail(Throwable error) {
+            result.completeExceptionally(error);
+        }
+
+        T await(long timeoutMs) {
+            try {
+                return result.get(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw new IllegalStateException(e.getCause());
+            } catch (TimeoutException e) {
+                throw new IllegalStateException("Step transition not committed within " + timeoutMs + "ms");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting for step transition", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package io.threadcast.service.terminal;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Line-level diff between consecutive screen frames of one terminal.
+ *
+ * A delta is a small JSON document:
+ * <pre>{"base":41,"rows":48,"lines":[[3,"G1sz..."],[47,"4pyzIFRo..."]]}</pre>
+ * {@code base} is the sequence of the frame it applies to, {@code rows} the line count of the new
+ * frame and {@code lines} the replaced lines as {@code [index, base64 of the line bytes]}. Lines
+ * are split on {@code \n} of the decoded screen, so joining the lines with {@code \n} gives the
+ * frame back. A client applies a delta only if it holds frame {@code base}; otherwise it waits for
+ * the next keyframe.
+ *
+ * Not thread-safe; a hub channel calls it under its own lock.
+ */
+public class ScreenDeltaEncoder {
+
+    private static final byte[][] NO_LINES = new byte[0][];
+
+    private final int keyframeIntervalFrames;
+    private final long keyframeIntervalMs;
+
+    private byte[][] lines;
+    private long seq;
+    private int framesSinceKeyframe;
+    private long lastKeyframeAt;
+    private boolean keyframeRequested;
+
+    public ScreenDeltaEncoder(int keyframeIntervalFrames, long keyframeIntervalMs) {
+        this.keyframeIntervalFrames = keyframeIntervalFrames;
+        this.keyframeIntervalMs = keyframeIntervalMs;
+    }
+
+    /**
+     * Result of encoding one frame.
+     *
+     * @param seq   sequence number of this frame
+     * @param delta delta JSON, {@code null} if the frame must go out as a keyframe,
+     *              or empty if nothing changed
+     */
+    public record Encoded(long seq, String delta) {
+
+        public boolean isKeyframe() {
+            return delta == null;
+        }
+
+        public boolean isUnchanged() {
+            return delta != null && delta.isEmpty();
+        }
+    }
+
+    public long seq() {
+        return seq;
+    }
+
+    /**
+     * Make the next frame a keyframe.
+     */
+    public void requestKeyframe() {
+        keyframeRequested = true;
+    }
+
+    /**
+     * Record the next frame and work out how delta viewers should receive it.
+     *
+     * @param base64Content the full frame as SessionCast sends it
+     * @param diff          false when no delta viewer is watching; only the state is updated
+     */
+    public Encoded next(String base64Content, long nowMs, boolean diff) {
+        byte[][] previous = lines;
+        lines = split(base64Content);
+        seq++;
+
+        boolean keyframe = !diff || previous == null || lines == NO_LINES || keyframeRequested
+                || framesSinceKeyframe + 1 >= keyframeIntervalFrames
+                || nowMs - lastKeyframeAt >= keyframeIntervalMs;
+        String delta = keyframe ? null : delta(previous, lines, seq - 1);
+        if (delta != null && delta.length() >= base64Content.length()) {
+            delta = null;
+        }
+
+        if (delta == null) {
+            keyframeRequested = false;
+            framesSinceKeyframe = 0;
+            lastKeyframeAt = nowMs;
+        } else {
+            framesSinceKeyframe++;
+        }
+        return new Encoded(seq, delta);
+    }
+
+    private static String delta(byte[][] previous, byte[][] current, long base) {
+        List<Integer> changed = new ArrayList<>();
+        for (int i = 0; i < current.length; i++) {
+            if (i >= previous.length || !Arrays.equals(previous[i], current[i])) {
+                changed.add(i);
+            }
+        }
+        if (changed.isEmpty() && previous.length == current.length) {
+            return "";
+        }
+
+        Base64.Encoder encoder = Base64.getEncoder();
+        StringBuilder json = new StringBuilder(64 + changed.size() * 48);
+        json.append("{\"base\":").append(base)
+                .append(",\"rows\":").append(current.length)
+                .append(",\"lines\":[");
+        for (int i = 0; i < changed.size(); i++) {
+            int index = changed.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append('[').append(index).append(",\"")
+                    .append(encoder.encodeToString(current[index])).append("\"]");
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Decoded frame split into lines, or an empty array if the content is not valid base64.
+     */
+    static byte[][] split(String base64Content) {
+        try {
+            return split(Base64.getDecoder().decode(base64Content));
+        } catch (IllegalArgumentException e) {
+            return NO_LINES;
+        }
+    }
+
+    static byte[][] split(byte[] screen) {
+        List<byte[]> result = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < screen.length; i++) {
+            if (screen[i] == '\n') {
+                result.add(Arrays.copyOfRange(screen, start, i));
+                start = i + 1;
+            }
+        }
+        result.add(Arrays.copyOfRange(screen, start, screen.length));
+        return result.toArray(NO_LINES);
+    }
+
+    /**
+     * The frame a delta produces when applied to {@code lines}.
+     */
+    static byte[][] apply(byte[][] lines, JsonNode delta) {
+        byte[][] result = Arrays.copyOf(lines, delta.get("rows").asInt());
+        for (int i = lines.length; i < result.length; i++) {
+            result[i] = new byte[0];
+        }
+        Base64.Decoder decoder = Base64.getDecoder();
+        for (JsonNode line : delta.get("lines")) {
+            result[line.get(0).asInt()] = decoder.decode(line.get(1).asText());
+        }
+        return result;
+    }
+
+    /**
+     * Lines joined back into a base64 frame.
+     */
+    static String join(byte[][] lines) {
+        int size = Math.max(0, lines.length - 1);
+        for (byte[] line : lines) {
+            size += line.length;
+        }
+        byte[] screen = new byte[size];
+        int position = 0;
+        for (int i = 0; i < lines.length; i++) {
+            if (i > 0) {
+                screen[position++] = '\n';
+            }
+            System.arraycopy(lines[i], 0, screen, position, lines[i].length);
+            position += lines[i].length;
+        }
+        return Base64.getEncoder().encodeToString(screen);
+    }
+}
@@ -0,0 +1,290 @@
+package io.threadcast.service.terminal;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.threadcast.config.TerminalConfig;
+import io.threadcast.domain.TerminalSessionMapping;
+import io.threadcast.domain.Todo;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process routing table from SwiftCast session IDs, trace IDs and tmux session names to the
+ * todo, mission and workspace they belong to.
+ *
+ * SwiftCast sends a webhook for every Claude API call, and each one used to resolve its todo with
+ * one or more database reads before doing any work. Routes are written here when a session
+ * mapping is created or registered and dropped when the todo's session stops, so routing an event
+ * is a map lookup. {@link TodoTerminalService} falls back to the database on a miss (e.g. after a
+ * restart) and caches what it finds.
+ *
+ * The secondary indexes are only changed while holding the todo's entry in {@code byTodo}, so
+ * evicting a todo always removes every key that points at it.
+ *
+ * Keys the database had no mapping for are remembered for {@code threadcast.terminal.route.miss-ttl-ms}
+ * so webhooks that arrive before their session is registered do not each read the database.
+ * Caching a route forgets the misses of its keys; the set is bounded by {@code max-misses}.
+ */
+@Component
+public class SessionRouteCache {
+
+    /**
+     * What a webhook needs to route an event, without loading the todo.
+     */
+    public record Route(
+            UUID todoId,
+            UUID missionId,
+            UUID workspaceId,
+            String todoTitle,
+            String tmuxSessionName,
+            String swiftcastSessionId) {
+
+        /**
+         * Build a route from a mapping. Must be called where the todo and its mission can be loaded.
+         */
+        public static Route of(TerminalSessionMapping mapping) {
+            return of(mapping.getTodo(), mapping.getTmuxSessionName(), mapping.getSwiftcastSessionId());
+        }
+
+        public static Route of(Todo todo, String tmuxSessionName, String swiftcastSessionId) {
+            return new Route(
+                    todo.getId(),
+                    todo.getMission().getId(),
+                    todo.getMission().getWorkspace().getId(),
+                    todo.getTitle(),
+                    tmuxSessionName,
+                    swiftcastSessionId);
+        }
+
+        Route withSwiftcastSessionId(String swiftcastSessionId) {
+            return new Route(todoId, missionId, workspaceId, todoTitle, tmuxSessionName, swiftcastSessionId);
+        }
+    }
+
+    /**
+     * The key a route was looked up by.
+     */
+    public enum Lookup {
+        TODO,
+        SWIFTCAST_SESSION,
+        TRACE,
+        TMUX_SESSION
+    }
+
+    private record MissKey(Lookup lookup, String key) {
+    }
+
+    /**
+     * A todo's route and the trace IDs already known to be stored for it.
+     */
+    private record Entry(Route route, Set<String> traceIds) {
+    }
+
+    private final Map<UUID, Entry> byTodo = new ConcurrentHashMap<>();
+    private final Map<String, UUID> bySwiftcastSessionId = new ConcurrentHashMap<>();
+    private final Map<String, UUID> byTraceId = new ConcurrentHashMap<>();
+    private final Map<String, UUID> byTmuxSessionName = new ConcurrentHashMap<>();
+
+    /**
+     * Keys without a mapping, with the System.nanoTime() their miss expires at.
+     */
+    private final Map<MissKey, Long> misses = new ConcurrentHashMap<>();
+
+    private final TerminalConfig.RouteConfig config;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public SessionRouteCache(TerminalConfig terminalConfig, MeterRegistry meterRegistry) {
+        this.config = terminalConfig.getRoute();
+        Gauge.builder("threadcast.terminal.routes", byTodo, Map::size)
+                .description("Todos with a cached session route")
+                .register(meterRegistry);
+        this.hitCounter = Counter.builder("threadcast.terminal.routes.lookups")
+                .tag("result", "hit")
+                .description("Session route lookups answered from memory")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("threadcast.terminal.routes.lookups")
+                .tag("result", "miss")
+                .description("Session route lookups that fell back to the database")
+                .register(meterRegistry);
+        Gauge.builder("threadcast.terminal.routes.misses", misses, Map::size)
+                .description("Keys remembered as having no session mapping")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Cache a route, replacing the todo's current one. Used where the route was just written.
+     */
+    public void put(Route route) {
+        byTodo.compute(route.todoId(), (todoId, current) -> index(current, route));
+    }
+
+    /**
+     * Cache a route loaded from the database unless the todo already has one. A concurrent
+     * registration may have cached a newer route than the one read.
+     */
+    public void putIfAbsent(Route route) {
+        byTodo.compute(route.todoId(), (todoId, current) -> current != null ? current : index(null, route));
+    }
+
+    /**
+     * Point the todo's route at a newly registered SwiftCast session. Returns false when the todo
+     * has no cached route.
+     */
+    public boolean updateSwiftcastSessionId(UUID todoId, String swiftcastSessionId) {
+        forgetMiss(Lookup.SWIFTCAST_SESSION, swiftcastSessionId);
+        return byTodo.computeIfPresent(todoId, (id, current) ->
+                index(current, current.route().withSwiftcastSessionId(swiftcastSessionId))) != null;
+    }
+
+    /**
+     * Remember that a trace ID is stored for the todo. Returns false when the todo has no cached route.
+     */
+    public boolean addTraceId(UUID todoId, String traceId) {
+        forgetMiss(Lookup.TRACE, traceId);
+        return byTodo.computeIfPresent(todoId, (id, current) -> {
+            if (current.traceIds().add(traceId)) {
+                byTraceId.put(traceId, id);
+            }
+            return current;
+        }) != null;
+    }
+
+    /**
+     * Whether the trace ID is already stored for the todo, i.e. adding it again would be a no-op.
+     */
+    public boolean hasTraceId(UUID todoId, String traceId) {
+        Entry entry = byTodo.get(todoId);
+        return entry != null && entry.traceIds().contains(traceId);
+    }
+
+    /**
+     * Whether the todo has a cached route. Not counted as a lookup.
+     */
+    public boolean contains(UUID todoId) {
+        return byTodo.containsKey(todoId);
+    }
+
+    /**
+     * Drop the todo's route and every key that points at it.
+     */
+    public void evict(UUID todoId) {
+        byTodo.computeIfPresent(todoId, (id, current) -> {
+            Route route = current.route();
+            if (route.swiftcastSessionId() != null) {
+                bySwiftcastSessionId.remove(route.swiftcastSessionId(), id);
+            }
+            byTmuxSessionName.remove(route.tmuxSessionName(), id);
+            current.traceIds().forEach(traceId -> byTraceId.remove(traceId, id));
+            return null;
+        });
+    }
+
+    public Optional<Route> get(UUID todoId) {
+        return resolve(byTodo.get(todoId));
+    }
+
+    public Optional<Route> findBySwiftcastSessionId(String swiftcastSessionId) {
+        return findBy(bySwiftcastSessionId, swiftcastSessionId);
+    }
+
+    public Optional<Route> findByTraceId(String traceId) {
+        return findBy(byTraceId, traceId);
+    }
+
+    public Optional<Route> findByTmuxSessionName(String tmuxSessionName) {
+        return findBy(byTmuxSessionName, tmuxSessionName);
+    }
+
+    /**
+     * Remember that the database has no mapping for the key, until the miss TTL passes or a route
+     * with that key is cached.
+     */
+    public void recordMiss(Lookup lookup, String key) {
+        long ttlMs = config.getMissTtlMs();
+        if (key == null || ttlMs <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (misses.size() >= config.getMaxMisses()) {
+            misses.values().removeIf(expiresAt -> expiresAt - now <= 0);
+            if (misses.size() >= config.getMaxMisses()) {
+                // Only costs a database read per key, so dropping everything is fine under a flood
+                misses.clear();
+            }
+        }
+        misses.put(new MissKey(lookup, key), now + TimeUnit.MILLISECONDS.toNanos(ttlMs));
+    }
+
+    /**
+     * Whether the key was recently found to have no mapping, so the database need not be read again.
+     */
+    public boolean isKnownMiss(Lookup lookup, String key) {
+        if (key == null) {
+            return false;
+        }
+        MissKey missKey = new MissKey(lookup, key);
+        Long expiresAt = misses.get(missKey);
+        if (expiresAt == null) {
+            return false;
+        }
+        if (expiresAt - System.nanoTime() <= 0) {
+            misses.remove(missKey, expiresAt);
+            return false;
+        }
+        return true;
+    }
+
+    private void forgetMiss(Lookup lookup, String key) {
+        if (key != null && !misses.isEmpty()) {
+            misses.remove(new MissKey(lookup, key));
+        }
+    }
+
+    private Optional<Route> findBy(Map<String, UUID> index, String key) {
+        UUID todoId = key != null ? index.get(key) : null;
+        return resolve(todoId != null ? byTodo.get(todoId) : null);
+    }
+
+    private Optional<Route> resolve(Entry entry) {
+        if (entry == null) {
+            missCounter.increment();
+            return Optional.empty();
+        }
+        hitCounter.increment();
+        return Optional.of(entry.route());
+    }
+
+    /**
+     * Index {@code route} for its todo, moving the session keys if they changed. Runs inside the
+     * todo's {@code byTodo} compute.
+     */
+    private Entry index(Entry current, Route route) {
+        UUID todoId = route.todoId();
+        forgetMiss(Lookup.TODO, todoId.toString());
+        forgetMiss(Lookup.SWIFTCAST_SESSION, route.swiftcastSessionId());
+        forgetMiss(Lookup.TMUX_SESSION, route.tmuxSessionName());
+        if (current != null) {
+            Route previous = current.route();
+            if (previous.swiftcastSessionId() != null
+                    && !previous.swiftcastSessionId().equals(route.swiftcastSessionId())) {
+                bySwiftcastSessionId.remove(previous.swiftcastSessionId(), todoId);
+            }
+            if (!previous.tmuxSessionName().equals(route.tmuxSessionName())) {
+                byTmuxSessionName.remove(previous.tmuxSessionName(), todoId);
+            }
+        }
+        if (route.swiftcastSessionId() != null) {
+            bySwiftcastSessionId.put(route.swiftcastSessionId(), todoId);
+        }
+        byTmuxSessionName.put(route.tmuxSessionName(), todoId);
+        return new Entry(route, current != null ? current.traceIds() : ConcurrentHashMap.newKeySet());
+    }
+}
@@ -0,0 +1,150 @@
+package io.threadcast.service.terminal;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.sessioncast.core.SessionCastClient;
+import io.sessioncast.core.event.Disposable;
+import io.threadcast.config.TerminalConfig;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Readiness signals for multi-step terminal launches, without parking a thread per wait.
+ *
+ * A launch stage waits for a screen pattern (e.g. Claude Code's idle prompt) or a named signal
+ * fired by a webhook, bounded by a timeout. The returned future completes with {@code true} as
+ * soon as the condition is seen and with {@code false} on timeout; callers continue either way,
+ * so a timeout behaves like the fixed sleep it replaces. Timeouts, delays and fired signals
+ * complete on one dedicated scheduler thread, never on the common pool or the caller's thread.
+ *
+ * Register the wait before sending the keys that trigger it, so a fast signal is not missed.
+ */
+@Slf4j
+@Component
+public class TerminalReadiness {
+
+    // CSI / OSC escape sequences, so patterns match the visible text
+    private static final Pattern ANSI_ESCAPE = Pattern.compile("\u001B(\\[[0-9;?]*[ -/]*[@-~]|\\][^\u0007]*\u0007)");
+
+    private final SessionCastClient sessionCast;
+    private final Pattern claudeReadyPattern;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Set<CompletableFuture<Boolean>>> waiters = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "terminal-readiness");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TerminalReadiness(SessionCastClient sessionCast, TerminalConfig terminalConfig, MeterRegistry meterRegistry) {
+        this.sessionCast = sessionCast;
+        this.claudeReadyPattern = Pattern.compile(terminalConfig.getLaunch().getClaudeReadyPattern());
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Wait until the session shows Claude Code's idle prompt.
+     */
+    public CompletableFuture<Boolean> awaitClaudeReady(String sessionName, Duration timeout) {
+        return awaitScreen(sessionName, claudeReadyPattern, timeout);
+    }
+
+    /**
+     * Wait until a screen frame of the session matches the pattern (escape sequences removed).
+     */
+    public CompletableFuture<Boolean> awaitScreen(String sessionName, Pattern pattern, Duration timeout) {
+        CompletableFuture<Boolean> ready = withTimeout(new CompletableFuture<>(), timeout, "screen");
+        Disposable subscription;
+        try {
+            subscription = sessionCast.onScreen(sessionName, data -> {
+                if (!ready.isDone() && pattern.matcher(visibleText(data.getBase64Content())).find()) {
+                    ready.complete(true);
+                }
+            });
+        } catch (Exception e) {
+            // No screen stream: the timeout alone decides, like the fixed wait did
+            log.debug("Screen readiness unavailable for {}: {}", sessionName, e.getMessage());
+            return ready;
+        }
+        ready.whenComplete((matched, e) -> subscription.dispose());
+        return ready;
+    }
+
+    /**
+     * Wait until {@link #fire(String)} is called with the same signal.
+     */
+    public CompletableFuture<Boolean> expect(String signal, Duration timeout) {
+        CompletableFuture<Boolean> fired = new CompletableFuture<>();
+        waiters.computeIfAbsent(signal, key -> ConcurrentHashMap.newKeySet()).add(fired);
+        fired.whenComplete((result, e) -> waiters.computeIfPresent(signal, (key, set) -> {
+            set.remove(fired);
+            return set.isEmpty() ? null : set;
+        }));
+        return withTimeout(fired, timeout, "signal");
+    }
+
+    /**
+     * Release everything currently waiting for the signal. The waiters complete on the
+     * readiness thread, so the next launch stage never runs inside the caller (typically a
+     * webhook request and its transaction).
+     */
+    public void fire(String signal) {
+        Set<CompletableFuture<Boolean>> pending = waiters.get(signal);
+        if (pending != null) {
+            for (CompletableFuture<Boolean> waiter : pending) {
+                scheduler.execute(() -> waiter.complete(true));
+            }
+        }
+    }
+
+    /**
+     * A future that completes after the delay, timed on the readiness scheduler.
+     */
+    public CompletableFuture<Void> delay(Duration delay) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        scheduler.schedule(() -> done.complete(null), delay.toMillis(), TimeUnit.MILLISECONDS);
+        return done;
+    }
+
+    private CompletableFuture<Boolean> withTimeout(CompletableFuture<Boolean> ready, Duration timeout, String kind) {
+        var timer = scheduler.schedule(() -> ready.complete(false), timeout.toMillis(), TimeUnit.MILLISECONDS);
+        ready.whenComplete((signalled, e) -> {
+            timer.cancel(false);
+            Counter.builder("threadcast.terminal.readiness")
+                    .description("Launch stage waits, by what ended them")
+                    .tag("kind", kind)
+                    .tag("result", Boolean.TRUE.equals(signalled) ? "ready" : "timeout")
+                    .register(meterRegistry)
+                    .increment();
+        });
+        return ready;
+    }
+
+    static String visibleText(String base64Content) {
+        try {
+            String screen = new String(Base64.getDecoder().decode(base64Content), StandardCharsets.UTF_8);
+            return ANSI_ESCAPE.matcher(screen).replaceAll("");
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+}
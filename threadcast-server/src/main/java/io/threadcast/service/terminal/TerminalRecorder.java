@@ -0,0 +1,572 @@
+package io.threadcast.service.terminal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.threadcast.config.TerminalConfig;
+import io.threadcast.domain.Todo;
+import io.threadcast.domain.enums.TodoStatus;
+import io.threadcast.repository.TodoRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Records todo terminal screens to local disk and reads them back at any point in time.
+ *
+ * Each todo has a directory with two append-only files:
+ * <ul>
+ *   <li>{@code frames.log}: records of {@code [int length][long epochMs][byte kind][deflated payload]},
+ *       where a keyframe payload is the raw screen and a delta payload is the
+ *       {@link ScreenDeltaEncoder} JSON against the previous record</li>
+ *   <li>{@code frames.idx}: one {@code [long epochMs][long offset]} entry per keyframe</li>
+ * </ul>
+ * Seeking binary-searches the memory-mapped index for the last keyframe at or before the
+ * requested time and applies the deltas after it, so at most one keyframe interval is decoded.
+ * A restarted session appends to the same files, starting with a keyframe.
+ *
+ * A record that fails half-way is cut off again, and a tail left by a crash is truncated when
+ * the recording is reopened, so every record in the file is complete and replay stays aligned.
+ *
+ * Recordings of deleted todos are removed by the sweeper, and so are recordings that have not
+ * been written for {@code retention-days} once their todo is no longer running. The sweeper
+ * also closes recordings left open after their todo finished.
+ */
+@Slf4j
+@Service
+public class TerminalRecorder {
+
+    static final String FRAMES_FILE = "frames.log";
+    static final String INDEX_FILE = "frames.idx";
+
+    private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES + 1;
+    private static final int INDEX_ENTRY_BYTES = 2 * Long.BYTES;
+    private static final byte KEYFRAME = 0;
+    private static final byte DELTA = 1;
+    private static final int MIN_RECORD_LENGTH = Long.BYTES + 1;
+
+    private final TerminalConfig.RecordingConfig config;
+    private final TodoRepository todoRepository;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Recording> recordings = new ConcurrentHashMap<>();
+
+    private final Counter framesCounter;
+    private final Counter bytesCounter;
+    private final Counter deletedCounter;
+
+    private ScheduledExecutorService sweeper;
+
+    public TerminalRecorder(
+            TerminalConfig terminalConfig,
+            TodoRepository todoRepository,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry) {
+        this.config = terminalConfig.getRecording();
+        this.todoRepository = todoRepository;
+        this.objectMapper = objectMapper;
+
+        Gauge.builder("threadcast.terminal.recording.open", recordings, Map::size)
+                .description("Terminal recordings currently being written")
+                .register(meterRegistry);
+        this.framesCounter = Counter.builder("threadcast.terminal.recording.frames")
+                .description("Screen frames appended to recordings")
+                .register(meterRegistry);
+        this.bytesCounter = Counter.builder("threadcast.terminal.recording.bytes")
+                .description("Compressed bytes appended to recordings")
+                .register(meterRegistry);
+        this.deletedCounter = Counter.builder("threadcast.terminal.recording.deleted")
+                .description("Recordings removed by retention")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Summary of a todo's recording.
+     */
+    public record RecordingInfo(String todoId, Instant startedAt, Instant endedAt,
+                                long keyframes, long bytes, boolean recording) {
+    }
+
+    /**
+     * One full screen as it was at {@code timestamp}.
+     */
+    public record RecordedFrame(Instant timestamp, String content) {
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "terminal-recording-sweeper");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweepSafely,
+                config.getSweepIntervalMs(), config.getSweepIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+            sweeper = null;
+        }
+        recordings.values().forEach(Recording::close);
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * Start (or continue) the recording of a todo's terminal.
+     *
+     * @return the recording to append frames to, or null if recording is disabled or failed
+     */
+    public Recording open(String todoId) {
+        if (!config.isEnabled()) {
+            return null;
+        }
+        try {
+            return recordings.computeIfAbsent(todoId, id -> new Recording(id, directory(id)));
+        } catch (UncheckedIOException | IllegalArgumentException e) {
+            log.warn("Failed to open terminal recording for todo {}: {}", todoId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Append-only writer for one todo. Frames are appended by one thread at a time
+     * (the screen hub channel); {@link #close()} may come from another.
+     */
+    public final class Recording implements Closeable {
+
+        private final String todoId;
+        private final FileChannel frames;
+        private final FileChannel index;
+        private final ScreenDeltaEncoder encoder =
+                new ScreenDeltaEncoder(config.getKeyframeIntervalFrames(), config.getKeyframeIntervalMs());
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private byte[] buffer = new byte[64 * 1024];
+        private volatile boolean closed;
+
+        private Recording(String todoId, Path dir) {
+            this.todoId = todoId;
+            try {
+                Files.createDirectories(dir);
+                this.frames = FileChannel.open(dir.resolve(FRAMES_FILE), StandardOpenOption.CREATE,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                this.index = FileChannel.open(dir.resolve(INDEX_FILE), StandardOpenOption.CREATE,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                repair();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Truncate whatever a crash left half-written: a partial index entry, index entries past
+         * the end of the frames file, and an incomplete last record. Only the records after the
+         * last keyframe are scanned.
+         */
+        private void repair() throws IOException {
+            long framesSize = frames.size();
+            long entries = index.size() / INDEX_ENTRY_BYTES;
+            long scanFrom = 0;
+            ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_BYTES);
+            while (entries > 0) {
+                entry.clear();
+                readFully(index, entry, (entries - 1) * INDEX_ENTRY_BYTES);
+                long offset = entry.getLong(Long.BYTES);
+                if (offset < framesSize) {
+                    scanFrom = offset;
+                    break;
+                }
+                entries--;
+            }
+            if (index.size() != entries * INDEX_ENTRY_BYTES) {
+                index.truncate(entries * INDEX_ENTRY_BYTES);
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            long position = scanFrom;
+            while (position < framesSize) {
+                header.clear();
+                if (framesSize - position < HEADER_BYTES) {
+                    break;
+                }
+                readFully(frames, header, position);
+                int length = header.getInt(0);
+                byte kind = header.get(Integer.BYTES + Long.BYTES);
+                if (!isValidRecord(length, kind) || position + Integer.BYTES + length > framesSize) {
+                    break;
+                }
+                position += Integer.BYTES + length;
+            }
+            if (position < framesSize) {
+                log.warn("Truncating {} bytes of incomplete terminal recording for todo {}",
+                        framesSize - position, todoId);
+                frames.truncate(position);
+            }
+        }
+
+        public synchronized void append(long epochMs, String base64Frame) {
+            if (closed) {
+                return;
+            }
+            ScreenDeltaEncoder.Encoded encoded = encoder.next(base64Frame, epochMs, true);
+            if (encoded.isUnchanged()) {
+                return;
+            }
+            try {
+                byte kind = encoded.isKeyframe() ? KEYFRAME : DELTA;
+                byte[] payload = encoded.isKeyframe()
+                        ? Base64.getDecoder().decode(base64Frame)
+                        : encoded.delta().getBytes(StandardCharsets.UTF_8);
+                int compressed = deflate(payload);
+
+                long offset = frames.size();
+                if (offset + HEADER_BYTES + compressed > config.getMaxBytesPerRecording()) {
+                    log.warn("Terminal recording for todo {} reached {} bytes; recording stopped",
+                            todoId, config.getMaxBytesPerRecording());
+                    close();
+                    return;
+                }
+                ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + compressed);
+                record.putInt(MIN_RECORD_LENGTH + compressed).putLong(epochMs).put(kind).put(buffer, 0, compressed);
+                append(record.flip(), offset, kind == KEYFRAME
+                        ? ByteBuffer.allocate(INDEX_ENTRY_BYTES).putLong(epochMs).putLong(offset).flip()
+                        : null);
+                framesCounter.increment();
+                bytesCounter.increment(record.limit());
+            } catch (IOException | IllegalArgumentException e) {
+                log.warn("Failed to append to terminal recording for todo {}: {}", todoId, e.getMessage());
+                encoder.requestKeyframe();
+            }
+        }
+
+        /**
+         * Write one record and its index entry, or neither: on failure both files are cut back
+         * to where they were, and the recording is closed if even that fails.
+         */
+        private void append(ByteBuffer record, long offset, ByteBuffer indexEntry) throws IOException {
+            long indexSize = index.size();
+            try {
+                writeFully(frames, record);
+                if (indexEntry != null) {
+                    writeFully(index, indexEntry);
+                }
+            } catch (IOException e) {
+                try {
+                    frames.truncate(offset);
+                    index.truncate(indexSize);
+                } catch (IOException truncateFailed) {
+                    e.addSuppressed(truncateFailed);
+                    log.warn("Cannot roll back partial terminal recording for todo {}; recording stopped", todoId);
+                    close();
+                }
+                throw e;
+            }
+        }
+
+        public boolean isClosed() {
+            return closed;
+        }
+
+        private int deflate(byte[] payload) {
+            deflater.reset();
+            deflater.setInput(payload);
+            deflater.finish();
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            return length;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            recordings.remove(todoId, this);
+            deflater.end();
+            try {
+                frames.close();
+                index.close();
+            } catch (IOException e) {
+                log.debug("Failed to close terminal recording for todo {}: {}", todoId, e.getMessage());
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of terminal recording");
+            }
+        }
+    }
+
+    private static boolean isValidRecord(int length, byte kind) {
+        return length >= MIN_RECORD_LENGTH && (kind == KEYFRAME || kind == DELTA);
+    }
+
+    // ----- replay -----
+
+    public Optional<RecordingInfo> info(String todoId) {
+        Path dir = directory(todoId);
+        try (FileChannel index = FileChannel.open(dir.resolve(INDEX_FILE), StandardOpenOption.READ)) {
+            long keyframes = index.size() / INDEX_ENTRY_BYTES;
+            if (keyframes == 0) {
+                return Optional.empty();
+            }
+            MappedByteBuffer entries = index.map(FileChannel.MapMode.READ_ONLY, 0, keyframes * INDEX_ENTRY_BYTES);
+            Path framesFile = dir.resolve(FRAMES_FILE);
+            return Optional.of(new RecordingInfo(
+                    todoId,
+                    Instant.ofEpochMilli(entries.getLong(0)),
+                    Files.getLastModifiedTime(framesFile).toInstant(),
+                    keyframes,
+                    Files.size(framesFile),
+                    recordings.containsKey(todoId)));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Up to {@code limit} full frames for playback: the screen at {@code from} (the first frame
+     * if {@code from} is before the recording), then every recorded change after it.
+     */
+    public List<RecordedFrame> frames(String todoId, Instant from, int limit) {
+        Path dir = directory(todoId);
+        long fromMs = from.toEpochMilli();
+        List<RecordedFrame> result = new ArrayList<>();
+        try (FileChannel index = FileChannel.open(dir.resolve(INDEX_FILE), StandardOpenOption.READ);
+             FileChannel frames = FileChannel.open(dir.resolve(FRAMES_FILE), StandardOpenOption.READ)) {
+            long keyframes = index.size() / INDEX_ENTRY_BYTES;
+            long framesSize = frames.size();
+            if (keyframes == 0 || framesSize == 0 || limit <= 0) {
+                return result;
+            }
+            MappedByteBuffer entries = index.map(FileChannel.MapMode.READ_ONLY, 0, keyframes * INDEX_ENTRY_BYTES);
+            long start = entries.getLong((int) (seekKeyframe(entries, keyframes, fromMs) * INDEX_ENTRY_BYTES + Long.BYTES));
+            MappedByteBuffer records = frames.map(FileChannel.MapMode.READ_ONLY, start, framesSize - start);
+
+            Inflater inflater = new Inflater();
+            try {
+                byte[][] lines = null;
+                long linesAt = 0;
+                while (records.remaining() >= HEADER_BYTES && result.size() < limit) {
+                    int length = records.getInt(records.position());
+                    byte recordKind = records.get(records.position() + Integer.BYTES + Long.BYTES);
+                    if (!isValidRecord(length, recordKind)) {
+                        log.warn("Corrupt terminal recording for todo {} at offset {}; replay stopped",
+                                todoId, start + records.position());
+                        break;
+                    }
+                    if (records.remaining() < Integer.BYTES + length) {
+                        break;  // record still being written
+                    }
+                    records.getInt();
+                    long epochMs = records.getLong();
+                    byte kind = records.get();
+                    byte[] compressed = new byte[length - MIN_RECORD_LENGTH];
+                    records.get(compressed);
+
+                    if (epochMs > fromMs && result.isEmpty() && lines != null) {
+                        // First change after the requested time: emit the screen as it was at that time
+                        result.add(new RecordedFrame(Instant.ofEpochMilli(linesAt), ScreenDeltaEncoder.join(lines)));
+                        if (result.size() >= limit) {
+                            break;
+                        }
+                    }
+                    byte[] payload = inflate(inflater, compressed);
+                    lines = kind == KEYFRAME
+                            ? ScreenDeltaEncoder.split(payload)
+                            : ScreenDeltaEncoder.apply(lines, objectMapper.readTree(payload));
+                    linesAt = epochMs;
+                    if (epochMs > fromMs) {
+                        result.add(new RecordedFrame(Instant.ofEpochMilli(epochMs), ScreenDeltaEncoder.join(lines)));
+                    }
+                }
+                if (result.isEmpty() && lines != null) {
+                    result.add(new RecordedFrame(Instant.ofEpochMilli(linesAt), ScreenDeltaEncoder.join(lines)));
+                }
+            } finally {
+                inflater.end();
+            }
+        } catch (NoSuchFileException e) {
+            return result;
+        } catch (IOException | DataFormatException e) {
+            throw new IllegalStateException("Unreadable terminal recording for todo " + todoId, e);
+        }
+        return result;
+    }
+
+    /**
+     * Index of the last keyframe at or before {@code atMs}, or 0.
+     */
+    private static long seekKeyframe(MappedByteBuffer entries, long count, long atMs) {
+        long low = 0;
+        long high = count - 1;
+        long found = 0;
+        while (low <= high) {
+            long mid = (low + high) >>> 1;
+            if (entries.getLong((int) (mid * INDEX_ENTRY_BYTES)) <= atMs) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private static byte[] inflate(Inflater inflater, byte[] compressed) throws DataFormatException {
+        inflater.reset();
+        inflater.setInput(compressed);
+        byte[] output = new byte[Math.max(256, compressed.length * 4)];
+        int length = 0;
+        while (!inflater.finished()) {
+            if (length == output.length) {
+                output = Arrays.copyOf(output, output.length * 2);
+            }
+            int inflated = inflater.inflate(output, length, output.length - length);
+            if (inflated == 0 && inflater.needsInput()) {
+                throw new DataFormatException("Truncated frame");
+            }
+            length += inflated;
+        }
+        return Arrays.copyOf(output, length);
+    }
+
+    // ----- retention -----
+
+    private void sweepSafely() {
+        try {
+            sweep();
+        } catch (Exception e) {
+            log.error("Terminal recording sweep failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Close recordings whose todo is gone or finished, then delete recordings whose todo is gone
+     * and finished recordings past their retention.
+     */
+    public void sweep() throws IOException {
+        Path root = Paths.get(config.getDir());
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        Instant cutoff = Instant.now().minus(Duration.ofDays(Math.max(0, config.getRetentionDays())));
+        List<Path> dirs;
+        try (Stream<Path> children = Files.list(root)) {
+            dirs = children.filter(Files::isDirectory).toList();
+        }
+        for (Path dir : dirs) {
+            String todoId = dir.getFileName().toString();
+            UUID todoUuid;
+            try {
+                todoUuid = UUID.fromString(todoId);
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            Optional<TodoStatus> status = todoRepository.findById(todoUuid).map(Todo::getStatus);
+            Recording open = recordings.get(todoId);
+            if (open != null) {
+                if (status.isPresent() && !isFinished(status.get())) {
+                    continue;
+                }
+                // Missed the end of the session (e.g. the todo finished without a stopSession)
+                log.info("Closing terminal recording of finished todo {}", todoId);
+                open.close();
+            }
+            boolean expired = config.getRetentionDays() > 0
+                    && status.map(s -> s != TodoStatus.THREADING).orElse(true)
+                    && lastWritten(dir).isBefore(cutoff);
+            if (status.isEmpty() || expired) {
+                delete(dir);
+            }
+        }
+    }
+
+    private static boolean isFinished(TodoStatus status) {
+        return status == TodoStatus.WOVEN || status == TodoStatus.TANGLED;
+    }
+
+    private void delete(Path dir) {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+            deletedCounter.increment();
+            log.info("Deleted terminal recording {}", dir);
+        } catch (NoSuchFileException e) {
+            // already gone
+        } catch (IOException e) {
+            log.warn("Failed to delete terminal recording {}: {}", dir, e.getMessage());
+        }
+    }
+
+    private static Instant lastWritten(Path dir) throws IOException {
+        Path frames = dir.resolve(FRAMES_FILE);
+        return Files.exists(frames)
+                ? Files.getLastModifiedTime(frames).toInstant()
+                : Files.getLastModifiedTime(dir).toInstant();
+    }
+
+    private Path directory(String todoId) {
+        // todo ids are UUIDs; reject anything that could escape the recording directory
+        return Paths.get(config.getDir(), UUID.fromString(todoId).toString());
+    }
+}
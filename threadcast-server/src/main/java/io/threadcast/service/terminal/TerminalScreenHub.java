@@ -0,0 +1,321 @@
+package io.threadcast.service.terminal;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.sessioncast.core.event.Disposable;
+import io.sessioncast.core.screen.ScreenData;
+import io.threadcast.config.TerminalConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * Shares one SessionCast screen subscription per todo between all SSE viewers.
+ *
+ * The first viewer of a todo opens the upstream subscription, every {@link ScreenData} frame is
+ * written to all viewers from the SessionCast callback (no thread per viewer), and the upstream
+ * is disposed when the last viewer leaves. A viewer that joins an active channel immediately
+ * gets the most recent frame instead of waiting for the screen to change.
+ *
+ * Viewers can join in delta mode: they get a keyframe ({@code screen} event, full base64 frame)
+ * on join and then {@code screen-delta} events with only the changed lines (see
+ * {@link ScreenDeltaEncoder}), plus a keyframe at a regular interval or when one is requested.
+ * Both event kinds carry the frame sequence as the SSE id.
+ *
+ * While a todo's session runs, the channel also feeds its {@link TerminalRecorder} recording and
+ * stays open without viewers.
+ */
+@Slf4j
+@Component
+public class TerminalScreenHub {
+
+    static final String SCREEN_EVENT = "screen";
+    static final String DELTA_EVENT = "screen-delta";
+
+    private final TodoTerminalService terminalService;
+    private final TerminalRecorder recorder;
+    private final TerminalConfig.StreamConfig config;
+    private final Map<String, ScreenChannel> channels = new ConcurrentHashMap<>();
+
+    private final Counter framesCounter;
+    private final Counter failedSendsCounter;
+    private final Counter keyframeBytesCounter;
+    private final Counter deltaBytesCounter;
+
+    public TerminalScreenHub(TodoTerminalService terminalService, TerminalRecorder recorder,
+                             TerminalConfig terminalConfig, MeterRegistry meterRegistry) {
+        this.terminalService = terminalService;
+        this.recorder = recorder;
+        this.config = terminalConfig.getStream();
+
+        Gauge.builder("threadcast.terminal.screen.upstreams", channels, Map::size)
+                .description("Todos with an open SessionCast screen subscription")
+                .register(meterRegistry);
+        Gauge.builder("threadcast.terminal.screen.viewers", this, TerminalScreenHub::totalViewers)
+                .description("SSE clients watching terminal screens")
+                .register(meterRegistry);
+        this.framesCounter = Counter.builder("threadcast.terminal.screen.frames")
+                .description("Screen frames received from SessionCast")
+                .register(meterRegistry);
+        this.failedSendsCounter = Counter.builder("threadcast.terminal.screen.send.failed")
+                .description("Screen frames that could not be written to a viewer")
+                .register(meterRegistry);
+        this.keyframeBytesCounter = Counter.builder("threadcast.terminal.screen.bytes")
+                .description("Screen event data written to viewers, by kind")
+                .tag("kind", "keyframe")
+                .register(meterRegistry);
+        this.deltaBytesCounter = Counter.builder("threadcast.terminal.screen.bytes")
+                .description("Screen event data written to viewers, by kind")
+                .tag("kind", "delta")
+                .register(meterRegistry);
+    }
+
+    private final class ScreenChannel {
+        private final String todoId;
+        private final Set<SseEmitter> viewers = new CopyOnWriteArraySet<>();
+        private final Set<SseEmitter> deltaViewers = new CopyOnWriteArraySet<>();
+        private final ScreenDeltaEncoder encoder =
+                new ScreenDeltaEncoder(config.getKeyframeIntervalFrames(), config.getKeyframeIntervalMs());
+        private Disposable upstream;
+        private volatile TerminalRecorder.Recording recording;
+        private String lastFrame;
+
+        private ScreenChannel(String todoId) {
+            this.todoId = todoId;
+        }
+
+        private int size() {
+            return viewers.size() + deltaViewers.size();
+        }
+
+        private boolean remove(SseEmitter viewer) {
+            return viewers.remove(viewer) | deltaViewers.remove(viewer);
+        }
+
+        private boolean isIdle() {
+            return size() == 0 && (recording == null || recording.isClosed());
+        }
+
+        private synchronized void onFrame(ScreenData data) {
+            framesCounter.increment();
+            String frame = data.getBase64Content();
+            ScreenDeltaEncoder.Encoded encoded =
+                    encoder.next(frame, System.currentTimeMillis(), !deltaViewers.isEmpty());
+            lastFrame = frame;
+
+            TerminalRecorder.Recording current = recording;
+            if (current != null) {
+                if (current.isClosed()) {
+                    // Closed by the recorder (size limit, finished todo): drop the upstream if nobody watches
+                    recording = null;
+                    releaseIfIdle(this);
+                } else {
+                    current.append(System.currentTimeMillis(), frame);
+                }
+            }
+            for (SseEmitter viewer : viewers) {
+                send(viewer, SCREEN_EVENT, encoded.seq(), frame);
+            }
+            if (encoded.isUnchanged()) {
+                return;
+            }
+            for (SseEmitter viewer : deltaViewers) {
+                if (encoded.isKeyframe()) {
+                    send(viewer, SCREEN_EVENT, encoded.seq(), frame);
+                } else {
+                    send(viewer, DELTA_EVENT, encoded.seq(), encoded.delta());
+                }
+            }
+        }
+
+        /**
+         * Send the current frame to a viewer that just joined, as a keyframe.
+         */
+        private synchronized void sendCurrent(SseEmitter viewer) {
+            if (lastFrame != null) {
+                send(viewer, SCREEN_EVENT, encoder.seq(), lastFrame);
+            }
+        }
+
+        private synchronized void requestKeyframe() {
+            encoder.requestKeyframe();
+        }
+
+        private void send(SseEmitter viewer, String event, long seq, String data) {
+            try {
+                viewer.send(SseEmitter.event().name(event).id(Long.toString(seq)).data(data));
+                (event.equals(DELTA_EVENT) ? deltaBytesCounter : keyframeBytesCounter).increment(data.length());
+            } catch (IOException | IllegalStateException e) {
+                // The emitter's completion callback releases the viewer; stop writing to it now
+                failedSendsCounter.increment();
+                remove(viewer);
+                log.debug("SSE send failed for todo {}: {}", todoId, e.getMessage());
+                viewer.completeWithError(e);
+            }
+        }
+    }
+
+    /**
+     * Add an SSE viewer receiving full frames. See {@link #join(String, SseEmitter, boolean)}.
+     */
+    public void join(String todoId, SseEmitter emitter) {
+        join(todoId, emitter, false);
+    }
+
+    /**
+     * Add an SSE viewer for a todo's screen, opening the upstream subscription if it is the first.
+     *
+     * @param delta whether the viewer wants {@code screen-delta} events after the first keyframe
+     * @throws IllegalStateException if the todo has no active terminal session
+     */
+    public void join(String todoId, SseEmitter emitter, boolean delta) {
+        emitter.onCompletion(() -> leave(todoId, emitter));
+        emitter.onTimeout(() -> leave(todoId, emitter));
+        emitter.onError(e -> leave(todoId, emitter));
+
+        boolean deltaMode = delta && config.isDeltaEnabled();
+        ScreenChannel channel = channels.compute(todoId, (id, existing) -> {
+            ScreenChannel current = existing != null ? existing : openChannel(id);
+            (deltaMode ? current.deltaViewers : current.viewers).add(emitter);
+            return current;
+        });
+
+        channel.sendCurrent(emitter);
+    }
+
+    /**
+     * Record the todo's screen to disk until {@link #close(String)}, whether or not anyone watches.
+     *
+     * @throws IllegalStateException if the todo has no active terminal session
+     */
+    public void record(String todoId) {
+        if (!recorder.isEnabled()) {
+            return;
+        }
+        channels.compute(todoId, (id, existing) -> {
+            ScreenChannel current = existing != null ? existing : openChannel(id);
+            if (current.recording == null || current.recording.isClosed()) {
+                current.recording = recorder.open(id);
+            }
+            if (current.isIdle()) {
+                current.upstream.dispose();
+                return null;
+            }
+            return current;
+        });
+    }
+
+    private ScreenChannel openChannel(String todoId) {
+        ScreenChannel channel = new ScreenChannel(todoId);
+        channel.upstream = terminalService.subscribeToScreen(todoId, channel::onFrame);
+        log.debug("Opened screen subscription for todo {}", todoId);
+        return channel;
+    }
+
+    /**
+     * Make the next frame of a todo a keyframe for all delta viewers
+     * (e.g. a client that lost track of the sequence).
+     */
+    public void requestKeyframe(String todoId) {
+        ScreenChannel channel = channels.get(todoId);
+        if (channel != null) {
+            channel.requestKeyframe();
+        }
+    }
+
+    /**
+     * Remove a viewer; the upstream subscription is disposed when no viewers are left
+     * and the screen is not being recorded.
+     */
+    public void leave(String todoId, SseEmitter emitter) {
+        channels.computeIfPresent(todoId, (id, channel) -> {
+            channel.remove(emitter);
+            if (!channel.isIdle()) {
+                return channel;
+            }
+            channel.upstream.dispose();
+            log.debug("Closed screen subscription for todo {}", id);
+            return null;
+        });
+    }
+
+    /**
+     * Finish the todo's recording but keep its viewers (the todo is done, the session may linger).
+     * The upstream subscription is disposed if nobody is watching.
+     */
+    public void stopRecording(String todoId) {
+        ScreenChannel channel = channels.get(todoId);
+        if (channel == null) {
+            return;
+        }
+        TerminalRecorder.Recording current = channel.recording;
+        if (current != null) {
+            current.close();
+        }
+        releaseIfIdle(channel);
+    }
+
+    private void releaseIfIdle(ScreenChannel channel) {
+        channels.computeIfPresent(channel.todoId, (id, existing) -> {
+            if (existing != channel || !existing.isIdle()) {
+                return existing;
+            }
+            existing.upstream.dispose();
+            log.debug("Closed screen subscription for todo {}", id);
+            return null;
+        });
+    }
+
+    /**
+     * Drop the todo's channel, finish its recording and complete all its viewers
+     * (the terminal session is gone).
+     */
+    public void close(String todoId) {
+        ScreenChannel channel = channels.remove(todoId);
+        if (channel == null) {
+            return;
+        }
+        channel.upstream.dispose();
+        if (channel.recording != null) {
+            channel.recording.close();
+        }
+        for (SseEmitter viewer : channel.viewers) {
+            viewer.complete();
+        }
+        for (SseEmitter viewer : channel.deltaViewers) {
+            viewer.complete();
+        }
+        channel.viewers.clear();
+        channel.deltaViewers.clear();
+    }
+
+    public int viewerCount(String todoId) {
+        ScreenChannel channel = channels.get(todoId);
+        return channel != null ? channel.size() : 0;
+    }
+
+    /**
+     * Viewer count per todo with at least one viewer.
+     */
+    public Map<String, Integer> viewerCounts() {
+        Map<String, Integer> counts = new HashMap<>();
+        channels.forEach((todoId, channel) -> counts.put(todoId, channel.size()));
+        return counts;
+    }
+
+    private double totalViewers() {
+        int total = 0;
+        for (ScreenChannel channel : channels.values()) {
+            total += channel.size();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,376 @@
+package io.threadcast.service.terminal;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.threadcast.config.TerminalConfig;
+import io.threadcast.domain.enums.Priority;
+import io.threadcast.domain.enums.TodoStatus;
+import io.threadcast.dto.response.LaunchQueueResponse;
+import io.threadcast.dto.response.LaunchQueueResponse.State;
+import io.threadcast.repository.TodoRepository;
+import io.threadcast.service.WebSocketService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Bounds how many auto-started todos run at once, globally and per workspace.
+ *
+ * A todo holds a slot from the moment its launch starts (worktree creation, Claude start-up)
+ * until it completes or its terminal session goes away. Todos beyond the limits wait in
+ * per-mission queues, highest {@link Priority} first; among equal priorities the mission that
+ * was served least recently goes next, so one large mission cannot starve the others.
+ *
+ * Queued todos stay PENDING; the launch itself (atomic start, worktree, session) is supplied
+ * by the caller and only runs once a slot is free. State is in memory and covers auto-starts
+ * only; manual starts from the terminal API are not queued.
+ */
+@Slf4j
+@Service
+public class TodoLaunchScheduler {
+
+    private static final Comparator<Launch> QUEUE_ORDER = Comparator
+            .comparing((Launch launch) -> launch.priority, Comparator.reverseOrder())
+            .thenComparingLong(launch -> launch.sequence);
+
+    private final TodoRepository todoRepository;
+    private final TodoTerminalService terminalService;
+    private final WebSocketService webSocketService;
+    private final TerminalConfig.LaunchConfig config;
+    private final Timer queueWaitTimer;
+
+    // Guarded by this
+    private final Map<UUID, Launch> launches = new HashMap<>();
+    private final Map<UUID, PriorityQueue<Launch>> queues = new HashMap<>();
+    private final Map<UUID, Integer> activeByWorkspace = new HashMap<>();
+    private final Map<UUID, Long> lastServed = new HashMap<>();  // missionId -> dispatch number
+    private int active;
+    private long sequence;
+    private long dispatches;
+
+    private final ScheduledExecutorService reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "todo-launch-reconciler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TodoLaunchScheduler(
+            TodoRepository todoRepository,
+            @Lazy TodoTerminalService terminalService,
+            WebSocketService webSocketService,
+            TerminalConfig terminalConfig,
+            MeterRegistry meterRegistry) {
+        this.todoRepository = todoRepository;
+        this.terminalService = terminalService;
+        this.webSocketService = webSocketService;
+        this.config = terminalConfig.getLaunch();
+
+        for (State state : State.values()) {
+            Gauge.builder("threadcast.todo.launch.todos", this, scheduler -> scheduler.count(state))
+                    .description("Auto-started todos by launch state")
+                    .tag("state", state.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+        this.queueWaitTimer = Timer.builder("threadcast.todo.launch.queue.wait")
+                .description("Time an auto-started todo waited for a launch slot")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        long interval = config.getReconcileIntervalMs();
+        if (interval > 0) {
+            reconciler.scheduleWithFixedDelay(this::reconcile, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reconciler.shutdownNow();
+    }
+
+    /**
+     * Queue a todo for launch; it starts as soon as the limits allow, possibly right away.
+     *
+     * @param launch starts the todo and completes {@code true} once Claude is running; {@code false}
+     *               (the todo was no longer startable) or a failure frees the slot again
+     * @return false if the todo is already queued or holding a slot
+     */
+    public boolean submit(UUID todoId, String title, UUID missionId, UUID workspaceId, Priority priority,
+                          Supplier<CompletableFuture<Boolean>> launch) {
+        synchronized (this) {
+            if (launches.containsKey(todoId)) {
+                return false;
+            }
+            Launch queued = new Launch(todoId, title, missionId, workspaceId,
+                    priority != null ? priority : Priority.MEDIUM, sequence++, launch);
+            launches.put(todoId, queued);
+            queues.computeIfAbsent(missionId, id -> new PriorityQueue<>(QUEUE_ORDER)).add(queued);
+        }
+        log.info("Queued todo for launch: {} ({})", title, todoId);
+        dispatch(Set.of(missionId));
+        return true;
+    }
+
+    /**
+     * Free the todo's slot (or drop it from the queue) and start whatever can run next.
+     */
+    public void release(UUID todoId) {
+        Launch launch;
+        synchronized (this) {
+            launch = launches.get(todoId);
+        }
+        if (launch != null) {
+            release(launch);
+        }
+    }
+
+    private void release(Launch launch) {
+        synchronized (this) {
+            if (launches.get(launch.todoId) != launch) {
+                return;  // already released, possibly queued again since
+            }
+            remove(launch);
+        }
+        log.info("Released launch slot of todo {} ({})", launch.title, launch.todoId);
+        dispatch(Set.of(launch.missionId));
+    }
+
+    /**
+     * Queue state across all missions, optionally filtered.
+     */
+    public synchronized LaunchQueueResponse snapshot(UUID missionId, UUID workspaceId) {
+        return snapshot(launch -> (missionId == null || missionId.equals(launch.missionId))
+                && (workspaceId == null || workspaceId.equals(launch.workspaceId)));
+    }
+
+    /**
+     * Release slots of todos that are no longer running and drop queued todos that were started
+     * or deleted elsewhere. Catches completions that bypass the orchestration path.
+     */
+    void reconcile() {
+        try {
+            List<Launch> tracked;
+            synchronized (this) {
+                tracked = new ArrayList<>(launches.values());
+            }
+            for (Launch launch : tracked) {
+                if (launch.state == State.LAUNCHING) {
+                    continue;
+                }
+                TodoStatus status = todoRepository.findById(launch.todoId)
+                        .map(todo -> todo.getStatus())
+                        .orElse(null);
+                boolean stale = launch.state == State.QUEUED
+                        ? status != TodoStatus.PENDING
+                        : status != TodoStatus.THREADING || !terminalService.isSessionActive(launch.todoId.toString());
+                if (stale) {
+                    log.info("Reconciling launch of todo {} ({}): state={}, todoStatus={}",
+                            launch.title, launch.todoId, launch.state, status);
+                    release(launch);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Launch queue reconcile failed: {}", e.getMessage());
+        }
+    }
+
+    private void dispatch(Set<UUID> changedMissions) {
+        Set<UUID> notify = new LinkedHashSet<>(changedMissions);
+        List<Launch> starting = new ArrayList<>();
+        synchronized (this) {
+            Launch next;
+            while (active < config.getMaxConcurrent() && (next = nextLaunchable()) != null) {
+                PriorityQueue<Launch> queue = queues.get(next.missionId);
+                queue.poll();
+                if (queue.isEmpty()) {
+                    queues.remove(next.missionId);
+                }
+                lastServed.put(next.missionId, ++dispatches);
+                next.state = State.LAUNCHING;
+                next.launchedAt = LocalDateTime.now();
+                active++;
+                activeByWorkspace.merge(next.workspaceId, 1, Integer::sum);
+                starting.add(next);
+                notify.add(next.missionId);
+            }
+        }
+
+        for (Launch launch : starting) {
+            queueWaitTimer.record(Duration.ofNanos(System.nanoTime() - launch.queuedNanos));
+            log.info("Launching todo {} ({})", launch.title, launch.todoId);
+            CompletableFuture<Boolean> launched;
+            try {
+                launched = launch.task.get();
+            } catch (Exception e) {
+                launched = CompletableFuture.failedFuture(e);
+            }
+            launched.whenComplete((running, e) -> {
+                if (e == null && Boolean.TRUE.equals(running)) {
+                    markRunning(launch);
+                } else {
+                    if (e != null) {
+                        log.warn("Launch of todo {} failed: {}", launch.todoId, e.getMessage());
+                    }
+                    release(launch);
+                }
+            });
+        }
+
+        notify.forEach(this::notifyMission);
+    }
+
+    /**
+     * Highest-priority queue head whose workspace has room; ties go to the mission served
+     * least recently.
+     */
+    private Launch nextLaunchable() {
+        Launch best = null;
+        for (PriorityQueue<Launch> queue : queues.values()) {
+            Launch head = queue.peek();
+            if (head == null
+                    || activeByWorkspace.getOrDefault(head.workspaceId, 0) >= config.getMaxConcurrentPerWorkspace()) {
+                continue;
+            }
+            int order = best == null ? 1 : head.priority.compareTo(best.priority);
+            if (order > 0 || (order == 0 && servedBefore(head, best))) {
+                best = head;
+            }
+        }
+        return best;
+    }
+
+    private boolean servedBefore(Launch a, Launch b) {
+        long servedA = lastServed.getOrDefault(a.missionId, 0L);
+        long servedB = lastServed.getOrDefault(b.missionId, 0L);
+        return servedA != servedB ? servedA < servedB : a.sequence < b.sequence;
+    }
+
+    private void markRunning(Launch launch) {
+        synchronized (this) {
+            if (launches.get(launch.todoId) != launch) {
+                return;
+            }
+            launch.state = State.RUNNING;
+        }
+        notifyMission(launch.missionId);
+    }
+
+    private void remove(Launch launch) {
+        launches.remove(launch.todoId);
+        if (launch.state == State.QUEUED) {
+            PriorityQueue<Launch> queue = queues.get(launch.missionId);
+            if (queue != null) {
+                queue.remove(launch);
+                if (queue.isEmpty()) {
+                    queues.remove(launch.missionId);
+                }
+            }
+        } else {
+            active--;
+            activeByWorkspace.computeIfPresent(launch.workspaceId, (id, count) -> count > 1 ? count - 1 : null);
+        }
+        if (launches.values().stream().noneMatch(other -> other.missionId.equals(launch.missionId))) {
+            lastServed.remove(launch.missionId);
+        }
+    }
+
+    private void notifyMission(UUID missionId) {
+        try {
+            webSocketService.notifyLaunchQueueChanged(missionId, snapshot(missionId, null));
+        } catch (Exception e) {
+            log.debug("Failed to publish launch queue of mission {}: {}", missionId, e.getMessage());
+        }
+    }
+
+    private LaunchQueueResponse snapshot(Predicate<Launch> filter) {
+        Map<UUID, Integer> positions = new HashMap<>();
+        for (PriorityQueue<Launch> queue : queues.values()) {
+            List<Launch> ordered = new ArrayList<>(queue);
+            ordered.sort(QUEUE_ORDER);
+            for (int i = 0; i < ordered.size(); i++) {
+                positions.put(ordered.get(i).todoId, i + 1);
+            }
+        }
+
+        List<LaunchQueueResponse.Entry> entries = launches.values().stream()
+                .filter(filter)
+                .sorted(Comparator.comparing((Launch launch) -> launch.state).thenComparing(QUEUE_ORDER))
+                .map(launch -> LaunchQueueResponse.Entry.builder()
+                        .todoId(launch.todoId)
+                        .missionId(launch.missionId)
+                        .workspaceId(launch.workspaceId)
+                        .title(launch.title)
+                        .priority(launch.priority)
+                        .state(launch.state)
+                        .queuePosition(positions.get(launch.todoId))
+                        .queuedAt(launch.queuedAt)
+                        .launchedAt(launch.launchedAt)
+                        .build())
+                .toList();
+
+        return LaunchQueueResponse.builder()
+                .maxConcurrent(config.getMaxConcurrent())
+                .maxConcurrentPerWorkspace(config.getMaxConcurrentPerWorkspace())
+                .queued(countIn(entries, State.QUEUED))
+                .launching(countIn(entries, State.LAUNCHING))
+                .running(countIn(entries, State.RUNNING))
+                .todos(entries)
+                .build();
+    }
+
+    private synchronized int count(State state) {
+        return (int) launches.values().stream().filter(launch -> launch.state == state).count();
+    }
+
+    private static int countIn(List<LaunchQueueResponse.Entry> entries, State state) {
+        return (int) entries.stream().filter(entry -> entry.getState() == state).count();
+    }
+
+    private static final class Launch {
+        private final UUID todoId;
+        private final String title;
+        private final UUID missionId;
+        private final UUID workspaceId;
+        private final Priority priority;
+        private final long sequence;
+        private final Supplier<CompletableFuture<Boolean>> task;
+        private final LocalDateTime queuedAt = LocalDateTime.now();
+        private final long queuedNanos = System.nanoTime();
+
+        private volatile State state = State.QUEUED;
+        private LocalDateTime launchedAt;
+
+        private Launch(UUID todoId, String title, UUID missionId, UUID workspaceId, Priority priority,
+                       long sequence, Supplier<CompletableFuture<Boolean>> task) {
+            this.todoId = todoId;
+            this.title = title;
+            this.missionId = missionId;
+            this.workspaceId = workspaceId;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.task = task;
+        }
+    }
+}
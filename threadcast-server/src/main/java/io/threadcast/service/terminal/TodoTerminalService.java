@@ -4,6 +4,7 @@ import io.sessioncast.core.SessionCastClient;
 import io.sessioncast.core.event.Disposable;
 import io.sessioncast.core.screen.ScreenData;
 import io.sessioncast.core.tmux.TmuxController;
+import io.threadcast.config.TerminalConfig;
 import io.threadcast.domain.TerminalSessionMapping;
 import io.threadcast.domain.Todo;
 import io.threadcast.repository.TerminalSessionMappingRepository;
@@ -11,13 +12,18 @@ import io.threadcast.repository.TodoRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Service for managing tmux terminal sessions for Todos.
@@ -32,24 +38,41 @@ public class TodoTerminalService {
     private final TodoRepository todoRepository;
     private final TerminalSessionMappingRepository mappingRepository;
     private final io.threadcast.service.StepProgressService stepProgressService;
+    private final TerminalReadiness readiness;
+    private final TerminalConfig.LaunchConfig launchConfig;
+    private final TokenUsageAccumulator usageAccumulator;
+    private final SessionRouteCache routeCache;
+    private final TransactionTemplate transactionTemplate;
 
     // Track active sessions: todoId -> sessionName
     private final Map<String, String> activeSessions = new ConcurrentHashMap<>();
 
-    // Track screen subscriptions
-    private final Map<String, Disposable> screenSubscriptions = new ConcurrentHashMap<>();
+    // Owns the screen subscriptions (one per todo, shared by all viewers)
+    private final TerminalScreenHub screenHub;
 
     public TodoTerminalService(
             SessionCastClient sessionCast,
             TmuxController tmuxController,
             TodoRepository todoRepository,
             TerminalSessionMappingRepository mappingRepository,
-            @org.springframework.context.annotation.Lazy io.threadcast.service.StepProgressService stepProgressService) {
+            TerminalReadiness readiness,
+            TerminalConfig terminalConfig,
+            TokenUsageAccumulator usageAccumulator,
+            SessionRouteCache routeCache,
+            TransactionTemplate transactionTemplate,
+            @org.springframework.context.annotation.Lazy io.threadcast.service.StepProgressService stepProgressService,
+            @org.springframework.context.annotation.Lazy TerminalScreenHub screenHub) {
         this.sessionCast = sessionCast;
         this.tmuxController = tmuxController;
         this.todoRepository = todoRepository;
         this.mappingRepository = mappingRepository;
         this.stepProgressService = stepProgressService;
+        this.readiness = readiness;
+        this.launchConfig = terminalConfig.getLaunch();
+        this.usageAccumulator = usageAccumulator;
+        this.routeCache = routeCache;
+        this.transactionTemplate = transactionTemplate;
+        this.screenHub = screenHub;
 
         // Connect to relay on service init
         connectToRelay();
@@ -64,6 +87,14 @@ public class TodoTerminalService {
             });
     }
 
+    private static String sessionCreatedSignal(String todoId) {
+        return "session-created:" + todoId;
+    }
+
+    private static String sessionMappedSignal(String todoId) {
+        return "session-mapped:" + todoId;
+    }
+
     /**
      * Get session name for a Todo.
      */
@@ -104,6 +135,13 @@ public class TodoTerminalService {
                 // 매핑 테이블에 저장
                 saveSessionMapping(todo, sessionName);
 
+                // 세션이 끝날 때까지 화면 녹화
+                try {
+                    screenHub.record(todoId);
+                } catch (Exception e) {
+                    log.warn("Failed to start terminal recording for todo {}: {}", todoId, e.getMessage());
+                }
+
                 log.info("Created terminal session for todo {}: {}", todoId, sessionName);
 
                 if (autoLaunchClaude) {
@@ -134,36 +172,25 @@ public class TodoTerminalService {
             todoId, missionId, sessionName
         );
 
+        // Each wait ends on its readiness signal, or after the stage timeout at the latest
+        CompletableFuture<Boolean> claudeReady = readiness.awaitClaudeReady(
+            sessionName, Duration.ofMillis(launchConfig.getClaudeReadyTimeoutMs()));
+
         return sessionCast.sendKeys(sessionName, launchCommand, true)
             .thenCompose(v -> {
                 log.info("Launched Claude Code in session: {} (todoId={}, missionId={})",
                     sessionName, todoId, missionId);
-
-                // Wait for Claude Code to initialize
-                return CompletableFuture.runAsync(() -> {
-                    try {
-                        Thread.sleep(5000); // Wait 5 seconds for Claude to fully start
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                    }
-                });
+                return claudeReady;
             })
-            .thenCompose(v -> {
+            .thenCompose(ready -> {
                 // Clear session to force new session_id generation
-                log.info("Sending /clear to start fresh session");
-                return sessionCast.sendKeys(sessionName, "/clear", true);
-            })
-            .thenCompose(v -> {
-                // Wait for clear to complete and new session to start
-                return CompletableFuture.runAsync(() -> {
-                    try {
-                        Thread.sleep(3000); // Wait 3 seconds for new session
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                    }
-                });
+                log.info("Sending /clear to start fresh session (claudeReady={})", ready);
+                CompletableFuture<Boolean> created = readiness.expect(
+                    sessionCreatedSignal(todoId), Duration.ofMillis(launchConfig.getClearTimeoutMs()));
+                return sessionCast.sendKeys(sessionName, "/clear", true)
+                    .thenCompose(x -> created);
             })
-            .thenCompose(v -> {
+            .thenCompose(created -> {
                 // Send Custom Task to register session ID mapping
                 // This allows SwiftCast to send us the Claude session ID
                 // Using ">>swiftcast" prefix to trigger SwiftCast custom task
@@ -171,20 +198,13 @@ public class TodoTerminalService {
                     ">>swiftcast register_session --todo-id=%s --session-name=%s",
                     todoId, sessionName
                 );
-                log.info("Sending session registration task: {}", registerCommand);
-                return sessionCast.sendKeys(sessionName, registerCommand, true);
+                log.info("Sending session registration task (sessionCreated={}): {}", created, registerCommand);
+                CompletableFuture<Boolean> mapped = readiness.expect(
+                    sessionMappedSignal(todoId), Duration.ofMillis(launchConfig.getRegisterTimeoutMs()));
+                return sessionCast.sendKeys(sessionName, registerCommand, true)
+                    .thenCompose(x -> mapped);
             })
-            .thenCompose(v -> {
-                // Wait for session registration to complete
-                return CompletableFuture.runAsync(() -> {
-                    try {
-                        Thread.sleep(3000); // Wait 3 seconds for register_session to complete
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                    }
-                });
-            })
-            .thenCompose(v -> {
+            .thenCompose(mapped -> {
                 // Start first step (ANALYSIS) before sending prompt
                 try {
                     stepProgressService.startFirstStep(UUID.fromString(todoId));
@@ -213,15 +233,8 @@ public class TodoTerminalService {
 
             // Send prompt with Enter, wait, then send another Enter to submit
             return sessionCast.sendKeys(sessionName, prompt, true)
-                .thenCompose(v -> {
-                    // Wait 500ms then send Enter to submit
-                    try {
-                        Thread.sleep(500);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                    }
-                    return sessionCast.sendKeys(sessionName, "", true); // Empty string + Enter = just Enter
-                });
+                .thenCompose(v -> readiness.delay(Duration.ofMillis(launchConfig.getPromptSubmitDelayMs())))
+                .thenCompose(v -> sessionCast.sendKeys(sessionName, "", true)); // Empty string + Enter = just Enter
         } catch (Exception e) {
             log.error("Failed to send TODO prompt: {}", e.getMessage());
             return CompletableFuture.completedFuture(null);
@@ -268,18 +281,22 @@ public class TodoTerminalService {
     private void saveSessionMapping(Todo todo, String sessionName) {
         // 기존 매핑이 있으면 재사용 (상태만 업데이트)
         Optional<TerminalSessionMapping> existingMapping = mappingRepository.findByTodoId(todo.getId());
+        TerminalSessionMapping mapping;
         if (existingMapping.isPresent()) {
-            TerminalSessionMapping mapping = existingMapping.get();
+            mapping = existingMapping.get();
             mapping.setTmuxSessionName(sessionName);
             mapping.setStatus(io.threadcast.domain.enums.SessionStatus.ACTIVE);
             mapping.updateActivity();
             mappingRepository.save(mapping);
             log.info("Updated existing session mapping: todoId={}, session={}", todo.getId(), sessionName);
         } else {
-            TerminalSessionMapping mapping = TerminalSessionMapping.create(todo, sessionName);
+            mapping = TerminalSessionMapping.create(todo, sessionName);
             mappingRepository.save(mapping);
             log.info("Saved new session mapping: todoId={}, session={}", todo.getId(), sessionName);
         }
+        // Todo는 startSession 트랜잭션에서 mission까지 로드됨 (매핑의 todo 프록시는 여기서 초기화 불가)
+        SessionRouteCache.Route route = SessionRouteCache.Route.of(todo, sessionName, mapping.getSwiftcastSessionId());
+        afterCommit(() -> routeCache.put(route));
     }
 
     /**
@@ -302,6 +319,22 @@ public class TodoTerminalService {
         return startSession(todoId, workDir, true);
     }
 
+    /**
+     * Finish a todo's screen recording once the current transaction commits
+     * (the todo was completed, failed or deleted). The terminal session is left running.
+     */
+    public void endRecording(UUID todoId) {
+        afterCommit(() -> screenHub.stopRecording(todoId.toString()));
+    }
+
+    /**
+     * Drop a deleted todo's session route once the current transaction commits, so webhooks for
+     * its session stop resolving to it.
+     */
+    public void evictRoute(UUID todoId) {
+        afterCommit(() -> routeCache.evict(todoId));
+    }
+
     /**
      * Stop the terminal session for a Todo.
      */
@@ -313,15 +346,14 @@ public class TodoTerminalService {
             return CompletableFuture.completedFuture(null);
         }
 
-        // Remove screen subscription
-        Disposable subscription = screenSubscriptions.remove(todoId);
-        if (subscription != null) {
-            subscription.dispose();
-        }
+        // Close the shared screen subscription and its viewers
+        screenHub.close(todoId);
 
         // 매핑 상태 업데이트
         try {
             UUID todoUuid = UUID.fromString(todoId);
+            usageAccumulator.flush(todoUuid);
+            routeCache.evict(todoUuid);
             mappingRepository.findByTodoId(todoUuid)
                 .ifPresent(mapping -> {
                     mapping.stop();
@@ -336,6 +368,16 @@ public class TodoTerminalService {
             .thenRun(() -> log.info("Stopped terminal session for todo: {}", todoId));
     }
 
+    /**
+     * SwiftCast reported a new Claude session for the Todo (session_created webhook).
+     * Lets a pending launch continue past /clear without waiting out its timeout,
+     * once the caller's transaction has committed.
+     */
+    public void markSessionCreated(String todoId, String traceId) {
+        addTraceId(todoId, traceId);
+        afterCommit(() -> readiness.fire(sessionCreatedSignal(todoId)));
+    }
+
     /**
      * Add SwiftCast trace ID to session mapping.
      * Called when SwiftCast reports a new API request with a trace ID.
@@ -343,20 +385,30 @@ public class TodoTerminalService {
      * @param todoId  The Todo ID
      * @param traceId The SwiftCast trace ID (sentry-trace)
      */
-    @Transactional
     public void addTraceId(String todoId, String traceId) {
+        if (traceId == null) {
+            return;
+        }
         try {
             UUID todoUuid = UUID.fromString(todoId);
-            mappingRepository.findByTodoId(todoUuid)
+            // Every usage_logged webhook reports its trace; only the first one needs a write
+            if (routeCache.hasTraceId(todoUuid, traceId)) {
+                return;
+            }
+            transactionTemplate.executeWithoutResult(status -> mappingRepository.findByTodoId(todoUuid)
                 .ifPresentOrElse(
                     mapping -> {
                         mapping.addTraceId(traceId);
                         mappingRepository.save(mapping);
+                        if (!routeCache.contains(todoUuid)) {
+                            cacheIfActive(mapping);
+                        }
+                        afterCommit(() -> routeCache.addTraceId(todoUuid, traceId));
                         log.info("Added trace ID to mapping: todoId={}, traceId={}...",
                             todoId, traceId.length() > 12 ? traceId.substring(0, 12) : traceId);
                     },
                     () -> log.warn("No mapping found for todoId: {}", todoId)
-                );
+                ));
         } catch (IllegalArgumentException e) {
             log.warn("Invalid todoId format: {}", todoId);
         }
@@ -364,22 +416,15 @@ public class TodoTerminalService {
 
     /**
      * Add token usage to session mapping.
+     * Accumulated in memory and written periodically (see {@link TokenUsageAccumulator}).
      *
      * @param todoId       The Todo ID
      * @param inputTokens  Input token count
      * @param outputTokens Output token count
      */
-    @Transactional
     public void addTokenUsage(String todoId, long inputTokens, long outputTokens) {
         try {
-            UUID todoUuid = UUID.fromString(todoId);
-            mappingRepository.findByTodoId(todoUuid)
-                .ifPresent(mapping -> {
-                    mapping.addTokenUsage(inputTokens, outputTokens);
-                    mappingRepository.save(mapping);
-                    log.debug("Added token usage for todo {}: input={}, output={}",
-                        todoId, inputTokens, outputTokens);
-                });
+            usageAccumulator.add(UUID.fromString(todoId), inputTokens, outputTokens);
         } catch (IllegalArgumentException e) {
             log.warn("Invalid todoId format: {}", todoId);
         }
@@ -411,6 +456,84 @@ public class TodoTerminalService {
         return mappingRepository.findBySwiftcastTraceId(traceId);
     }
 
+    /**
+     * Route of a Todo's session (todo, mission, workspace and registered SwiftCast session ID).
+     * Served from {@link SessionRouteCache}; the database is only read on a miss.
+     */
+    public Optional<SessionRouteCache.Route> getRoute(String todoId) {
+        UUID todoUuid;
+        try {
+            todoUuid = UUID.fromString(todoId);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        return routeCache.get(todoUuid)
+            .or(() -> loadRoute(SessionRouteCache.Lookup.TODO, todoId,
+                () -> mappingRepository.findByTodoId(todoUuid)));
+    }
+
+    /**
+     * Route of the session registered with a SwiftCast (Claude conversation) session ID.
+     */
+    public Optional<SessionRouteCache.Route> getRouteBySwiftcastSessionId(String swiftcastSessionId) {
+        return routeCache.findBySwiftcastSessionId(swiftcastSessionId)
+            .or(() -> loadRoute(SessionRouteCache.Lookup.SWIFTCAST_SESSION, swiftcastSessionId,
+                () -> mappingRepository.findBySwiftcastSessionId(swiftcastSessionId)));
+    }
+
+    /**
+     * Route of the session that reported a SwiftCast trace ID.
+     */
+    public Optional<SessionRouteCache.Route> getRouteByTraceId(String traceId) {
+        return routeCache.findByTraceId(traceId)
+            .or(() -> loadRoute(SessionRouteCache.Lookup.TRACE, traceId,
+                    () -> mappingRepository.findBySwiftcastTraceId(traceId))
+                .map(route -> {
+                    afterCommit(() -> routeCache.addTraceId(route.todoId(), traceId));
+                    return route;
+                }));
+    }
+
+    /**
+     * Route of a tmux session.
+     */
+    public Optional<SessionRouteCache.Route> getRouteBySessionName(String sessionName) {
+        return routeCache.findByTmuxSessionName(sessionName)
+            .or(() -> loadRoute(SessionRouteCache.Lookup.TMUX_SESSION, sessionName,
+                () -> mappingRepository.findByTmuxSessionName(sessionName)));
+    }
+
+    /**
+     * Cache miss: read the mapping (and its todo and mission) once. Only live sessions are cached,
+     * since nothing would evict the route of a session that has already stopped. A key with no
+     * mapping is remembered briefly, so an unregistered session does not read the database per webhook.
+     */
+    private Optional<SessionRouteCache.Route> loadRoute(SessionRouteCache.Lookup lookup, String key,
+                                                        Supplier<Optional<TerminalSessionMapping>> finder) {
+        if (routeCache.isKnownMiss(lookup, key)) {
+            return Optional.empty();
+        }
+        Optional<SessionRouteCache.Route> route = transactionTemplate.execute(status ->
+            finder.get().map(this::cacheIfActive));
+        if (route == null || route.isEmpty()) {
+            routeCache.recordMiss(lookup, key);
+            return Optional.empty();
+        }
+        return route;
+    }
+
+    /**
+     * Cache the mapping's route once the current transaction commits, so a route is never
+     * visible for a mapping that was rolled back.
+     */
+    private SessionRouteCache.Route cacheIfActive(TerminalSessionMapping mapping) {
+        SessionRouteCache.Route route = SessionRouteCache.Route.of(mapping);
+        if (mapping.getStatus() == io.threadcast.domain.enums.SessionStatus.ACTIVE) {
+            afterCommit(() -> routeCache.putIfAbsent(route));
+        }
+        return route;
+    }
+
     /**
      * Register SwiftCast session ID for a Todo.
      * Called from Custom Task "/tasks register_session" when Claude Code starts.
@@ -429,6 +552,12 @@ public class TodoTerminalService {
                         mapping.setSwiftcastSessionId(swiftcastSessionId);
                         mapping.updateActivity();
                         mappingRepository.save(mapping);
+                        if (routeCache.contains(todoUuid)) {
+                            afterCommit(() -> routeCache.updateSwiftcastSessionId(todoUuid, swiftcastSessionId));
+                        } else {
+                            SessionRouteCache.Route route = SessionRouteCache.Route.of(mapping);
+                            afterCommit(() -> routeCache.put(route));
+                        }
                         log.info("Updated SwiftCast session ID: todoId={}, sessionId={}...",
                             todoId, swiftcastSessionId.substring(0, Math.min(12, swiftcastSessionId.length())));
                     },
@@ -444,10 +573,14 @@ public class TodoTerminalService {
                             .build();
                         newMapping.updateActivity();
                         mappingRepository.save(newMapping);
+                        SessionRouteCache.Route route = SessionRouteCache.Route.of(newMapping);
+                        afterCommit(() -> routeCache.put(route));
                         log.info("Created new mapping with SwiftCast session ID: todoId={}, sessionId={}...",
                             todoId, swiftcastSessionId.substring(0, Math.min(12, swiftcastSessionId.length())));
                     }
                 );
+            // The launch reads the new mapping when it continues, so release it only once committed
+            afterCommit(() -> readiness.fire(sessionMappedSignal(todoId)));
         } catch (IllegalArgumentException e) {
             log.warn("Invalid todoId format: {}", todoId);
         }
@@ -487,6 +620,7 @@ public class TodoTerminalService {
 
     /**
      * Subscribe to screen updates for a Todo.
+     * Viewers should go through {@link TerminalScreenHub}, which shares one subscription per Todo.
      *
      * @param todoId  The Todo ID
      * @param handler Handler for screen data
@@ -498,9 +632,7 @@ public class TodoTerminalService {
             throw new IllegalStateException("No active session for todo: " + todoId);
         }
 
-        Disposable subscription = sessionCast.onScreen(sessionName, handler);
-        screenSubscriptions.put(todoId, subscription);
-        return subscription;
+        return sessionCast.onScreen(sessionName, handler);
     }
 
     /**
@@ -545,4 +677,20 @@ public class TodoTerminalService {
         }
         return CompletableFuture.completedFuture(null);
     }
+
+    /**
+     * Run an action once the current transaction commits, or right away outside a transaction.
+     */
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
 }
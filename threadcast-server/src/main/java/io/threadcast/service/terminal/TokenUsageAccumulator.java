@@ -0,0 +1,219 @@
+package io.threadcast.service.terminal;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.threadcast.config.TerminalConfig;
+import io.threadcast.repository.TerminalSessionMappingRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Absorbs per-request token usage in memory and writes it to TerminalSessionMapping in batches.
+ *
+ * Each usage_logged webhook used to load the todo's mapping, add two counters and save it: one
+ * read and one UPDATE per Claude API call, all on the same row. Here an increment only touches a
+ * per-todo pair of {@link LongAdder}s; every {@code flush-interval-ms}, and when the todo's
+ * session stops, the summed delta is added to the row with a single in-place UPDATE.
+ *
+ * Crash safety: usage received since the last flush lives only in memory. A clean shutdown
+ * flushes it; a JVM crash or kill -9 loses at most one flush interval of usage, and SwiftCast does
+ * not redeliver it. Totals can therefore under-count but never double-count. A failed flush puts
+ * its delta back and retries on the next one. A flush interval of 0 writes every increment through.
+ *
+ * Usage reported inside a transaction is only counted once that transaction commits (written
+ * through, it is part of it), so a webhook batch that rolls back and is retried is not counted twice.
+ */
+@Slf4j
+@Component
+public class TokenUsageAccumulator {
+
+    private final TerminalSessionMappingRepository mappingRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TerminalConfig.UsageConfig config;
+
+    private final Map<UUID, Pending> pending = new ConcurrentHashMap<>();
+
+    private final Counter flushedRowsCounter;
+    private final Counter failedCounter;
+    private final Timer flushTimer;
+
+    private ScheduledExecutorService flusher;
+
+    public TokenUsageAccumulator(
+            TerminalSessionMappingRepository mappingRepository,
+            TransactionTemplate transactionTemplate,
+            TerminalConfig terminalConfig,
+            MeterRegistry meterRegistry) {
+        this.mappingRepository = mappingRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.config = terminalConfig.getUsage();
+
+        Gauge.builder("threadcast.terminal.usage.pending", pending, Map::size)
+                .description("Todos with token usage not yet written to the database")
+                .register(meterRegistry);
+        this.flushedRowsCounter = Counter.builder("threadcast.terminal.usage.flushed")
+                .description("Session mapping rows updated with accumulated token usage")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("threadcast.terminal.usage.failed")
+                .description("Token usage flushes that failed and were retried later")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("threadcast.terminal.usage.flush")
+                .description("Time to write all accumulated token usage")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Per-todo deltas since the last flush.
+     * {@code retired} is set once the entry has left the map and been drained for the last time.
+     */
+    private static final class Pending {
+        private final LongAdder inputTokens = new LongAdder();
+        private final LongAdder outputTokens = new LongAdder();
+        private volatile boolean retired;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (config.getFlushIntervalMs() <= 0) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "token-usage-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushSafely,
+                config.getFlushIntervalMs(), config.getFlushIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+            flusher = null;
+        }
+        flushAll();
+    }
+
+    /**
+     * Record usage of one API call. Never touches the database unless write-through is configured.
+     */
+    public void add(UUID todoId, long inputTokens, long outputTokens) {
+        if (config.getFlushIntervalMs() <= 0) {
+            write(todoId, inputTokens, outputTokens);
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accumulate(todoId, inputTokens, outputTokens);
+                }
+            });
+        } else {
+            accumulate(todoId, inputTokens, outputTokens);
+        }
+    }
+
+    private void accumulate(UUID todoId, long inputTokens, long outputTokens) {
+        Pending usage = pending.computeIfAbsent(todoId, id -> new Pending());
+        usage.inputTokens.add(inputTokens);
+        usage.outputTokens.add(outputTokens);
+        if (usage.retired) {
+            // The entry was flushed away while we added: move what its last drain missed to a live entry
+            long lateInput = usage.inputTokens.sumThenReset();
+            long lateOutput = usage.outputTokens.sumThenReset();
+            if (lateInput != 0 || lateOutput != 0) {
+                accumulate(todoId, lateInput, lateOutput);
+            }
+        }
+    }
+
+    /**
+     * Write the todo's accumulated usage now (e.g. when its session ends) and forget the todo.
+     */
+    public void flush(UUID todoId) {
+        Pending usage = pending.remove(todoId);
+        if (usage != null) {
+            retire(todoId, usage);
+        }
+    }
+
+    /**
+     * Write every todo's accumulated usage. Todos without new usage since the previous flush are
+     * dropped from memory.
+     */
+    public void flushAll() {
+        long started = System.nanoTime();
+        for (Map.Entry<UUID, Pending> entry : pending.entrySet()) {
+            UUID todoId = entry.getKey();
+            Pending usage = entry.getValue();
+            long input = usage.inputTokens.sumThenReset();
+            long output = usage.outputTokens.sumThenReset();
+            if (input != 0 || output != 0) {
+                writeOrRequeue(todoId, input, output);
+            } else if (pending.remove(todoId, usage)) {
+                retire(todoId, usage);
+            }
+        }
+        flushTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Final drain of an entry that is no longer in the map. Marked retired first, so an add that
+     * lands after this drain sees the flag and re-adds itself (see {@link #accumulate}).
+     */
+    private void retire(UUID todoId, Pending usage) {
+        usage.retired = true;
+        long input = usage.inputTokens.sumThenReset();
+        long output = usage.outputTokens.sumThenReset();
+        if (input != 0 || output != 0) {
+            writeOrRequeue(todoId, input, output);
+        }
+    }
+
+    private void writeOrRequeue(UUID todoId, long input, long output) {
+        try {
+            write(todoId, input, output);
+        } catch (Exception e) {
+            failedCounter.increment();
+            log.warn("Failed to write token usage for todo {} (retrying next flush): {}", todoId, e.getMessage());
+            accumulate(todoId, input, output);
+        }
+    }
+
+    private void write(UUID todoId, long input, long output) {
+        Integer updated = transactionTemplate.execute(status ->
+                mappingRepository.addTokenUsage(todoId, input, output, LocalDateTime.now()));
+        if (updated != null && updated > 0) {
+            flushedRowsCounter.increment();
+            log.debug("Added token usage for todo {}: input={}, output={}", todoId, input, output);
+        } else {
+            log.debug("No session mapping for todo {}, dropping token usage", todoId);
+        }
+    }
+
+    private void flushSafely() {
+        try {
+            flushAll();
+        } catch (Exception e) {
+            log.error("Token usage flush failed: {}", e.getMessage(), e);
+        }
+    }
+}
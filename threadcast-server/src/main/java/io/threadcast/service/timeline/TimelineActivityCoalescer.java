@@ -0,0 +1,345 @@
+package io.threadcast.service.timeline;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.threadcast.config.TimelineConfig;
+import io.threadcast.domain.TimelineEvent;
+import io.threadcast.domain.Todo;
+import io.threadcast.domain.enums.ActorType;
+import io.threadcast.domain.enums.EventType;
+import io.threadcast.repository.TodoRepository;
+import io.threadcast.service.WebSocketService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Merges bursts of AI activity / step progress events per todo into one timeline event.
+ *
+ * Each (todo, kind) has at most one open window. Consecutive events with the same group
+ * (e.g. same step type and status) are folded into it: counts and tokens are summed and the
+ * first/last message are kept. The window is written as a single AI_ACTIVITY event when
+ * it has been quiet for the kind's window, has been open for {@code max-window-ms},
+ * holds {@code max-events} events, or a different group arrives.
+ *
+ * Windows keep only the todo id; the todo is reloaded in the transaction that writes the event,
+ * which is dated at the window's first activity so it sorts where the burst began. That transaction
+ * is always a new one: a window closed while folding an event runs after the caller's commit.
+ */
+@Slf4j
+@Component
+public class TimelineActivityCoalescer {
+
+    public enum Kind {
+        /**
+         * usage_logged response summaries (tokens are summed)
+         */
+        AI_ACTIVITY,
+
+        /**
+         * step_update tool usage messages
+         */
+        STEP_PROGRESS
+    }
+
+    private final TimelineEventWriter timelineEventWriter;
+    private final TodoRepository todoRepository;
+    private final WebSocketService webSocketService;
+    private final TransactionTemplate transactionTemplate;
+    private final TimelineConfig.CoalesceConfig config;
+
+    private final Map<WindowKey, Window> windows = new ConcurrentHashMap<>();
+
+    private final Counter receivedCounter;
+    private final Counter emittedCounter;
+
+    private ScheduledExecutorService sweeper;
+
+    public TimelineActivityCoalescer(
+            TimelineEventWriter timelineEventWriter,
+            TodoRepository todoRepository,
+            WebSocketService webSocketService,
+            TransactionTemplate transactionTemplate,
+            TimelineConfig timelineConfig,
+            MeterRegistry meterRegistry) {
+        this.timelineEventWriter = timelineEventWriter;
+        this.todoRepository = todoRepository;
+        this.webSocketService = webSocketService;
+        // Windows are emitted from afterCommit callbacks, where a joined transaction has already committed
+        this.transactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.config = timelineConfig.getCoalesce();
+
+        Gauge.builder("threadcast.timeline.coalesce.open", windows, Map::size)
+                .description("Coalescing windows currently open")
+                .register(meterRegistry);
+        this.receivedCounter = Counter.builder("threadcast.timeline.coalesce.received")
+                .description("Raw activity events accepted for coalescing")
+                .register(meterRegistry);
+        this.emittedCounter = Counter.builder("threadcast.timeline.coalesce.emitted")
+                .description("Coalesced timeline events written")
+                .register(meterRegistry);
+    }
+
+    private record WindowKey(UUID todoId, Kind kind) {
+    }
+
+    private static final class Window {
+        private final UUID todoId;
+        private final Kind kind;
+        private final String group;
+        private final long openedAt;
+        private final LocalDateTime firstAt;
+        private final String firstMessage;
+        private final Set<String> models = new LinkedHashSet<>();
+
+        private LocalDateTime lastAt;
+        private String lastMessage;
+        private Map<String, Object> lastMetadata;
+        private long lastSeen;
+        private int count;
+        private long inputTokens;
+        private long outputTokens;
+
+        private Window(UUID todoId, Kind kind, String group, String message, long now) {
+            this.todoId = todoId;
+            this.kind = kind;
+            this.group = group;
+            this.openedAt = now;
+            this.firstAt = LocalDateTime.now();
+            this.firstMessage = message;
+        }
+
+        private void add(String message, Map<String, Object> metadata, String model,
+                         long input, long output, long now) {
+            count++;
+            inputTokens += input;
+            outputTokens += output;
+            lastMessage = message;
+            lastMetadata = metadata;
+            lastAt = LocalDateTime.now();
+            lastSeen = now;
+            if (model != null) {
+                models.add(model);
+            }
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "timeline-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweepSafely,
+                config.getSweepIntervalMs(), config.getSweepIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+            sweeper = null;
+        }
+        flushAll();
+    }
+
+    /**
+     * Whether events of this kind are coalesced. If not, callers record them directly.
+     */
+    public boolean isCoalescing(Kind kind) {
+        return config.isEnabled() && windowMs(kind) > 0;
+    }
+
+    /**
+     * Fold one raw event into the todo's open window for this kind. Inside a transaction the event
+     * is folded once it commits, so a webhook batch that rolls back and is retried is not counted twice.
+     *
+     * @param group events only merge with events of the same group (null merges with anything)
+     */
+    public void add(Kind kind, Todo todo, String group, String message, Map<String, Object> metadata,
+                    String model, long inputTokens, long outputTokens) {
+        UUID todoId = todo.getId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    fold(kind, todoId, group, message, metadata, model, inputTokens, outputTokens);
+                }
+            });
+        } else {
+            fold(kind, todoId, group, message, metadata, model, inputTokens, outputTokens);
+        }
+    }
+
+    private void fold(Kind kind, UUID todoId, String group, String message, Map<String, Object> metadata,
+                      String model, long inputTokens, long outputTokens) {
+        receivedCounter.increment();
+        if (config.isRawStream()) {
+            publishRaw(kind, todoId, message, metadata);
+        }
+
+        long now = System.currentTimeMillis();
+        AtomicReference<Window> closed = new AtomicReference<>();
+        AtomicReference<Window> full = new AtomicReference<>();
+
+        // Only mutate inside compute(); writes happen outside so the map bin is never held during I/O
+        windows.compute(new WindowKey(todoId, kind), (key, window) -> {
+            if (window != null && !Objects.equals(window.group, group)) {
+                closed.set(window);
+                window = null;
+            }
+            if (window == null) {
+                window = new Window(key.todoId(), kind, group, message, now);
+            }
+            window.add(message, metadata, model, inputTokens, outputTokens, now);
+            if (window.count >= config.getMaxEvents()) {
+                full.set(window);
+                return null;
+            }
+            return window;
+        });
+
+        if (closed.get() != null) {
+            emit(closed.get());
+        }
+        if (full.get() != null) {
+            emit(full.get());
+        }
+    }
+
+    /**
+     * Write every window whose quiet period or maximum lifetime has elapsed.
+     */
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        List<Window> expired = new ArrayList<>();
+        for (WindowKey key : windows.keySet()) {
+            windows.computeIfPresent(key, (k, window) -> {
+                if (isExpired(window, now)) {
+                    expired.add(window);
+                    return null;
+                }
+                return window;
+            });
+        }
+        expired.forEach(this::emit);
+    }
+
+    /**
+     * Write every open window regardless of age.
+     */
+    public void flushAll() {
+        List<Window> open = new ArrayList<>();
+        for (WindowKey key : windows.keySet()) {
+            Window window = windows.remove(key);
+            if (window != null) {
+                open.add(window);
+            }
+        }
+        open.forEach(this::emit);
+    }
+
+    private boolean isExpired(Window window, long now) {
+        return now - window.lastSeen >= windowMs(window.kind)
+                || now - window.openedAt >= config.getMaxWindowMs();
+    }
+
+    private long windowMs(Kind kind) {
+        return kind == Kind.AI_ACTIVITY ? config.getAiActivityWindowMs() : config.getStepProgressWindowMs();
+    }
+
+    private void sweepSafely() {
+        try {
+            sweep();
+        } catch (Exception e) {
+            log.error("Timeline coalescer sweep failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void emit(Window window) {
+        Map<String, Object> metadata = window.lastMetadata != null
+                ? new HashMap<>(window.lastMetadata) : new HashMap<>();
+        if (window.count > 1) {
+            metadata.put("coalesced", true);
+            metadata.put("count", window.count);
+            metadata.put("firstMessage", window.firstMessage);
+            metadata.put("lastMessage", window.lastMessage);
+            metadata.put("firstAt", window.firstAt);
+            metadata.put("lastAt", window.lastAt);
+        }
+        if (window.kind == Kind.AI_ACTIVITY) {
+            metadata.put("inputTokens", window.inputTokens);
+            metadata.put("outputTokens", window.outputTokens);
+            if (window.models.size() > 1) {
+                metadata.put("models", new ArrayList<>(window.models));
+            }
+        }
+
+        String description = window.count > 1
+                ? window.lastMessage + " (×" + window.count + ")"
+                : window.lastMessage;
+
+        try {
+            TimelineEvent event = transactionTemplate.execute(status -> todoRepository.findByIdWithMission(window.todoId)
+                    .map(todo -> {
+                        TimelineEvent created = TimelineEvent.create(
+                                todo.getMission().getWorkspace(),
+                                todo.getMission(),
+                                todo,
+                                EventType.AI_ACTIVITY,
+                                ActorType.AI,
+                                description,
+                                metadata
+                        );
+                        created.setCreatedAt(window.firstAt);
+                        timelineEventWriter.write(created);
+                        return created;
+                    })
+                    .orElse(null));
+            if (event == null) {
+                log.debug("Todo {} deleted before its coalesced activity was written", window.todoId);
+                return;
+            }
+            webSocketService.notifyTimelineEvent(event.getWorkspace().getId(), window.todoId, event);
+            emittedCounter.increment();
+        } catch (Exception e) {
+            log.error("Failed to record coalesced activity for todo {}: {}", window.todoId, e.getMessage(), e);
+        }
+    }
+
+    private void publishRaw(Kind kind, UUID todoId, String message, Map<String, Object> metadata) {
+        Map<String, Object> raw = new HashMap<>();
+        raw.put("kind", kind.name());
+        raw.put("todoId", todoId);
+        raw.put("message", message);
+        raw.put("metadata", metadata);
+        raw.put("receivedAt", LocalDateTime.now());
+        webSocketService.notifyTodoRawActivity(todoId, raw);
+    }
+}
@@ -0,0 +1,652 @@
+package io.threadcast.service.timeline;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.threadcast.config.TimelineConfig;
+import io.threadcast.domain.TimelineArchiveSegment;
+import io.threadcast.domain.enums.ActorType;
+import io.threadcast.domain.enums.EventType;
+import io.threadcast.dto.request.PageCursor;
+import io.threadcast.dto.request.TimelineFilter;
+import io.threadcast.dto.response.TimelineEventResponse;
+import io.threadcast.repository.TimelineArchiveSegmentRepository;
+import io.threadcast.repository.WorkspaceRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Moves timeline events past their workspace's retention age out of timeline_event
+ * into gzip-compressed NDJSON segment files, and reads them back for {@code getTimeline}.
+ * Reads order events like the live keyset: createdAt, then id compared as unsigned bytes.
+ *
+ * Each run archives the oldest events of a workspace in batches of {@code batch-size}:
+ * one batch becomes one immutable segment file plus a {@link TimelineArchiveSegment}
+ * index row, and the archived rows are deleted in the same transaction that records the
+ * index row. Batches are small and separated by {@code pause-ms}, so live inserts are
+ * never blocked behind a long delete.
+ *
+ * A crash between writing a file and committing its index row leaves an unindexed file,
+ * which is never read; the events stay in timeline_event and are archived again next run.
+ * When two instances pick the same batch, the one whose deletes come up short rolls back
+ * and removes its file, so every event is indexed once.
+ *
+ * Daily rollups are not touched: archived events still count towards historical stats.
+ * Deleting a mission rewrites the segments holding its events without them (see {@link #purgeMission}).
+ */
+@Slf4j
+@Service
+public class TimelineArchiveService {
+
+    private static final String SELECT_BATCH_SQL = "SELECT e.id, e.mission_id, m.title AS mission_title, " +
+            "e.todo_id, t.title AS todo_title, e.event_type, e.actor_type, e.description, e.metadata, e.created_at " +
+            "FROM timeline_event e " +
+            "LEFT JOIN mission m ON m.id = e.mission_id " +
+            "LEFT JOIN todo t ON t.id = e.todo_id " +
+            "WHERE e.workspace_id = ? AND e.created_at < ? " +
+            "ORDER BY e.created_at, e.id LIMIT ?";
+
+    private static final String DELETE_SQL = "DELETE FROM timeline_event WHERE id = ?";
+
+    private static final String TODO_WORKSPACE_SQL =
+            "SELECT m.workspace_id FROM todo t JOIN mission m ON m.id = t.mission_id WHERE t.id = ?";
+
+    private static final Comparator<ArchivedEvent> NEWEST_FIRST = Comparator.comparing(ArchivedEvent::createdAt)
+            .thenComparing(ArchivedEvent::id, TimelineArchiveService::compareIds)
+            .reversed();
+
+    private static final TypeReference<Map<String, Object>> METADATA_TYPE = new TypeReference<>() {
+    };
+
+    private final TimelineArchiveSegmentRepository segmentRepository;
+    private final WorkspaceRepository workspaceRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final TimelineConfig.RetentionConfig config;
+
+    private final Counter archivedCounter;
+    private final Counter segmentCounter;
+    private final Timer runTimer;
+
+    private ScheduledExecutorService scheduler;
+
+    public TimelineArchiveService(
+            TimelineArchiveSegmentRepository segmentRepository,
+            WorkspaceRepository workspaceRepository,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            ObjectMapper objectMapper,
+            TimelineConfig timelineConfig,
+            MeterRegistry meterRegistry) {
+        this.segmentRepository = segmentRepository;
+        this.workspaceRepository = workspaceRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.config = timelineConfig.getRetention();
+
+        this.archivedCounter = Counter.builder("threadcast.timeline.archive.events")
+                .description("Timeline events moved to archive segments")
+                .register(meterRegistry);
+        this.segmentCounter = Counter.builder("threadcast.timeline.archive.segments")
+                .description("Archive segment files written")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("threadcast.timeline.archive.run")
+                .description("Duration of one archive run")
+                .register(meterRegistry);
+    }
+
+    /**
+     * One archived event as stored in a segment file (one JSON object per line).
+     * Titles are captured at archive time so reads never join against live tables.
+     */
+    public record ArchivedEvent(
+            UUID id,
+            UUID missionId,
+            String missionTitle,
+            UUID todoId,
+            String todoTitle,
+            EventType eventType,
+            ActorType actorType,
+            String description,
+            Map<String, Object> metadata,
+            LocalDateTime createdAt) {
+
+        TimelineEventResponse toResponse() {
+            return TimelineEventResponse.builder()
+                    .id(id)
+                    .eventType(eventType)
+                    .actorType(actorType)
+                    .title(description)
+                    .description(description)
+                    .missionId(missionId)
+                    .missionTitle(missionTitle)
+                    .todoId(todoId)
+                    .todoTitle(todoTitle)
+                    .metadata(metadata)
+                    .createdAt(createdAt)
+                    .build();
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "timeline-archiver");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::runSafely,
+                config.getInitialDelayMs(), config.getIntervalMs(), TimeUnit.MILLISECONDS);
+        log.info("Timeline archival enabled: defaultRetentionDays={}, dir={}, batchSize={}",
+                config.getDefaultRetentionDays(), config.getArchiveDir(), config.getBatchSize());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    private void runSafely() {
+        try {
+            runTimer.record(this::archiveAll);
+        } catch (Exception e) {
+            log.error("Timeline archive run failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Archive expired events of every workspace, then expire old segments.
+     * Stops early after {@code max-batches-per-run} batches; the rest is picked up next run.
+     */
+    public void archiveAll() {
+        int budget = config.getMaxBatchesPerRun();
+        long archived = 0;
+
+        for (Object[] row : workspaceRepository.findTimelineRetentionSettings()) {
+            UUID workspaceId = (UUID) row[0];
+            int days = row[1] != null ? (Integer) row[1] : config.getDefaultRetentionDays();
+            if (days <= 0) {
+                continue;
+            }
+            LocalDateTime cutoff = LocalDateTime.now().minusDays(days);
+
+            int moved;
+            do {
+                if (budget-- <= 0 || Thread.currentThread().isInterrupted()) {
+                    log.info("Timeline archive run stopped at batch limit after {} events", archived);
+                    return;
+                }
+                moved = archiveBatch(workspaceId, cutoff);
+                archived += moved;
+                if (moved > 0) {
+                    pause();
+                }
+            } while (moved >= config.getBatchSize());
+        }
+
+        expireSegments();
+        if (archived > 0) {
+            log.info("Timeline archive run moved {} events", archived);
+        }
+    }
+
+    /**
+     * Archive up to one batch of the oldest events created before the cutoff.
+     *
+     * @return number of events archived
+     */
+    public int archiveBatch(UUID workspaceId, LocalDateTime cutoff) {
+        List<ArchivedEvent> events = jdbcTemplate.query(SELECT_BATCH_SQL, (rs, rowNum) -> new ArchivedEvent(
+                rs.getObject("id", UUID.class),
+                rs.getObject("mission_id", UUID.class),
+                rs.getString("mission_title"),
+                rs.getObject("todo_id", UUID.class),
+                rs.getString("todo_title"),
+                EventType.valueOf(rs.getString("event_type")),
+                ActorType.valueOf(rs.getString("actor_type")),
+                rs.getString("description"),
+                parseMetadata(rs.getString("metadata")),
+                rs.getTimestamp("created_at").toLocalDateTime()
+        ), workspaceId, Timestamp.valueOf(cutoff), config.getBatchSize());
+
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        LocalDateTime fromTime = events.get(0).createdAt();
+        LocalDateTime toTime = events.get(events.size() - 1).createdAt();
+        Path file = writeSegment(workspaceId, fromTime, toTime, events);
+
+        boolean committed;
+        try {
+            committed = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                segmentRepository.save(TimelineArchiveSegment.create(
+                        workspaceId, fromTime, toTime, events.size(), file.toString(), sizeOf(file)));
+                int[][] deleted = jdbcTemplate.batchUpdate(DELETE_SQL, events, events.size(),
+                        (ps, event) -> ps.setObject(1, event.id()));
+                if (deletedCount(deleted) < events.size()) {
+                    // Another instance archived some of these rows first; indexing them again would duplicate them
+                    status.setRollbackOnly();
+                    return false;
+                }
+                return true;
+            }));
+        } catch (RuntimeException e) {
+            deleteQuietly(file);
+            throw e;
+        }
+        if (!committed) {
+            deleteQuietly(file);
+            log.info("Timeline archive batch for workspace {} was already archived by another instance", workspaceId);
+            return 0;
+        }
+
+        archivedCounter.increment(events.size());
+        segmentCounter.increment();
+        return events.size();
+    }
+
+    /**
+     * Archived events matching the filter, strictly before the cursor, newest first.
+     * Only segments overlapping the requested time range are decompressed.
+     */
+    public List<TimelineEventResponse> read(TimelineFilter filter, PageCursor before, int limit) {
+        return read(filter, before, 0, limit);
+    }
+
+    /**
+     * Like {@link #read(TimelineFilter, PageCursor, int)}, skipping the first {@code offset} matches.
+     */
+    public List<TimelineEventResponse> read(TimelineFilter filter, PageCursor before, int offset, int limit) {
+        UUID workspaceId = workspaceOf(filter);
+        if (workspaceId == null || limit <= 0) {
+            return List.of();
+        }
+
+        LocalDateTime upper = filter.getTo() != null && filter.getTo().isBefore(before.createdAt())
+                ? filter.getTo() : before.createdAt();
+        int wanted = offset + limit;
+        List<ArchivedEvent> matches = new ArrayList<>();
+
+        for (TimelineArchiveSegment segment : segmentRepository.findOverlapping(workspaceId, lowerBound(filter), upper)) {
+            // Segments come newest first; once we have a full page that is newer than
+            // everything left, the remaining segments cannot contribute.
+            if (matches.size() >= wanted) {
+                matches.sort(NEWEST_FIRST);
+                if (segment.getToTime().isBefore(matches.get(wanted - 1).createdAt())) {
+                    break;
+                }
+            }
+            for (ArchivedEvent event : readSegment(Paths.get(segment.getPath()))) {
+                if (isBefore(event, before) && matches(event, filter)) {
+                    matches.add(event);
+                }
+            }
+        }
+
+        matches.sort(NEWEST_FIRST);
+        return matches.stream()
+                .skip(offset)
+                .limit(limit)
+                .map(ArchivedEvent::toResponse)
+                .toList();
+    }
+
+    /**
+     * Whether any segment overlaps the filter's time range. Answered from the index alone,
+     * without decompressing segments, so {@code true} only means matching events may exist.
+     */
+    public boolean mayContain(TimelineFilter filter) {
+        UUID workspaceId = workspaceOf(filter);
+        if (workspaceId == null) {
+            return false;
+        }
+        LocalDateTime upper = filter.getTo() != null ? filter.getTo() : PageCursor.FIRST.createdAt();
+        return !segmentRepository.findOverlapping(workspaceId, lowerBound(filter), upper).isEmpty();
+    }
+
+    /**
+     * Number of archived events matching the filter. Segments entirely inside the requested
+     * time range are counted from their index row when the filter only selects a workspace.
+     */
+    public long count(TimelineFilter filter) {
+        UUID workspaceId = workspaceOf(filter);
+        if (workspaceId == null) {
+            return 0;
+        }
+        LocalDateTime lower = lowerBound(filter);
+        LocalDateTime upper = filter.getTo() != null ? filter.getTo() : PageCursor.FIRST.createdAt();
+        boolean workspaceOnly = filter.getMissionId() == null && filter.getTodoId() == null
+                && filter.getEventType() == null && filter.getActorType() == null;
+
+        long count = 0;
+        for (TimelineArchiveSegment segment : segmentRepository.findOverlapping(workspaceId, lower, upper)) {
+            if (workspaceOnly && !segment.getFromTime().isBefore(lower) && !segment.getToTime().isAfter(upper)) {
+                count += segment.getEventCount();
+                continue;
+            }
+            for (ArchivedEvent event : readSegment(Paths.get(segment.getPath()))) {
+                if (matches(event, filter)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Pass every archived event matching the filter to {@code action} together with its
+     * workspace id, oldest first. Segments are decompressed one at a time, so memory is
+     * bounded by the largest segment rather than by the size of the archive.
+     *
+     * @return number of events passed to {@code action}
+     */
+    public long forEachOldestFirst(TimelineFilter filter, BiConsumer<UUID, ArchivedEvent> action) {
+        UUID workspaceId = workspaceOf(filter);
+        if (workspaceId == null) {
+            return 0;
+        }
+        LocalDateTime upper = filter.getTo() != null ? filter.getTo() : PageCursor.FIRST.createdAt();
+        List<TimelineArchiveSegment> overlapping = new ArrayList<>(
+                segmentRepository.findOverlapping(workspaceId, lowerBound(filter), upper));
+        overlapping.sort(Comparator.comparing(TimelineArchiveSegment::getFromTime)
+                .thenComparing(TimelineArchiveSegment::getToTime));
+
+        long count = 0;
+        for (TimelineArchiveSegment segment : overlapping) {
+            List<ArchivedEvent> events = new ArrayList<>(readSegment(Paths.get(segment.getPath())));
+            events.sort(NEWEST_FIRST.reversed());
+            for (ArchivedEvent event : events) {
+                if (matches(event, filter)) {
+                    action.accept(workspaceId, event);
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Remove a deleted mission's events, including those of its todos, from the workspace's
+     * segments. Affected segments are rewritten to new files, or dropped when nothing is left;
+     * the index rows change in the caller's transaction and the old files are deleted once it
+     * commits, so a rollback leaves the archive as it was.
+     *
+     * @return the removed events
+     */
+    public List<ArchivedEvent> purgeMission(UUID workspaceId, UUID missionId) {
+        return purge(workspaceId, event -> missionId.equals(event.missionId()));
+    }
+
+    /**
+     * Remove a deleted todo's events from the workspace's segments, like {@link #purgeMission}.
+     *
+     * @return the removed events
+     */
+    public List<ArchivedEvent> purgeTodo(UUID workspaceId, UUID todoId) {
+        return purge(workspaceId, event -> todoId.equals(event.todoId()));
+    }
+
+    /**
+     * Delete segments older than {@code archive-retention-days}.
+     */
+    public void expireSegments() {
+        if (config.getArchiveRetentionDays() <= 0) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(config.getArchiveRetentionDays());
+        for (TimelineArchiveSegment segment : segmentRepository.findByToTimeBefore(cutoff)) {
+            segmentRepository.delete(segment);
+            deleteQuietly(Paths.get(segment.getPath()));
+        }
+    }
+
+    private List<ArchivedEvent> purge(UUID workspaceId, Predicate<ArchivedEvent> removed) {
+        List<ArchivedEvent> purged = new ArrayList<>();
+        for (TimelineArchiveSegment segment : segmentRepository.findByWorkspaceId(workspaceId)) {
+            Path file = Paths.get(segment.getPath());
+            List<ArchivedEvent> events;
+            try {
+                events = loadSegment(file);
+            } catch (IOException e) {
+                // Never rewrite a segment we could not read in full
+                log.warn("Cannot purge unreadable timeline archive segment {}: {}", file, e.getMessage());
+                continue;
+            }
+            List<ArchivedEvent> kept = events.stream().filter(removed.negate()).toList();
+            if (kept.size() == events.size()) {
+                continue;
+            }
+            events.stream().filter(removed).forEach(purged::add);
+
+            if (kept.isEmpty()) {
+                segmentRepository.delete(segment);
+                afterCompletion(() -> deleteQuietly(file), () -> {
+                });
+                continue;
+            }
+            // Segment files are written oldest first, so the bounds are the first and last kept events
+            LocalDateTime fromTime = kept.get(0).createdAt();
+            LocalDateTime toTime = kept.get(kept.size() - 1).createdAt();
+            Path rewritten = writeSegment(workspaceId, fromTime, toTime, kept);
+            segment.setFromTime(fromTime);
+            segment.setToTime(toTime);
+            segment.setEventCount(kept.size());
+            segment.setPath(rewritten.toString());
+            segment.setSizeBytes(sizeOf(rewritten));
+            segmentRepository.save(segment);
+            afterCompletion(() -> deleteQuietly(file), () -> deleteQuietly(rewritten));
+        }
+        if (!purged.isEmpty()) {
+            log.info("Purged {} archived timeline events of workspace {}", purged.size(), workspaceId);
+        }
+        return purged;
+    }
+
+    /**
+     * Run one action once the current transaction commits and another if it rolls back,
+     * or the first immediately when there is no transaction.
+     */
+    private static void afterCompletion(Runnable committed, Runnable rolledBack) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            committed.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    committed.run();
+                } else {
+                    rolledBack.run();
+                }
+            }
+        });
+    }
+
+    private static boolean isBefore(ArchivedEvent event, PageCursor before) {
+        int position = event.createdAt().compareTo(before.createdAt());
+        return position < 0 || (position == 0 && compareIds(event.id(), before.id()) < 0);
+    }
+
+    private static boolean matches(ArchivedEvent event, TimelineFilter filter) {
+        return (filter.getMissionId() == null || filter.getMissionId().equals(event.missionId()))
+                && (filter.getTodoId() == null || filter.getTodoId().equals(event.todoId()))
+                && (filter.getEventType() == null || filter.getEventType() == event.eventType())
+                && (filter.getActorType() == null || filter.getActorType() == event.actorType())
+                && (filter.getFrom() == null || !event.createdAt().isBefore(filter.getFrom()))
+                && (filter.getTo() == null || !event.createdAt().isAfter(filter.getTo()));
+    }
+
+    /**
+     * UUID order of the database keyset: unsigned, most significant half first.
+     * {@link UUID#compareTo} compares signed longs and disagrees whenever the top bit is set.
+     */
+    static int compareIds(UUID a, UUID b) {
+        int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    private UUID workspaceOf(TimelineFilter filter) {
+        return filter.getWorkspaceId() != null
+                ? filter.getWorkspaceId()
+                : findWorkspaceOfTodo(filter.getTodoId());
+    }
+
+    private static LocalDateTime lowerBound(TimelineFilter filter) {
+        return filter.getFrom() != null ? filter.getFrom() : LocalDateTime.of(1970, 1, 1, 0, 0);
+    }
+
+    private Path writeSegment(UUID workspaceId, LocalDateTime fromTime, LocalDateTime toTime,
+                              List<ArchivedEvent> events) {
+        Path dir = Paths.get(config.getArchiveDir(), workspaceId.toString());
+        String name = fromTime.toInstant(ZoneOffset.UTC).toEpochMilli() + "-"
+                + toTime.toInstant(ZoneOffset.UTC).toEpochMilli() + "-" + UUID.randomUUID() + ".ndjson.gz";
+        Path file = dir.resolve(name);
+        try {
+            Files.createDirectories(dir);
+            Path temp = Files.createTempFile(dir, "segment", ".tmp");
+            try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(temp)), StandardCharsets.UTF_8))) {
+                for (ArchivedEvent event : events) {
+                    writer.write(objectMapper.writeValueAsString(event));
+                    writer.newLine();
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write timeline archive segment " + file, e);
+        }
+    }
+
+    private List<ArchivedEvent> readSegment(Path file) {
+        try {
+            return loadSegment(file);
+        } catch (IOException e) {
+            log.warn("Skipping unreadable timeline archive segment {}: {}", file, e.getMessage());
+            return List.of();
+        }
+    }
+
+    private List<ArchivedEvent> loadSegment(Path file) throws IOException {
+        List<ArchivedEvent> events = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    events.add(objectMapper.readValue(line, ArchivedEvent.class));
+                }
+            }
+        }
+        return events;
+    }
+
+    private UUID findWorkspaceOfTodo(UUID todoId) {
+        if (todoId == null) {
+            return null;
+        }
+        List<UUID> ids = jdbcTemplate.query(TODO_WORKSPACE_SQL,
+                (rs, rowNum) -> rs.getObject(1, UUID.class), todoId);
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    private Map<String, Object> parseMetadata(String json) {
+        if (json == null || json.isBlank()) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, METADATA_TYPE);
+        } catch (IOException e) {
+            return Map.of("raw", json);
+        }
+    }
+
+    private void pause() {
+        if (config.getPauseMs() <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(config.getPauseMs());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private static int deletedCount(int[][] counts) {
+        int deleted = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                // Drivers that do not report row counts cannot reveal a lost race
+                deleted += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+            }
+        }
+        return deleted;
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete timeline archive segment {}: {}", file, e.getMessage());
+        }
+    }
+}
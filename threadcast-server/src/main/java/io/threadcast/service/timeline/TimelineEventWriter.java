@@ -0,0 +1,347 @@
+package io.threadcast.service.timeline;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.threadcast.config.TimelineConfig;
+import io.threadcast.domain.TimelineEvent;
+import io.threadcast.domain.enums.ActorType;
+import io.threadcast.domain.enums.EventType;
+import io.threadcast.repository.TimelineEventRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists timeline events either synchronously or through a bounded write-behind queue.
+ *
+ * In WRITE_BEHIND mode events are enqueued after the caller's transaction commits
+ * (so rows never reference uncommitted missions/todos and rolled-back work is never recorded)
+ * and a single flusher thread inserts them with JDBC batch statements once either
+ * {@code batch-size} events are pending or {@code flush-interval-ms} has elapsed.
+ *
+ * Durability: events still in the queue are lost if the JVM dies without a clean shutdown.
+ * A normal shutdown drains the queue for up to {@code shutdown-timeout-ms}.
+ */
+@Slf4j
+@Component
+public class TimelineEventWriter {
+
+    private static final String INSERT_SQL = "INSERT INTO timeline_event " +
+            "(id, workspace_id, mission_id, todo_id, event_type, actor_type, description, metadata, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final TimelineEventRepository timelineEventRepository;
+    private final TimelineRollupService rollupService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final TimelineConfig.WriterConfig config;
+    private final BlockingQueue<PendingEvent> queue;
+
+    private final Counter writtenCounter;
+    private final Counter droppedCounter;
+    private final Counter failedCounter;
+    private final Timer flushTimer;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public TimelineEventWriter(
+            TimelineEventRepository timelineEventRepository,
+            TimelineRollupService rollupService,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            ObjectMapper objectMapper,
+            TimelineConfig timelineConfig,
+            MeterRegistry meterRegistry) {
+        this.timelineEventRepository = timelineEventRepository;
+        this.rollupService = rollupService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.config = timelineConfig.getWriter();
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, config.getQueueCapacity()));
+
+        Gauge.builder("threadcast.timeline.writer.queue.depth", queue, BlockingQueue::size)
+                .description("Timeline events waiting to be flushed")
+                .register(meterRegistry);
+        this.writtenCounter = Counter.builder("threadcast.timeline.writer.written")
+                .description("Timeline events inserted by the write-behind flusher")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("threadcast.timeline.writer.dropped")
+                .description("Timeline events dropped because the queue was full")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("threadcast.timeline.writer.failed")
+                .description("Timeline events that could not be inserted")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("threadcast.timeline.writer.flush")
+                .description("Latency of one batch flush")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!isWriteBehind()) {
+            return;
+        }
+        running = true;
+        flusher = new Thread(this::runFlushLoop, "timeline-writer");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info("Timeline write-behind enabled: capacity={}, batchSize={}, flushIntervalMs={}, overflow={}",
+                config.getQueueCapacity(), config.getBatchSize(), config.getFlushIntervalMs(), config.getOverflowPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flusher == null) {
+            return;
+        }
+        running = false;
+        try {
+            flusher.join(config.getShutdownTimeoutMs());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.warn("Timeline writer stopped with {} events still queued", queue.size());
+        }
+        flusher = null;
+    }
+
+    public boolean isWriteBehind() {
+        return config.getMode() == TimelineConfig.DurabilityMode.WRITE_BEHIND;
+    }
+
+    /**
+     * Persist a timeline event and count it in the daily rollup.
+     * In WRITE_BEHIND mode the id and createdAt are assigned immediately so the event
+     * can be pushed over WebSocket before it reaches the database.
+     */
+    public void write(TimelineEvent event) {
+        if (!isWriteBehind()) {
+            timelineEventRepository.save(event);
+            rollupService.increment(event.getWorkspace().getId(), event.getCreatedAt(), event.getEventType());
+            return;
+        }
+
+        if (event.getId() == null) {
+            event.setId(UUID.randomUUID());
+        }
+        if (event.getCreatedAt() == null) {
+            event.setCreatedAt(LocalDateTime.now());
+        }
+        PendingEvent pending = PendingEvent.from(event);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(pending);
+                }
+            });
+        } else {
+            enqueue(pending);
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void enqueue(PendingEvent pending) {
+        if (!running) {
+            // Flusher already stopped (shutdown in progress) - don't lose the event
+            flush(List.of(pending));
+            return;
+        }
+
+        boolean accepted;
+        switch (config.getOverflowPolicy()) {
+            case BLOCK -> {
+                try {
+                    accepted = queue.offer(pending, config.getOfferTimeoutMs(), TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    accepted = false;
+                }
+            }
+            case CALLER_RUNS -> {
+                accepted = queue.offer(pending);
+                if (!accepted) {
+                    flush(List.of(pending));
+                    return;
+                }
+            }
+            default -> accepted = queue.offer(pending);
+        }
+
+        if (!accepted) {
+            droppedCounter.increment();
+            log.warn("Timeline queue full, dropped event: type={}, todoId={}", pending.eventType(), pending.todoId());
+        }
+    }
+
+    private void runFlushLoop() {
+        List<PendingEvent> batch = new ArrayList<>(config.getBatchSize());
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(config.getFlushIntervalMs());
+
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingEvent first = queue.poll(config.getFlushIntervalMs(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Fill the batch until it is full or the flush interval has elapsed
+                long deadline = System.nanoTime() + intervalNanos;
+                while (batch.size() < config.getBatchSize()) {
+                    queue.drainTo(batch, config.getBatchSize() - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= config.getBatchSize() || remaining <= 0 || !running) {
+                        break;
+                    }
+                    PendingEvent next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                flush(batch);
+            } catch (InterruptedException e) {
+                // Keep draining; the loop exits once stopped and empty
+                Thread.interrupted();
+            } catch (Exception e) {
+                log.error("Timeline flush loop error: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    void flush(List<PendingEvent> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Timer.Sample sample = Timer.start();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), this::bind);
+                rollupService.apply(rollupDeltas(batch));
+            });
+            writtenCounter.increment(batch.size());
+        } catch (DataAccessException e) {
+            // One bad row (e.g. todo deleted meanwhile) must not lose the whole batch
+            log.warn("Timeline batch insert failed ({} events), retrying row by row: {}", batch.size(), e.getMessage());
+            for (PendingEvent pending : batch) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        jdbcTemplate.update(INSERT_SQL, ps -> bind(ps, pending));
+                        rollupService.increment(pending.workspaceId(), pending.createdAt(), pending.eventType());
+                    });
+                    writtenCounter.increment();
+                } catch (DataAccessException rowError) {
+                    failedCounter.increment();
+                    log.warn("Failed to insert timeline event {}: {}", pending.id(), rowError.getMessage());
+                }
+            }
+        } finally {
+            sample.stop(flushTimer);
+        }
+    }
+
+    private static Map<TimelineRollupService.RollupKey, Long> rollupDeltas(List<PendingEvent> batch) {
+        Map<TimelineRollupService.RollupKey, Long> deltas = new HashMap<>();
+        for (PendingEvent event : batch) {
+            deltas.merge(new TimelineRollupService.RollupKey(
+                    event.workspaceId(), event.createdAt().toLocalDate(), event.eventType()), 1L, Long::sum);
+        }
+        return deltas;
+    }
+
+    private void bind(PreparedStatement ps, PendingEvent event) throws SQLException {
+        setUuid(ps, 1, event.id());
+        setUuid(ps, 2, event.workspaceId());
+        setUuid(ps, 3, event.missionId());
+        setUuid(ps, 4, event.todoId());
+        ps.setString(5, event.eventType().name());
+        ps.setString(6, event.actorType().name());
+        ps.setString(7, event.description());
+        String metadata = toJson(event.metadata());
+        if (metadata != null) {
+            ps.setString(8, metadata);
+        } else {
+            ps.setNull(8, Types.VARCHAR);
+        }
+        ps.setTimestamp(9, Timestamp.valueOf(event.createdAt()));
+    }
+
+    private static void setUuid(PreparedStatement ps, int index, UUID value) throws SQLException {
+        if (value != null) {
+            ps.setObject(index, value);
+        } else {
+            ps.setNull(index, Types.OTHER);
+        }
+    }
+
+    private String toJson(Map<String, Object> metadata) {
+        if (metadata == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(metadata);
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to serialize timeline metadata: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Detached snapshot of a timeline event.
+     * Only ids are kept so the flusher never touches lazy associations.
+     */
+    record PendingEvent(UUID id, UUID workspaceId, UUID missionId, UUID todoId,
+                        EventType eventType, ActorType actorType, String description,
+                        Map<String, Object> metadata, LocalDateTime createdAt) {
+
+        static PendingEvent from(TimelineEvent event) {
+            return new PendingEvent(
+                    event.getId(),
+                    event.getWorkspace().getId(),
+                    event.getMission() != null ? event.getMission().getId() : null,
+                    event.getTodo() != null ? event.getTodo().getId() : null,
+                    event.getEventType(),
+                    event.getActorType(),
+                    event.getDescription(),
+                    event.getMetadata(),
+                    event.getCreatedAt()
+            );
+        }
+    }
+}
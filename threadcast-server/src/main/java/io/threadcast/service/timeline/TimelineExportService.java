@@ -0,0 +1,337 @@
+package io.threadcast.service.timeline;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.threadcast.dto.request.TimelineFilter;
+import io.threadcast.exception.BadRequestException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Streams timeline events straight from a JDBC cursor to an output stream.
+ *
+ * Rows are fetched {@link #FETCH_SIZE} at a time inside a read-only transaction
+ * (PostgreSQL only uses a server-side cursor when auto-commit is off) and written
+ * as they arrive, so heap usage does not depend on the size of the export.
+ * Metadata is copied through as the JSON text already stored in timeline_event.
+ *
+ * When archiving is enabled, matching events in archive segments are written first: they
+ * are older than every live row, so the export stays oldest first. The transaction is
+ * REPEATABLE READ so a batch archived while the export runs is neither missed nor written twice.
+ */
+@Slf4j
+@Service
+public class TimelineExportService {
+
+    static final int FETCH_SIZE = 1000;
+
+    private static final String SELECT_SQL = "SELECT e.id, e.created_at, e.event_type, e.actor_type, " +
+            "e.workspace_id, e.mission_id, m.title AS mission_title, e.todo_id, t.title AS todo_title, " +
+            "e.description, e.metadata " +
+            "FROM timeline_event e " +
+            "LEFT JOIN mission m ON m.id = e.mission_id " +
+            "LEFT JOIN todo t ON t.id = e.todo_id " +
+            "WHERE %s ORDER BY e.created_at, e.id";
+
+    private static final String[] CSV_COLUMNS = {
+            "id", "created_at", "event_type", "actor_type", "workspace_id", "mission_id", "mission_title",
+            "todo_id", "todo_title", "description", "input_tokens", "output_tokens", "metadata"
+    };
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format parse(String value) {
+            try {
+                return Format.valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Unsupported export format: " + value);
+            }
+        }
+    }
+
+    /**
+     * One exported event, read from either timeline_event or an archive segment.
+     * Metadata is kept as JSON text.
+     */
+    private record ExportRow(
+            String id,
+            String createdAt,
+            String eventType,
+            String actorType,
+            String workspaceId,
+            String missionId,
+            String missionTitle,
+            String todoId,
+            String todoTitle,
+            String description,
+            String metadata) {
+    }
+
+    /**
+     * Receives rows one at a time; implemented once per format.
+     */
+    private interface RowWriter {
+        void write(ExportRow row) throws IOException;
+    }
+
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TimelineArchiveService archiveService;
+    private final ObjectMapper objectMapper;
+
+    public TimelineExportService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                 TimelineArchiveService archiveService, ObjectMapper objectMapper) {
+        // Dedicated template so the shared one keeps the driver's default fetch size
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.archiveService = archiveService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Write every event matching the filter, archived ones included, oldest first.
+     *
+     * @return number of events written
+     */
+    public long export(TimelineFilter filter, Format format, OutputStream out) {
+        filter.validate();
+        List<Object> args = new ArrayList<>();
+        String sql = String.format(SELECT_SQL, whereClause(filter, args));
+        long started = System.currentTimeMillis();
+
+        Long written = readOnlyTransaction.execute(status -> {
+            try {
+                return format == Format.NDJSON
+                        ? writeNdjson(filter, sql, args.toArray(), out)
+                        : writeCsv(filter, sql, args.toArray(), out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        log.info("Timeline export finished: format={}, rows={}, {} ms",
+                format, written, System.currentTimeMillis() - started);
+        return written != null ? written : 0L;
+    }
+
+    private long writeNdjson(TimelineFilter filter, String sql, Object[] args, OutputStream out) throws IOException {
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            json.setRootValueSeparator(null);
+            return writeRows(filter, sql, args, row -> {
+                json.writeStartObject();
+                json.writeStringField("id", row.id());
+                json.writeStringField("createdAt", row.createdAt());
+                json.writeStringField("eventType", row.eventType());
+                json.writeStringField("actorType", row.actorType());
+                json.writeStringField("workspaceId", row.workspaceId());
+                json.writeStringField("missionId", row.missionId());
+                json.writeStringField("missionTitle", row.missionTitle());
+                json.writeStringField("todoId", row.todoId());
+                json.writeStringField("todoTitle", row.todoTitle());
+                json.writeStringField("description", row.description());
+                json.writeFieldName("metadata");
+                if (row.metadata() == null || row.metadata().isBlank()) {
+                    json.writeNull();
+                } else {
+                    json.writeRawValue(row.metadata());
+                }
+                json.writeEndObject();
+                json.writeRaw('\n');
+            });
+        }
+    }
+
+    private long writeCsv(TimelineFilter filter, String sql, Object[] args, OutputStream out) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            writer.write(String.join(",", CSV_COLUMNS));
+            writer.write('\n');
+            return writeRows(filter, sql, args, row -> writeCsvRow(writer, row));
+        }
+    }
+
+    /**
+     * Feed archived events, then live rows, to the format's writer.
+     */
+    private long writeRows(TimelineFilter filter, String sql, Object[] args, RowWriter writer) {
+        long[] count = {0};
+        if (archiveService.isEnabled()) {
+            count[0] += archiveService.forEachOldestFirst(filter, (workspaceId, event) -> {
+                try {
+                    writer.write(toRow(workspaceId, event));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        streamingJdbcTemplate.query(sql, rs -> {
+            try {
+                writer.write(toRow(rs));
+                count[0]++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, args);
+        return count[0];
+    }
+
+    private static ExportRow toRow(ResultSet rs) throws SQLException {
+        return new ExportRow(
+                rs.getString("id"),
+                formatTimestamp(rs.getTimestamp("created_at")),
+                rs.getString("event_type"),
+                rs.getString("actor_type"),
+                rs.getString("workspace_id"),
+                rs.getString("mission_id"),
+                rs.getString("mission_title"),
+                rs.getString("todo_id"),
+                rs.getString("todo_title"),
+                rs.getString("description"),
+                rs.getString("metadata"));
+    }
+
+    private ExportRow toRow(UUID workspaceId, TimelineArchiveService.ArchivedEvent event) throws IOException {
+        return new ExportRow(
+                event.id().toString(),
+                event.createdAt().toString(),
+                event.eventType() != null ? event.eventType().name() : null,
+                event.actorType() != null ? event.actorType().name() : null,
+                workspaceId.toString(),
+                Objects.toString(event.missionId(), null),
+                event.missionTitle(),
+                Objects.toString(event.todoId(), null),
+                event.todoTitle(),
+                event.description(),
+                event.metadata() != null ? objectMapper.writeValueAsString(event.metadata()) : null);
+    }
+
+    private void writeCsvRow(Writer writer, ExportRow row) throws IOException {
+        JsonNode tokens = tokenFields(row.metadata());
+
+        String[] values = {
+                row.id(),
+                row.createdAt(),
+                row.eventType(),
+                row.actorType(),
+                row.workspaceId(),
+                row.missionId(),
+                row.missionTitle(),
+                row.todoId(),
+                row.todoTitle(),
+                row.description(),
+                tokens != null && tokens.has("inputTokens") ? tokens.get("inputTokens").asText() : null,
+                tokens != null && tokens.has("outputTokens") ? tokens.get("outputTokens").asText() : null,
+                row.metadata()
+        };
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csvEscape(values[i]));
+        }
+        writer.write('\n');
+    }
+
+    /**
+     * Parse metadata only when it can hold token counts (AI activity).
+     */
+    private JsonNode tokenFields(String metadata) {
+        if (metadata == null || !metadata.contains("Tokens")) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(metadata);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    static String csvEscape(String value) {
+        if (value == null) {
+            return "";
+        }
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        return quote ? '"' + value.replace("\"", "\"\"") + '"' : value;
+    }
+
+    static String whereClause(TimelineFilter filter, List<Object> args) {
+        List<String> conditions = new ArrayList<>();
+        if (filter.getWorkspaceId() != null) {
+            conditions.add("e.workspace_id = ?");
+            args.add(filter.getWorkspaceId());
+        }
+        if (filter.getMissionId() != null) {
+            conditions.add("e.mission_id = ?");
+            args.add(filter.getMissionId());
+        }
+        if (filter.getTodoId() != null) {
+            conditions.add("e.todo_id = ?");
+            args.add(filter.getTodoId());
+        }
+        if (filter.getEventType() != null) {
+            conditions.add("e.event_type = ?");
+            args.add(filter.getEventType().name());
+        }
+        if (filter.getActorType() != null) {
+            conditions.add("e.actor_type = ?");
+            args.add(filter.getActorType().name());
+        }
+        if (filter.getFrom() != null) {
+            conditions.add("e.created_at >= ?");
+            args.add(Timestamp.valueOf(filter.getFrom()));
+        }
+        if (filter.getTo() != null) {
+            conditions.add("e.created_at <= ?");
+            args.add(Timestamp.valueOf(filter.getTo()));
+        }
+        return String.join(" AND ", conditions);
+    }
+
+    private static String formatTimestamp(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime().toString() : null;
+    }
+}
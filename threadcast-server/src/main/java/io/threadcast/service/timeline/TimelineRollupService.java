@@ -0,0 +1,396 @@
+package io.threadcast.service.timeline;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.threadcast.config.TimelineConfig;
+import io.threadcast.domain.TimelineDailyRollup;
+import io.threadcast.domain.enums.EventType;
+import io.threadcast.repository.TimelineDailyRollupRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maintains {@link TimelineDailyRollup} counts.
+ *
+ * Write-behind batches count their events in the transaction that inserts them
+ * (see {@link TimelineEventWriter}). Events inserted synchronously are counted once their
+ * transaction commits: counts are summed in memory and applied every {@code flush-interval-ms}
+ * as one upsert per (workspace, day, type), so request transactions never lock the hot
+ * rollup rows. Counts still in memory are lost if the JVM dies; {@link #rebuild} repairs them.
+ *
+ * Events created before rollups were first tracked are counted once per database by
+ * {@link #backfill}. The tracking start and completion are recorded in system_settings.
+ */
+@Slf4j
+@Service
+public class TimelineRollupService {
+
+    private static final String POSTGRES_UPSERT_SQL = "INSERT INTO timeline_daily_rollup " +
+            "(id, workspace_id, event_date, event_type, event_count) VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (workspace_id, event_date, event_type) " +
+            "DO UPDATE SET event_count = timeline_daily_rollup.event_count + EXCLUDED.event_count";
+
+    private static final String MERGE_UPSERT_SQL = "MERGE INTO timeline_daily_rollup r " +
+            "USING (SELECT CAST(? AS UUID) AS id, CAST(? AS UUID) AS workspace_id, CAST(? AS DATE) AS event_date, " +
+            "CAST(? AS VARCHAR(255)) AS event_type, CAST(? AS BIGINT) AS delta) s " +
+            "ON r.workspace_id = s.workspace_id AND r.event_date = s.event_date AND r.event_type = s.event_type " +
+            "WHEN MATCHED THEN UPDATE SET event_count = r.event_count + s.delta " +
+            "WHEN NOT MATCHED THEN INSERT (id, workspace_id, event_date, event_type, event_count) " +
+            "VALUES (s.id, s.workspace_id, s.event_date, s.event_type, s.delta)";
+
+    private static final String SUBTRACT_SQL = "UPDATE timeline_daily_rollup SET event_count = event_count - ? " +
+            "WHERE workspace_id = ? AND event_date = ? AND event_type = ?";
+
+    private static final String GROUPED_COUNT_SQL = "SELECT workspace_id, CAST(created_at AS DATE) AS event_date, " +
+            "event_type, COUNT(*) AS cnt FROM timeline_event WHERE %s " +
+            "GROUP BY workspace_id, CAST(created_at AS DATE), event_type";
+
+    /**
+     * system_settings row holding the tracking start (ISO timestamp) until the backfill is done.
+     */
+    static final String BACKFILL_KEY = "timeline.rollup.backfill";
+    static final String BACKFILL_DONE = "done";
+
+    private static final String MARKER_INSERT_SQL =
+            "INSERT INTO system_settings (setting_key, setting_value) VALUES (?, ?)";
+    private static final String MARKER_LOCK_SQL =
+            "SELECT setting_value FROM system_settings WHERE setting_key = ? FOR UPDATE";
+    private static final String MARKER_UPDATE_SQL =
+            "UPDATE system_settings SET setting_value = ? WHERE setting_key = ?";
+
+    private final TimelineDailyRollupRepository rollupRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TimelineConfig timelineConfig;
+
+    // Committed events not yet applied; merge()/remove() keep each key's count atomic
+    private final Map<RollupKey, Long> pending = new ConcurrentHashMap<>();
+
+    private volatile String upsertSql;
+    private ScheduledExecutorService flusher;
+    private ExecutorService backfillExecutor;
+
+    public TimelineRollupService(
+            TimelineDailyRollupRepository rollupRepository,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            TimelineConfig timelineConfig,
+            MeterRegistry meterRegistry) {
+        this.rollupRepository = rollupRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.timelineConfig = timelineConfig;
+
+        Gauge.builder("threadcast.timeline.rollup.pending", pending, Map::size)
+                .description("Rollup rows with committed counts waiting to be applied")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Key of a rollup row.
+     */
+    public record RollupKey(UUID workspaceId, LocalDate eventDate, EventType eventType) {
+    }
+
+    @PostConstruct
+    public void start() {
+        // Before any event is counted, so the recorded start never postdates a counted event
+        recordTrackingStart();
+
+        long intervalMs = timelineConfig.getRollup().getFlushIntervalMs();
+        if (intervalMs <= 0) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "timeline-rollup-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushSafely, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (backfillExecutor != null) {
+            backfillExecutor.shutdownNow();
+            backfillExecutor = null;
+        }
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            flusher = null;
+        }
+        flushSafely();
+    }
+
+    /**
+     * Count one event once the transaction that inserts it commits.
+     * With {@code flush-interval-ms} disabled it is counted immediately, in that transaction.
+     */
+    public void increment(UUID workspaceId, LocalDateTime createdAt, EventType eventType) {
+        RollupKey key = new RollupKey(workspaceId, createdAt.toLocalDate(), eventType);
+        if (timelineConfig.getRollup().getFlushIntervalMs() <= 0) {
+            apply(Map.of(key, 1L));
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pending.merge(key, 1L, Long::sum);
+                }
+            });
+        } else {
+            pending.merge(key, 1L, Long::sum);
+        }
+    }
+
+    /**
+     * Add pre-aggregated deltas to the rollup in one JDBC batch.
+     */
+    public void apply(Map<RollupKey, Long> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<RollupKey, Long>> entries = new ArrayList<>(deltas.entrySet());
+
+        // Both upsert variants bind (id, workspace_id, event_date, event_type, delta)
+        jdbcTemplate.batchUpdate(resolveUpsertSql(), entries, entries.size(), (ps, entry) -> {
+            RollupKey key = entry.getKey();
+            ps.setObject(1, UUID.randomUUID());
+            ps.setObject(2, key.workspaceId());
+            ps.setDate(3, Date.valueOf(key.eventDate()));
+            ps.setString(4, key.eventType().name());
+            ps.setLong(5, entry.getValue());
+        });
+    }
+
+    /**
+     * Apply the counts of committed events gathered since the last flush, in one transaction.
+     * If that fails the counts are kept for the next flush.
+     */
+    public void flush() {
+        Map<RollupKey, Long> deltas = new HashMap<>();
+        for (RollupKey key : pending.keySet()) {
+            Long count = pending.remove(key);
+            if (count != null) {
+                deltas.put(key, count);
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> apply(deltas));
+        } catch (RuntimeException e) {
+            deltas.forEach((key, count) -> pending.merge(key, count, Long::sum));
+            throw e;
+        }
+    }
+
+    /**
+     * Remove the contribution of a mission's live events before they are deleted.
+     */
+    @Transactional
+    public void subtractMission(UUID missionId) {
+        subtract(groupedCounts("mission_id = ?", missionId));
+    }
+
+    /**
+     * Remove the contribution of a todo's live events before they are deleted.
+     */
+    @Transactional
+    public void subtractTodo(UUID todoId) {
+        subtract(groupedCounts("todo_id = ?", todoId));
+    }
+
+    /**
+     * Remove the contribution of events purged from the workspace's archive.
+     */
+    @Transactional
+    public void subtractArchived(UUID workspaceId, List<TimelineArchiveService.ArchivedEvent> events) {
+        Map<RollupKey, Long> counts = new HashMap<>();
+        for (TimelineArchiveService.ArchivedEvent event : events) {
+            counts.merge(new RollupKey(workspaceId, event.createdAt().toLocalDate(), event.eventType()),
+                    1L, Long::sum);
+        }
+        subtract(counts);
+    }
+
+    /**
+     * Event counts per type for a date range (inclusive).
+     */
+    @Transactional(readOnly = true)
+    public Map<EventType, Long> getCounts(UUID workspaceId, LocalDate from, LocalDate to) {
+        Map<EventType, Long> counts = new EnumMap<>(EventType.class);
+        for (Object[] row : rollupRepository.sumByEventType(workspaceId, from, to)) {
+            counts.put((EventType) row[0], ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+
+    /**
+     * Rollup rows for a date range (inclusive), ordered by day.
+     */
+    @Transactional(readOnly = true)
+    public List<TimelineDailyRollup> getDailyRollups(UUID workspaceId, LocalDate from, LocalDate to) {
+        return rollupRepository.findByWorkspaceIdAndEventDateBetweenOrderByEventDateAsc(workspaceId, from, to);
+    }
+
+    /**
+     * Backfill rollups from earlier timeline history, off the startup thread.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (!timelineConfig.getRollup().isBackfillOnStartup()) {
+            return;
+        }
+        backfillExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "timeline-rollup-backfill");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        backfillExecutor.execute(() -> {
+            try {
+                backfill();
+            } catch (Exception e) {
+                log.error("Timeline rollup backfill failed: {}", e.getMessage(), e);
+            }
+        });
+        // Let the thread exit once the backfill is done
+        backfillExecutor.shutdown();
+    }
+
+    /**
+     * Add counts for every event created before rollups were first tracked, unless done already.
+     *
+     * Runs in one transaction holding the marker row lock, so nodes starting together take
+     * turns and only the first one counts; a failed backfill rolls back and runs again on
+     * the next start.
+     *
+     * @return whether this call did the backfill
+     */
+    public boolean backfill() {
+        long started = System.currentTimeMillis();
+        Integer rows = transactionTemplate.execute(status -> {
+            List<String> marker = jdbcTemplate.queryForList(MARKER_LOCK_SQL, String.class, BACKFILL_KEY);
+            if (marker.isEmpty() || BACKFILL_DONE.equals(marker.get(0))) {
+                return null;
+            }
+            LocalDateTime trackingSince = LocalDateTime.parse(marker.get(0));
+            Map<RollupKey, Long> deltas = groupedCounts("created_at < ?", Timestamp.valueOf(trackingSince));
+            apply(deltas);
+            jdbcTemplate.update(MARKER_UPDATE_SQL, BACKFILL_DONE, BACKFILL_KEY);
+            return deltas.size();
+        });
+        if (rows == null) {
+            log.debug("Timeline rollup backfill already done");
+            return false;
+        }
+        log.info("Timeline rollup backfill finished: {} rows in {} ms", rows, System.currentTimeMillis() - started);
+        return true;
+    }
+
+    /**
+     * Recompute a workspace's rollups from scratch.
+     * Counts recorded concurrently with the rebuild may be off by those few events.
+     */
+    @Transactional
+    public void rebuild(UUID workspaceId) {
+        rollupRepository.deleteByWorkspaceId(workspaceId);
+        apply(groupedCounts("workspace_id = ?", workspaceId));
+        log.info("Timeline rollups rebuilt for workspace {}", workspaceId);
+    }
+
+    /**
+     * Record when this database started tracking rollups, if no node has yet.
+     */
+    void recordTrackingStart() {
+        try {
+            jdbcTemplate.update(MARKER_INSERT_SQL, BACKFILL_KEY, LocalDateTime.now().toString());
+            log.info("Timeline rollup tracking started; earlier events will be backfilled");
+        } catch (DuplicateKeyException e) {
+            // Already tracking (or backfilled) since an earlier start
+        } catch (DataAccessException e) {
+            log.warn("Failed to record timeline rollup tracking start: {}", e.getMessage());
+        }
+    }
+
+    private void subtract(Map<RollupKey, Long> counts) {
+        List<Map.Entry<RollupKey, Long>> entries = new ArrayList<>(counts.entrySet());
+        if (entries.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(SUBTRACT_SQL, entries, entries.size(), (ps, entry) -> {
+            RollupKey key = entry.getKey();
+            ps.setLong(1, entry.getValue());
+            ps.setObject(2, key.workspaceId());
+            ps.setDate(3, Date.valueOf(key.eventDate()));
+            ps.setString(4, key.eventType().name());
+        });
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.warn("Timeline rollup flush failed, retrying next interval: {}", e.getMessage());
+        }
+    }
+
+    private Map<RollupKey, Long> groupedCounts(String condition, Object... args) {
+        Map<RollupKey, Long> counts = new HashMap<>();
+        jdbcTemplate.query(String.format(GROUPED_COUNT_SQL, condition), rs -> {
+            RollupKey key = new RollupKey(
+                    rs.getObject("workspace_id", UUID.class),
+                    rs.getDate("event_date").toLocalDate(),
+                    EventType.valueOf(rs.getString("event_type")));
+            counts.merge(key, rs.getLong("cnt"), Long::sum);
+        }, args);
+        return counts;
+    }
+
+    private String resolveUpsertSql() {
+        String sql = upsertSql;
+        if (sql == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            sql = "PostgreSQL".equalsIgnoreCase(product) ? POSTGRES_UPSERT_SQL : MERGE_UPSERT_SQL;
+            upsertSql = sql;
+        }
+        return sql;
+    }
+}
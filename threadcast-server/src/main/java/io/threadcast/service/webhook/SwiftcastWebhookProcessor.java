@@ -0,0 +1,451 @@
+package io.threadcast.service.webhook;
+
+import io.threadcast.dto.request.SwiftcastWebhookRequest;
+import io.threadcast.dto.response.WebhookBatchResponse;
+import io.threadcast.repository.TodoRepository;
+import io.threadcast.service.PmAgentService;
+import io.threadcast.service.StepProgressService;
+import io.threadcast.service.TimelineService;
+import io.threadcast.service.WebSocketService;
+import io.threadcast.service.terminal.SessionRouteCache;
+import io.threadcast.service.terminal.TodoTerminalService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Applies SwiftCast webhook events: usage, AI questions, session lifecycle and step progress.
+ * Called by {@link WebhookIngestionQueue}, either on the request thread or on the todo's lane.
+ *
+ * Each event, or each todo's group of events, is applied in one transaction that commits all of its
+ * writes or none. In-memory counters and WebSocket pushes happen only after that commit, so an
+ * event reported as failed has left no trace and its retry is not counted twice. Keys of
+ * state-advancing events are stored by {@link WebhookDeduplicator#persist} in that same transaction.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SwiftcastWebhookProcessor {
+
+    private final TodoTerminalService terminalService;
+    private final StepProgressService stepProgressService;
+    private final TimelineService timelineService;
+    private final TodoRepository todoRepository;
+    private final WebSocketService webSocketService;
+    private final PmAgentService pmAgentService;
+    private final TransactionTemplate transactionTemplate;
+    private final WebhookDeduplicator deduplicator;
+
+    /**
+     * Process one event in its own transaction. Failures are logged, never thrown. An event that was
+     * already handled is ignored; one that fails is rolled back and forgotten, so a retry is applied.
+     */
+    public WebhookBatchResponse.Status process(SwiftcastWebhookRequest request) {
+        String key = WebhookDeduplicator.keyOf(request);
+        if (!deduplicator.claim(key)) {
+            log.debug("Ignoring duplicate webhook: event={}, todoId={}", request.getEvent(), request.getTodoId());
+            return WebhookBatchResponse.Status.DUPLICATE;
+        }
+
+        // Auto-heartbeat PM Agent when receiving SwiftCast webhook
+        autoHeartbeatPmAgent(request.getTodoId(), request.getSessionId());
+
+        WebhookBatchResponse.Status status = dispatchInTransaction(request, key);
+        if (status == WebhookBatchResponse.Status.FAILED) {
+            deduplicator.release(key);
+        }
+        return status;
+    }
+
+    /**
+     * Process one todo's events from a batch, in order. Events already handled are reported as
+     * duplicates and skipped. The PM agent is sent one heartbeat for the group. All handlers run in
+     * one transaction, so the group's writes commit together. If any event fails, or the commit does,
+     * nothing of the group is kept and its events are applied again one transaction each, so one bad
+     * event does not hold back the rest. Events that fail on their own are forgotten, so a retry is applied.
+     */
+    public List<WebhookBatchResponse.Status> processGroup(List<SwiftcastWebhookRequest> group) {
+        List<WebhookBatchResponse.Status> statuses = new ArrayList<>(
+            Collections.nCopies(group.size(), WebhookBatchResponse.Status.DUPLICATE));
+        List<Integer> fresh = new ArrayList<>(group.size());
+        List<String> keys = new ArrayList<>(group.size());
+        for (int i = 0; i < group.size(); i++) {
+            String key = WebhookDeduplicator.keyOf(group.get(i));
+            if (deduplicator.claim(key)) {
+                fresh.add(i);
+                keys.add(key);
+            }
+        }
+        if (fresh.isEmpty()) {
+            log.debug("Ignoring duplicate webhook group: todoId={}, events={}", group.get(0).getTodoId(), group.size());
+            return statuses;
+        }
+
+        SwiftcastWebhookRequest first = fresh.stream()
+            .map(group::get)
+            .filter(request -> request.getTodoId() != null)
+            .findFirst()
+            .orElse(group.get(fresh.get(0)));
+        autoHeartbeatPmAgent(first.getTodoId(), first.getSessionId());
+
+        boolean committed = false;
+        try {
+            committed = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                for (int i = 0; i < fresh.size(); i++) {
+                    int index = fresh.get(i);
+                    WebhookBatchResponse.Status result = apply(group.get(index), keys.get(i));
+                    if (result == WebhookBatchResponse.Status.FAILED) {
+                        // Whatever the failed handler wrote before throwing must not commit with the rest
+                        status.setRollbackOnly();
+                        return false;
+                    }
+                    statuses.set(index, result);
+                }
+                return true;
+            }));
+        } catch (Exception e) {
+            log.error("Failed to commit webhook group: todoId={}, events={}: {}",
+                first.getTodoId(), fresh.size(), e.getMessage(), e);
+        }
+        if (!committed) {
+            log.warn("Webhook group rolled back, applying its events one by one: todoId={}, events={}",
+                first.getTodoId(), fresh.size());
+            for (int i = 0; i < fresh.size(); i++) {
+                statuses.set(fresh.get(i), dispatchInTransaction(group.get(fresh.get(i)), keys.get(i)));
+            }
+        }
+
+        for (int i = 0; i < fresh.size(); i++) {
+            if (statuses.get(fresh.get(i)) == WebhookBatchResponse.Status.FAILED) {
+                deduplicator.release(keys.get(i));
+            }
+        }
+        return statuses;
+    }
+
+    /**
+     * Apply one event in its own transaction, rolling back whatever it wrote if it fails.
+     */
+    private WebhookBatchResponse.Status dispatchInTransaction(SwiftcastWebhookRequest request, String key) {
+        try {
+            WebhookBatchResponse.Status result = transactionTemplate.execute(status -> {
+                WebhookBatchResponse.Status dispatched = apply(request, key);
+                if (dispatched == WebhookBatchResponse.Status.FAILED) {
+                    status.setRollbackOnly();
+                }
+                return dispatched;
+            });
+            return result != null ? result : WebhookBatchResponse.Status.FAILED;
+        } catch (Exception e) {
+            log.error("Failed to commit webhook: event={}, todoId={}: {}",
+                request.getEvent(), request.getTodoId(), e.getMessage(), e);
+            return WebhookBatchResponse.Status.FAILED;
+        }
+    }
+
+    /**
+     * Store the event's key if it is persisted, then handle it. Runs in the event's transaction.
+     */
+    private WebhookBatchResponse.Status apply(SwiftcastWebhookRequest request, String key) {
+        try {
+            if (!deduplicator.persist(key, request.getEvent())) {
+                log.debug("Ignoring webhook handled before: event={}, todoId={}", request.getEvent(), request.getTodoId());
+                return WebhookBatchResponse.Status.DUPLICATE;
+            }
+        } catch (Exception e) {
+            log.error("Failed to record webhook event key: {}", e.getMessage(), e);
+            return WebhookBatchResponse.Status.FAILED;
+        }
+        return dispatch(request);
+    }
+
+    private WebhookBatchResponse.Status dispatch(SwiftcastWebhookRequest request) {
+        try {
+            switch (request.getEvent()) {
+                case "usage_logged":
+                    handleUsageLogged(request);
+                    break;
+                case "ai_question_detected":
+                    handleAIQuestion(request);
+                    break;
+                case "session_created":
+                    handleSessionCreated(request);
+                    break;
+                case "step_update":
+                    handleStepUpdateFromSwiftcast(request);
+                    break;
+                case "session_complete":
+                    handleSessionComplete(request);
+                    break;
+                default:
+                    log.warn("Unknown webhook event: {}", request.getEvent());
+                    return WebhookBatchResponse.Status.SKIPPED;
+            }
+            return WebhookBatchResponse.Status.PROCESSED;
+        } catch (Exception e) {
+            log.error("Failed to process webhook: {}", e.getMessage(), e);
+            return WebhookBatchResponse.Status.FAILED;
+        }
+    }
+
+    private void handleUsageLogged(SwiftcastWebhookRequest request) {
+        String todoId = request.getTodoId();
+
+        // todoId가 없으면 sessionId로 라우팅 (등록된 session ID, 없으면 trace ID)
+        if (todoId == null && request.getSessionId() != null) {
+            var route = terminalService.getRouteBySwiftcastSessionId(request.getSessionId())
+                .or(() -> terminalService.getRouteByTraceId(request.getSessionId()));
+            if (route.isPresent()) {
+                todoId = route.get().todoId().toString();
+                log.info("Resolved todoId from sessionId: {} -> {}",
+                    request.getSessionId().substring(0, Math.min(12, request.getSessionId().length())) + "...",
+                    todoId);
+            }
+        }
+
+        if (todoId == null) {
+            log.debug("Usage logged without todoId and no mapping found, skipping");
+            return;
+        }
+
+        final String resolvedTodoId = todoId;
+
+        // trace_id 매핑에 추가
+        terminalService.addTraceId(resolvedTodoId, request.getSessionId());
+
+        // 사용량 정보 추출
+        var data = request.getData();
+        String model = data.has("model") ? data.get("model").asText() : "unknown";
+        long inputTokens = data.has("input_tokens") ? data.get("input_tokens").asLong() : 0;
+        long outputTokens = data.has("output_tokens") ? data.get("output_tokens").asLong() : 0;
+
+        // 토큰 사용량 추가
+        terminalService.addTokenUsage(resolvedTodoId, inputTokens, outputTokens);
+
+        // WebSocket으로 프론트엔드에 알림
+        afterCommit(() -> webSocketService.notifyUsageUpdate(resolvedTodoId, model, inputTokens, outputTokens));
+
+        // response_summary가 있으면 AI 활동 타임라인에 기록
+        String responseSummary = data.has("response_summary") ? data.get("response_summary").asText() : null;
+        log.info("Checking response_summary: {}", responseSummary != null ? "present" : "null");
+        if (responseSummary != null && !responseSummary.isEmpty()) {
+            try {
+                UUID todoUuid = UUID.fromString(resolvedTodoId);
+                var todoOpt = todoRepository.findByIdWithMissionAndWorkspace(todoUuid);
+                log.info("Todo lookup result: {}", todoOpt.isPresent() ? "found" : "not found");
+                todoOpt.ifPresent(todo -> {
+                    timelineService.recordAIActivity(todo, responseSummary, model, inputTokens, outputTokens);
+                    log.info("AI activity recorded: todoId={}, summary={}",
+                        resolvedTodoId,
+                        responseSummary.length() > 50 ? responseSummary.substring(0, 50) + "..." : responseSummary);
+                });
+            } catch (Exception e) {
+                log.warn("Failed to record AI activity: {}", e.getMessage(), e);
+            }
+        }
+
+        log.info("Usage recorded: todoId={}, model={}, in={}, out={}",
+            resolvedTodoId, model, inputTokens, outputTokens);
+    }
+
+    private void handleAIQuestion(SwiftcastWebhookRequest request) {
+        if (request.getTodoId() == null) {
+            log.warn("AI question detected without todoId, cannot process");
+            return;
+        }
+
+        var data = request.getData();
+        String question = data.has("question") ? data.get("question").asText() : "";
+        String context = data.has("context") ? data.get("context").asText() : "";
+
+        // WebSocket으로 프론트엔드에 알림
+        afterCommit(() -> webSocketService.notifyAIQuestionDetected(request.getTodoId(), question, context));
+
+        log.info("AI question detected: todoId={}, question={}",
+            request.getTodoId(),
+            question.length() > 50 ? question.substring(0, 50) + "..." : question);
+    }
+
+    private void handleSessionCreated(SwiftcastWebhookRequest request) {
+        if (request.getTodoId() == null) return;
+
+        terminalService.markSessionCreated(request.getTodoId(), request.getSessionId());
+        log.info("Session created: todoId={}", request.getTodoId());
+    }
+
+    /**
+     * Handle step_update event from SwiftCast webhook.
+     *
+     * Records AI activity (tool usage) to timeline for real-time progress tracking.
+     * NOTE: This does NOT control step progression - PM manages that via session_complete.
+     * Step type here reflects Claude's current tool usage, not the PM-assigned step.
+     */
+    private void handleStepUpdateFromSwiftcast(SwiftcastWebhookRequest request) {
+        if (request.getTodoId() == null) {
+            log.debug("Step update without todoId, skipping");
+            return;
+        }
+
+        var data = request.getData();
+        String stepType = data.has("step_type") ? data.get("step_type").asText() : "unknown";
+        String status = data.has("status") ? data.get("status").asText() : "unknown";
+        String message = data.has("message") ? data.get("message").asText() : "";
+
+        log.debug("SwiftCast step_update: todoId={}, step={}, status={}, message={}",
+            request.getTodoId(), stepType, status, message);
+
+        // Record to timeline for real-time progress visibility
+        try {
+            UUID todoUuid = UUID.fromString(request.getTodoId());
+            log.debug("Looking up todo: {}", todoUuid);
+            var todoOpt = todoRepository.findByIdWithMissionAndWorkspace(todoUuid);
+            if (todoOpt.isPresent()) {
+                log.info("Recording step progress to timeline: todoId={}, step={}, message={}",
+                    request.getTodoId(), stepType, message);
+                timelineService.recordStepProgress(todoOpt.get(), stepType, status, message);
+            } else {
+                log.warn("Todo not found for step progress: {}", request.getTodoId());
+            }
+        } catch (Exception e) {
+            log.error("Failed to record step progress to timeline: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Handle session_complete event from SwiftCast.
+     * Called when Claude finishes with stop_reason "end_turn".
+     *
+     * Session 검증: Hook의 sessionId가 해당 todoId에 등록된 SwiftCast session ID와 매칭되는지 확인
+     */
+    private void handleSessionComplete(SwiftcastWebhookRequest request) {
+        if (request.getTodoId() == null) {
+            log.warn("Session complete without todoId, skipping");
+            return;
+        }
+
+        String sessionId = request.getSessionId();
+        String todoId = request.getTodoId();
+
+        if (sessionId == null) {
+            log.warn("Session complete without sessionId, skipping: todoId={}", todoId);
+            return;
+        }
+
+        // Session 검증: Hook의 sessionId가 등록된 SwiftCast session ID와 매칭되는지 확인
+        var routeOpt = terminalService.getRoute(todoId);
+        if (routeOpt.isEmpty()) {
+            log.warn("No session mapping found for todoId={}, processing anyway", todoId);
+        } else {
+            String registeredSessionId = routeOpt.get().swiftcastSessionId();
+
+            if (registeredSessionId == null) {
+                // 아직 Custom Task로 session ID 등록 안됨 - 초기 상태
+                log.info("Session ID not yet registered via Custom Task for todoId={}, processing anyway", todoId);
+            } else if (!registeredSessionId.equals(sessionId)) {
+                // 다른 Claude session에서 온 Hook - 무시
+                log.warn("Session mismatch! Hook sessionId={} does not match registered sessionId={} for todoId={}",
+                    sessionId.substring(0, Math.min(12, sessionId.length())) + "...",
+                    registeredSessionId.substring(0, Math.min(12, registeredSessionId.length())) + "...",
+                    todoId);
+                return;
+            } else {
+                log.debug("Session verified: todoId={}, sessionId={}...", todoId,
+                    sessionId.substring(0, Math.min(12, sessionId.length())));
+            }
+        }
+
+        var data = request.getData();
+        String stopReason = data.has("stop_reason") ? data.get("stop_reason").asText() : "unknown";
+
+        log.info("Session complete: todoId={}, stop_reason={}", todoId, stopReason);
+
+        try {
+            // Complete the session - mark current step as COMPLETED and start next step
+            stepProgressService.completeSession(UUID.fromString(todoId));
+
+            // Notify frontend via WebSocket
+            afterCommit(() -> webSocketService.notifySessionComplete(todoId, stopReason));
+        } catch (Exception e) {
+            log.error("Failed to complete session: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Auto-heartbeat PM Agent when receiving SwiftCast webhook.
+     * This keeps PM Agent status as "connected" without modifying SwiftCast code.
+     */
+    private void autoHeartbeatPmAgent(String todoId, String sessionId) {
+        try {
+            UUID workspaceId = null;
+            String todoTitle = null;
+
+            // Try to get workspaceId from todoId, then from the sessionId mapping
+            var route = todoId != null ? terminalService.getRoute(todoId) : Optional.<SessionRouteCache.Route>empty();
+            if (route.isEmpty() && sessionId != null) {
+                route = terminalService.getRouteBySwiftcastSessionId(sessionId);
+            }
+            if (route.isPresent()) {
+                workspaceId = route.get().workspaceId();
+                todoTitle = route.get().todoTitle();
+            } else if (todoId != null) {
+                // Todo without a terminal session mapping (not started through ThreadCast)
+                var todoOpt = todoRepository.findByIdWithMissionAndWorkspace(UUID.fromString(todoId));
+                if (todoOpt.isPresent()) {
+                    var todo = todoOpt.get();
+                    workspaceId = todo.getMission().getWorkspace().getId();
+                    todoTitle = todo.getTitle();
+                }
+            }
+
+            if (workspaceId != null) {
+                // Send heartbeat with current work info
+                var heartbeatRequest = new io.threadcast.dto.request.PmAgentHeartbeatRequest();
+                if (todoId != null) {
+                    heartbeatRequest.setCurrentTodoId(UUID.fromString(todoId));
+                    heartbeatRequest.setCurrentTodoTitle(todoTitle);
+                }
+
+                try {
+                    pmAgentService.heartbeat(workspaceId, heartbeatRequest);
+                    log.debug("Auto-heartbeat PM Agent: workspaceId={}", workspaceId);
+                } catch (IllegalArgumentException e) {
+                    // PM Agent not registered yet, register it first
+                    var registerRequest = new io.threadcast.dto.request.PmAgentRegisterRequest();
+                    registerRequest.setWorkspaceId(workspaceId);
+                    registerRequest.setMachineId("swiftcast-auto");
+                    registerRequest.setLabel("SwiftCast Agent");
+                    registerRequest.setAgentVersion("auto");
+                    pmAgentService.register(registerRequest);
+                    log.info("Auto-registered PM Agent: workspaceId={}", workspaceId);
+                }
+            }
+        } catch (Exception e) {
+            log.debug("Failed to auto-heartbeat PM Agent: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Run an action once the event's transaction commits, or right away outside a transaction.
+     */
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
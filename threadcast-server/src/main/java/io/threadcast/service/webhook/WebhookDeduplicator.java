@@ -0,0 +1,251 @@
+package io.threadcast.service.webhook;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.threadcast.config.WebhookConfig;
+import io.threadcast.dto.request.StepUpdateWebhookRequest;
+import io.threadcast.dto.request.SwiftcastWebhookRequest;
+import io.threadcast.repository.ProcessedWebhookEventRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recognises retried webhooks so they are acknowledged without being applied twice.
+ *
+ * An event is identified by its {@code event_id} or, when the sender does not provide one, by a
+ * hash of its content including the timestamp. Events without either are never treated as
+ * duplicates. Handlers {@link #claim} an event before applying it, which puts the key into a bounded
+ * in-memory LRU, and {@link #release} it if applying fails, so a retry can apply the event after all.
+ *
+ * Keys of the events listed in {@code persistent-events} (those that advance a todo's state) are
+ * also {@link #persist}ed to {@code processed_webhook_event} in the transaction that applies the
+ * event, so the key commits exactly when the event's writes do and is kept across restarts. A crash
+ * before that commit loses neither: the retry is applied. High-volume events such as usage_logged
+ * are deduplicated in memory only and cost no write.
+ *
+ * Rows are swept once they are older than {@code retention-hours}; a retry arriving later than
+ * that is applied again.
+ */
+@Slf4j
+@Component
+public class WebhookDeduplicator {
+
+    /**
+     * Event name under which step updates from {@code /api/webhooks/step-update} are persisted.
+     */
+    public static final String STEP_UPDATE_EVENT = "step_update";
+
+    private static final String EXISTS_SQL = "SELECT COUNT(*) FROM processed_webhook_event WHERE event_key = ?";
+    private static final String INSERT_SQL = "INSERT INTO processed_webhook_event (event_key, received_at) VALUES (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProcessedWebhookEventRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final WebhookConfig.DedupConfig config;
+
+    // Most recently seen keys, evicted least recently used first
+    private final Map<String, Boolean> recent;
+
+    private final Counter memoryHitCounter;
+    private final Counter databaseHitCounter;
+    private final Counter missCounter;
+
+    private ScheduledExecutorService sweeper;
+
+    public WebhookDeduplicator(
+            JdbcTemplate jdbcTemplate,
+            ProcessedWebhookEventRepository repository,
+            TransactionTemplate transactionTemplate,
+            WebhookConfig webhookConfig,
+            MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.config = webhookConfig.getDedup();
+        int capacity = Math.max(1, config.getCacheSize());
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > capacity;
+            }
+        };
+
+        Gauge.builder("threadcast.webhook.dedup.cached", this, WebhookDeduplicator::cachedKeys)
+                .description("Webhook event keys held in memory")
+                .register(meterRegistry);
+        this.memoryHitCounter = Counter.builder("threadcast.webhook.dedup.lookups")
+                .tag("result", "hit")
+                .tag("source", "memory")
+                .description("Duplicate webhook events recognised")
+                .register(meterRegistry);
+        this.databaseHitCounter = Counter.builder("threadcast.webhook.dedup.lookups")
+                .tag("result", "hit")
+                .tag("source", "database")
+                .description("Duplicate webhook events recognised")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("threadcast.webhook.dedup.lookups")
+                .tag("result", "miss")
+                .tag("source", "none")
+                .description("Webhook events seen for the first time")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!config.isEnabled() || config.getPersistentEvents().isEmpty() || config.getSweepIntervalMs() <= 0) {
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "webhook-dedup-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep,
+                config.getSweepIntervalMs(), config.getSweepIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+            sweeper = null;
+        }
+    }
+
+    /**
+     * Record in memory that the event is being handled. Never touches the database.
+     *
+     * @param key event key from {@link #keyOf}, or null if the event cannot be identified
+     * @return true if the event is new and should be handled, false if it is a recent duplicate
+     */
+    public boolean claim(String key) {
+        if (key == null || !config.isEnabled()) {
+            return true;
+        }
+        synchronized (recent) {
+            if (recent.containsKey(key)) {
+                memoryHitCounter.increment();
+                return false;
+            }
+            recent.put(key, Boolean.TRUE);
+        }
+        missCounter.increment();
+        return true;
+    }
+
+    /**
+     * Store a claimed key in {@code processed_webhook_event} if its event is one of
+     * {@code persistent-events}. Must run in the transaction that applies the event, so the key is
+     * rolled back with it. A concurrent delivery of the same event fails on the primary key, which
+     * rolls its transaction back and is retried.
+     *
+     * @param event the event name, e.g. {@code session_complete} or {@link #STEP_UPDATE_EVENT}
+     * @return false if the key was already stored (handled before a restart, or evicted from memory since)
+     */
+    public boolean persist(String key, String event) {
+        if (key == null || !config.isEnabled() || !config.getPersistentEvents().contains(event)) {
+            return true;
+        }
+        Integer stored = jdbcTemplate.queryForObject(EXISTS_SQL, Integer.class, key);
+        if (stored != null && stored > 0) {
+            databaseHitCounter.increment();
+            return false;
+        }
+        jdbcTemplate.update(INSERT_SQL, key, Timestamp.valueOf(LocalDateTime.now()));
+        return true;
+    }
+
+    /**
+     * Forget a claimed event whose handling failed, so a retry is applied. A persisted key was
+     * rolled back with the event's transaction.
+     */
+    public void release(String key) {
+        if (key == null || !config.isEnabled()) {
+            return;
+        }
+        synchronized (recent) {
+            recent.remove(key);
+        }
+    }
+
+    /**
+     * Key of a SwiftCast event: its event_id, or its content when it has a timestamp.
+     */
+    public static String keyOf(SwiftcastWebhookRequest request) {
+        if (request.getEventId() != null) {
+            return hash("swiftcast-id", request.getEventId());
+        }
+        if (request.getTimestamp() == null) {
+            return null;
+        }
+        return hash("swiftcast", request.getEvent(), request.getTodoId(), request.getSessionId(),
+                String.valueOf(request.getTimestamp()),
+                request.getData() != null ? request.getData().toString() : null);
+    }
+
+    /**
+     * Key of a step update: its event_id, or its content when it has a timestamp.
+     */
+    public static String keyOf(StepUpdateWebhookRequest request) {
+        if (request.getEventId() != null) {
+            return hash("step-update-id", request.getEventId());
+        }
+        if (request.getTimestamp() == null) {
+            return null;
+        }
+        return hash("step-update", request.getTodoId(), String.valueOf(request.getStepType()),
+                String.valueOf(request.getStatus()), String.valueOf(request.getProgress()),
+                request.getMessage(), request.getSessionId(), String.valueOf(request.getTimestamp()));
+    }
+
+    void sweep() {
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minusHours(config.getRetentionHours());
+            Integer deleted = transactionTemplate.execute(status -> repository.deleteReceivedBefore(cutoff));
+            if (deleted != null && deleted > 0) {
+                log.info("Swept {} processed webhook event keys older than {}", deleted, cutoff);
+            }
+        } catch (Exception e) {
+            log.warn("Webhook dedup sweep failed: {}", e.getMessage());
+        }
+    }
+
+    private int cachedKeys() {
+        synchronized (recent) {
+            return recent.size();
+        }
+    }
+
+    private static String hash(String... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                // Length prefix keeps ("ab", "c") and ("a", "bc") apart
+                byte[] bytes = part != null ? part.getBytes(StandardCharsets.UTF_8) : new byte[0];
+                digest.update(Integer.toString(part != null ? bytes.length : -1).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) ':');
+                digest.update(bytes);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
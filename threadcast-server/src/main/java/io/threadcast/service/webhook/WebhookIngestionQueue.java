@@ -0,0 +1,294 @@
+package io.threadcast.service.webhook;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.threadcast.config.WebhookConfig;
+import io.threadcast.dto.request.SwiftcastWebhookRequest;
+import io.threadcast.dto.response.WebhookBatchResponse;
+import io.threadcast.service.terminal.SessionRouteCache;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accepts SwiftCast webhooks and processes them off the request thread.
+ *
+ * In ASYNC mode each event is put on one of {@code lanes} bounded queues, chosen by its todo, and
+ * the lane's single worker thread hands it to {@link SwiftcastWebhookProcessor}. Events of one
+ * todo are therefore applied in the order they arrived, while different todos are processed in
+ * parallel, and SwiftCast gets its 200 as soon as the event is queued. Events that carry only a
+ * session ID are routed by the todo that {@link SessionRouteCache} knows for it; until the session
+ * is registered they are partitioned by the session ID itself.
+ *
+ * A batch is split into one group per todo. Each group travels through its lane as a single unit
+ * and is handled by {@link SwiftcastWebhookProcessor#processGroup}.
+ *
+ * When a lane is full the overflow policy applies. CALLER_RUNS processes the event on the request
+ * thread, which may apply it ahead of that todo's queued events.
+ *
+ * Durability: queued events are lost if the JVM dies without a clean shutdown. A normal shutdown
+ * keeps the lanes running until they are empty or {@code shutdown-timeout-ms} has passed.
+ */
+@Slf4j
+@Component
+public class WebhookIngestionQueue {
+
+    private final SwiftcastWebhookProcessor processor;
+    private final SessionRouteCache routeCache;
+    private final WebhookConfig.IngestConfig config;
+    private final Lane[] lanes;
+
+    private final Counter acceptedCounter;
+    private final Counter droppedCounter;
+    private final Counter callerRunsCounter;
+    private final Counter failedCounter;
+    private final Timer waitTimer;
+    private final Timer processTimer;
+    private final DistributionSummary batchSizeSummary;
+
+    private volatile boolean running;
+
+    public WebhookIngestionQueue(
+            SwiftcastWebhookProcessor processor,
+            SessionRouteCache routeCache,
+            WebhookConfig webhookConfig,
+            MeterRegistry meterRegistry) {
+        this.processor = processor;
+        this.routeCache = routeCache;
+        this.config = webhookConfig.getIngest();
+        this.lanes = new Lane[Math.max(1, config.getLanes())];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane(i, new ArrayBlockingQueue<>(Math.max(1, config.getLaneCapacity())));
+            Gauge.builder("threadcast.webhook.ingest.queue.depth", lanes[i].queue, BlockingQueue::size)
+                    .tag("lane", String.valueOf(i))
+                    .description("Webhook events and batch groups waiting in a lane")
+                    .register(meterRegistry);
+        }
+
+        this.acceptedCounter = Counter.builder("threadcast.webhook.ingest.accepted")
+                .description("Webhook events queued for asynchronous processing")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("threadcast.webhook.ingest.dropped")
+                .description("Webhook events dropped because their lane was full")
+                .register(meterRegistry);
+        this.callerRunsCounter = Counter.builder("threadcast.webhook.ingest.caller.runs")
+                .description("Webhook events processed on the request thread because their lane was full")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("threadcast.webhook.ingest.failed")
+                .description("Webhook events whose processing threw")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("threadcast.webhook.ingest.wait")
+                .description("Time a webhook event spent queued before processing")
+                .register(meterRegistry);
+        this.processTimer = Timer.builder("threadcast.webhook.ingest.process")
+                .description("Time to process one webhook event or batch group")
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("threadcast.webhook.ingest.batch.size")
+                .description("Events per webhook batch request")
+                .register(meterRegistry);
+    }
+
+    /**
+     * A bounded queue with a single worker, so its events are processed one at a time in order.
+     */
+    private final class Lane implements Runnable {
+        private final int index;
+        private final BlockingQueue<Pending> queue;
+        private Thread worker;
+
+        private Lane(int index, BlockingQueue<Pending> queue) {
+            this.index = index;
+            this.queue = queue;
+        }
+
+        @Override
+        public void run() {
+            while (running || !queue.isEmpty()) {
+                try {
+                    Pending pending = queue.poll(250, TimeUnit.MILLISECONDS);
+                    if (pending == null) {
+                        continue;
+                    }
+                    waitTimer.record(System.nanoTime() - pending.enqueuedAt(), TimeUnit.NANOSECONDS);
+                    process(pending.requests());
+                } catch (InterruptedException e) {
+                    // Keep draining; the loop exits once stopped and empty
+                    Thread.interrupted();
+                }
+            }
+        }
+    }
+
+    /**
+     * A single event, or one todo's events from a batch.
+     */
+    private record Pending(List<SwiftcastWebhookRequest> requests, long enqueuedAt) {
+    }
+
+    @PostConstruct
+    public void start() {
+        if (config.getMode() != WebhookConfig.IngestMode.ASYNC) {
+            return;
+        }
+        running = true;
+        for (Lane lane : lanes) {
+            lane.worker = new Thread(lane, "webhook-lane-" + lane.index);
+            lane.worker.setDaemon(true);
+            lane.worker.start();
+        }
+        log.info("Webhook ingestion queue enabled: lanes={}, laneCapacity={}, overflow={}",
+                lanes.length, config.getLaneCapacity(), config.getOverflowPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getShutdownTimeoutMs());
+        for (Lane lane : lanes) {
+            try {
+                lane.worker.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        int remaining = getQueueDepth();
+        if (remaining > 0) {
+            log.warn("Webhook ingestion queue stopped with {} events still queued", remaining);
+        }
+    }
+
+    /**
+     * Process the event now (SYNC mode, or once shutdown has begun) or queue it on its todo's lane.
+     */
+    public void submit(SwiftcastWebhookRequest request) {
+        submitGroup(partitionKey(request), List.of(request));
+    }
+
+    /**
+     * Accept a batch of events. Events are grouped by todo. Each group is queued on its todo's lane
+     * as one unit, or processed now in SYNC mode, so its handlers share one transaction.
+     *
+     * @return the outcome of each event, in request order
+     */
+    public List<WebhookBatchResponse.Status> submitBatch(List<SwiftcastWebhookRequest> requests) {
+        batchSizeSummary.record(requests.size());
+        Map<String, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            groups.computeIfAbsent(partitionKey(requests.get(i)), key -> new ArrayList<>()).add(i);
+        }
+
+        WebhookBatchResponse.Status[] statuses = new WebhookBatchResponse.Status[requests.size()];
+        for (Map.Entry<String, List<Integer>> group : groups.entrySet()) {
+            List<Integer> indexes = group.getValue();
+            List<WebhookBatchResponse.Status> outcome =
+                    submitGroup(group.getKey(), indexes.stream().map(requests::get).toList());
+            for (int i = 0; i < indexes.size(); i++) {
+                statuses[indexes.get(i)] = outcome.get(i);
+            }
+        }
+        return Arrays.asList(statuses);
+    }
+
+    private List<WebhookBatchResponse.Status> submitGroup(String partitionKey, List<SwiftcastWebhookRequest> group) {
+        if (!running) {
+            return process(group);
+        }
+
+        Lane lane = lanes[Math.floorMod(partitionKey.hashCode(), lanes.length)];
+        Pending pending = new Pending(group, System.nanoTime());
+        boolean accepted;
+        switch (config.getOverflowPolicy()) {
+            case BLOCK -> {
+                try {
+                    accepted = lane.queue.offer(pending, config.getOfferTimeoutMs(), TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    accepted = false;
+                }
+            }
+            case CALLER_RUNS -> {
+                accepted = lane.queue.offer(pending);
+                if (!accepted) {
+                    callerRunsCounter.increment(group.size());
+                    return process(group);
+                }
+            }
+            default -> accepted = lane.queue.offer(pending);
+        }
+
+        if (accepted && !running && lane.queue.remove(pending)) {
+            // Shutdown began while we queued and the lane may already have exited
+            return process(group);
+        } else if (accepted) {
+            acceptedCounter.increment(group.size());
+            return Collections.nCopies(group.size(), WebhookBatchResponse.Status.QUEUED);
+        } else {
+            droppedCounter.increment(group.size());
+            log.warn("Webhook lane {} full, dropped {} event(s): event={}, todoId={}",
+                    lane.index, group.size(), group.get(0).getEvent(), group.get(0).getTodoId());
+            return Collections.nCopies(group.size(), WebhookBatchResponse.Status.DROPPED);
+        }
+    }
+
+    public int getQueueDepth() {
+        int depth = 0;
+        for (Lane lane : lanes) {
+            depth += lane.queue.size();
+        }
+        return depth;
+    }
+
+    /**
+     * The todo the event belongs to, so all of a todo's events share a lane.
+     */
+    private String partitionKey(SwiftcastWebhookRequest request) {
+        if (request.getTodoId() != null) {
+            return request.getTodoId().toLowerCase();
+        }
+        String sessionId = request.getSessionId();
+        if (sessionId == null) {
+            return "";
+        }
+        return routeCache.findBySwiftcastSessionId(sessionId)
+                .or(() -> routeCache.findByTraceId(sessionId))
+                .map(route -> route.todoId().toString())
+                .orElse(sessionId);
+    }
+
+    private List<WebhookBatchResponse.Status> process(List<SwiftcastWebhookRequest> group) {
+        long started = System.nanoTime();
+        try {
+            List<WebhookBatchResponse.Status> statuses = group.size() == 1
+                    ? List.of(processor.process(group.get(0)))
+                    : processor.processGroup(group);
+            failedCounter.increment(statuses.stream()
+                    .filter(status -> status == WebhookBatchResponse.Status.FAILED)
+                    .count());
+            return statuses;
+        } catch (Exception e) {
+            failedCounter.increment(group.size());
+            log.error("Failed to process webhook: event={}, todoId={}: {}",
+                    group.get(0).getEvent(), group.get(0).getTodoId(), e.getMessage(), e);
+            return Collections.nCopies(group.size(), WebhookBatchResponse.Status.FAILED);
+        } finally {
+            processTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package io.threadcast.service.websocket;
+
+import io.threadcast.config.WebSocketBrokerConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Session decorator that queues outbound frames and sends them from the shared sender pool.
+ *
+ * Frames are kept in arrival order. A frame with a conflation key removes the pending frame
+ * with the same (subscription, key) and is appended at the tail, so a client that is behind
+ * only ever receives the newest value while ordering relative to other events is kept.
+ */
+@Slf4j
+class ConflatingWebSocketSession extends WebSocketSessionDecorator {
+
+    private static final String CONFLATION_KEY_PREFIX = WebSocketOutboundConflator.CONFLATION_KEY_HEADER + ":";
+    private static final String SUBSCRIPTION_PREFIX = "subscription:";
+
+    private final WebSocketOutboundConflator conflator;
+    private final WebSocketBrokerConfig.SessionConfig config;
+
+    // Conflated frames are keyed by "subscription|key" (String), the rest by a sequence number (Long)
+    private final LinkedHashMap<Object, WebSocketMessage<?>> pending = new LinkedHashMap<>();
+    private long pendingBytes;
+    private long sequence;
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile long sendStartedAt;
+    private volatile boolean closing;
+
+    ConflatingWebSocketSession(WebSocketSession delegate, WebSocketOutboundConflator conflator) {
+        super(delegate);
+        this.conflator = conflator;
+        this.config = conflator.getConfig();
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        if (closing) {
+            return;
+        }
+        long startedAt = sendStartedAt;
+        if (startedAt > 0 && System.currentTimeMillis() - startedAt > config.getSendTimeLimitMs()) {
+            terminate("send time limit " + config.getSendTimeLimitMs() + "ms exceeded");
+            return;
+        }
+
+        String key = conflationKey(message);
+        int dropped = 0;
+        boolean overflow = false;
+        synchronized (pending) {
+            if (key != null) {
+                WebSocketMessage<?> previous = pending.remove(key);
+                if (previous != null) {
+                    pendingBytes -= previous.getPayloadLength();
+                    conflator.onConflated();
+                }
+                pending.put(key, message);
+            } else {
+                pending.put(sequence++, message);
+            }
+            pendingBytes += message.getPayloadLength();
+
+            if (pendingBytes > config.getSendBufferSizeLimit()) {
+                if (config.getOverflow() == WebSocketBrokerConfig.OverflowPolicy.DROP) {
+                    dropped = dropOldest();
+                } else {
+                    overflow = true;
+                }
+            }
+        }
+
+        if (dropped > 0) {
+            conflator.onDropped(dropped);
+        }
+        if (overflow) {
+            terminate("send buffer limit " + config.getSendBufferSizeLimit() + " bytes exceeded");
+            return;
+        }
+        scheduleDrain();
+    }
+
+    int getPendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * Discard anything still queued once the connection is gone.
+     */
+    void release() {
+        closing = true;
+        clearPending();
+    }
+
+    private int dropOldest() {
+        int dropped = 0;
+        Iterator<WebSocketMessage<?>> it = pending.values().iterator();
+        // Always keep the newest frame, even if it alone exceeds the limit
+        while (pendingBytes > config.getSendBufferSizeLimit() && pending.size() > 1) {
+            pendingBytes -= it.next().getPayloadLength();
+            it.remove();
+            dropped++;
+        }
+        return dropped;
+    }
+
+    private WebSocketMessage<?> poll() {
+        synchronized (pending) {
+            Iterator<WebSocketMessage<?>> it = pending.values().iterator();
+            if (!it.hasNext()) {
+                return null;
+            }
+            WebSocketMessage<?> next = it.next();
+            it.remove();
+            pendingBytes -= next.getPayloadLength();
+            return next;
+        }
+    }
+
+    private void clearPending() {
+        synchronized (pending) {
+            pending.clear();
+            pendingBytes = 0;
+        }
+    }
+
+    private void scheduleDrain() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            conflator.getSender().execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            // Sender pool is shutting down
+            draining.set(false);
+        }
+    }
+
+    private void drain() {
+        try {
+            WebSocketMessage<?> next;
+            while (!closing && (next = poll()) != null) {
+                sendStartedAt = System.currentTimeMillis();
+                try {
+                    getDelegate().sendMessage(next);
+                } finally {
+                    sendStartedAt = 0;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("Failed to send to WebSocket session {}: {}", getId(), e.getMessage());
+            release();
+        } finally {
+            draining.set(false);
+        }
+        // A frame may have been queued after the last poll but before draining was reset
+        if (!closing && getPendingCount() > 0) {
+            scheduleDrain();
+        }
+    }
+
+    private void terminate(String reason) {
+        if (closing) {
+            return;
+        }
+        release();
+        conflator.onTerminated(getId(), reason);
+        try {
+            getDelegate().close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            log.debug("Failed to close WebSocket session {}: {}", getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Read the conflation key from the STOMP header block of a MESSAGE frame, scoped to its
+     * subscription so the same event on two subscriptions is not merged.
+     */
+    static String conflationKey(WebSocketMessage<?> message) {
+        String frame;
+        if (message instanceof TextMessage text) {
+            frame = text.getPayload();
+        } else if (message instanceof BinaryMessage binary) {
+            frame = headerBlock(binary.getPayload());
+        } else {
+            return null;
+        }
+        String key = null;
+        String subscription = "";
+        // First line is the command; headers follow until an empty line
+        int lineStart = frame.indexOf('\n') + 1;
+        while (lineStart > 0 && lineStart < frame.length()) {
+            int lineEnd = frame.indexOf('\n', lineStart);
+            if (lineEnd < 0 || lineEnd == lineStart) {
+                break;
+            }
+            if (frame.startsWith(CONFLATION_KEY_PREFIX, lineStart)) {
+                key = frame.substring(lineStart + CONFLATION_KEY_PREFIX.length(), lineEnd);
+            } else if (frame.startsWith(SUBSCRIPTION_PREFIX, lineStart)) {
+                subscription = frame.substring(lineStart + SUBSCRIPTION_PREFIX.length(), lineEnd);
+            }
+            lineStart = lineEnd + 1;
+        }
+        return key != null ? subscription + "|" + key : null;
+    }
+
+    /**
+     * Command and header lines of a binary frame (body excluded), including the blank separator line.
+     */
+    private static String headerBlock(ByteBuffer frame) {
+        int start = frame.position();
+        int end = start;
+        while (end < frame.limit() && !(frame.get(end) == '\n' && end > start && frame.get(end - 1) == '\n')) {
+            end++;
+        }
+        byte[] header = new byte[Math.min(end + 1, frame.limit()) - start];
+        frame.duplicate().get(header);
+        return new String(header, StandardCharsets.UTF_8);
+    }
+}
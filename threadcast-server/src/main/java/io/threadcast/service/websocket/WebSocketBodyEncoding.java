@@ -0,0 +1,162 @@
+package io.threadcast.service.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.threadcast.config.WebSocketBrokerConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Optional CBOR encoding of STOMP message bodies, negotiated per connection.
+ *
+ * A client opts in by sending {@code body-encoding:cbor} on its CONNECT frame. JSON event
+ * bodies sent to that session are transcoded to CBOR and marked {@code body-encoding:cbor};
+ * the content-type is {@code application/octet-stream} because that is what makes Spring
+ * send the frame as a binary WebSocket message. Events are serialized once and shared by every
+ * destination, so each body is transcoded at most once no matter how many sessions use CBOR.
+ *
+ * Only native WebSocket connections ({@code /ws}) can negotiate CBOR; SockJS carries text only.
+ */
+@Slf4j
+@Component
+public class WebSocketBodyEncoding implements ChannelInterceptor {
+
+    public static final String ENCODING_HEADER = "body-encoding";
+    public static final String CBOR = "cbor";
+
+    private static final String BINARY_CAPABLE_ATTRIBUTE = WebSocketBodyEncoding.class.getName() + ".BINARY";
+
+    private final WebSocketBrokerConfig.EncodingConfig config;
+    private final ObjectMapper jsonMapper;
+    private final CBORMapper cborMapper = new CBORMapper();
+    private final Set<String> cborSessions = ConcurrentHashMap.newKeySet();
+
+    // Keyed by the shared JSON body array; byte[] has identity equality, entries go with the event
+    private final Map<byte[], byte[]> transcoded = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final Counter jsonBytesCounter;
+    private final Counter cborBytesCounter;
+
+    public WebSocketBodyEncoding(WebSocketBrokerConfig brokerConfig, ObjectMapper jsonMapper, MeterRegistry meterRegistry) {
+        this.config = brokerConfig.getEncoding();
+        this.jsonMapper = jsonMapper;
+        this.jsonBytesCounter = Counter.builder("threadcast.websocket.encoding.bytes")
+                .description("Message body bytes sent, by encoding")
+                .tag("encoding", "json")
+                .register(meterRegistry);
+        this.cborBytesCounter = Counter.builder("threadcast.websocket.encoding.bytes")
+                .description("Message body bytes sent, by encoding")
+                .tag("encoding", CBOR)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Marks native WebSocket handshakes as able to carry binary frames.
+     */
+    public HandshakeInterceptor binaryCapableHandshake() {
+        return new HandshakeInterceptor() {
+            @Override
+            public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                           WebSocketHandler wsHandler, Map<String, Object> attributes) {
+                attributes.put(BINARY_CAPABLE_ATTRIBUTE, Boolean.TRUE);
+                return true;
+            }
+
+            @Override
+            public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                       WebSocketHandler wsHandler, Exception exception) {
+            }
+        };
+    }
+
+    @EventListener
+    public void onConnect(SessionConnectEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        if (!config.isCborEnabled() || !CBOR.equalsIgnoreCase(accessor.getFirstNativeHeader(ENCODING_HEADER))) {
+            return;
+        }
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        if (attributes == null || !Boolean.TRUE.equals(attributes.get(BINARY_CAPABLE_ATTRIBUTE))) {
+            log.debug("Session {} asked for CBOR over a text-only transport; keeping JSON", accessor.getSessionId());
+            return;
+        }
+        cborSessions.add(accessor.getSessionId());
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        cborSessions.remove(event.getSessionId());
+    }
+
+    boolean isCbor(String sessionId) {
+        return sessionId != null && cborSessions.contains(sessionId);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (cborSessions.isEmpty() || !(message.getPayload() instanceof byte[] json)) {
+            countJson(message);
+            return message;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        MimeType contentType = accessor.getContentType();
+        if (accessor.getMessageType() != SimpMessageType.MESSAGE || !isCbor(accessor.getSessionId())
+                || contentType == null || !MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(contentType)) {
+            countJson(message);
+            return message;
+        }
+        byte[] cbor = transcoded.computeIfAbsent(json, this::toCbor);
+        if (cbor == null) {
+            countJson(message);
+            return message;
+        }
+        cborBytesCounter.increment(cbor.length);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        accessor.setNativeHeader(ENCODING_HEADER, CBOR);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(cbor, accessor.getMessageHeaders());
+    }
+
+    /**
+     * JSON body to the equivalent CBOR document, or null if the body is not valid JSON.
+     */
+    public byte[] toCbor(byte[] json) {
+        try {
+            return cborMapper.writeValueAsBytes(jsonMapper.readTree(json));
+        } catch (IOException e) {
+            log.warn("Failed to transcode WebSocket body to CBOR: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void countJson(Message<?> message) {
+        if (message.getPayload() instanceof byte[] body && body.length > 0) {
+            jsonBytesCounter.increment(body.length);
+        }
+    }
+}
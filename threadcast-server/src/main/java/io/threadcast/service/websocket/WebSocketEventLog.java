@@ -0,0 +1,237 @@
+package io.threadcast.service.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.threadcast.config.WebSocketBrokerConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Per-topic sequence numbers and a ring buffer of recent event bodies.
+ *
+ * Every event published through {@code WebSocketService} gets the next sequence number of
+ * its destination, sent as the {@value #SEQ_HEADER} STOMP header together with the topic's
+ * {@value #EPOCH_HEADER}. A reconnecting client subscribes with {@value #LAST_SEQ_HEADER}
+ * and {@value #EPOCH_HEADER}; {@link Resume#since} returns only the events after that sequence,
+ * or asks for a snapshot when they are no longer buffered.
+ *
+ * Events are buffered even while nobody is subscribed, so a client that dropped off can
+ * still resume. The epoch changes whenever a topic's log is (re)created - after a restart or
+ * after nobody watched the topic for {@code topic-idle-ttl-ms} - so stale sequence numbers are never
+ * compared against a new count. Sequences are per instance; with the broker relay a client
+ * resuming on another node gets a snapshot signal.
+ */
+@Slf4j
+@Component
+public class WebSocketEventLog {
+
+    public static final String SEQ_HEADER = "seq";
+    public static final String EPOCH_HEADER = "seq-epoch";
+    public static final String LAST_SEQ_HEADER = "last-seq";
+
+    @FunctionalInterface
+    public interface SequencedSend {
+        /**
+         * Called while the topic is locked, so sends leave in sequence order.
+         *
+         * @param watched whether the topic has a subscriber; if not, nothing is sent but the
+         *                body is still returned so a resuming client can be served from the buffer
+         * @return the event body, or null if it could not be built; such a sequence can not be
+         *         replayed and makes resumes across it require a snapshot
+         */
+        byte[] send(String epoch, long seq, boolean watched);
+    }
+
+    public record Entry(long seq, byte[] body) {
+    }
+
+    /**
+     * @param entries events after the requested sequence, oldest first (empty if up to date)
+     */
+    public record Replay(String epoch, long currentSeq, boolean snapshotRequired, List<Entry> entries) {
+    }
+
+    private final WebSocketBrokerConfig.ReplayConfig config;
+    private final Map<String, TopicLog> topics = new ConcurrentHashMap<>();
+
+    private final Counter replayedCounter;
+    private final Counter snapshotCounter;
+
+    private ScheduledExecutorService sweeper;
+
+    public WebSocketEventLog(WebSocketBrokerConfig brokerConfig, MeterRegistry meterRegistry) {
+        this.config = brokerConfig.getReplay();
+
+        Gauge.builder("threadcast.websocket.replay.topics", topics, Map::size)
+                .description("Topics with a replay buffer")
+                .register(meterRegistry);
+        this.replayedCounter = Counter.builder("threadcast.websocket.replay.events")
+                .description("Events re-sent to resuming subscribers")
+                .register(meterRegistry);
+        this.snapshotCounter = Counter.builder("threadcast.websocket.replay.snapshot_required")
+                .description("Resumes that could not be served from the buffer")
+                .register(meterRegistry);
+    }
+
+    private static final class TopicLog {
+        private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Entry[] ring;
+        private long lastSeq;
+        private volatile long lastWatchedAt = System.currentTimeMillis();
+
+        private TopicLog(int capacity) {
+            this.ring = new Entry[capacity];
+        }
+
+        private long oldestSeq() {
+            return Math.max(1, lastSeq - ring.length + 1);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ws-event-log");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::evictIdleSafely,
+                config.getSweepIntervalMs(), config.getSweepIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+            sweeper = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * Whether the destination currently has a sequence log (it was watched or resumed recently).
+     */
+    public boolean isTracking(String destination) {
+        return topics.containsKey(destination);
+    }
+
+    /**
+     * Assign the destination's next sequence number, send the event and buffer its body.
+     *
+     * @param watched checked under the topic lock, so a client resuming concurrently is either
+     *                sent the event live or finds it in the buffer
+     */
+    public void publish(String destination, BooleanSupplier watched, SequencedSend send) {
+        TopicLog topic = lockTopic(destination);
+        try {
+            long seq = ++topic.lastSeq;
+            int slot = (int) (seq % topic.ring.length);
+            topic.ring[slot] = null;
+            boolean watchedNow = watched.getAsBoolean();
+            if (watchedNow) {
+                topic.lastWatchedAt = System.currentTimeMillis();
+            }
+            byte[] body = send.send(topic.epoch, seq, watchedNow);
+            topic.ring[slot] = body != null ? new Entry(seq, body) : null;
+        } finally {
+            topic.lock.unlock();
+        }
+    }
+
+    /**
+     * Hold back live events on a destination until the returned resume is closed, so a
+     * subscription can be registered and its gap replayed before anything newer is sent.
+     * Must be closed on the same thread.
+     */
+    public Resume lockForResume(String destination) {
+        TopicLog topic = lockTopic(destination);
+        topic.lastWatchedAt = System.currentTimeMillis();
+        return new Resume(topic);
+    }
+
+    public final class Resume implements AutoCloseable {
+        private final TopicLog topic;
+
+        private Resume(TopicLog topic) {
+            this.topic = topic;
+        }
+
+        /**
+         * Events after {@code lastSeq}, or a snapshot signal if the epoch changed or the gap
+         * is no longer buffered.
+         */
+        public Replay since(String epoch, long lastSeq) {
+            if (!topic.epoch.equals(epoch) || lastSeq < 0 || lastSeq > topic.lastSeq
+                    || lastSeq + 1 < topic.oldestSeq()) {
+                snapshotCounter.increment();
+                return new Replay(topic.epoch, topic.lastSeq, true, List.of());
+            }
+            List<Entry> entries = new ArrayList<>((int) (topic.lastSeq - lastSeq));
+            for (long seq = lastSeq + 1; seq <= topic.lastSeq; seq++) {
+                Entry entry = topic.ring[(int) (seq % topic.ring.length)];
+                if (entry == null) {
+                    // Body could not be built: the client missed something we can not resend
+                    snapshotCounter.increment();
+                    return new Replay(topic.epoch, topic.lastSeq, true, List.of());
+                }
+                entries.add(entry);
+            }
+            replayedCounter.increment(entries.size());
+            return new Replay(topic.epoch, topic.lastSeq, false, entries);
+        }
+
+        @Override
+        public void close() {
+            topic.lock.unlock();
+        }
+    }
+
+    private TopicLog lockTopic(String destination) {
+        while (true) {
+            TopicLog topic = topics.computeIfAbsent(destination, d -> new TopicLog(Math.max(1, config.getCapacityPerTopic())));
+            topic.lock.lock();
+            // Evicted between lookup and lock: retry on the replacement
+            if (topics.get(destination) == topic) {
+                return topic;
+            }
+            topic.lock.unlock();
+        }
+    }
+
+    /**
+     * Drop the buffers of topics nobody has subscribed to or resumed for longer than the idle TTL.
+     */
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - config.getTopicIdleTtlMs();
+        topics.entrySet().removeIf(e -> e.getValue().lastWatchedAt < cutoff);
+    }
+
+    private void evictIdleSafely() {
+        try {
+            evictIdle();
+        } catch (Exception e) {
+            log.error("WebSocket event log sweep failed: {}", e.getMessage(), e);
+        }
+    }
+}
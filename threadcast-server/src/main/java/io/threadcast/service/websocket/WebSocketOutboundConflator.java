@@ -0,0 +1,120 @@
+package io.threadcast.service.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.threadcast.config.WebSocketBrokerConfig;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-session outbound buffering with "latest value wins" conflation.
+ *
+ * Every WebSocket session gets its own pending queue drained by a small shared sender pool,
+ * so a slow browser tab only backs up its own queue. While a session is behind, a frame
+ * carrying the {@value #CONFLATION_KEY_HEADER} header replaces the pending frame with the same
+ * key on the same subscription instead of queueing behind it. The queue is bounded by
+ * {@code send-buffer-size-limit}; a send stuck longer than {@code send-time-limit-ms}
+ * closes the session.
+ */
+@Slf4j
+@Component
+public class WebSocketOutboundConflator implements WebSocketHandlerDecoratorFactory {
+
+    /**
+     * STOMP header marking an event whose newest value supersedes older ones with the same key.
+     */
+    public static final String CONFLATION_KEY_HEADER = "conflation-key";
+
+    private final WebSocketBrokerConfig.SessionConfig config;
+    private final Map<String, ConflatingWebSocketSession> sessions = new ConcurrentHashMap<>();
+    private final ExecutorService sender;
+
+    private final Counter conflatedCounter;
+    private final Counter droppedCounter;
+    private final Counter terminatedCounter;
+
+    public WebSocketOutboundConflator(WebSocketBrokerConfig brokerConfig, MeterRegistry meterRegistry) {
+        this.config = brokerConfig.getSession();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(Math.max(1, config.getSenderThreads()), runnable -> {
+            Thread thread = new Thread(runnable, "ws-send-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("threadcast.websocket.outbound.pending", sessions,
+                        s -> s.values().stream().mapToInt(ConflatingWebSocketSession::getPendingCount).sum())
+                .description("Frames waiting in per-session outbound queues")
+                .register(meterRegistry);
+        this.conflatedCounter = Counter.builder("threadcast.websocket.outbound.conflated")
+                .description("Pending frames replaced by a newer frame with the same conflation key")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("threadcast.websocket.outbound.dropped")
+                .description("Frames dropped because a session's send buffer was full")
+                .register(meterRegistry);
+        this.terminatedCounter = Counter.builder("threadcast.websocket.outbound.terminated")
+                .description("Sessions closed for exceeding the send buffer or send time limit")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                ConflatingWebSocketSession conflating = new ConflatingWebSocketSession(session, WebSocketOutboundConflator.this);
+                sessions.put(session.getId(), conflating);
+                super.afterConnectionEstablished(conflating);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                ConflatingWebSocketSession conflating = sessions.remove(session.getId());
+                if (conflating != null) {
+                    conflating.release();
+                }
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    WebSocketBrokerConfig.SessionConfig getConfig() {
+        return config;
+    }
+
+    ExecutorService getSender() {
+        return sender;
+    }
+
+    void onConflated() {
+        conflatedCounter.increment();
+    }
+
+    void onDropped(int count) {
+        droppedCounter.increment(count);
+    }
+
+    void onTerminated(String sessionId, String reason) {
+        terminatedCounter.increment();
+        log.warn("Closing slow WebSocket session {}: {}", sessionId, reason);
+    }
+}
@@ -0,0 +1,130 @@
+package io.threadcast.service.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Resume protocol for reconnecting clients.
+ *
+ * A SUBSCRIBE to a /topic destination carrying {@code last-seq} and {@code seq-epoch} headers
+ * is answered, on that subscription, with the buffered events after {@code last-seq}, or with a
+ * single SNAPSHOT_REQUIRED event when they are gone (the client then reloads via REST and
+ * continues from the {@code seq} / {@code seq-epoch} headers of that event). The topic is held
+ * from just before the broker registers the subscription until the gap has been sent, so the
+ * first live event the client sees is the one right after the replay.
+ */
+@Slf4j
+@Component
+public class WebSocketResumeInterceptor implements ExecutorChannelInterceptor {
+
+    private final WebSocketEventLog eventLog;
+    private final ObjectMapper objectMapper;
+    private final MessageChannel clientOutboundChannel;
+
+    // beforeHandle and afterMessageHandled run on the same thread for the same handler
+    private final ThreadLocal<WebSocketEventLog.Resume> pendingResume = new ThreadLocal<>();
+
+    public WebSocketResumeInterceptor(
+            WebSocketEventLog eventLog,
+            ObjectMapper objectMapper,
+            @Lazy @Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel) {
+        this.eventLog = eventLog;
+        this.objectMapper = objectMapper;
+        this.clientOutboundChannel = clientOutboundChannel;
+    }
+
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        if (handler instanceof AbstractBrokerMessageHandler && eventLog.isEnabled()) {
+            StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+            if (isResume(accessor)) {
+                pendingResume.set(eventLog.lockForResume(accessor.getDestination()));
+            }
+        }
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        WebSocketEventLog.Resume resume = pendingResume.get();
+        if (resume == null) {
+            return;
+        }
+        pendingResume.remove();
+        try (resume) {
+            if (ex == null) {
+                replay(StompHeaderAccessor.wrap(message), resume);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to replay events for resuming subscriber: {}", e.getMessage());
+        }
+    }
+
+    private static boolean isResume(StompHeaderAccessor accessor) {
+        return accessor.getCommand() == StompCommand.SUBSCRIBE
+                && accessor.getDestination() != null
+                && accessor.getDestination().startsWith("/topic/")
+                && accessor.getFirstNativeHeader(WebSocketEventLog.LAST_SEQ_HEADER) != null;
+    }
+
+    private void replay(StompHeaderAccessor subscribe, WebSocketEventLog.Resume resume) throws JsonProcessingException {
+        long lastSeq;
+        try {
+            lastSeq = Long.parseLong(subscribe.getFirstNativeHeader(WebSocketEventLog.LAST_SEQ_HEADER));
+        } catch (NumberFormatException e) {
+            lastSeq = -1;
+        }
+        WebSocketEventLog.Replay replay = resume.since(
+                subscribe.getFirstNativeHeader(WebSocketEventLog.EPOCH_HEADER), lastSeq);
+
+        if (replay.snapshotRequired()) {
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("destination", subscribe.getDestination());
+            payload.put("lastSeq", lastSeq);
+            payload.put("currentSeq", replay.currentSeq());
+
+            Map<String, Object> event = new LinkedHashMap<>();
+            event.put("eventId", UUID.randomUUID().toString());
+            event.put("eventType", "SNAPSHOT_REQUIRED");
+            event.put("timestamp", LocalDateTime.now());
+            event.put("payload", payload);
+            send(subscribe, objectMapper.writeValueAsBytes(event), replay.epoch(), replay.currentSeq());
+            return;
+        }
+        for (WebSocketEventLog.Entry entry : replay.entries()) {
+            send(subscribe, entry.body(), replay.epoch(), entry.seq());
+        }
+    }
+
+    private void send(StompHeaderAccessor subscribe, byte[] body, String epoch, long seq) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(subscribe.getSessionId());
+        accessor.setSubscriptionId(subscribe.getSubscriptionId());
+        accessor.setDestination(subscribe.getDestination());
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setNativeHeader(WebSocketEventLog.SEQ_HEADER, Long.toString(seq));
+        accessor.setNativeHeader(WebSocketEventLog.EPOCH_HEADER, epoch);
+        accessor.setLeaveMutable(true);
+        clientOutboundChannel.send(MessageBuilder.createMessage(body, accessor.getMessageHeaders()));
+    }
+}
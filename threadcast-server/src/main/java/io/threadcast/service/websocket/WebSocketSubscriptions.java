@@ -0,0 +1,77 @@
+package io.threadcast.service.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Answers "does anyone listen on this destination?" from the simple broker's subscription
+ * registry, so publishers can skip building and serializing payloads nobody will receive.
+ *
+ * With the external broker relay, subscribers on other instances are invisible here, so every
+ * destination counts as watched.
+ */
+@Component
+public class WebSocketSubscriptions {
+
+    private static final String SIMPLE_BROKER_BEAN = "simpleBrokerMessageHandler";
+    private static final byte[] EMPTY = new byte[0];
+
+    private final BeanFactory beanFactory;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> deliveredCounters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> skippedCounters = new ConcurrentHashMap<>();
+
+    // Resolved on first use: the broker handler is created after this bean
+    private volatile Optional<SimpleBrokerMessageHandler> simpleBroker;
+
+    public WebSocketSubscriptions(BeanFactory beanFactory, MeterRegistry meterRegistry) {
+        this.beanFactory = beanFactory;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public boolean isWatched(String destination) {
+        SimpleBrokerMessageHandler broker = resolveBroker().orElse(null);
+        if (broker == null || !broker.isRunning()) {
+            return true;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        Message<byte[]> probe = MessageBuilder.createMessage(EMPTY, accessor.getMessageHeaders());
+        return !broker.getSubscriptionRegistry().findSubscriptions(probe).isEmpty();
+    }
+
+    /**
+     * Count one publish of {@code eventType} to one destination as delivered or skipped.
+     */
+    public void record(String eventType, boolean delivered) {
+        Map<String, Counter> counters = delivered ? deliveredCounters : skippedCounters;
+        counters.computeIfAbsent(eventType, type -> Counter.builder("threadcast.websocket.publish")
+                        .description("Event publishes per destination, by whether anyone was subscribed")
+                        .tag("type", type)
+                        .tag("result", delivered ? "delivered" : "skipped")
+                        .register(meterRegistry))
+                .increment();
+    }
+
+    private Optional<SimpleBrokerMessageHandler> resolveBroker() {
+        Optional<SimpleBrokerMessageHandler> broker = simpleBroker;
+        if (broker == null) {
+            // The bean is a NullBean when the broker relay is configured instead
+            Object bean = beanFactory.containsBean(SIMPLE_BROKER_BEAN) ? beanFactory.getBean(SIMPLE_BROKER_BEAN) : null;
+            broker = bean instanceof SimpleBrokerMessageHandler handler ? Optional.of(handler) : Optional.empty();
+            simpleBroker = broker;
+        }
+        return broker;
+    }
+}
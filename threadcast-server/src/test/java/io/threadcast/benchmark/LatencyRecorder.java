@@ -0,0 +1,50 @@
+package io.threadcast.benchmark;
+
+import java.util.Arrays;
+
+/**
+ * Collects per-iteration latencies and reports percentiles.
+ * Benchmarks run with {@code ./gradlew benchmark}; they are excluded from {@code test}.
+ */
+public class LatencyRecorder {
+
+    private final String name;
+    private long[] samples;
+    private int count;
+
+    public LatencyRecorder(String name, int expectedSamples) {
+        this.name = name;
+        this.samples = new long[Math.max(1, expectedSamples)];
+    }
+
+    /**
+     * Time one execution of the task.
+     */
+    public void record(Runnable task) {
+        long started = System.nanoTime();
+        task.run();
+        add(System.nanoTime() - started);
+    }
+
+    public void add(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, samples.length * 2);
+        }
+        samples[count++] = nanos;
+    }
+
+    public double percentileMillis(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+        return sorted[Math.max(0, Math.min(index, count - 1))] / 1_000_000.0;
+    }
+
+    public String summary() {
+        return String.format("%-48s n=%-6d p50=%8.3f ms  p99=%8.3f ms  max=%8.3f ms",
+                name, count, percentileMillis(50), percentileMillis(99), percentileMillis(100));
+    }
+}
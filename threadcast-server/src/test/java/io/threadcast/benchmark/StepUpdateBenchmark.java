@@ -0,0 +1,199 @@
+package io.threadcast.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.threadcast.config.JpaConfig;
+import io.threadcast.config.StepConfig;
+import io.threadcast.domain.Mission;
+import io.threadcast.domain.Todo;
+import io.threadcast.domain.User;
+import io.threadcast.domain.Workspace;
+import io.threadcast.domain.enums.Complexity;
+import io.threadcast.domain.enums.Priority;
+import io.threadcast.domain.enums.StepStatus;
+import io.threadcast.domain.enums.StepType;
+import io.threadcast.dto.request.StepUpdateWebhookRequest;
+import io.threadcast.repository.TerminalSessionMappingRepository;
+import io.threadcast.repository.TodoRepository;
+import io.threadcast.repository.TodoStepRepository;
+import io.threadcast.service.StepProgressService;
+import io.threadcast.service.TimelineService;
+import io.threadcast.service.TodoOrchestrationService;
+import io.threadcast.service.WebSocketService;
+import io.threadcast.service.step.StepTransitionMailbox;
+import io.threadcast.service.terminal.TodoTerminalService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Step updates per second through {@link StepProgressService#processStepUpdate}, loading the todo
+ * and its steps as entities (before) versus guarded UPDATE statements (after).
+ *
+ * Every todo runs the full workflow: each step is started, reports progress several times and
+ * completes, so most updates are progress reports on a running step, as in production. Each
+ * update commits its own transaction. WebSocket, timeline and orchestration are stubbed.
+ */
+@Tag("benchmark")
+@DataJpaTest
+@Import(JpaConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StepUpdateBenchmark {
+
+    private static final int TODOS = Integer.getInteger("benchmark.step.todos", 50);
+    private static final int PROGRESS_REPORTS = Integer.getInteger("benchmark.step.progress", 8);
+    private static final int ROUNDS = Integer.getInteger("benchmark.iterations", 3);
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TodoRepository todoRepository;
+
+    @Autowired
+    private TodoStepRepository todoStepRepository;
+
+    @Autowired
+    private TerminalSessionMappingRepository mappingRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate transactionTemplate;
+    private final List<UUID> todoIds = new ArrayList<>();
+
+    @BeforeEach
+    void populate() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            User owner = User.builder().email("step-bench@threadcast.io").passwordHash("x").name("bench").build();
+            entityManager.persist(owner);
+            Workspace workspace = Workspace.create("bench", null, "/tmp/bench", owner);
+            entityManager.persist(workspace);
+            Mission mission = Mission.create(workspace, "steps", null, Priority.MEDIUM);
+            entityManager.persist(mission);
+            for (int t = 0; t < TODOS; t++) {
+                Todo todo = Todo.create(mission, "todo-" + t, null, Priority.MEDIUM, Complexity.MEDIUM, t, 30);
+                entityManager.persist(todo);
+                todoIds.add(todo.getId());
+            }
+        });
+    }
+
+    @AfterEach
+    void cleanUp() {
+        // Committed outside a test transaction, so remove it for the next run
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        for (String table : List.of("todo_step", "todo", "mission", "workspace", "users")) {
+            jdbcTemplate.execute("DELETE FROM " + table);
+        }
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY TRUE");
+    }
+
+    @Test
+    void entityVersusConditional() {
+        List<StepUpdateWebhookRequest> updates = workflow();
+        System.out.printf("%nStep update benchmark: %,d updates over %d todos per round%n", updates.size(), TODOS);
+
+        double entityRate = measure("entity (load todo + steps)", StepConfig.UpdateMode.ENTITY, updates);
+        double conditionalRate = measure("conditional UPDATE", StepConfig.UpdateMode.CONDITIONAL, updates);
+
+        System.out.printf("  speed-up %.2fx%n", conditionalRate / entityRate);
+    }
+
+    private double measure(String name, StepConfig.UpdateMode mode, List<StepUpdateWebhookRequest> updates) {
+        StepProgressService service = service(mode);
+
+        // Warm-up round
+        reset();
+        updates.forEach(service::processStepUpdate);
+
+        LatencyRecorder recorder = new LatencyRecorder(name, ROUNDS * updates.size());
+        long total = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            reset();
+            for (StepUpdateWebhookRequest update : updates) {
+                long started = System.nanoTime();
+                service.processStepUpdate(update);
+                long elapsed = System.nanoTime() - started;
+                recorder.add(elapsed);
+                total += elapsed;
+            }
+            assertThat(countTodos("WOVEN")).isEqualTo(TODOS);
+            assertThat(countSteps("COMPLETED")).isEqualTo(TODOS * StepType.values().length);
+        }
+        double updatesPerSecond = (double) ROUNDS * updates.size() / (total / 1_000_000_000.0);
+        System.out.printf("%s  %,.0f updates/s%n", recorder.summary(), updatesPerSecond);
+        return updatesPerSecond;
+    }
+
+    private StepProgressService service(StepConfig.UpdateMode mode) {
+        StepConfig config = new StepConfig();
+        config.setUpdateMode(mode);
+        // Mailbox off: every update commits its own transaction on the calling thread
+        config.getMailbox().setEnabled(false);
+        StepTransitionMailbox mailbox = new StepTransitionMailbox(transactionTemplate, jdbcTemplate, config,
+                new SimpleMeterRegistry());
+        return new StepProgressService(todoRepository, todoStepRepository, mappingRepository,
+                mock(WebSocketService.class), mock(TimelineService.class), mock(TodoTerminalService.class),
+                mock(TodoOrchestrationService.class), mailbox, config);
+    }
+
+    /**
+     * Every todo's workflow, interleaved across todos the way concurrent sessions report.
+     */
+    private List<StepUpdateWebhookRequest> workflow() {
+        List<StepUpdateWebhookRequest> updates = new ArrayList<>();
+        for (StepType stepType : StepType.values()) {
+            for (int report = 0; report <= PROGRESS_REPORTS + 1; report++) {
+                for (UUID todoId : todoIds) {
+                    StepUpdateWebhookRequest request = new StepUpdateWebhookRequest();
+                    request.setTodoId(todoId.toString());
+                    request.setStepType(stepType);
+                    if (report <= PROGRESS_REPORTS) {
+                        request.setStatus(StepStatus.IN_PROGRESS);
+                        request.setProgress(report * 100 / (PROGRESS_REPORTS + 1));
+                        request.setMessage("Working on " + stepType.name().toLowerCase());
+                    } else {
+                        request.setStatus(StepStatus.COMPLETED);
+                        request.setOutput(stepType.name() + " done");
+                    }
+                    updates.add(request);
+                }
+            }
+        }
+        return updates;
+    }
+
+    private void reset() {
+        jdbcTemplate.update("UPDATE todo_step SET status = 'PENDING', started_at = NULL, completed_at = NULL, output = NULL");
+        jdbcTemplate.update("UPDATE todo SET status = 'PENDING', started_at = NULL, completed_at = NULL");
+    }
+
+    private int countTodos(String status) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM todo WHERE status = ?", Integer.class, status);
+    }
+
+    private int countSteps(String status) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM todo_step WHERE status = ?", Integer.class, status);
+    }
+}
@@ -0,0 +1,123 @@
+package io.threadcast.benchmark;
+
+import io.threadcast.service.terminal.ScreenDeltaEncoder;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bytes on the wire and encode cost per frame for full-frame versus delta screen streaming.
+ *
+ * The frames replay a typical Claude Code session on a 48x120 pane: a status spinner that
+ * redraws several times a second, tool output appended at the bottom (scrolling the pane),
+ * and the input box and footer that rarely change.
+ */
+@Tag("benchmark")
+class TerminalDeltaBenchmark {
+
+    private static final int FRAMES = Integer.getInteger("benchmark.frames", 5_000);
+    private static final int ROWS = 48;
+    private static final int COLS = 120;
+
+    private static final String[] SPINNER = {"·", "✢", "✳", "✶", "✻", "✽"};
+    private static final String[] TOOL_LINES = {
+            "\u001b[32m⏺\u001b[0m Read(src/main/java/io/threadcast/service/TodoService.java)",
+            "  ⎿  Read 412 lines (ctrl+r to expand)",
+            "\u001b[32m⏺\u001b[0m Update(src/main/java/io/threadcast/service/StepProgressService.java)",
+            "  ⎿  Updated src/main/java/io/threadcast/service/StepProgressService.java with 14 additions",
+            "\u001b[32m⏺\u001b[0m Bash(./gradlew test --tests StepProgressServiceTest)",
+            "  ⎿  BUILD SUCCESSFUL in 23s",
+            "\u001b[32m⏺\u001b[0m I've updated the step transition to publish progress after the commit.",
+    };
+
+    @Test
+    void claudeCodeSession() {
+        List<String> frames = recordSession();
+
+        ScreenDeltaEncoder encoder = new ScreenDeltaEncoder(100, 10_000);
+        LatencyRecorder recorder = new LatencyRecorder("delta encode per frame", frames.size());
+        long fullBytes = 0;
+        long deltaBytes = 0;
+        int keyframes = 0;
+        long now = 0;
+        for (String frame : frames) {
+            now += 200;
+            long started = System.nanoTime();
+            ScreenDeltaEncoder.Encoded encoded = encoder.next(frame, now, true);
+            recorder.add(System.nanoTime() - started);
+
+            fullBytes += frame.length();
+            if (encoded.isKeyframe()) {
+                keyframes++;
+                deltaBytes += frame.length();
+            } else {
+                deltaBytes += encoded.delta().length();
+            }
+        }
+
+        System.out.printf("%nTerminal screen streaming benchmark: %d frames, %dx%d pane%n", frames.size(), ROWS, COLS);
+        System.out.printf("full frames   %,12d B%n", fullBytes);
+        System.out.printf("delta stream  %,12d B  (%.1f%%, %d keyframes)%n",
+                deltaBytes, 100.0 * deltaBytes / fullBytes, keyframes);
+        System.out.println(recorder.summary());
+
+        assertThat(deltaBytes).isLessThan(fullBytes);
+    }
+
+    private static List<String> recordSession() {
+        Random random = new Random(42);
+        LinkedList<String> output = new LinkedList<>();
+        output.add("\u001b[1m✻ Welcome to Claude Code!\u001b[0m");
+        output.add("");
+        output.add("> [ThreadCast TODO] Mission: Realtime transport / TODO: Step progress - 위 TODO를 완료해주세요.");
+
+        List<String> frames = new ArrayList<>(FRAMES);
+        int seconds = 0;
+        int tokens = 0;
+        for (int i = 0; i < FRAMES; i++) {
+            if (random.nextInt(10) == 0) {
+                output.add(TOOL_LINES[random.nextInt(TOOL_LINES.length)]);
+            }
+            if (i % 5 == 0) {
+                seconds++;
+            }
+            tokens += random.nextInt(40);
+            frames.add(render(output, String.format("\u001b[33m%s\u001b[0m Thinking… (%ds · ↑ %.1fk tokens · esc to interrupt)",
+                    SPINNER[i % SPINNER.length], seconds, tokens / 1000.0)));
+        }
+        return frames;
+    }
+
+    private static String render(List<String> output, String status) {
+        List<String> rows = new ArrayList<>(ROWS);
+        int outputRows = ROWS - 6;
+        int from = Math.max(0, output.size() - outputRows);
+        rows.addAll(output.subList(from, output.size()));
+        while (rows.size() < outputRows) {
+            rows.add("");
+        }
+        rows.add(status);
+        rows.add("╭" + "─".repeat(COLS - 2) + "╮");
+        rows.add("│ > " + " ".repeat(COLS - 5) + "│");
+        rows.add("╰" + "─".repeat(COLS - 2) + "╯");
+        rows.add("  ? for shortcuts");
+        rows.add("");
+
+        StringBuilder screen = new StringBuilder(ROWS * COLS);
+        for (String row : rows) {
+            if (!screen.isEmpty()) {
+                screen.append('\n');
+            }
+            screen.append(row);
+        }
+        return Base64.getEncoder().encodeToString(screen.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
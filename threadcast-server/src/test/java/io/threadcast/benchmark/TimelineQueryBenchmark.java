@@ -0,0 +1,179 @@
+package io.threadcast.benchmark;
+
+import io.threadcast.config.JpaConfig;
+import io.threadcast.domain.Mission;
+import io.threadcast.domain.TimelineEvent;
+import io.threadcast.domain.Todo;
+import io.threadcast.domain.User;
+import io.threadcast.domain.Workspace;
+import io.threadcast.domain.enums.ActorType;
+import io.threadcast.domain.enums.Complexity;
+import io.threadcast.domain.enums.EventType;
+import io.threadcast.domain.enums.Priority;
+import io.threadcast.dto.request.PageCursor;
+import io.threadcast.dto.request.TimelineFilter;
+import io.threadcast.repository.TimelineEventRepository;
+import io.threadcast.repository.TimelineEventSpecifications;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * p50/p99 of the combined timeline query for common filter combinations.
+ *
+ * Runs against embedded H2 by default. To measure PostgreSQL:
+ * <pre>
+ * ./gradlew benchmark --tests '*TimelineQueryBenchmark' \
+ *   -Dspring.test.database.replace=none \
+ *   -Dspring.datasource.url=jdbc:postgresql://localhost:5432/threadcast_bench \
+ *   -Dspring.datasource.username=... -Dspring.datasource.password=... \
+ *   -Dbenchmark.timeline.rows=10000000
+ * </pre>
+ */
+@Tag("benchmark")
+@DataJpaTest
+@Import(JpaConfig.class)
+class TimelineQueryBenchmark {
+
+    private static final int ROWS = Integer.getInteger("benchmark.timeline.rows", 200_000);
+    private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 200);
+    private static final int WARMUP = 20;
+    private static final int PAGE_SIZE = 50;
+    private static final int HISTORY_DAYS = 90;
+
+    private static final String INSERT_SQL = "INSERT INTO timeline_event " +
+            "(id, workspace_id, mission_id, todo_id, event_type, actor_type, description, metadata, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TimelineEventRepository timelineEventRepository;
+
+    private Workspace workspace;
+    private final List<Mission> missions = new ArrayList<>();
+    private final List<Todo> todos = new ArrayList<>();
+    private LocalDateTime now;
+
+    @BeforeEach
+    void populate() {
+        now = LocalDateTime.now();
+        User owner = entityManager.persist(User.builder()
+                .email("bench@threadcast.io")
+                .passwordHash("x")
+                .name("bench")
+                .build());
+        workspace = entityManager.persist(Workspace.create("bench", null, "/tmp/bench", owner));
+        // A second workspace so the workspace predicate is selective
+        Workspace other = entityManager.persist(Workspace.create("noise", null, "/tmp/noise", owner));
+
+        for (int m = 0; m < 20; m++) {
+            Mission mission = entityManager.persist(
+                    Mission.create(m % 4 == 0 ? other : workspace, "mission-" + m, null, Priority.MEDIUM));
+            missions.add(mission);
+            for (int t = 0; t < 10; t++) {
+                todos.add(entityManager.persist(Todo.create(
+                        mission, "todo-" + m + "-" + t, null, Priority.MEDIUM, Complexity.MEDIUM, t, 30)));
+            }
+        }
+        entityManager.flush();
+
+        Random random = new Random(42);
+        EventType[] eventTypes = EventType.values();
+        ActorType[] actorTypes = ActorType.values();
+        long historySeconds = HISTORY_DAYS * 24L * 3600;
+        List<Object[]> batch = new ArrayList<>(5_000);
+
+        for (int i = 0; i < ROWS; i++) {
+            Todo todo = todos.get(random.nextInt(todos.size()));
+            Mission mission = todo.getMission();
+            batch.add(new Object[]{
+                    UUID.randomUUID(),
+                    mission.getWorkspace().getId(),
+                    mission.getId(),
+                    todo.getId(),
+                    eventTypes[random.nextInt(eventTypes.length)].name(),
+                    actorTypes[random.nextInt(actorTypes.length)].name(),
+                    "event " + i,
+                    null,
+                    Timestamp.valueOf(now.minusSeconds((long) (random.nextDouble() * historySeconds)))
+            });
+            if (batch.size() == 5_000) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+        }
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void combinedFilters() {
+        Mission mission = missions.get(1);
+        Todo todo = todos.get(15);
+        UUID ws = workspace.getId();
+
+        Map<String, TimelineFilter> scenarios = new LinkedHashMap<>();
+        scenarios.put("workspace", filter(ws).build());
+        scenarios.put("workspace + eventType", filter(ws).eventType(EventType.AI_ACTIVITY).build());
+        scenarios.put("workspace + actorType", filter(ws).actorType(ActorType.USER).build());
+        scenarios.put("workspace + eventType + actorType",
+                filter(ws).eventType(EventType.TODO_COMPLETED).actorType(ActorType.SYSTEM).build());
+        scenarios.put("workspace + last 24h", filter(ws).from(now.minusDays(1)).build());
+        scenarios.put("workspace + eventType + 7d window",
+                filter(ws).eventType(EventType.AI_QUESTION).from(now.minusDays(37)).to(now.minusDays(30)).build());
+        scenarios.put("workspace + mission", filter(ws).missionId(mission.getId()).build());
+        scenarios.put("todo + eventType", TimelineFilter.builder()
+                .todoId(todo.getId()).eventType(EventType.AI_ACTIVITY).build());
+
+        System.out.printf("%nTimeline query benchmark: %,d rows, page size %d%n", ROWS, PAGE_SIZE);
+        scenarios.forEach((name, filter) -> {
+            run(name + " (first page)", filter, PageCursor.FIRST);
+            run(name + " (deep page)", filter, new PageCursor(now.minusDays(HISTORY_DAYS / 2), PageCursor.FIRST.id()));
+        });
+    }
+
+    private TimelineFilter.TimelineFilterBuilder filter(UUID workspaceId) {
+        return TimelineFilter.builder().workspaceId(workspaceId);
+    }
+
+    private void run(String name, TimelineFilter filter, PageCursor cursor) {
+        for (int i = 0; i < WARMUP; i++) {
+            query(filter, cursor);
+        }
+        LatencyRecorder recorder = new LatencyRecorder(name, ITERATIONS);
+        for (int i = 0; i < ITERATIONS; i++) {
+            recorder.record(() -> assertThat(query(filter, cursor)).isNotNull());
+            entityManager.clear();
+        }
+        System.out.println(recorder.summary());
+    }
+
+    private List<TimelineEvent> query(TimelineFilter filter, PageCursor cursor) {
+        return timelineEventRepository.findBy(
+                TimelineEventSpecifications.matching(filter).and(TimelineEventSpecifications.before(cursor)),
+                q -> q.sortBy(TimelineEventSpecifications.NEWEST_FIRST).limit(PAGE_SIZE + 1).all());
+    }
+}
@@ -0,0 +1,180 @@
+package io.threadcast.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.threadcast.config.JpaConfig;
+import io.threadcast.config.TerminalConfig;
+import io.threadcast.domain.Mission;
+import io.threadcast.domain.TerminalSessionMapping;
+import io.threadcast.domain.Todo;
+import io.threadcast.domain.User;
+import io.threadcast.domain.Workspace;
+import io.threadcast.domain.enums.Complexity;
+import io.threadcast.domain.enums.Priority;
+import io.threadcast.repository.TerminalSessionMappingRepository;
+import io.threadcast.service.terminal.TokenUsageAccumulator;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Webhook-side latency and final totals for token usage under concurrent usage_logged load.
+ *
+ * Compares the previous per-call load + increment + save of the session mapping with the
+ * in-memory accumulator that writes one aggregated UPDATE per todo per flush. Several webhook
+ * threads report usage for a handful of todos at once, so calls contend on the same rows.
+ */
+@Tag("benchmark")
+@DataJpaTest
+@Import(JpaConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TokenUsageBenchmark {
+
+    private static final int THREADS = Integer.getInteger("benchmark.usage.threads", 16);
+    private static final int CALLS = Integer.getInteger("benchmark.usage.calls", 2_000);
+    private static final int TODOS = 4;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TerminalSessionMappingRepository mappingRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate transactionTemplate;
+    private final List<UUID> todoIds = new ArrayList<>();
+
+    @BeforeEach
+    void populate() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            User owner = User.builder().email("usage-bench@threadcast.io").passwordHash("x").name("bench").build();
+            entityManager.persist(owner);
+            Workspace workspace = Workspace.create("bench", null, "/tmp/bench", owner);
+            entityManager.persist(workspace);
+            Mission mission = Mission.create(workspace, "usage", null, Priority.MEDIUM);
+            entityManager.persist(mission);
+            for (int t = 0; t < TODOS; t++) {
+                Todo todo = Todo.create(mission, "todo-" + t, null, Priority.MEDIUM, Complexity.MEDIUM, t, 30);
+                entityManager.persist(todo);
+                entityManager.persist(TerminalSessionMapping.create(todo, "todo-" + t));
+                todoIds.add(todo.getId());
+            }
+        });
+    }
+
+    @AfterEach
+    void cleanUp() {
+        // Committed outside a test transaction, so remove it for the next run
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        for (String table : List.of("terminal_session_trace_ids", "terminal_session_mapping", "todo_step", "todo", "mission",
+                "workspace", "users")) {
+            jdbcTemplate.execute("DELETE FROM " + table);
+        }
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY TRUE");
+    }
+
+    @Test
+    void concurrentUsageLogged() throws Exception {
+        long expectedInput = 3L * THREADS * CALLS;
+
+        // Previous path: read the mapping, add, save (one transaction per webhook)
+        LatencyRecorder perCall = run("load + save per call", todoId -> transactionTemplate.executeWithoutResult(status ->
+                mappingRepository.findByTodoId(todoId).ifPresent(mapping -> {
+                    mapping.setTotalInputTokens(mapping.getTotalInputTokens() + 3);
+                    mapping.setTotalOutputTokens(mapping.getTotalOutputTokens() + 1);
+                    mapping.updateActivity();
+                    mappingRepository.save(mapping);
+                })));
+        long perCallTotal = totalInput();
+
+        reset();
+        TerminalConfig config = new TerminalConfig();
+        TokenUsageAccumulator accumulator = new TokenUsageAccumulator(
+                mappingRepository, transactionTemplate, config, new SimpleMeterRegistry());
+        ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor();
+        Future<?> flushing = flusher.scheduleWithFixedDelay(accumulator::flushAll, 50, 50, TimeUnit.MILLISECONDS);
+        LatencyRecorder accumulated = run("accumulator (50 ms flush)", todoId -> accumulator.add(todoId, 3, 1));
+        flushing.cancel(false);
+        flusher.shutdown();
+        accumulator.flushAll();
+        long accumulatedTotal = totalInput();
+
+        System.out.printf("%nToken usage benchmark: %d threads x %d calls over %d todos%n", THREADS, CALLS, TODOS);
+        System.out.println(perCall.summary());
+        System.out.printf("  input tokens recorded %,d of %,d (%,d lost to concurrent read-modify-write)%n",
+                perCallTotal, expectedInput, expectedInput - perCallTotal);
+        System.out.println(accumulated.summary());
+        System.out.printf("  input tokens recorded %,d of %,d%n", accumulatedTotal, expectedInput);
+
+        assertThat(accumulatedTotal).isEqualTo(expectedInput);
+    }
+
+    private LatencyRecorder run(String name, Consumer<UUID> call) throws Exception {
+        LatencyRecorder recorder = new LatencyRecorder(name, THREADS * CALLS);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<long[]>> workers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int offset = t;
+                workers.add(pool.submit(() -> {
+                    long[] samples = new long[CALLS];
+                    for (int i = 0; i < CALLS; i++) {
+                        UUID todoId = todoIds.get((offset + i) % TODOS);
+                        long started = System.nanoTime();
+                        try {
+                            call.accept(todoId);
+                        } catch (RuntimeException e) {
+                            // Optimistic/lock failures count as a lost webhook, as they would in production
+                        }
+                        samples[i] = System.nanoTime() - started;
+                    }
+                    return samples;
+                }));
+            }
+            for (Future<long[]> worker : workers) {
+                for (long sample : worker.get()) {
+                    recorder.add(sample);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return recorder;
+    }
+
+    private long totalInput() {
+        Long total = jdbcTemplate.queryForObject("SELECT SUM(total_input_tokens) FROM terminal_session_mapping", Long.class);
+        return total != null ? total : 0;
+    }
+
+    private void reset() {
+        jdbcTemplate.update("UPDATE terminal_session_mapping SET total_input_tokens = 0, total_output_tokens = 0");
+    }
+}
@@ -0,0 +1,137 @@
+package io.threadcast.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.threadcast.config.WebSocketBrokerConfig;
+import io.threadcast.domain.Mission;
+import io.threadcast.domain.TimelineEvent;
+import io.threadcast.domain.Todo;
+import io.threadcast.domain.enums.ActorType;
+import io.threadcast.domain.enums.EventType;
+import io.threadcast.domain.enums.StepStatus;
+import io.threadcast.domain.enums.StepType;
+import io.threadcast.dto.response.StepProgressResponse;
+import io.threadcast.service.WebSocketService;
+import io.threadcast.service.websocket.WebSocketBodyEncoding;
+import io.threadcast.service.websocket.WebSocketEventLog;
+import io.threadcast.service.websocket.WebSocketSubscriptions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Body size of JSON versus CBOR for the high-frequency event types, and the cost of the
+ * one-off CBOR transcode per event.
+ */
+@Tag("benchmark")
+class WebSocketEncodingBenchmark {
+
+    private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 200_000);
+    private static final int WARMUP = 50_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private byte[] lastBody;
+
+    @Test
+    void eventBodySizes() {
+        WebSocketService service = new WebSocketService(new SimpMessagingTemplate(capturingChannel()), objectMapper,
+                new WebSocketEventLog(new WebSocketBrokerConfig(), new SimpleMeterRegistry()),
+                new WebSocketSubscriptions(new StaticListableBeanFactory(), new SimpleMeterRegistry()));
+        WebSocketBodyEncoding encoding = new WebSocketBodyEncoding(
+                new WebSocketBrokerConfig(), objectMapper, new SimpleMeterRegistry());
+
+        UUID missionId = UUID.randomUUID();
+        Map<String, byte[]> bodies = new LinkedHashMap<>();
+        service.notifyStepProgress(missionId, sampleProgress(missionId));
+        bodies.put("STEP_PROGRESS", lastBody);
+        service.notifyUsageUpdate(UUID.randomUUID().toString(), "claude-sonnet-4", 18_342, 2_917);
+        bodies.put("USAGE_UPDATE", lastBody);
+        service.notifyTodoTimelineEvent(UUID.randomUUID(), sampleTimelineEvent(missionId));
+        bodies.put("TIMELINE_EVENT", lastBody);
+
+        System.out.printf("%nWebSocket body encoding benchmark: JSON vs CBOR%n");
+        long jsonTotal = 0;
+        long cborTotal = 0;
+        for (Map.Entry<String, byte[]> body : bodies.entrySet()) {
+            byte[] json = body.getValue();
+            byte[] cbor = encoding.toCbor(json);
+            jsonTotal += json.length;
+            cborTotal += cbor.length;
+            System.out.printf("%-20s json=%5d B  cbor=%5d B  (%.0f%%)%n",
+                    body.getKey(), json.length, cbor.length, 100.0 * cbor.length / json.length);
+
+            for (int i = 0; i < WARMUP; i++) {
+                encoding.toCbor(json);
+            }
+            LatencyRecorder recorder = new LatencyRecorder("transcode " + body.getKey(), ITERATIONS);
+            for (int i = 0; i < ITERATIONS; i++) {
+                recorder.record(() -> encoding.toCbor(json));
+            }
+            System.out.println(recorder.summary());
+        }
+
+        assertThat(cborTotal).isLessThan(jsonTotal);
+    }
+
+    private MessageChannel capturingChannel() {
+        return new MessageChannel() {
+            @Override
+            public boolean send(Message<?> message, long timeout) {
+                if (message.getPayload() instanceof byte[] body) {
+                    lastBody = body;
+                }
+                return true;
+            }
+        };
+    }
+
+    private StepProgressResponse sampleProgress(UUID missionId) {
+        return StepProgressResponse.builder()
+                .todoId(UUID.randomUUID())
+                .missionId(missionId)
+                .stepId(UUID.randomUUID())
+                .stepType(StepType.IMPLEMENTATION)
+                .status(StepStatus.IN_PROGRESS)
+                .progress(42)
+                .message("Editing src/main/java/io/threadcast/service/WebSocketService.java")
+                .startedAt(LocalDateTime.now())
+                .completedSteps(2)
+                .totalSteps(6)
+                .build();
+    }
+
+    private TimelineEvent sampleTimelineEvent(UUID missionId) {
+        Mission mission = Mission.builder().id(missionId).title("Realtime transport").build();
+        Todo todo = Todo.builder().id(UUID.randomUUID()).mission(mission).title("Binary WebSocket frames").build();
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("tool", "Edit");
+        metadata.put("file", "src/main/java/io/threadcast/config/WebSocketConfig.java");
+        metadata.put("linesAdded", 12);
+        metadata.put("linesRemoved", 3);
+        return TimelineEvent.builder()
+                .id(UUID.randomUUID())
+                .mission(mission)
+                .todo(todo)
+                .eventType(EventType.FILE_MODIFIED)
+                .actorType(ActorType.AI)
+                .description("Modified WebSocketConfig.java")
+                .metadata(metadata)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
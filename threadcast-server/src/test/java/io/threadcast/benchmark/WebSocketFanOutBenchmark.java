@@ -0,0 +1,124 @@
+package io.threadcast.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.threadcast.config.WebSocketBrokerConfig;
+import io.threadcast.domain.enums.StepStatus;
+import io.threadcast.domain.enums.StepType;
+import io.threadcast.dto.response.StepProgressResponse;
+import io.threadcast.service.WebSocketService;
+import io.threadcast.service.websocket.WebSocketEventLog;
+import io.threadcast.service.websocket.WebSocketSubscriptions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.converter.ByteArrayMessageConverter;
+import org.springframework.messaging.converter.CompositeMessageConverter;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Allocation and latency per event: per-destination convertAndSend (previous behaviour)
+ * versus serialize-once fan-out through {@link WebSocketService}.
+ */
+@Tag("benchmark")
+class WebSocketFanOutBenchmark {
+
+    private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 200_000);
+    private static final int WARMUP = 50_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private long sentBytes;
+
+    @Test
+    void stepProgressFanOut() {
+        SimpMessagingTemplate template = new SimpMessagingTemplate(discardingChannel());
+        MappingJackson2MessageConverter jackson = new MappingJackson2MessageConverter();
+        jackson.setObjectMapper(objectMapper);
+        template.setMessageConverter(new CompositeMessageConverter(List.of(
+                new StringMessageConverter(), new ByteArrayMessageConverter(), jackson)));
+
+        WebSocketService service = new WebSocketService(template, objectMapper,
+                new WebSocketEventLog(new WebSocketBrokerConfig(), new SimpleMeterRegistry()),
+                new WebSocketSubscriptions(new StaticListableBeanFactory(), new SimpleMeterRegistry()));
+        UUID missionId = UUID.randomUUID();
+        StepProgressResponse progress = sampleProgress();
+
+        Runnable legacy = () -> {
+            Map<String, Object> event = new HashMap<>();
+            event.put("eventId", UUID.randomUUID().toString());
+            event.put("eventType", "STEP_PROGRESS");
+            event.put("timestamp", LocalDateTime.now());
+            event.put("payload", progress);
+            template.convertAndSend("/topic/missions/" + missionId, event);
+            template.convertAndSend("/topic/todos/" + progress.getTodoId(), event);
+        };
+        Runnable fanOut = () -> service.notifyStepProgress(missionId, progress);
+
+        System.out.printf("%nWebSocket fan-out benchmark: STEP_PROGRESS to 2 destinations%n");
+        double legacyBytes = measure("per-destination convertAndSend", legacy);
+        double fanOutBytes = measure("serialize-once fan-out", fanOut);
+
+        assertThat(sentBytes).isPositive();
+        assertThat(fanOutBytes).isLessThan(legacyBytes);
+    }
+
+    private double measure(String name, Runnable task) {
+        for (int i = 0; i < WARMUP; i++) {
+            task.run();
+        }
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        LatencyRecorder recorder = new LatencyRecorder(name, ITERATIONS);
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            recorder.record(task);
+        }
+        double bytesPerEvent = (threads.getThreadAllocatedBytes(threadId) - allocatedBefore) / (double) ITERATIONS;
+
+        System.out.printf("%s  alloc=%,.0f B/event%n", recorder.summary(), bytesPerEvent);
+        return bytesPerEvent;
+    }
+
+    private MessageChannel discardingChannel() {
+        return new MessageChannel() {
+            @Override
+            public boolean send(Message<?> message, long timeout) {
+                if (message.getPayload() instanceof byte[] body) {
+                    sentBytes += body.length;
+                }
+                return true;
+            }
+        };
+    }
+
+    private StepProgressResponse sampleProgress() {
+        return StepProgressResponse.builder()
+                .todoId(UUID.randomUUID())
+                .missionId(UUID.randomUUID())
+                .stepType(StepType.IMPLEMENTATION)
+                .status(StepStatus.IN_PROGRESS)
+                .progress(42)
+                .message("Editing src/main/java/io/threadcast/service/WebSocketService.java")
+                .build();
+    }
+}
@@ -0,0 +1,163 @@
+package io.threadcast.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.threadcast.config.TerminalConfig;
+import io.threadcast.config.WebhookConfig;
+import io.threadcast.controller.WebhookController;
+import io.threadcast.dto.request.SwiftcastWebhookRequest;
+import io.threadcast.dto.response.WebhookBatchResponse;
+import io.threadcast.service.AnalysisService;
+import io.threadcast.service.StepProgressService;
+import io.threadcast.service.terminal.SessionRouteCache;
+import io.threadcast.service.terminal.TodoTerminalService;
+import io.threadcast.service.webhook.SwiftcastWebhookProcessor;
+import io.threadcast.service.webhook.WebhookDeduplicator;
+import io.threadcast.service.webhook.WebhookIngestionQueue;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Time to deliver 1,000 usage_logged events through the web layer: one POST per event to
+ * /api/webhooks/swiftcast versus a single JSON array or NDJSON POST to /swiftcast/batch.
+ *
+ * Event handling is stubbed, so this isolates per-request cost: dispatch, JSON binding and the
+ * ingestion queue. The batch endpoint also sends one PM heartbeat and commits one transaction per
+ * todo instead of per event, which comes on top of the numbers printed here.
+ */
+@Tag("benchmark")
+class WebhookBatchBenchmark {
+
+    private static final int EVENTS = Integer.getInteger("benchmark.webhook.events", 1_000);
+    private static final int ROUNDS = Integer.getInteger("benchmark.iterations", 50);
+    private static final int WARMUP = 10;
+    private static final int TODOS = 20;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong handled = new AtomicLong();
+
+    @Test
+    void singleVersusBatch() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller()).build();
+        List<SwiftcastWebhookRequest> events = events();
+        List<String> singleBodies = new ArrayList<>(EVENTS);
+        StringBuilder ndjson = new StringBuilder();
+        for (SwiftcastWebhookRequest event : events) {
+            String json = objectMapper.writeValueAsString(event);
+            singleBodies.add(json);
+            ndjson.append(json).append('\n');
+        }
+        String array = objectMapper.writeValueAsString(events);
+
+        Round single = () -> {
+            for (String body : singleBodies) {
+                mockMvc.perform(post("/api/webhooks/swiftcast")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(body))
+                        .andExpect(status().isOk());
+            }
+        };
+        Round batchArray = () -> mockMvc.perform(post("/api/webhooks/swiftcast/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(array))
+                .andExpect(status().isOk());
+        Round batchNdjson = () -> mockMvc.perform(post("/api/webhooks/swiftcast/batch")
+                        .contentType("application/x-ndjson")
+                        .content(ndjson.toString()))
+                .andExpect(status().isOk());
+
+        System.out.printf("%nWebhook batch benchmark: %d usage_logged events over %d todos per round%n", EVENTS, TODOS);
+        double singleRate = measure("one POST per event", single);
+        double arrayRate = measure("batch POST (JSON array)", batchArray);
+        double ndjsonRate = measure("batch POST (NDJSON)", batchNdjson);
+
+        assertThat(handled.get()).isEqualTo(3L * (WARMUP + ROUNDS) * EVENTS);
+        assertThat(arrayRate).isGreaterThan(singleRate);
+        assertThat(ndjsonRate).isGreaterThan(singleRate);
+    }
+
+    private double measure(String name, Round round) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            round.run();
+        }
+        LatencyRecorder recorder = new LatencyRecorder(name + " (per round)", ROUNDS);
+        long total = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            long started = System.nanoTime();
+            round.run();
+            long elapsed = System.nanoTime() - started;
+            recorder.add(elapsed);
+            total += elapsed;
+        }
+        double eventsPerSecond = (double) EVENTS * ROUNDS / (total / 1_000_000_000.0);
+        System.out.printf("%s  %,.0f events/s%n", recorder.summary(), eventsPerSecond);
+        return eventsPerSecond;
+    }
+
+    private WebhookController controller() {
+        SwiftcastWebhookProcessor processor = mock(SwiftcastWebhookProcessor.class);
+        when(processor.process(any())).thenAnswer(invocation -> {
+            handled.incrementAndGet();
+            return WebhookBatchResponse.Status.PROCESSED;
+        });
+        when(processor.processGroup(anyList())).thenAnswer(invocation -> {
+            List<?> group = invocation.getArgument(0);
+            handled.addAndGet(group.size());
+            return Collections.nCopies(group.size(), WebhookBatchResponse.Status.PROCESSED);
+        });
+
+        // SYNC, so every round is fully handled when its last response returns
+        WebhookConfig config = new WebhookConfig();
+        config.getIngest().setMode(WebhookConfig.IngestMode.SYNC);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        WebhookIngestionQueue queue = new WebhookIngestionQueue(
+                processor, new SessionRouteCache(new TerminalConfig(), meterRegistry), config, meterRegistry);
+
+        return new WebhookController(mock(TodoTerminalService.class), mock(StepProgressService.class),
+                mock(AnalysisService.class), queue, mock(WebhookDeduplicator.class), config, objectMapper);
+    }
+
+    private List<SwiftcastWebhookRequest> events() {
+        List<String> todoIds = new ArrayList<>();
+        for (int t = 0; t < TODOS; t++) {
+            todoIds.add(UUID.randomUUID().toString());
+        }
+        List<SwiftcastWebhookRequest> events = new ArrayList<>(EVENTS);
+        for (int i = 0; i < EVENTS; i++) {
+            ObjectNode data = objectMapper.createObjectNode()
+                    .put("model", "claude-sonnet")
+                    .put("input_tokens", 1200)
+                    .put("output_tokens", 300);
+            SwiftcastWebhookRequest event = new SwiftcastWebhookRequest();
+            event.setEvent("usage_logged");
+            event.setTodoId(todoIds.get(i % TODOS));
+            event.setSessionId("session-" + (i % TODOS));
+            event.setTimestamp(System.currentTimeMillis());
+            event.setData(data);
+            events.add(event);
+        }
+        return events;
+    }
+
+    @FunctionalInterface
+    private interface Round {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,135 @@
+package io.threadcast.config;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.BufferingStompDecoder;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompDecoder;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import reactor.core.publisher.Sinks;
+import reactor.netty.DisposableServer;
+import reactor.netty.tcp.TcpServer;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Minimal in-process STOMP 1.2 broker for relay tests.
+ * Supports CONNECT, SUBSCRIBE, UNSUBSCRIBE, SEND and DISCONNECT with exact-match destinations;
+ * heart-beats are negotiated off.
+ */
+class StompBrokerStandIn implements AutoCloseable {
+
+    private final StompEncoder encoder = new StompEncoder();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final Set<Session> sessions = ConcurrentHashMap.newKeySet();
+    private final DisposableServer server;
+
+    private record Subscription(Session session, String id, String destination) {
+    }
+
+    private final class Session {
+        private final Sinks.Many<byte[]> outbound = Sinks.many().unicast().onBackpressureBuffer();
+        private final BufferingStompDecoder decoder = new BufferingStompDecoder(new StompDecoder(), 1024 * 1024);
+
+        private void onData(ByteBuffer buffer) {
+            for (Message<byte[]> frame : decoder.decode(buffer)) {
+                StompHeaderAccessor headers = StompHeaderAccessor.wrap(frame);
+                if (headers.getCommand() != null) {
+                    handle(this, headers, frame.getPayload());
+                }
+            }
+        }
+
+        private synchronized void send(StompHeaderAccessor headers, byte[] body) {
+            headers.setLeaveMutable(true);
+            outbound.tryEmitNext(encoder.encode(MessageBuilder.createMessage(body, headers.getMessageHeaders())));
+        }
+
+        private void close() {
+            subscriptions.removeIf(s -> s.session() == this);
+            sessions.remove(this);
+            outbound.tryEmitComplete();
+        }
+    }
+
+    StompBrokerStandIn() {
+        this.server = TcpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .handle((in, out) -> {
+                    Session session = new Session();
+                    sessions.add(session);
+                    in.receive().asByteBuffer()
+                            .doOnNext(session::onData)
+                            .doFinally(signal -> session.close())
+                            .subscribe();
+                    return out.sendByteArray(session.outbound.asFlux());
+                })
+                .bindNow(Duration.ofSeconds(10));
+    }
+
+    int getPort() {
+        return server.port();
+    }
+
+    boolean hasSubscription(String destination) {
+        return subscriptions.stream().anyMatch(s -> s.destination().equals(destination));
+    }
+
+    int getSessionCount() {
+        return sessions.size();
+    }
+
+    private void handle(Session session, StompHeaderAccessor frame, byte[] body) {
+        switch (frame.getCommand()) {
+            case CONNECT, STOMP -> {
+                StompHeaderAccessor connected = StompHeaderAccessor.create(StompCommand.CONNECTED);
+                connected.setVersion("1.2");
+                connected.setHeartbeat(0, 0);
+                session.send(connected, new byte[0]);
+            }
+            case SUBSCRIBE -> subscriptions.add(
+                    new Subscription(session, frame.getSubscriptionId(), frame.getDestination()));
+            case UNSUBSCRIBE -> subscriptions.removeIf(
+                    s -> s.session() == session && s.id().equals(frame.getSubscriptionId()));
+            case SEND -> {
+                for (Subscription subscription : subscriptions) {
+                    if (subscription.destination().equals(frame.getDestination())) {
+                        StompHeaderAccessor message = StompHeaderAccessor.create(StompCommand.MESSAGE);
+                        message.setDestination(frame.getDestination());
+                        message.setSubscriptionId(subscription.id());
+                        message.setMessageId(UUID.randomUUID().toString());
+                        if (frame.getContentType() != null) {
+                            message.setContentType(frame.getContentType());
+                        }
+                        subscription.session().send(message, body);
+                    }
+                }
+            }
+            case DISCONNECT -> {
+                if (frame.getReceipt() != null) {
+                    StompHeaderAccessor receipt = StompHeaderAccessor.create(StompCommand.RECEIPT);
+                    receipt.setReceiptId(frame.getReceipt());
+                    session.send(receipt, new byte[0]);
+                }
+                session.close();
+            }
+            default -> {
+                // ACK/NACK/transactions are not needed by the relay
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        sessions.forEach(Session::close);
+        server.disposeNow();
+    }
+}
@@ -0,0 +1,136 @@
+package io.threadcast.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.threadcast.ThreadCastApplication;
+import io.threadcast.service.WebSocketService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.converter.ByteArrayMessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two server instances relaying through the same STOMP broker: an event published on node A
+ * must reach a WebSocket client connected to node B.
+ */
+class WebSocketBrokerRelayIntegrationTest {
+
+    private static final long TIMEOUT_MS = 10_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private StompBrokerStandIn broker;
+    private ConfigurableApplicationContext nodeA;
+    private ConfigurableApplicationContext nodeB;
+    private WebSocketStompClient stompClient;
+
+    @BeforeEach
+    void setUp() {
+        broker = new StompBrokerStandIn();
+        nodeA = startNode("node-a");
+        nodeB = startNode("node-b");
+        stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setMessageConverter(new ByteArrayMessageConverter());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (stompClient != null) {
+            stompClient.stop();
+        }
+        if (nodeA != null) {
+            nodeA.close();
+        }
+        if (nodeB != null) {
+            nodeB.close();
+        }
+        if (broker != null) {
+            broker.close();
+        }
+    }
+
+    @Test
+    @DisplayName("an event published on node A reaches a subscriber connected to node B")
+    void relay_deliversEventsAcrossNodes() throws Exception {
+        UUID workspaceId = UUID.randomUUID();
+        UUID missionId = UUID.randomUUID();
+        String destination = "/topic/workspaces/" + workspaceId;
+
+        int portB = ((WebServerApplicationContext) nodeB).getWebServer().getPort();
+        StompSession session = stompClient
+                .connectAsync("ws://localhost:" + portB + "/ws", new StompSessionHandlerAdapter() {
+                })
+                .get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+        BlockingQueue<byte[]> received = new LinkedBlockingQueue<>();
+        session.subscribe(destination, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return byte[].class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                received.add((byte[]) payload);
+            }
+        });
+
+        // Node B relays the SUBSCRIBE asynchronously; node A's system session must also be up
+        awaitTrue(() -> broker.hasSubscription(destination));
+        awaitTrue(() -> broker.getSessionCount() >= 3);
+
+        nodeA.getBean(WebSocketService.class).notifyMissionDeleted(workspaceId, missionId);
+
+        byte[] frame = received.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        assertThat(frame).as("event relayed to node B").isNotNull();
+
+        JsonNode event = objectMapper.readTree(frame);
+        assertThat(event.get("eventType").asText()).isEqualTo("MISSION_DELETED");
+        assertThat(event.get("payload").get("missionId").asText()).isEqualTo(missionId.toString());
+
+        session.disconnect();
+    }
+
+    private ConfigurableApplicationContext startNode(String name) {
+        return new SpringApplicationBuilder(ThreadCastApplication.class)
+                .profiles("dev")
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "spring.jmx.enabled=false",
+                        "threadcast.hub.auto-start=false",
+                        "threadcast.websocket.broker=RELAY",
+                        "threadcast.websocket.relay.host=127.0.0.1",
+                        "threadcast.websocket.relay.port=" + broker.getPort(),
+                        "threadcast.websocket.relay.system-heartbeat-send-interval-ms=0",
+                        "threadcast.websocket.relay.system-heartbeat-receive-interval-ms=0")
+                .run();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package io.threadcast.dto.request;
+
+import io.threadcast.exception.BadRequestException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PageCursorTest {
+
+    @Test
+    @DisplayName("encode/decode round-trips the keyset position")
+    void encodeDecode_roundTrip() {
+        PageCursor cursor = new PageCursor(LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_456_000), UUID.randomUUID());
+
+        PageCursor decoded = PageCursor.decode(cursor.encode());
+
+        assertThat(decoded).isEqualTo(cursor);
+    }
+
+    @Test
+    @DisplayName("missing cursor starts from the newest row")
+    void decode_blank_returnsFirst() {
+        assertThat(PageCursor.decode(null)).isEqualTo(PageCursor.FIRST);
+        assertThat(PageCursor.decode("  ")).isEqualTo(PageCursor.FIRST);
+    }
+
+    @Test
+    @DisplayName("malformed cursor is rejected as a bad request")
+    void decode_invalid_throwsBadRequest() {
+        assertThatThrownBy(() -> PageCursor.decode("not-a-cursor"))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    @DisplayName("page size is clamped to [1, MAX_SIZE]")
+    void clampSize() {
+        assertThat(PageCursor.clampSize(null)).isEqualTo(PageCursor.DEFAULT_SIZE);
+        assertThat(PageCursor.clampSize(0)).isEqualTo(1);
+        assertThat(PageCursor.clampSize(1000)).isEqualTo(PageCursor.MAX_SIZE);
+    }
+}
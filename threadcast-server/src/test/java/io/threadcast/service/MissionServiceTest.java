@@ -14,6 +14,7 @@ import io.threadcast.repository.MissionRepository;
 import io.threadcast.repository.TimelineEventRepository;
 import io.threadcast.repository.TodoRepository;
 import io.threadcast.repository.WorkspaceRepository;
+import io.threadcast.service.terminal.TodoTerminalService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -62,6 +63,9 @@ class MissionServiceTest {
     @Mock
     private GitWorktreeService worktreeService;
 
+    @Mock
+    private TodoTerminalService terminalService;
+
     @InjectMocks
     private MissionService missionService;
 
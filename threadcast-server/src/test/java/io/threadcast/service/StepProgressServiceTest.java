@@ -1,5 +1,6 @@
 package io.threadcast.service;
 
+import io.threadcast.config.StepConfig;
 import io.threadcast.domain.*;
 import io.threadcast.domain.enums.*;
 import io.threadcast.dto.request.StepUpdateWebhookRequest;
@@ -8,6 +9,7 @@ import io.threadcast.exception.NotFoundException;
 import io.threadcast.repository.TerminalSessionMappingRepository;
 import io.threadcast.repository.TodoRepository;
 import io.threadcast.repository.TodoStepRepository;
+import io.threadcast.service.step.StepTransitionMailbox;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -15,10 +17,14 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -59,6 +65,12 @@ class StepProgressServiceTest {
     @Mock
     private TodoOrchestrationService orchestrationService;
 
+    @Mock
+    private StepTransitionMailbox stepMailbox;
+
+    @Spy
+    private StepConfig stepConfig = new StepConfig();
+
     @InjectMocks
     private StepProgressService stepProgressService;
 
@@ -71,6 +83,10 @@ class StepProgressServiceTest {
 
     @BeforeEach
     void setUp() {
+        // Apply transitions on the calling thread
+        lenient().when(stepMailbox.call(any(), any()))
+                .thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(1)).get());
+
         testUser = User.builder()
                 .id(UUID.randomUUID())
                 .email("test@example.com")
@@ -597,6 +613,137 @@ class StepProgressServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("processStepUpdate with conditional updates")
+    class ConditionalUpdateTests {
+
+        private final UUID stepId = UUID.randomUUID();
+
+        @BeforeEach
+        void useConditionalUpdates() {
+            stepConfig.setUpdateMode(StepConfig.UpdateMode.CONDITIONAL);
+        }
+
+        @Test
+        @DisplayName("a progress report on a running step issues no UPDATE and loads no entity")
+        void progressOnRunningStep() {
+            when(todoStepRepository.findStepState(testTodo.getId(), StepType.ANALYSIS))
+                    .thenReturn(Optional.of(state(StepStatus.IN_PROGRESS, TodoStatus.THREADING)));
+            when(todoStepRepository.countSteps(testTodo.getId())).thenReturn(counts(6, 0, 0));
+
+            StepProgressResponse response = stepProgressService.processStepUpdate(createRequest(
+                    testTodo.getId().toString(), StepType.ANALYSIS, StepStatus.IN_PROGRESS, 60, "Reading files"));
+
+            assertThat(response.getStepId()).isEqualTo(stepId);
+            assertThat(response.getMissionId()).isEqualTo(testMission.getId());
+            assertThat(response.getProgress()).isEqualTo(60);
+            assertThat(response.getTotalSteps()).isEqualTo(6);
+            verify(todoStepRepository, never()).startIfStatus(any(), any(), any());
+            verify(todoRepository, never()).atomicStartTodo(any());
+            verify(todoRepository, never()).findByIdWithSteps(any());
+            verify(todoRepository, never()).findByIdWithMission(any());
+            verify(timelineService, never()).recordStepEvent(any(), any(), any(), any(), any());
+            verify(webSocketService).notifyStepProgress(testMission.getId(), response);
+        }
+
+        @Test
+        @DisplayName("starting a step is guarded by its current status and skips earlier pending steps")
+        void startStep() {
+            when(todoStepRepository.findStepState(testTodo.getId(), StepType.IMPLEMENTATION))
+                    .thenReturn(Optional.of(state(StepStatus.PENDING, TodoStatus.PENDING)));
+            when(todoStepRepository.startIfStatus(eq(stepId), eq(StepStatus.PENDING), any())).thenReturn(1);
+            when(todoRepository.atomicStartTodo(testTodo.getId())).thenReturn(1);
+            when(todoStepRepository.countSteps(testTodo.getId())).thenReturn(counts(6, 0, 2));
+            when(todoRepository.findByIdWithMission(testTodo.getId())).thenReturn(Optional.of(testTodo));
+
+            StepProgressResponse response = stepProgressService.processStepUpdate(createRequest(
+                    testTodo.getId().toString(), StepType.IMPLEMENTATION, StepStatus.IN_PROGRESS, 0, null));
+
+            assertThat(response.getStatus()).isEqualTo(StepStatus.IN_PROGRESS);
+            assertThat(response.getStartedAt()).isNotNull();
+            verify(todoStepRepository).skipPending(eq(testTodo.getId()),
+                    eq(List.of(StepType.ANALYSIS, StepType.DESIGN)), any());
+            verify(timelineService).recordStepEvent(eq(testTodo), eq(StepType.IMPLEMENTATION),
+                    eq(StepStatus.IN_PROGRESS), contains("started"), any());
+        }
+
+        @Test
+        @DisplayName("a step changed concurrently is read again before updating")
+        void retryAfterConcurrentChange() {
+            when(todoStepRepository.findStepState(testTodo.getId(), StepType.ANALYSIS))
+                    .thenReturn(Optional.of(state(StepStatus.PENDING, TodoStatus.THREADING)))
+                    .thenReturn(Optional.of(state(StepStatus.IN_PROGRESS, TodoStatus.THREADING)));
+            when(todoStepRepository.startIfStatus(eq(stepId), eq(StepStatus.PENDING), any())).thenReturn(0);
+            when(todoStepRepository.countSteps(testTodo.getId())).thenReturn(counts(6, 0, 0));
+
+            stepProgressService.processStepUpdate(createRequest(
+                    testTodo.getId().toString(), StepType.ANALYSIS, StepStatus.IN_PROGRESS, 10, null));
+
+            verify(todoStepRepository, times(2)).findStepState(testTodo.getId(), StepType.ANALYSIS);
+            verify(todoStepRepository, times(1)).startIfStatus(any(), any(), any());
+            // The other writer started the step, so this update is not a status change
+            verify(timelineService, never()).recordStepEvent(any(), any(), any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("completing the last open step completes the todo from the aggregate count")
+        void completeLastStep() {
+            when(todoStepRepository.findStepState(testTodo.getId(), StepType.INTEGRATION))
+                    .thenReturn(Optional.of(state(StepStatus.IN_PROGRESS, TodoStatus.THREADING)));
+            when(todoStepRepository.completeIfStatus(eq(stepId), eq(StepStatus.IN_PROGRESS), eq("merged"), any()))
+                    .thenReturn(1);
+            when(todoStepRepository.countSteps(testTodo.getId())).thenReturn(counts(6, 5, 6));
+            when(todoRepository.findByIdWithMission(testTodo.getId())).thenReturn(Optional.of(testTodo));
+            testTodo.startThreading();
+
+            StepUpdateWebhookRequest request = createRequest(
+                    testTodo.getId().toString(), StepType.INTEGRATION, StepStatus.COMPLETED, 100, null);
+            request.setOutput("merged");
+            StepProgressResponse response = stepProgressService.processStepUpdate(request);
+
+            assertThat(response.getOutput()).isEqualTo("merged");
+            assertThat(response.getCompletedSteps()).isEqualTo(5);
+            assertThat(testTodo.getStatus()).isEqualTo(TodoStatus.WOVEN);
+            verify(todoRepository).save(testTodo);
+            verify(orchestrationService).onTodoCompleted(testTodo);
+            verify(todoRepository, times(1)).findByIdWithMission(testTodo.getId());
+        }
+
+        @Test
+        @DisplayName("should throw NotFoundException when the step's todo does not exist")
+        void unknownTodo() {
+            UUID unknownId = UUID.randomUUID();
+            when(todoStepRepository.findStepState(unknownId, StepType.ANALYSIS)).thenReturn(Optional.empty());
+            when(todoRepository.existsById(unknownId)).thenReturn(false);
+
+            assertThatThrownBy(() -> stepProgressService.processStepUpdate(createRequest(
+                    unknownId.toString(), StepType.ANALYSIS, StepStatus.IN_PROGRESS, 0, null)))
+                    .isInstanceOf(NotFoundException.class)
+                    .hasMessageContaining("Todo not found");
+        }
+
+        private TodoStepRepository.StepState state(StepStatus status, TodoStatus todoStatus) {
+            UUID missionId = testMission.getId();
+            return new TodoStepRepository.StepState() {
+                public UUID getId() { return stepId; }
+                public StepStatus getStatus() { return status; }
+                public LocalDateTime getStartedAt() { return null; }
+                public LocalDateTime getCompletedAt() { return null; }
+                public String getOutput() { return null; }
+                public TodoStatus getTodoStatus() { return todoStatus; }
+                public UUID getMissionId() { return missionId; }
+            };
+        }
+
+        private TodoStepRepository.StepCounts counts(long total, long completed, long finished) {
+            return new TodoStepRepository.StepCounts() {
+                public long getTotal() { return total; }
+                public long getCompleted() { return completed; }
+                public long getFinished() { return finished; }
+            };
+        }
+    }
+
     // Helper method to create StepUpdateWebhookRequest
     private StepUpdateWebhookRequest createRequest(String todoId, StepType stepType,
                                                     StepStatus status, Integer progress, String message) {
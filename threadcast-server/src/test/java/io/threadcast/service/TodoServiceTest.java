@@ -14,10 +14,12 @@ import io.threadcast.repository.AIQuestionRepository;
 import io.threadcast.repository.MissionRepository;
 import io.threadcast.repository.TimelineEventRepository;
 import io.threadcast.repository.TodoRepository;
+import io.threadcast.service.terminal.TodoTerminalService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -54,6 +56,9 @@ class TodoServiceTest {
     @Mock
     private TodoOrchestrationService orchestrationService;
 
+    @Mock
+    private TodoTerminalService terminalService;
+
     @InjectMocks
     private TodoService todoService;
 
@@ -267,5 +272,10 @@ class TodoServiceTest {
 
         verify(todoRepository).delete(testTodo);
         verify(webSocketService).notifyTodoDeleted(testMission.getId(), testTodo.getId());
+        verify(terminalService).evictRoute(testTodo.getId());
+        InOrder order = inOrder(timelineService, timelineEventRepository);
+        order.verify(timelineService).removeTodoFromStats(testTodo.getId());
+        order.verify(timelineEventRepository).deleteByTodoId(testTodo.getId());
+        verify(timelineService).removeTodoFromArchive(testMission.getWorkspace().getId(), testTodo.getId());
     }
 }
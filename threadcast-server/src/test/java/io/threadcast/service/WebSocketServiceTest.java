@@ -0,0 +1,189 @@
+package io.threadcast.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.threadcast.config.WebSocketBrokerConfig;
+import io.threadcast.domain.enums.StepStatus;
+import io.threadcast.domain.enums.StepType;
+import io.threadcast.dto.response.StepProgressResponse;
+import io.threadcast.service.websocket.WebSocketEventLog;
+import io.threadcast.service.websocket.WebSocketOutboundConflator;
+import io.threadcast.service.websocket.WebSocketSubscriptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WebSocketServiceTest {
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private WebSocketService webSocketService;
+
+    @BeforeEach
+    void setUp() {
+        webSocketService = new WebSocketService(messagingTemplate, objectMapper,
+                new WebSocketEventLog(new WebSocketBrokerConfig(), new SimpleMeterRegistry()),
+                new WebSocketSubscriptions(new StaticListableBeanFactory(), new SimpleMeterRegistry()));
+    }
+
+    @Test
+    @DisplayName("an event sent to several topics is serialized once and shares the same bytes")
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    void notifyStepProgress_serializesOnceForAllDestinations() throws Exception {
+        UUID missionId = UUID.randomUUID();
+        StepProgressResponse progress = StepProgressResponse.builder()
+                .todoId(UUID.randomUUID())
+                .missionId(missionId)
+                .stepType(StepType.IMPLEMENTATION)
+                .status(StepStatus.IN_PROGRESS)
+                .progress(50)
+                .build();
+
+        webSocketService.notifyStepProgress(missionId, progress);
+
+        ArgumentCaptor<String> destinations = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Message> messages = ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate, times(2)).send(destinations.capture(), messages.capture());
+        verify(messagingTemplate, never()).convertAndSend(anyString(), any(Object.class));
+
+        assertThat(destinations.getAllValues()).containsExactly(
+                "/topic/missions/" + missionId, "/topic/todos/" + progress.getTodoId());
+        List<Message> sent = messages.getAllValues();
+        assertThat(sent.get(0).getPayload()).isSameAs(sent.get(1).getPayload());
+
+        JsonNode event = objectMapper.readTree((byte[]) sent.get(0).getPayload());
+        assertThat(event.get("eventType").asText()).isEqualTo("STEP_PROGRESS");
+        assertThat(event.get("eventId").asText()).isNotBlank();
+        assertThat(event.get("timestamp").isTextual()).isTrue();
+        assertThat(event.get("payload").get("progress").asInt()).isEqualTo(50);
+    }
+
+    @Test
+    @DisplayName("step progress is marked for conflation per todo and step")
+    @SuppressWarnings("rawtypes")
+    void notifyStepProgress_carriesConflationKey() {
+        UUID todoId = UUID.randomUUID();
+        StepProgressResponse progress = StepProgressResponse.builder()
+                .todoId(todoId)
+                .stepType(StepType.IMPLEMENTATION)
+                .status(StepStatus.IN_PROGRESS)
+                .progress(10)
+                .build();
+
+        webSocketService.notifyStepProgress(UUID.randomUUID(), progress);
+
+        ArgumentCaptor<Message> messages = ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate, times(2)).send(anyString(), messages.capture());
+        assertThat(SimpMessageHeaderAccessor.wrap(messages.getValue())
+                .getFirstNativeHeader(WebSocketOutboundConflator.CONFLATION_KEY_HEADER))
+                .isEqualTo("STEP_PROGRESS:" + todoId + ":IMPLEMENTATION");
+    }
+
+    @Test
+    @DisplayName("the payload is only built and sent for destinations with a live subscriber")
+    void publish_skipsUnwatchedDestinations() {
+        SimpleBrokerMessageHandler broker = new SimpleBrokerMessageHandler(
+                mock(SubscribableChannel.class), mock(MessageChannel.class), mock(SubscribableChannel.class),
+                List.of("/topic"));
+        broker.start();
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("simpleBrokerMessageHandler", broker);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        WebSocketService service = new WebSocketService(messagingTemplate, objectMapper,
+                new WebSocketEventLog(new WebSocketBrokerConfig(), meterRegistry),
+                new WebSocketSubscriptions(beanFactory, meterRegistry));
+        AtomicInteger built = new AtomicInteger();
+
+        service.publish("TODO_UPDATED", () -> built.incrementAndGet(), "/topic/todos/t1", "/topic/missions/m1");
+        assertThat(built).hasValue(0);
+        verify(messagingTemplate, never()).send(anyString(), any(Message.class));
+
+        SimpMessageHeaderAccessor subscribe = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        subscribe.setSessionId("session-1");
+        subscribe.setSubscriptionId("sub-1");
+        subscribe.setDestination("/topic/missions/m1");
+        broker.handleMessage(MessageBuilder.createMessage(new byte[0], subscribe.getMessageHeaders()));
+
+        service.publish("TODO_UPDATED", () -> built.incrementAndGet(), "/topic/todos/t1", "/topic/missions/m1");
+        assertThat(built).hasValue(1);
+        verify(messagingTemplate).send(eq("/topic/missions/m1"), any(Message.class));
+        verify(messagingTemplate, never()).send(eq("/topic/todos/t1"), any(Message.class));
+        assertThat(meterRegistry.counter("threadcast.websocket.publish", "type", "TODO_UPDATED", "result", "skipped").count())
+                .isEqualTo(3);
+        assertThat(meterRegistry.counter("threadcast.websocket.publish", "type", "TODO_UPDATED", "result", "delivered").count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("events published while a tracked topic has no subscriber are replayed when the client resumes")
+    @SuppressWarnings("rawtypes")
+    void publish_trackedTopicWithoutSubscriber_isReplayed() throws Exception {
+        SimpleBrokerMessageHandler broker = new SimpleBrokerMessageHandler(
+                mock(SubscribableChannel.class), mock(MessageChannel.class), mock(SubscribableChannel.class),
+                List.of("/topic"));
+        broker.start();
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("simpleBrokerMessageHandler", broker);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        WebSocketEventLog eventLog = new WebSocketEventLog(new WebSocketBrokerConfig(), meterRegistry);
+        WebSocketService service = new WebSocketService(messagingTemplate, objectMapper, eventLog,
+                new WebSocketSubscriptions(beanFactory, meterRegistry));
+        String topic = "/topic/missions/m1";
+
+        SimpMessageHeaderAccessor subscribe = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        subscribe.setSessionId("session-1");
+        subscribe.setSubscriptionId("sub-1");
+        subscribe.setDestination(topic);
+        broker.handleMessage(MessageBuilder.createMessage(new byte[0], subscribe.getMessageHeaders()));
+        service.publish("TODO_UPDATED", () -> "first", topic);
+
+        SimpMessageHeaderAccessor disconnect = SimpMessageHeaderAccessor.create(SimpMessageType.DISCONNECT);
+        disconnect.setSessionId("session-1");
+        broker.handleMessage(MessageBuilder.createMessage(new byte[0], disconnect.getMessageHeaders()));
+        service.publish("TODO_UPDATED", () -> "missed", topic);
+
+        ArgumentCaptor<Message> messages = ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate).send(eq(topic), messages.capture());
+        SimpMessageHeaderAccessor delivered = SimpMessageHeaderAccessor.wrap(messages.getValue());
+        String epoch = delivered.getFirstNativeHeader(WebSocketEventLog.EPOCH_HEADER);
+        assertThat(delivered.getFirstNativeHeader(WebSocketEventLog.SEQ_HEADER)).isEqualTo("1");
+
+        WebSocketEventLog.Replay replay;
+        try (WebSocketEventLog.Resume resume = eventLog.lockForResume(topic)) {
+            replay = resume.since(epoch, 1);
+        }
+        assertThat(replay.snapshotRequired()).isFalse();
+        assertThat(replay.entries()).extracting(WebSocketEventLog.Entry::seq).containsExactly(2L);
+        assertThat(objectMapper.readTree(replay.entries().get(0).body()).get("payload").asText()).isEqualTo("missed");
+    }
+}
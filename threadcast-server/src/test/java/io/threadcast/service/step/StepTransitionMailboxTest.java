@@ -0,0 +1,228 @@
+package io.threadcast.service.step;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.threadcast.config.StepConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class StepTransitionMailboxTest {
+
+    private final AtomicInteger commits = new AtomicInteger();
+    private final AtomicInteger rollbacks = new AtomicInteger();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    private StepConfig config;
+    private StepTransitionMailbox mailbox;
+
+    @BeforeEach
+    void setUp() {
+        config = new StepConfig();
+    }
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        if (mailbox != null) {
+            mailbox.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("a todo's transitions never overlap and keep their order while a slow todo does not hold up others")
+    void call_serialisedPerTodoParallelAcrossTodos() throws Exception {
+        config.getMailbox().setWorkers(2);
+        start();
+        UUID slowTodo = UUID.randomUUID();
+        UUID fastTodo = UUID.randomUUID();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Integer> applied = new CopyOnWriteArrayList<>();
+
+        Future<?> slow = callers.submit(() -> mailbox.call(slowTodo, () -> {
+            awaitQuietly(release);
+            return null;
+        }));
+        waitFor(() -> mailbox.getActiveMailboxes() == 1);
+
+        List<Future<?>> fast = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            int sequence = i;
+            fast.add(callers.submit(() -> mailbox.call(fastTodo, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                applied.add(sequence);
+                running.decrementAndGet();
+                return null;
+            })));
+            // Each caller is queued before the next one starts
+            Thread.sleep(10);
+        }
+        for (Future<?> future : fast) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+
+        assertThat(slow.isDone()).isFalse();
+        assertThat(maxRunning.get()).isEqualTo(1);
+        assertThat(applied).isSorted().hasSize(20);
+        release.countDown();
+        slow.get(5, TimeUnit.SECONDS);
+        waitFor(() -> mailbox.getActiveMailboxes() == 0);
+    }
+
+    @Test
+    @DisplayName("transitions queued behind a running one are committed together in one transaction")
+    void call_batchesQueuedTransitions() throws Exception {
+        start();
+        UUID todoId = UUID.randomUUID();
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<?> first = callers.submit(() -> mailbox.call(todoId, () -> {
+            awaitQuietly(release);
+            return null;
+        }));
+        waitFor(() -> mailbox.getActiveMailboxes() == 1);
+        List<Future<String>> queued = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            String result = "t" + i;
+            queued.add(callers.submit(() -> mailbox.call(todoId, () -> result)));
+        }
+        Thread.sleep(50);
+        release.countDown();
+
+        first.get(5, TimeUnit.SECONDS);
+        for (int i = 0; i < 5; i++) {
+            assertThat(queued.get(i).get(5, TimeUnit.SECONDS)).isEqualTo("t" + i);
+        }
+        assertThat(commits.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("a failing transition rolls its batch back and only its own caller sees the error")
+    void call_replaysBatchAfterFailure() throws Exception {
+        start();
+        UUID todoId = UUID.randomUUID();
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<?> first = callers.submit(() -> mailbox.call(todoId, () -> {
+            awaitQuietly(release);
+            return null;
+        }));
+        waitFor(() -> mailbox.getActiveMailboxes() == 1);
+        Future<String> before = callers.submit(() -> mailbox.call(todoId, () -> "before"));
+        Thread.sleep(20);
+        Future<String> failing = callers.submit(() -> mailbox.call(todoId, () -> {
+            throw new IllegalArgumentException("bad step");
+        }));
+        Thread.sleep(20);
+        Future<String> after = callers.submit(() -> mailbox.call(todoId, () -> "after"));
+        Thread.sleep(50);
+        release.countDown();
+
+        first.get(5, TimeUnit.SECONDS);
+        assertThat(before.get(5, TimeUnit.SECONDS)).isEqualTo("before");
+        assertThat(after.get(5, TimeUnit.SECONDS)).isEqualTo("after");
+        assertThatThrownBy(() -> failing.get(5, TimeUnit.SECONDS))
+                .hasRootCauseInstanceOf(IllegalArgumentException.class);
+        // Batch rolled back, then the failing transition rolled back again on replay
+        assertThat(rollbacks.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("when disabled, transitions run on the caller in their own transaction")
+    void call_disabledRunsInline() {
+        config.getMailbox().setEnabled(false);
+        start();
+
+        String thread = mailbox.call(UUID.randomUUID(), () -> Thread.currentThread().getName());
+
+        assertThat(thread).isEqualTo(Thread.currentThread().getName());
+        assertThat(commits.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("every transaction locks the todo's row before applying, also when the caller's transaction is joined")
+    void call_locksTodoRow() {
+        start();
+        UUID queued = UUID.randomUUID();
+        UUID inline = UUID.randomUUID();
+
+        mailbox.call(queued, () -> null);
+        // A SwiftCast webhook applies its transitions in the processor's transaction
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            mailbox.call(inline, () -> null);
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+
+        verify(jdbcTemplate).queryForList(contains("FOR UPDATE"), eq(UUID.class), eq(queued));
+        verify(jdbcTemplate).queryForList(contains("FOR UPDATE"), eq(UUID.class), eq(inline));
+    }
+
+    private void start() {
+        mailbox = new StepTransitionMailbox(new TransactionTemplate(new CountingTransactionManager()),
+                jdbcTemplate, config, new SimpleMeterRegistry());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private class CountingTransactionManager implements PlatformTransactionManager {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            commits.incrementAndGet();
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+            rollbacks.incrementAndGet();
+        }
+    }
+}
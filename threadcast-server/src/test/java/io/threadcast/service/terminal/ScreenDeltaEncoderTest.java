@@ -0,0 +1,113 @@
+package io.threadcast.service.terminal;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScreenDeltaEncoderTest {
+
+    private static final String BORDER = "─".repeat(80);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("the first frame is a keyframe, then only changed lines are sent")
+    void next_sendsChangedLines() throws Exception {
+        ScreenDeltaEncoder encoder = new ScreenDeltaEncoder(100, 60_000);
+
+        assertThat(encoder.next(screen(BORDER, "a", BORDER), 0, true).isKeyframe()).isTrue();
+        ScreenDeltaEncoder.Encoded encoded = encoder.next(screen(BORDER, "B", BORDER), 10, true);
+
+        JsonNode delta = objectMapper.readTree(encoded.delta());
+        assertThat(encoded.seq()).isEqualTo(2);
+        assertThat(delta.get("base").asLong()).isEqualTo(1);
+        assertThat(delta.get("rows").asInt()).isEqualTo(3);
+        assertThat(delta.get("lines")).hasSize(1);
+        assertThat(delta.get("lines").get(0).get(0).asInt()).isEqualTo(1);
+        assertThat(decode(delta.get("lines").get(0).get(1).asText())).isEqualTo("B");
+    }
+
+    @Test
+    @DisplayName("applying the deltas in order rebuilds every frame")
+    void next_deltasRebuildFrames() throws Exception {
+        ScreenDeltaEncoder encoder = new ScreenDeltaEncoder(100, 60_000);
+        List<String[]> frames = List.of(
+                new String[]{BORDER, "$ claude", "", "> thinking"},
+                new String[]{BORDER, "$ claude", "", "> thinking.", "Edit Foo.java"},
+                new String[]{BORDER, "$ claude", "> done"},
+                new String[]{BORDER, "$ claude", "> done"});
+
+        List<String> client = null;
+        for (String[] frame : frames) {
+            ScreenDeltaEncoder.Encoded encoded = encoder.next(screen(frame), 0, true);
+            if (encoded.isKeyframe()) {
+                client = new ArrayList<>(Arrays.asList(frame));
+            } else if (!encoded.isUnchanged()) {
+                client = apply(client, objectMapper.readTree(encoded.delta()));
+            }
+            assertThat(client).containsExactly(frame);
+        }
+    }
+
+    @Test
+    @DisplayName("a keyframe is sent every N frames, on request, and when no delta viewer was watching")
+    void next_keyframes() {
+        ScreenDeltaEncoder encoder = new ScreenDeltaEncoder(3, 60_000);
+
+        List<Boolean> keyframes = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            keyframes.add(encoder.next(screen(BORDER, "line " + i), i, true).isKeyframe());
+        }
+        encoder.requestKeyframe();
+        keyframes.add(encoder.next(screen(BORDER, "x"), 6, true).isKeyframe());
+        keyframes.add(encoder.next(screen(BORDER, "y"), 7, false).isKeyframe());
+
+        assertThat(keyframes).containsExactly(true, false, false, true, false, false, true, true);
+    }
+
+    @Test
+    @DisplayName("a delta that would be larger than the frame is sent as a keyframe")
+    void next_smallFrame_keyframe() {
+        ScreenDeltaEncoder encoder = new ScreenDeltaEncoder(100, 60_000);
+        encoder.next(screen("a", "b"), 0, true);
+
+        assertThat(encoder.next(screen("a", "c"), 1, true).isKeyframe()).isTrue();
+    }
+
+    @Test
+    @DisplayName("an identical frame produces an empty delta")
+    void next_unchanged() {
+        ScreenDeltaEncoder encoder = new ScreenDeltaEncoder(100, 60_000);
+        encoder.next(screen("a", "b"), 0, true);
+
+        assertThat(encoder.next(screen("a", "b"), 1, true).isUnchanged()).isTrue();
+    }
+
+    private static List<String> apply(List<String> lines, JsonNode delta) {
+        List<String> result = new ArrayList<>(lines.subList(0, Math.min(lines.size(), delta.get("rows").asInt())));
+        while (result.size() < delta.get("rows").asInt()) {
+            result.add("");
+        }
+        for (JsonNode line : delta.get("lines")) {
+            result.set(line.get(0).asInt(), decode(line.get(1).asText()));
+        }
+        return result;
+    }
+
+    private static String screen(String... lines) {
+        return Base64.getEncoder().encodeToString(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String base64) {
+        return new String(Base64.getDecoder().decode(base64), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,136 @@
+package io.threadcast.service.terminal;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.threadcast.config.TerminalConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SessionRouteCacheTest {
+
+    private SessionRouteCache cache;
+    private SimpleMeterRegistry meterRegistry;
+    private TerminalConfig terminalConfig;
+    private final UUID todoId = UUID.randomUUID();
+    private final UUID missionId = UUID.randomUUID();
+    private final UUID workspaceId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        terminalConfig = new TerminalConfig();
+        cache = new SessionRouteCache(terminalConfig, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("a registered session routes by todo, SwiftCast session, trace and tmux name")
+    void put_routesByEveryKey() {
+        cache.put(route("todo-1", null));
+        cache.updateSwiftcastSessionId(todoId, "claude-session");
+        cache.addTraceId(todoId, "trace-1");
+
+        assertThat(cache.get(todoId)).get().extracting(SessionRouteCache.Route::swiftcastSessionId)
+                .isEqualTo("claude-session");
+        assertThat(cache.findBySwiftcastSessionId("claude-session")).get()
+                .extracting(SessionRouteCache.Route::workspaceId).isEqualTo(workspaceId);
+        assertThat(cache.findByTraceId("trace-1")).get()
+                .extracting(SessionRouteCache.Route::missionId).isEqualTo(missionId);
+        assertThat(cache.findByTmuxSessionName("todo-1")).get()
+                .extracting(SessionRouteCache.Route::todoId).isEqualTo(todoId);
+        assertThat(cache.hasTraceId(todoId, "trace-1")).isTrue();
+        assertThat(meterRegistry.get("threadcast.terminal.routes.lookups").tag("result", "hit").counter().count())
+                .isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("re-registering a session moves its key and forgets the old one")
+    void updateSwiftcastSessionId_replacesOldKey() {
+        cache.put(route("todo-1", "old-session"));
+
+        cache.updateSwiftcastSessionId(todoId, "new-session");
+
+        assertThat(cache.findBySwiftcastSessionId("old-session")).isEmpty();
+        assertThat(cache.findBySwiftcastSessionId("new-session")).isPresent();
+    }
+
+    @Test
+    @DisplayName("stopping a session drops every key that points at it")
+    void evict_removesAllKeys() {
+        cache.put(route("todo-1", "claude-session"));
+        cache.addTraceId(todoId, "trace-1");
+
+        cache.evict(todoId);
+
+        assertThat(cache.get(todoId)).isEmpty();
+        assertThat(cache.findBySwiftcastSessionId("claude-session")).isEmpty();
+        assertThat(cache.findByTraceId("trace-1")).isEmpty();
+        assertThat(cache.findByTmuxSessionName("todo-1")).isEmpty();
+        assertThat(cache.hasTraceId(todoId, "trace-1")).isFalse();
+        // Trace IDs of an evicted todo are not recorded until its route is cached again
+        assertThat(cache.addTraceId(todoId, "trace-2")).isFalse();
+    }
+
+    @Test
+    @DisplayName("a route read from the database does not overwrite a newer registration")
+    void putIfAbsent_keepsNewerRoute() {
+        cache.put(route("todo-1", "new-session"));
+
+        cache.putIfAbsent(route("todo-1", "old-session"));
+
+        assertThat(cache.get(todoId)).get().extracting(SessionRouteCache.Route::swiftcastSessionId)
+                .isEqualTo("new-session");
+        assertThat(cache.findBySwiftcastSessionId("old-session")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("an unmapped key is remembered until its TTL passes")
+    void recordMiss_expiresAfterTtl() throws Exception {
+        terminalConfig.getRoute().setMissTtlMs(50);
+
+        cache.recordMiss(SessionRouteCache.Lookup.SWIFTCAST_SESSION, "unregistered");
+
+        assertThat(cache.isKnownMiss(SessionRouteCache.Lookup.SWIFTCAST_SESSION, "unregistered")).isTrue();
+        assertThat(cache.isKnownMiss(SessionRouteCache.Lookup.TRACE, "unregistered")).isFalse();
+        Thread.sleep(80);
+        assertThat(cache.isKnownMiss(SessionRouteCache.Lookup.SWIFTCAST_SESSION, "unregistered")).isFalse();
+    }
+
+    @Test
+    @DisplayName("caching a route forgets the misses of its keys")
+    void put_forgetsMisses() {
+        cache.recordMiss(SessionRouteCache.Lookup.TODO, todoId.toString());
+        cache.recordMiss(SessionRouteCache.Lookup.TMUX_SESSION, "todo-1");
+        cache.recordMiss(SessionRouteCache.Lookup.SWIFTCAST_SESSION, "claude-session");
+        cache.recordMiss(SessionRouteCache.Lookup.TRACE, "trace-1");
+
+        cache.put(route("todo-1", null));
+        cache.updateSwiftcastSessionId(todoId, "claude-session");
+        cache.addTraceId(todoId, "trace-1");
+
+        assertThat(cache.isKnownMiss(SessionRouteCache.Lookup.TODO, todoId.toString())).isFalse();
+        assertThat(cache.isKnownMiss(SessionRouteCache.Lookup.TMUX_SESSION, "todo-1")).isFalse();
+        assertThat(cache.isKnownMiss(SessionRouteCache.Lookup.SWIFTCAST_SESSION, "claude-session")).isFalse();
+        assertThat(cache.isKnownMiss(SessionRouteCache.Lookup.TRACE, "trace-1")).isFalse();
+    }
+
+    @Test
+    @DisplayName("remembered misses never exceed the configured bound")
+    void recordMiss_bounded() {
+        terminalConfig.getRoute().setMaxMisses(3);
+
+        for (int i = 0; i < 10; i++) {
+            cache.recordMiss(SessionRouteCache.Lookup.TRACE, "trace-" + i);
+        }
+
+        assertThat(meterRegistry.get("threadcast.terminal.routes.misses").gauge().value()).isLessThanOrEqualTo(3);
+        assertThat(cache.isKnownMiss(SessionRouteCache.Lookup.TRACE, "trace-9")).isTrue();
+    }
+
+    private SessionRouteCache.Route route(String tmuxSessionName, String swiftcastSessionId) {
+        return new SessionRouteCache.Route(todoId, missionId, workspaceId, "title", tmuxSessionName, swiftcastSessionId);
+    }
+}
@@ -0,0 +1,124 @@
+package io.threadcast.service.terminal;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.sessioncast.core.SessionCastClient;
+import io.sessioncast.core.event.Disposable;
+import io.sessioncast.core.screen.ScreenData;
+import io.threadcast.config.TerminalConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TerminalReadinessTest {
+
+    private static final String SESSION = "todo-abc";
+
+    @Mock
+    private SessionCastClient sessionCast;
+
+    @Mock
+    private Disposable subscription;
+
+    private TerminalReadiness readiness;
+
+    @BeforeEach
+    void setUp() {
+        readiness = new TerminalReadiness(sessionCast, new TerminalConfig(), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        readiness.shutdown();
+    }
+
+    @Test
+    @DisplayName("the launch continues as soon as Claude Code's prompt is on screen")
+    void awaitClaudeReady_completesOnPrompt() throws Exception {
+        when(sessionCast.onScreen(eq(SESSION), any())).thenReturn(subscription);
+        CompletableFuture<Boolean> ready = readiness.awaitClaudeReady(SESSION, Duration.ofMinutes(1));
+
+        screenHandler().accept(frame("$ claude --dangerously-skip-permissions"));
+        assertThat(ready).isNotDone();
+
+        screenHandler().accept(frame("  ? for shortcuts"));
+        assertThat(ready.get(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    @DisplayName("escape sequences between words do not hide the prompt")
+    void visibleText_stripsEscapes() throws Exception {
+        when(sessionCast.onScreen(eq(SESSION), any())).thenReturn(subscription);
+        CompletableFuture<Boolean> ready = readiness.awaitClaudeReady(SESSION, Duration.ofMinutes(1));
+
+        screenHandler().accept(frame("\u001b[2m  ? for\u001b[0m\u001b[2m shortcuts\u001b[0m"));
+
+        assertThat(ready.get(1, TimeUnit.SECONDS)).isTrue();
+        verify(subscription).dispose();
+    }
+
+    @Test
+    @DisplayName("without a matching screen the wait ends at the timeout, like the fixed sleep")
+    void awaitClaudeReady_timesOut() throws Exception {
+        when(sessionCast.onScreen(eq(SESSION), any())).thenReturn(subscription);
+
+        CompletableFuture<Boolean> ready = readiness.awaitClaudeReady(SESSION, Duration.ofMillis(50));
+
+        assertThat(ready.get(1, TimeUnit.SECONDS)).isFalse();
+        verify(subscription).dispose();
+    }
+
+    @Test
+    @DisplayName("a fired signal releases its waiters and leaves other signals waiting")
+    void expect_completesOnFire() throws Exception {
+        CompletableFuture<Boolean> created = readiness.expect("session-created:1", Duration.ofMinutes(1));
+        CompletableFuture<Boolean> other = readiness.expect("session-created:2", Duration.ofMinutes(1));
+
+        readiness.fire("session-created:1");
+
+        assertThat(created.get(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(other).isNotDone();
+    }
+
+    @Test
+    @DisplayName("a fired signal resumes the waiting launch on the readiness thread, not the caller's")
+    void fire_completesOnReadinessThread() throws Exception {
+        CompletableFuture<Boolean> mapped = readiness.expect("session-mapped:1", Duration.ofMinutes(1));
+        CompletableFuture<String> continuedOn = mapped.thenApply(ready -> Thread.currentThread().getName());
+
+        readiness.fire("session-mapped:1");
+
+        assertThat(continuedOn.get(1, TimeUnit.SECONDS)).isEqualTo("terminal-readiness");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Consumer<ScreenData> screenHandler() {
+        ArgumentCaptor<Consumer<ScreenData>> captor = ArgumentCaptor.forClass(Consumer.class);
+        verify(sessionCast).onScreen(eq(SESSION), captor.capture());
+        return captor.getValue();
+    }
+
+    private static ScreenData frame(String screen) {
+        ScreenData data = mock(ScreenData.class);
+        when(data.getBase64Content())
+                .thenReturn(Base64.getEncoder().encodeToString(screen.getBytes(StandardCharsets.UTF_8)));
+        return data;
+    }
+}
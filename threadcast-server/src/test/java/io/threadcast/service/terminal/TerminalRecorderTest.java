@@ -0,0 +1,193 @@
+package io.threadcast.service.terminal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.threadcast.config.TerminalConfig;
+import io.threadcast.domain.Todo;
+import io.threadcast.domain.enums.TodoStatus;
+import io.threadcast.repository.TodoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TerminalRecorderTest {
+
+    private static final String BORDER = "─".repeat(80);
+    private static final long T0 = 1_760_000_000_000L;
+
+    @TempDir
+    Path dir;
+
+    @Mock
+    private TodoRepository todoRepository;
+
+    private TerminalConfig config;
+    private TerminalRecorder recorder;
+    private final String todoId = UUID.randomUUID().toString();
+
+    @BeforeEach
+    void setUp() {
+        config = new TerminalConfig();
+        config.getRecording().setDir(dir.toString());
+        config.getRecording().setKeyframeIntervalFrames(4);
+        recorder = new TerminalRecorder(config, todoRepository, new ObjectMapper(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("seeking returns the screen as it was at that moment, across keyframes")
+    void frames_seekToAnyMoment() {
+        TerminalRecorder.Recording recording = recorder.open(todoId);
+        for (int i = 0; i < 10; i++) {
+            recording.append(T0 + i * 1000L, screen("step " + i));
+        }
+        recording.close();
+
+        assertThat(frameAt(T0 - 5000)).isEqualTo(screen("step 0"));
+        assertThat(frameAt(T0)).isEqualTo(screen("step 0"));
+        assertThat(frameAt(T0 + 2500)).isEqualTo(screen("step 2"));
+        assertThat(frameAt(T0 + 6000)).isEqualTo(screen("step 6"));
+        assertThat(frameAt(T0 + 60_000)).isEqualTo(screen("step 9"));
+    }
+
+    @Test
+    @DisplayName("playback returns the screen at the start time followed by each change")
+    void frames_playback() {
+        TerminalRecorder.Recording recording = recorder.open(todoId);
+        for (int i = 0; i < 10; i++) {
+            recording.append(T0 + i * 1000L, screen("step " + i));
+        }
+
+        List<TerminalRecorder.RecordedFrame> frames = recorder.frames(todoId, Instant.ofEpochMilli(T0 + 3500), 3);
+
+        assertThat(frames).extracting(TerminalRecorder.RecordedFrame::content)
+                .containsExactly(screen("step 3"), screen("step 4"), screen("step 5"));
+        assertThat(frames.get(1).timestamp()).isEqualTo(Instant.ofEpochMilli(T0 + 4000));
+        assertThat(recorder.info(todoId)).hasValueSatisfying(info -> {
+            assertThat(info.startedAt()).isEqualTo(Instant.ofEpochMilli(T0));
+            assertThat(info.keyframes()).isEqualTo(3);
+            assertThat(info.recording()).isTrue();
+        });
+    }
+
+    @Test
+    @DisplayName("a restarted session appends to the same recording")
+    void open_afterClose_appends() {
+        TerminalRecorder.Recording first = recorder.open(todoId);
+        first.append(T0, screen("first run"));
+        first.close();
+
+        TerminalRecorder.Recording second = recorder.open(todoId);
+        second.append(T0 + 60_000, screen("second run"));
+
+        assertThat(frameAt(T0 + 1000)).isEqualTo(screen("first run"));
+        assertThat(frameAt(T0 + 61_000)).isEqualTo(screen("second run"));
+    }
+
+    @Test
+    @DisplayName("the sweeper deletes recordings of deleted todos and keeps running ones")
+    void sweep_followsTodoLifecycle() throws Exception {
+        String deletedTodo = UUID.randomUUID().toString();
+        TerminalRecorder.Recording deleted = recorder.open(deletedTodo);
+        deleted.append(T0, screen("deleted"));
+        deleted.close();
+        TerminalRecorder.Recording finished = recorder.open(todoId);
+        finished.append(T0, screen("finished"));
+        finished.close();
+
+        when(todoRepository.findById(UUID.fromString(deletedTodo))).thenReturn(Optional.empty());
+        when(todoRepository.findById(UUID.fromString(todoId)))
+                .thenReturn(Optional.of(Todo.builder().status(TodoStatus.WOVEN).build()));
+
+        recorder.sweep();
+
+        assertThat(Files.exists(dir.resolve(deletedTodo))).isFalse();
+        assertThat(Files.exists(dir.resolve(todoId))).isTrue();
+    }
+
+    @Test
+    @DisplayName("an incomplete record left by a crash is truncated when the recording is reopened")
+    void open_truncatesIncompleteTail() throws Exception {
+        TerminalRecorder.Recording first = recorder.open(todoId);
+        for (int i = 0; i < 3; i++) {
+            first.append(T0 + i * 1000L, screen("step " + i));
+        }
+        first.close();
+        Path framesFile = dir.resolve(todoId).resolve(TerminalRecorder.FRAMES_FILE);
+        long complete = Files.size(framesFile);
+        Files.write(framesFile, ByteBuffer.allocate(16).putInt(1000).putLong(T0 + 3000).put((byte) 0).array(),
+                StandardOpenOption.APPEND);
+
+        TerminalRecorder.Recording second = recorder.open(todoId);
+        assertThat(Files.size(framesFile)).isEqualTo(complete);
+        second.append(T0 + 4000, screen("step 4"));
+
+        assertThat(recorder.frames(todoId, Instant.ofEpochMilli(T0 - 1), 10))
+                .extracting(TerminalRecorder.RecordedFrame::content)
+                .containsExactly(screen("step 0"), screen("step 1"), screen("step 2"), screen("step 4"));
+    }
+
+    @Test
+    @DisplayName("replay stops at a record with an impossible header instead of misreading what follows")
+    void frames_stopsAtCorruptRecord() throws Exception {
+        TerminalRecorder.Recording recording = recorder.open(todoId);
+        recording.append(T0, screen("step 0"));
+        recording.append(T0 + 1000, screen("step 1"));
+        recording.close();
+        Path framesFile = dir.resolve(todoId).resolve(TerminalRecorder.FRAMES_FILE);
+        Files.write(framesFile, ByteBuffer.allocate(64).putInt(3).putLong(T0 + 2000).put((byte) 7).array(),
+                StandardOpenOption.APPEND);
+
+        assertThat(recorder.frames(todoId, Instant.ofEpochMilli(T0 - 1), 10))
+                .extracting(TerminalRecorder.RecordedFrame::content)
+                .containsExactly(screen("step 0"), screen("step 1"));
+    }
+
+    @Test
+    @DisplayName("the sweeper closes a recording left open after its todo finished, and keeps running ones open")
+    void sweep_closesRecordingOfFinishedTodo() throws Exception {
+        String runningTodo = UUID.randomUUID().toString();
+        TerminalRecorder.Recording running = recorder.open(runningTodo);
+        running.append(T0, screen("running"));
+        TerminalRecorder.Recording finished = recorder.open(todoId);
+        finished.append(T0, screen("finished"));
+
+        when(todoRepository.findById(UUID.fromString(runningTodo)))
+                .thenReturn(Optional.of(Todo.builder().status(TodoStatus.THREADING).build()));
+        when(todoRepository.findById(UUID.fromString(todoId)))
+                .thenReturn(Optional.of(Todo.builder().status(TodoStatus.TANGLED).build()));
+
+        recorder.sweep();
+
+        assertThat(finished.isClosed()).isTrue();
+        assertThat(running.isClosed()).isFalse();
+        assertThat(Files.exists(dir.resolve(todoId))).isTrue();
+    }
+
+    private String frameAt(long epochMs) {
+        return recorder.frames(todoId, Instant.ofEpochMilli(epochMs), 1).get(0).content();
+    }
+
+    private static String screen(String status) {
+        String screen = String.join("\n", BORDER, "$ claude", status, BORDER);
+        return Base64.getEncoder().encodeToString(screen.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,172 @@
+package io.threadcast.service.terminal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.sessioncast.core.event.Disposable;
+import io.sessioncast.core.screen.ScreenData;
+import io.threadcast.config.TerminalConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TerminalScreenHubTest {
+
+    private static final String TODO_ID = "todo-1";
+
+    @Mock
+    private TodoTerminalService terminalService;
+
+    @Mock
+    private Disposable upstream;
+
+    private TerminalScreenHub hub;
+
+    @BeforeEach
+    void setUp() {
+        TerminalConfig config = new TerminalConfig();
+        config.getRecording().setEnabled(false);
+        hub = new TerminalScreenHub(terminalService,
+                new TerminalRecorder(config, null, new ObjectMapper(), new SimpleMeterRegistry()),
+                config, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("viewers of one todo share a single upstream subscription")
+    void join_sharesUpstream() {
+        when(terminalService.subscribeToScreen(eq(TODO_ID), any())).thenReturn(upstream);
+        CountingEmitter first = new CountingEmitter();
+        CountingEmitter second = new CountingEmitter();
+
+        hub.join(TODO_ID, first);
+        hub.join(TODO_ID, second);
+        frameHandler().accept(frame("AAA"));
+
+        verify(terminalService, times(1)).subscribeToScreen(eq(TODO_ID), any());
+        assertThat(first.sends).isEqualTo(1);
+        assertThat(second.sends).isEqualTo(1);
+        assertThat(hub.viewerCount(TODO_ID)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("stopping a recording nobody watches closes it and releases the upstream")
+    void stopRecording_releasesUnwatchedChannel(@TempDir Path dir) {
+        TerminalConfig config = new TerminalConfig();
+        config.getRecording().setDir(dir.toString());
+        TerminalRecorder recorder = new TerminalRecorder(config, null, new ObjectMapper(), new SimpleMeterRegistry());
+        TerminalScreenHub recordingHub = new TerminalScreenHub(terminalService, recorder, config, new SimpleMeterRegistry());
+        String todoId = UUID.randomUUID().toString();
+        when(terminalService.subscribeToScreen(eq(todoId), any())).thenReturn(upstream);
+
+        recordingHub.record(todoId);
+        verify(upstream, never()).dispose();
+
+        recordingHub.stopRecording(todoId);
+
+        verify(upstream).dispose();
+        assertThat(recordingHub.viewerCounts()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("the upstream is disposed only when the last viewer leaves")
+    void leave_lastViewerDisposesUpstream() {
+        when(terminalService.subscribeToScreen(eq(TODO_ID), any())).thenReturn(upstream);
+        CountingEmitter first = new CountingEmitter();
+        CountingEmitter second = new CountingEmitter();
+        hub.join(TODO_ID, first);
+        hub.join(TODO_ID, second);
+
+        hub.leave(TODO_ID, first);
+        verify(upstream, never()).dispose();
+
+        hub.leave(TODO_ID, second);
+        verify(upstream).dispose();
+        assertThat(hub.viewerCount(TODO_ID)).isZero();
+        assertThat(hub.viewerCounts()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("a late viewer gets the latest frame right away")
+    void join_lateViewerGetsLastFrame() {
+        when(terminalService.subscribeToScreen(eq(TODO_ID), any())).thenReturn(upstream);
+        hub.join(TODO_ID, new CountingEmitter());
+        frameHandler().accept(frame("AAA"));
+
+        CountingEmitter late = new CountingEmitter();
+        hub.join(TODO_ID, late);
+
+        assertThat(late.sends).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("a viewer whose send fails stops receiving frames; the others continue")
+    void onFrame_failingViewerIsDropped() {
+        when(terminalService.subscribeToScreen(eq(TODO_ID), any())).thenReturn(upstream);
+        CountingEmitter healthy = new CountingEmitter();
+        CountingEmitter broken = new CountingEmitter();
+        broken.failing = true;
+        hub.join(TODO_ID, healthy);
+        hub.join(TODO_ID, broken);
+
+        frameHandler().accept(frame("AAA"));
+        frameHandler().accept(frame("BBB"));
+
+        assertThat(healthy.sends).isEqualTo(2);
+        assertThat(broken.sends).isEqualTo(1);
+        assertThat(hub.viewerCount(TODO_ID)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("no channel is left behind when the todo has no terminal session")
+    void join_noSession_throws() {
+        when(terminalService.subscribeToScreen(eq(TODO_ID), any()))
+                .thenThrow(new IllegalStateException("No active session for todo: " + TODO_ID));
+
+        assertThatThrownBy(() -> hub.join(TODO_ID, new CountingEmitter()))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(hub.viewerCounts()).isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Consumer<ScreenData> frameHandler() {
+        ArgumentCaptor<Consumer<ScreenData>> handler = ArgumentCaptor.forClass(Consumer.class);
+        verify(terminalService).subscribeToScreen(eq(TODO_ID), handler.capture());
+        return handler.getValue();
+    }
+
+    private static ScreenData frame(String base64) {
+        ScreenData data = mock(ScreenData.class);
+        when(data.getBase64Content()).thenReturn(base64);
+        return data;
+    }
+
+    private static final class CountingEmitter extends SseEmitter {
+        private int sends;
+        private boolean failing;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sends++;
+            if (failing) {
+                throw new IOException("Broken pipe");
+            }
+        }
+    }
+}
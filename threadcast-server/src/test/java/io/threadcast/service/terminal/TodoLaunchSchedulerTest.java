@@ -0,0 +1,182 @@
+package io.threadcast.service.terminal;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.threadcast.config.TerminalConfig;
+import io.threadcast.domain.Todo;
+import io.threadcast.domain.enums.Priority;
+import io.threadcast.domain.enums.TodoStatus;
+import io.threadcast.dto.response.LaunchQueueResponse;
+import io.threadcast.repository.TodoRepository;
+import io.threadcast.service.WebSocketService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TodoLaunchSchedulerTest {
+
+    private static final UUID WORKSPACE = UUID.randomUUID();
+
+    @Mock
+    private TodoRepository todoRepository;
+
+    @Mock
+    private TodoTerminalService terminalService;
+
+    @Mock
+    private WebSocketService webSocketService;
+
+    private TerminalConfig config;
+    private TodoLaunchScheduler scheduler;
+
+    // Launch order and the futures the scheduler is waiting on
+    private final List<String> launched = new ArrayList<>();
+    private final Map<String, CompletableFuture<Boolean>> pending = new HashMap<>();
+    private final Map<String, UUID> ids = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        config = new TerminalConfig();
+        config.getLaunch().setMaxConcurrent(2);
+        config.getLaunch().setMaxConcurrentPerWorkspace(2);
+        scheduler = new TodoLaunchScheduler(todoRepository, terminalService, webSocketService,
+                config, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("todos beyond the limit wait until a running todo releases its slot")
+    void submit_boundedByMaxConcurrent() {
+        UUID mission = UUID.randomUUID();
+        submit("a", mission, WORKSPACE, Priority.MEDIUM);
+        submit("b", mission, WORKSPACE, Priority.MEDIUM);
+        submit("c", mission, WORKSPACE, Priority.MEDIUM);
+
+        assertThat(launched).containsExactly("a", "b");
+        LaunchQueueResponse queue = scheduler.snapshot(mission, null);
+        assertThat(queue.getLaunching()).isEqualTo(2);
+        assertThat(queue.getQueued()).isEqualTo(1);
+
+        pending.get("a").complete(true);
+        assertThat(scheduler.snapshot(mission, null).getRunning()).isEqualTo(1);
+        assertThat(launched).containsExactly("a", "b");
+
+        scheduler.release(ids.get("a"));
+        assertThat(launched).containsExactly("a", "b", "c");
+        verify(webSocketService, atLeastOnce()).notifyLaunchQueueChanged(eq(mission), any());
+    }
+
+    @Test
+    @DisplayName("a failed or skipped launch frees its slot immediately")
+    void submit_failedLaunchFreesSlot() {
+        UUID mission = UUID.randomUUID();
+        submit("a", mission, WORKSPACE, Priority.MEDIUM);
+        submit("b", mission, WORKSPACE, Priority.MEDIUM);
+        submit("c", mission, WORKSPACE, Priority.MEDIUM);
+
+        pending.get("a").completeExceptionally(new IllegalStateException("worktree failed"));
+        pending.get("b").complete(false);
+
+        assertThat(launched).containsExactly("a", "b", "c");
+        assertThat(scheduler.snapshot(null, null).getTodos())
+                .extracting(LaunchQueueResponse.Entry::getTitle)
+                .containsExactly("c");
+    }
+
+    @Test
+    @DisplayName("higher priority todos launch first and a todo is queued only once")
+    void submit_priorityOrder() {
+        config.getLaunch().setMaxConcurrent(1);
+        UUID mission = UUID.randomUUID();
+        submit("running", mission, WORKSPACE, Priority.MEDIUM);
+        submit("low", mission, WORKSPACE, Priority.LOW);
+        submit("critical", mission, WORKSPACE, Priority.CRITICAL);
+        submit("high", mission, WORKSPACE, Priority.HIGH);
+
+        assertThat(scheduler.submit(ids.get("low"), "low", mission, WORKSPACE, Priority.LOW,
+                () -> CompletableFuture.completedFuture(true))).isFalse();
+        assertThat(scheduler.snapshot(mission, null).getTodos())
+                .filteredOn(entry -> entry.getState() == LaunchQueueResponse.State.QUEUED)
+                .extracting(LaunchQueueResponse.Entry::getTitle, LaunchQueueResponse.Entry::getQueuePosition)
+                .containsExactly(
+                        tuple("critical", 1),
+                        tuple("high", 2),
+                        tuple("low", 3));
+
+        scheduler.release(ids.get("running"));
+        scheduler.release(ids.get("critical"));
+        scheduler.release(ids.get("high"));
+
+        assertThat(launched).containsExactly("running", "critical", "high", "low");
+    }
+
+    @Test
+    @DisplayName("missions take turns, and a full workspace does not block other workspaces")
+    void submit_fairAcrossMissionsAndWorkspaces() {
+        config.getLaunch().setMaxConcurrent(3);
+        config.getLaunch().setMaxConcurrentPerWorkspace(2);
+        UUID big = UUID.randomUUID();
+        UUID small = UUID.randomUUID();
+        UUID otherMission = UUID.randomUUID();
+        UUID otherWorkspace = UUID.randomUUID();
+
+        submit("big-1", big, WORKSPACE, Priority.MEDIUM);
+        submit("big-2", big, WORKSPACE, Priority.MEDIUM);
+        submit("big-3", big, WORKSPACE, Priority.MEDIUM);
+        submit("small-1", small, WORKSPACE, Priority.MEDIUM);
+        submit("other-1", otherMission, otherWorkspace, Priority.MEDIUM);
+
+        // WORKSPACE is at its cap of 2, the third slot goes to the other workspace
+        assertThat(launched).containsExactly("big-1", "big-2", "other-1");
+
+        scheduler.release(ids.get("big-1"));
+        assertThat(launched).containsExactly("big-1", "big-2", "other-1", "small-1");
+    }
+
+    @Test
+    @DisplayName("reconcile frees slots of todos that finished outside the orchestration path")
+    void reconcile_releasesFinishedTodos() {
+        config.getLaunch().setMaxConcurrent(1);
+        UUID mission = UUID.randomUUID();
+        submit("a", mission, WORKSPACE, Priority.MEDIUM);
+        submit("b", mission, WORKSPACE, Priority.MEDIUM);
+        pending.get("a").complete(true);
+
+        Todo tangled = Todo.builder().status(TodoStatus.TANGLED).build();
+        Todo waiting = Todo.builder().status(TodoStatus.PENDING).build();
+        when(todoRepository.findById(ids.get("a"))).thenReturn(Optional.of(tangled));
+        // b may already be launching by the time reconcile reaches it
+        lenient().when(todoRepository.findById(ids.get("b"))).thenReturn(Optional.of(waiting));
+
+        scheduler.reconcile();
+
+        assertThat(launched).containsExactly("a", "b");
+    }
+
+    private void submit(String title, UUID missionId, UUID workspaceId, Priority priority) {
+        UUID todoId = UUID.randomUUID();
+        ids.put(title, todoId);
+        scheduler.submit(todoId, title, missionId, workspaceId, priority, () -> {
+            launched.add(title);
+            CompletableFuture<Boolean> future = new CompletableFuture<>();
+            pending.put(title, future);
+            return future;
+        });
+    }
+}
@@ -0,0 +1,143 @@
+package io.threadcast.service.terminal;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.threadcast.config.TerminalConfig;
+import io.threadcast.repository.TerminalSessionMappingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenUsageAccumulatorTest {
+
+    @Mock
+    private TerminalSessionMappingRepository mappingRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TerminalConfig config;
+    private TokenUsageAccumulator accumulator;
+    private final UUID todoId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        config = new TerminalConfig();
+        accumulator = new TokenUsageAccumulator(mappingRepository, new TransactionTemplate(transactionManager),
+                config, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("increments stay in memory until a flush writes their sum in one update")
+    void add_flushWritesAggregatedDelta() {
+        accumulator.add(todoId, 100, 10);
+        accumulator.add(todoId, 200, 20);
+        accumulator.add(todoId, 300, 30);
+        verifyNoInteractions(mappingRepository);
+
+        accumulator.flushAll();
+        accumulator.flushAll();
+
+        verify(mappingRepository, times(1)).addTokenUsage(eq(todoId), eq(600L), eq(60L), any());
+    }
+
+    @Test
+    @DisplayName("stopping a session writes its usage immediately")
+    void flush_todoWritesNow() {
+        accumulator.add(todoId, 100, 10);
+
+        accumulator.flush(todoId);
+
+        verify(mappingRepository).addTokenUsage(eq(todoId), eq(100L), eq(10L), any());
+    }
+
+    @Test
+    @DisplayName("a failed flush keeps the delta for the next flush")
+    void flushAll_failureRetriesLater() {
+        when(mappingRepository.addTokenUsage(eq(todoId), anyLong(), anyLong(), any()))
+                .thenThrow(new QueryTimeoutException("lock timeout"))
+                .thenReturn(1);
+        accumulator.add(todoId, 100, 10);
+        accumulator.flushAll();
+
+        accumulator.add(todoId, 50, 5);
+        accumulator.flushAll();
+
+        verify(mappingRepository).addTokenUsage(eq(todoId), eq(150L), eq(15L), any());
+    }
+
+    @Test
+    @DisplayName("with a zero flush interval every increment is written through")
+    void add_writeThrough() {
+        config.getUsage().setFlushIntervalMs(0);
+
+        accumulator.add(todoId, 100, 10);
+
+        verify(mappingRepository).addTokenUsage(eq(todoId), eq(100L), eq(10L), any());
+    }
+
+    @Test
+    @DisplayName("concurrent webhooks and flushes neither lose nor double-count usage")
+    void add_concurrentWithFlushes() throws Exception {
+        AtomicLong writtenInput = new AtomicLong();
+        AtomicLong writtenOutput = new AtomicLong();
+        when(mappingRepository.addTokenUsage(eq(todoId), anyLong(), anyLong(), any())).thenAnswer(invocation -> {
+            writtenInput.addAndGet(invocation.getArgument(1));
+            writtenOutput.addAndGet(invocation.getArgument(2));
+            return 1;
+        });
+
+        int threads = 8;
+        int callsPerThread = 20_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+        AtomicBoolean adding = new AtomicBoolean(true);
+        try {
+            // Flush continuously, including the evict-and-retire path between bursts
+            Future<?> flushing = pool.submit(() -> {
+                while (adding.get()) {
+                    accumulator.flushAll();
+                }
+            });
+            List<Future<?>> webhooks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                webhooks.add(pool.submit(() -> {
+                    for (int i = 0; i < callsPerThread; i++) {
+                        accumulator.add(todoId, 3, 1);
+                    }
+                }));
+            }
+            for (Future<?> webhook : webhooks) {
+                webhook.get();
+            }
+            adding.set(false);
+            flushing.get();
+        } finally {
+            pool.shutdownNow();
+        }
+        accumulator.flushAll();
+
+        assertThat(writtenInput.get()).isEqualTo(3L * threads * callsPerThread);
+        assertThat(writtenOutput.get()).isEqualTo((long) threads * callsPerThread);
+    }
+}
@@ -0,0 +1,178 @@
+package io.threadcast.service.timeline;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.threadcast.config.TimelineConfig;
+import io.threadcast.domain.Mission;
+import io.threadcast.domain.TimelineEvent;
+import io.threadcast.domain.Todo;
+import io.threadcast.domain.Workspace;
+import io.threadcast.repository.TodoRepository;
+import io.threadcast.service.WebSocketService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static io.threadcast.service.timeline.TimelineActivityCoalescer.Kind.AI_ACTIVITY;
+import static io.threadcast.service.timeline.TimelineActivityCoalescer.Kind.STEP_PROGRESS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TimelineActivityCoalescerTest {
+
+    @Mock
+    private TimelineEventWriter timelineEventWriter;
+
+    @Mock
+    private TodoRepository todoRepository;
+
+    @Mock
+    private WebSocketService webSocketService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TimelineConfig timelineConfig;
+    private TimelineActivityCoalescer coalescer;
+    private Todo todo;
+
+    @BeforeEach
+    void setUp() {
+        timelineConfig = new TimelineConfig();
+        coalescer = new TimelineActivityCoalescer(timelineEventWriter, todoRepository, webSocketService,
+                new TransactionTemplate(transactionManager), timelineConfig, new SimpleMeterRegistry());
+
+        Workspace workspace = Workspace.builder().id(UUID.randomUUID()).name("Test Workspace").build();
+        Mission mission = Mission.builder().id(UUID.randomUUID()).workspace(workspace).title("Mission").build();
+        todo = Todo.builder().id(UUID.randomUUID()).mission(mission).title("Todo").build();
+        lenient().when(todoRepository.findByIdWithMission(todo.getId())).thenReturn(Optional.of(todo));
+    }
+
+    @Test
+    @DisplayName("AI activity within one window becomes a single event with summed tokens")
+    void add_aiActivity_mergesIntoOneEvent() {
+        coalescer.add(AI_ACTIVITY, todo, null, "first", Map.of("model", "opus"), "opus", 100, 10);
+        coalescer.add(AI_ACTIVITY, todo, null, "second", Map.of("model", "opus"), "opus", 200, 20);
+        coalescer.add(AI_ACTIVITY, todo, null, "third", Map.of("model", "opus"), "opus", 300, 30);
+
+        verifyNoInteractions(timelineEventWriter);
+
+        coalescer.flushAll();
+
+        ArgumentCaptor<TimelineEvent> captor = ArgumentCaptor.forClass(TimelineEvent.class);
+        verify(timelineEventWriter).write(captor.capture());
+        TimelineEvent event = captor.getValue();
+        assertThat(event.getDescription()).isEqualTo("third (×3)");
+        assertThat(event.getMetadata())
+                .containsEntry("count", 3)
+                .containsEntry("firstMessage", "first")
+                .containsEntry("lastMessage", "third")
+                .containsEntry("inputTokens", 600L)
+                .containsEntry("outputTokens", 60L);
+        verify(webSocketService).notifyTimelineEvent(any(UUID.class), eq(todo.getId()), any(TimelineEvent.class));
+    }
+
+    @Test
+    @DisplayName("a different step group closes the open window first")
+    void add_stepGroupChange_emitsPreviousWindow() {
+        coalescer.add(STEP_PROGRESS, todo, "ANALYSIS:IN_PROGRESS", "reading", Map.of(), null, 0, 0);
+        coalescer.add(STEP_PROGRESS, todo, "ANALYSIS:IN_PROGRESS", "reading more", Map.of(), null, 0, 0);
+        coalescer.add(STEP_PROGRESS, todo, "IMPLEMENTATION:IN_PROGRESS", "editing", Map.of(), null, 0, 0);
+
+        ArgumentCaptor<TimelineEvent> captor = ArgumentCaptor.forClass(TimelineEvent.class);
+        verify(timelineEventWriter).write(captor.capture());
+        assertThat(captor.getValue().getDescription()).isEqualTo("reading more (×2)");
+
+        coalescer.flushAll();
+
+        verify(timelineEventWriter, times(2)).write(captor.capture());
+        List<TimelineEvent> written = captor.getAllValues();
+        assertThat(written.get(written.size() - 1).getDescription()).isEqualTo("editing");
+    }
+
+    @Test
+    @DisplayName("sweep leaves windows open until they have been quiet for the window")
+    void sweep_respectsQuietWindow() {
+        timelineConfig.getCoalesce().setAiActivityWindowMs(60_000);
+        coalescer.add(AI_ACTIVITY, todo, null, "working", Map.of(), "opus", 1, 1);
+
+        coalescer.sweep();
+        verifyNoInteractions(timelineEventWriter);
+
+        timelineConfig.getCoalesce().setAiActivityWindowMs(0);
+        coalescer.sweep();
+        verify(timelineEventWriter).write(any(TimelineEvent.class));
+    }
+
+    @Test
+    @DisplayName("the coalesced event is dated at the window's first activity, not when it is written")
+    void emit_datedAtFirstActivity() throws Exception {
+        LocalDateTime before = LocalDateTime.now();
+        coalescer.add(AI_ACTIVITY, todo, null, "first", Map.of(), "opus", 1, 1);
+        Thread.sleep(20);
+        LocalDateTime second = LocalDateTime.now();
+        coalescer.add(AI_ACTIVITY, todo, null, "second", Map.of(), "opus", 1, 1);
+
+        coalescer.flushAll();
+
+        ArgumentCaptor<TimelineEvent> captor = ArgumentCaptor.forClass(TimelineEvent.class);
+        verify(timelineEventWriter).write(captor.capture());
+        assertThat(captor.getValue().getCreatedAt()).isBetween(before, second);
+        verify(todoRepository).findByIdWithMission(todo.getId());
+    }
+
+    @Test
+    @DisplayName("a window closed by an event added inside a transaction is written in a transaction of its own")
+    void add_insideTransaction_closedWindowCommitted() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:coalescer-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE timeline_event (id UUID PRIMARY KEY, description VARCHAR(255))");
+        doAnswer(invocation -> {
+            TimelineEvent event = invocation.getArgument(0);
+            jdbcTemplate.update("INSERT INTO timeline_event (id, description) VALUES (?, ?)",
+                    UUID.randomUUID(), event.getDescription());
+            return null;
+        }).when(timelineEventWriter).write(any(TimelineEvent.class));
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        coalescer = new TimelineActivityCoalescer(timelineEventWriter, todoRepository, webSocketService,
+                transactionTemplate, timelineConfig, new SimpleMeterRegistry());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            coalescer.add(STEP_PROGRESS, todo, "ANALYSIS:IN_PROGRESS", "reading", Map.of(), null, 0, 0);
+            coalescer.add(STEP_PROGRESS, todo, "IMPLEMENTATION:IN_PROGRESS", "editing", Map.of(), null, 0, 0);
+            verifyNoInteractions(timelineEventWriter);
+        });
+
+        assertThat(jdbcTemplate.queryForList("SELECT description FROM timeline_event", String.class))
+                .containsExactly("reading");
+    }
+
+    @Test
+    @DisplayName("a window whose todo was deleted meanwhile is dropped")
+    void emit_todoDeleted_skipsEvent() {
+        when(todoRepository.findByIdWithMission(todo.getId())).thenReturn(Optional.empty());
+        coalescer.add(AI_ACTIVITY, todo, null, "working", Map.of(), "opus", 1, 1);
+
+        coalescer.flushAll();
+
+        verifyNoInteractions(timelineEventWriter, webSocketService);
+    }
+}
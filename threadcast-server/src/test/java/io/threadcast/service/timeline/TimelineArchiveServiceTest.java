@@ -0,0 +1,280 @@
+package io.threadcast.service.timeline;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.threadcast.config.TimelineConfig;
+import io.threadcast.domain.TimelineArchiveSegment;
+import io.threadcast.domain.enums.ActorType;
+import io.threadcast.domain.enums.EventType;
+import io.threadcast.dto.request.PageCursor;
+import io.threadcast.dto.request.TimelineFilter;
+import io.threadcast.dto.response.TimelineEventResponse;
+import io.threadcast.repository.TimelineArchiveSegmentRepository;
+import io.threadcast.repository.WorkspaceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TimelineArchiveServiceTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @Mock
+    private TimelineArchiveSegmentRepository segmentRepository;
+
+    @Mock
+    private WorkspaceRepository workspaceRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path archiveDir;
+
+    private final List<TimelineArchiveSegment> segments = new ArrayList<>();
+    private final UUID workspaceId = UUID.randomUUID();
+    private final UUID missionId = UUID.randomUUID();
+    private final UUID otherMissionId = UUID.randomUUID();
+
+    private TimelineArchiveService archiveService;
+
+    @BeforeEach
+    void setUp() {
+        TimelineConfig config = new TimelineConfig();
+        config.getRetention().setArchiveDir(archiveDir.toString());
+        archiveService = new TimelineArchiveService(segmentRepository, workspaceRepository, jdbcTemplate,
+                new TransactionTemplate(transactionManager), new ObjectMapper().findAndRegisterModules(),
+                config, new SimpleMeterRegistry());
+
+        // In-memory stand-in for the segment index
+        lenient().when(segmentRepository.save(any(TimelineArchiveSegment.class))).thenAnswer(invocation -> {
+            TimelineArchiveSegment segment = invocation.getArgument(0);
+            if (!segments.contains(segment)) {
+                segments.add(segment);
+            }
+            return segment;
+        });
+        lenient().doAnswer(invocation -> segments.remove(invocation.<TimelineArchiveSegment>getArgument(0)))
+                .when(segmentRepository).delete(any(TimelineArchiveSegment.class));
+        lenient().when(segmentRepository.findOverlapping(any(), any(), any())).thenAnswer(invocation -> {
+            LocalDateTime from = invocation.getArgument(1);
+            LocalDateTime to = invocation.getArgument(2);
+            return segments.stream()
+                    .filter(s -> s.getWorkspaceId().equals(invocation.getArgument(0)))
+                    .filter(s -> !s.getFromTime().isAfter(to) && !s.getToTime().isBefore(from))
+                    .sorted(Comparator.comparing(TimelineArchiveSegment::getToTime).reversed())
+                    .toList();
+        });
+        // Every archived row is still there to delete unless a test says otherwise
+        lenient().doAnswer(invocation -> deleteCounts(invocation.<Collection<?>>getArgument(1).size()))
+                .when(jdbcTemplate).batchUpdate(anyString(), anyCollection(), anyInt(), any());
+        lenient().when(segmentRepository.findByWorkspaceId(any())).thenAnswer(invocation -> segments.stream()
+                .filter(s -> s.getWorkspaceId().equals(invocation.getArgument(0)))
+                .toList());
+    }
+
+    @Test
+    @DisplayName("events sharing a timestamp are ordered and paged by unsigned id, like the database keyset")
+    void read_tiesOrderedByUnsignedId() {
+        UUID low = UUID.fromString("10000000-0000-0000-0000-000000000000");
+        UUID high = UUID.fromString("f0000000-0000-0000-0000-000000000000");
+        archive(event(low, missionId, BASE), event(high, missionId, BASE));
+
+        List<TimelineEventResponse> page = archiveService.read(workspaceFilter(), PageCursor.FIRST, 10);
+        assertThat(page).extracting(TimelineEventResponse::getId).containsExactly(high, low);
+
+        assertThat(archiveService.read(workspaceFilter(), new PageCursor(BASE, high), 10))
+                .extracting(TimelineEventResponse::getId).containsExactly(low);
+        assertThat(archiveService.read(workspaceFilter(), new PageCursor(BASE, low), 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("cursor pages walk every archived event across segments exactly once, newest first")
+    void read_cursorPagesAcrossSegments() {
+        archive(at(0), at(1), at(1), at(2));
+        archive(at(2), at(3), at(4));
+
+        List<TimelineEventResponse> all = new ArrayList<>();
+        PageCursor cursor = PageCursor.FIRST;
+        while (true) {
+            List<TimelineEventResponse> page = archiveService.read(workspaceFilter(), cursor, 2);
+            if (page.isEmpty()) {
+                break;
+            }
+            all.addAll(page);
+            TimelineEventResponse last = page.get(page.size() - 1);
+            cursor = new PageCursor(last.getCreatedAt(), last.getId());
+        }
+
+        assertThat(all).hasSize(7).extracting(TimelineEventResponse::getId).doesNotHaveDuplicates();
+        assertThat(all).extracting(TimelineEventResponse::getCreatedAt)
+                .isSortedAccordingTo(Comparator.reverseOrder());
+    }
+
+    @Test
+    @DisplayName("filters and offsets apply to archived events, and counts match what is read")
+    void read_filterOffsetAndCount() {
+        archive(event(UUID.randomUUID(), missionId, BASE),
+                event(UUID.randomUUID(), otherMissionId, BASE.plusMinutes(1)),
+                event(UUID.randomUUID(), missionId, BASE.plusMinutes(2)),
+                event(UUID.randomUUID(), missionId, BASE.plusMinutes(3)));
+        TimelineFilter byMission = TimelineFilter.builder().workspaceId(workspaceId).missionId(missionId).build();
+
+        List<TimelineEventResponse> skipped = archiveService.read(byMission, PageCursor.FIRST, 1, 5);
+
+        assertThat(skipped).extracting(TimelineEventResponse::getCreatedAt)
+                .containsExactly(BASE.plusMinutes(2), BASE);
+        assertThat(archiveService.count(byMission)).isEqualTo(3);
+        assertThat(archiveService.count(workspaceFilter())).isEqualTo(4);
+        TimelineFilter range = TimelineFilter.builder().workspaceId(workspaceId)
+                .from(BASE.plusMinutes(1)).to(BASE.plusMinutes(2)).build();
+        assertThat(archiveService.count(range)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("whether older events may exist is answered from the segment index without reading files")
+    void mayContain_usesIndexOnly() throws Exception {
+        archive(at(0), at(1));
+        Files.delete(Paths.get(segments.get(0).getPath()));
+        TimelineFilter byMission = TimelineFilter.builder().workspaceId(workspaceId).missionId(missionId).build();
+        TimelineFilter beforeArchive = TimelineFilter.builder().workspaceId(workspaceId)
+                .to(BASE.minusMinutes(1)).build();
+
+        assertThat(archiveService.mayContain(byMission)).isTrue();
+        assertThat(archiveService.mayContain(beforeArchive)).isFalse();
+    }
+
+    @Test
+    @DisplayName("purging a mission rewrites segments without its events and drops segments left empty")
+    void purgeMission_rewritesSegments() {
+        archive(event(UUID.randomUUID(), missionId, BASE), event(UUID.randomUUID(), missionId, BASE.plusMinutes(1)));
+        archive(event(UUID.randomUUID(), missionId, BASE.plusMinutes(2)),
+                event(UUID.randomUUID(), otherMissionId, BASE.plusMinutes(3)));
+        Path mixedFile = Paths.get(segments.get(1).getPath());
+        Path onlyMissionFile = Paths.get(segments.get(0).getPath());
+
+        List<TimelineArchiveService.ArchivedEvent> purged = archiveService.purgeMission(workspaceId, missionId);
+
+        assertThat(purged).hasSize(3);
+        assertThat(segments).hasSize(1);
+        TimelineArchiveSegment rewritten = segments.get(0);
+        assertThat(rewritten.getEventCount()).isEqualTo(1);
+        assertThat(rewritten.getFromTime()).isEqualTo(BASE.plusMinutes(3));
+        assertThat(Files.exists(mixedFile)).isFalse();
+        assertThat(Files.exists(onlyMissionFile)).isFalse();
+        assertThat(archiveService.read(workspaceFilter(), PageCursor.FIRST, 10))
+                .extracting(TimelineEventResponse::getMissionId).containsExactly(otherMissionId);
+    }
+
+    @Test
+    @DisplayName("a rolled-back purge keeps the original segment files and removes the rewritten ones")
+    void purgeMission_rollbackKeepsFiles() {
+        archive(event(UUID.randomUUID(), missionId, BASE), event(UUID.randomUUID(), otherMissionId, BASE.plusMinutes(1)));
+        Path original = Paths.get(segments.get(0).getPath());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            archiveService.purgeMission(workspaceId, missionId);
+            Path rewritten = Paths.get(segments.get(0).getPath());
+            assertThat(Files.exists(original)).isTrue();
+            assertThat(Files.exists(rewritten)).isTrue();
+
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations,
+                    TransactionSynchronization.STATUS_ROLLED_BACK);
+
+            assertThat(Files.exists(original)).isTrue();
+            assertThat(Files.exists(rewritten)).isFalse();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("a batch another instance already deleted part of is rolled back and its file removed")
+    void archiveBatch_lostRaceRollsBack() throws Exception {
+        SimpleTransactionStatus status = new SimpleTransactionStatus();
+        when(transactionManager.getTransaction(any())).thenReturn(status);
+        doReturn(deleteCounts(1)).when(jdbcTemplate).batchUpdate(anyString(), anyCollection(), anyInt(), any());
+        doReturn(List.of(at(0), at(1))).when(jdbcTemplate).query(anyString(), any(RowMapper.class), any(), any(), any());
+
+        int moved = archiveService.archiveBatch(workspaceId, BASE.plusDays(1));
+
+        assertThat(moved).isZero();
+        assertThat(status.isRollbackOnly()).isTrue();
+        try (Stream<Path> files = Files.walk(archiveDir)) {
+            assertThat(files.filter(Files::isRegularFile)).isEmpty();
+        }
+    }
+
+    @Test
+    @DisplayName("UUIDs compare unsigned, most significant half first")
+    void compareIds_unsigned() {
+        UUID small = new UUID(0x1L, 0xFFFFFFFFFFFFFFFFL);
+        UUID large = new UUID(0x8000000000000000L, 0L);
+
+        assertThat(small.compareTo(large)).isPositive();
+        assertThat(TimelineArchiveService.compareIds(small, large)).isNegative();
+        assertThat(TimelineArchiveService.compareIds(new UUID(5, -1L), new UUID(5, 1L))).isPositive();
+        assertThat(TimelineArchiveService.compareIds(large, large)).isZero();
+    }
+
+    private void archive(TimelineArchiveService.ArchivedEvent... events) {
+        doReturn(List.of(events)).when(jdbcTemplate).query(anyString(), any(RowMapper.class), any(), any(), any());
+        archiveService.archiveBatch(workspaceId, BASE.plusDays(1));
+    }
+
+    private static int[][] deleteCounts(int rows) {
+        int[] counts = new int[rows];
+        Arrays.fill(counts, 1);
+        return new int[][]{counts};
+    }
+
+    private TimelineFilter workspaceFilter() {
+        return TimelineFilter.builder().workspaceId(workspaceId).build();
+    }
+
+    private TimelineArchiveService.ArchivedEvent at(int minute) {
+        return event(UUID.randomUUID(), missionId, BASE.plusMinutes(minute));
+    }
+
+    private TimelineArchiveService.ArchivedEvent event(UUID id, UUID mission, LocalDateTime createdAt) {
+        return new TimelineArchiveService.ArchivedEvent(id, mission, "Mission", null, null,
+                EventType.AI_ACTIVITY, ActorType.AI, "activity", null, createdAt);
+    }
+}
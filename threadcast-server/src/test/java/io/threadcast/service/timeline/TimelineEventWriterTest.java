@@ -0,0 +1,135 @@
+package io.threadcast.service.timeline;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.threadcast.config.TimelineConfig;
+import io.threadcast.domain.TimelineEvent;
+import io.threadcast.domain.Workspace;
+import io.threadcast.domain.enums.ActorType;
+import io.threadcast.domain.enums.EventType;
+import io.threadcast.repository.TimelineEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TimelineEventWriterTest {
+
+    @Mock
+    private TimelineEventRepository timelineEventRepository;
+
+    @Mock
+    private TimelineRollupService rollupService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TimelineConfig timelineConfig;
+    private Workspace workspace;
+
+    @BeforeEach
+    void setUp() {
+        timelineConfig = new TimelineConfig();
+        workspace = Workspace.builder()
+                .id(UUID.randomUUID())
+                .name("Test Workspace")
+                .build();
+    }
+
+    private TimelineEventWriter createWriter() {
+        return new TimelineEventWriter(
+                timelineEventRepository,
+                rollupService,
+                jdbcTemplate,
+                new TransactionTemplate(transactionManager),
+                new ObjectMapper(),
+                timelineConfig,
+                new SimpleMeterRegistry());
+    }
+
+    private TimelineEvent newEvent() {
+        return TimelineEvent.create(workspace, null, null,
+                EventType.AI_ACTIVITY, ActorType.AI, "AI processing...", null);
+    }
+
+    @Test
+    @DisplayName("SYNC mode saves through the repository and counts the event")
+    void write_syncMode_savesImmediately() {
+        TimelineEventWriter writer = createWriter();
+        writer.start();
+        TimelineEvent event = newEvent();
+        event.setCreatedAt(LocalDateTime.now());
+
+        writer.write(event);
+
+        verify(timelineEventRepository).save(event);
+        verify(rollupService).increment(workspace.getId(), event.getCreatedAt(), EventType.AI_ACTIVITY);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("WRITE_BEHIND mode assigns id/createdAt and batches inserts, draining on shutdown")
+    @SuppressWarnings("unchecked")
+    void write_writeBehind_batchesAndDrainsOnShutdown() {
+        timelineConfig.getWriter().setMode(TimelineConfig.DurabilityMode.WRITE_BEHIND);
+        timelineConfig.getWriter().setBatchSize(50);
+        timelineConfig.getWriter().setFlushIntervalMs(1000);
+
+        List<Object> inserted = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    inserted.addAll(invocation.getArgument(1, Collection.class));
+                    return new int[0][];
+                });
+
+        TimelineEventWriter writer = createWriter();
+        writer.start();
+
+        List<TimelineEvent> events = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            TimelineEvent event = newEvent();
+            writer.write(event);
+            events.add(event);
+        }
+        writer.shutdown();
+
+        assertThat(events).allSatisfy(e -> {
+            assertThat(e.getId()).isNotNull();
+            assertThat(e.getCreatedAt()).isNotNull();
+        });
+        assertThat(inserted).hasSize(120);
+        assertThat(writer.getQueueDepth()).isZero();
+        verify(timelineEventRepository, never()).save(any());
+        verify(rollupService, atLeast(3)).apply(anyMap());
+
+        ArgumentCaptor<Integer> batchSizes = ArgumentCaptor.forClass(Integer.class);
+        verify(jdbcTemplate, atLeast(3)).batchUpdate(anyString(), any(Collection.class), batchSizes.capture(),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertThat(batchSizes.getAllValues()).allMatch(size -> size <= 50);
+    }
+}
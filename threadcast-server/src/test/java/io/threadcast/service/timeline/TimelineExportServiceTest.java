@@ -0,0 +1,175 @@
+package io.threadcast.service.timeline;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.threadcast.domain.enums.ActorType;
+import io.threadcast.domain.enums.EventType;
+import io.threadcast.dto.request.TimelineFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TimelineExportServiceTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 5, 1, 9, 30);
+
+    @Mock
+    private TimelineArchiveService archiveService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final UUID workspaceId = UUID.randomUUID();
+    private final UUID missionId = UUID.randomUUID();
+    private final UUID todoId = UUID.randomUUID();
+
+    private JdbcTemplate jdbcTemplate;
+    private TimelineExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:export-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE mission (id UUID PRIMARY KEY, title VARCHAR(255))");
+        jdbcTemplate.execute("CREATE TABLE todo (id UUID PRIMARY KEY, title VARCHAR(255))");
+        jdbcTemplate.execute("CREATE TABLE timeline_event (id UUID PRIMARY KEY, created_at TIMESTAMP, " +
+                "event_type VARCHAR(50), actor_type VARCHAR(50), workspace_id UUID, mission_id UUID, " +
+                "todo_id UUID, description VARCHAR(1000), metadata VARCHAR(4000))");
+        jdbcTemplate.update("INSERT INTO mission (id, title) VALUES (?, ?)", missionId, "Launch");
+        jdbcTemplate.update("INSERT INTO todo (id, title) VALUES (?, ?)", todoId, "Write \"docs\", then ship");
+
+        exportService = new TimelineExportService(dataSource, new DataSourceTransactionManager(dataSource),
+                archiveService, objectMapper);
+    }
+
+    @Test
+    @DisplayName("CSV values with commas, quotes or line breaks are quoted and inner quotes doubled")
+    void csvEscape_quotesSpecialCharacters() {
+        assertThat(TimelineExportService.csvEscape(null)).isEmpty();
+        assertThat(TimelineExportService.csvEscape("plain text")).isEqualTo("plain text");
+        assertThat(TimelineExportService.csvEscape("a,b")).isEqualTo("\"a,b\"");
+        assertThat(TimelineExportService.csvEscape("say \"hi\"")).isEqualTo("\"say \"\"hi\"\"\"");
+        assertThat(TimelineExportService.csvEscape("line1\nline2")).isEqualTo("\"line1\nline2\"");
+        assertThat(TimelineExportService.csvEscape("line1\r\nline2")).isEqualTo("\"line1\r\nline2\"");
+    }
+
+    @Test
+    @DisplayName("every filter becomes one bound condition, in a stable order")
+    void whereClause_bindsEveryFilter() {
+        TimelineFilter filter = TimelineFilter.builder()
+                .workspaceId(workspaceId)
+                .missionId(missionId)
+                .todoId(todoId)
+                .eventType(EventType.AI_ACTIVITY)
+                .actorType(ActorType.AI)
+                .from(BASE)
+                .to(BASE.plusDays(1))
+                .build();
+        List<Object> args = new ArrayList<>();
+
+        String where = TimelineExportService.whereClause(filter, args);
+
+        assertThat(where).isEqualTo("e.workspace_id = ? AND e.mission_id = ? AND e.todo_id = ? " +
+                "AND e.event_type = ? AND e.actor_type = ? AND e.created_at >= ? AND e.created_at <= ?");
+        assertThat(args).containsExactly(workspaceId, missionId, todoId, "AI_ACTIVITY", "AI",
+                Timestamp.valueOf(BASE), Timestamp.valueOf(BASE.plusDays(1)));
+    }
+
+    @Test
+    @DisplayName("NDJSON has one object per event, oldest first, with metadata embedded as JSON")
+    void export_ndjson() throws Exception {
+        UUID newer = insert(BASE.plusMinutes(5), "second", null);
+        UUID older = insert(BASE, "first", "{\"inputTokens\":12,\"model\":\"opus\"}");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = exportService.export(workspaceFilter(), TimelineExportService.Format.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(written).isEqualTo(2);
+        assertThat(lines).hasSize(2);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertThat(first.get("id").asText()).isEqualTo(older.toString());
+        assertThat(first.get("createdAt").asText()).isEqualTo(BASE.toString());
+        assertThat(first.get("missionTitle").asText()).isEqualTo("Launch");
+        assertThat(first.get("metadata").get("inputTokens").asInt()).isEqualTo(12);
+        JsonNode second = objectMapper.readTree(lines[1]);
+        assertThat(second.get("id").asText()).isEqualTo(newer.toString());
+        assertThat(second.get("metadata").isNull()).isTrue();
+    }
+
+    @Test
+    @DisplayName("CSV has a header, escaped text columns and token counts pulled out of metadata")
+    void export_csv() {
+        UUID id = insert(BASE, "done, \"finally\"", "{\"inputTokens\":100,\"outputTokens\":7}");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(workspaceFilter(), TimelineExportService.Format.CSV, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "id,created_at,event_type,actor_type,workspace_id,mission_id,mission_title,todo_id,todo_title," +
+                        "description,input_tokens,output_tokens,metadata\n" +
+                        id + "," + BASE + ",AI_ACTIVITY,AI," + workspaceId + "," + missionId + ",Launch," +
+                        todoId + ",\"Write \"\"docs\"\", then ship\",\"done, \"\"finally\"\"\",100,7," +
+                        "\"{\"\"inputTokens\"\":100,\"\"outputTokens\"\":7}\"\n");
+    }
+
+    @Test
+    @DisplayName("archived events are exported before live rows when archiving is enabled")
+    void export_includesArchivedEvents() throws Exception {
+        UUID live = insert(BASE, "live", null);
+        UUID archived = UUID.randomUUID();
+        when(archiveService.isEnabled()).thenReturn(true);
+        when(archiveService.forEachOldestFirst(any(), any())).thenAnswer(invocation -> {
+            BiConsumer<UUID, TimelineArchiveService.ArchivedEvent> action = invocation.getArgument(1);
+            action.accept(workspaceId, new TimelineArchiveService.ArchivedEvent(archived, missionId, "Launch",
+                    null, null, EventType.AI_ACTIVITY, ActorType.AI, "archived", Map.of("outputTokens", 3),
+                    BASE.minusDays(90)));
+            return 1L;
+        });
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = exportService.export(workspaceFilter(), TimelineExportService.Format.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(written).isEqualTo(2);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertThat(first.get("id").asText()).isEqualTo(archived.toString());
+        assertThat(first.get("workspaceId").asText()).isEqualTo(workspaceId.toString());
+        assertThat(first.get("todoId").isNull()).isTrue();
+        assertThat(first.get("metadata").get("outputTokens").asInt()).isEqualTo(3);
+        assertThat(objectMapper.readTree(lines[1]).get("id").asText()).isEqualTo(live.toString());
+    }
+
+    private UUID insert(LocalDateTime createdAt, String description, String metadata) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO timeline_event (id, created_at, event_type, actor_type, workspace_id, " +
+                        "mission_id, todo_id, description, metadata) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                id, Timestamp.valueOf(createdAt), "AI_ACTIVITY", "AI", workspaceId, missionId, todoId,
+                description, metadata);
+        return id;
+    }
+
+    private TimelineFilter workspaceFilter() {
+        return TimelineFilter.builder().workspaceId(workspaceId).build();
+    }
+}
@@ -0,0 +1,250 @@
+package io.threadcast.service.timeline;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.threadcast.config.TimelineConfig;
+import io.threadcast.domain.enums.ActorType;
+import io.threadcast.domain.enums.EventType;
+import io.threadcast.repository.TimelineDailyRollupRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TimelineRollupServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 1, 10, 0);
+
+    @Mock
+    private TimelineDailyRollupRepository rollupRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TimelineConfig timelineConfig;
+    private TimelineRollupService rollupService;
+    private final UUID workspaceId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        timelineConfig = new TimelineConfig();
+        rollupService = new TimelineRollupService(rollupRepository, jdbcTemplate,
+                new TransactionTemplate(transactionManager), timelineConfig, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("synchronous events are counted after commit and applied as one upsert per rollup row")
+    void increment_appliedOnFlushAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        rollupService.increment(workspaceId, NOW, EventType.TODO_STARTED);
+        rollupService.increment(workspaceId, NOW.plusHours(1), EventType.TODO_STARTED);
+        rollupService.increment(workspaceId, NOW, EventType.TODO_COMPLETED);
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        verifyNoInteractions(jdbcTemplate);
+        rollupService.flush();
+        verifyNoInteractions(jdbcTemplate);
+
+        TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+        rollupService.flush();
+
+        assertThat(appliedDeltas()).containsOnly(
+                Map.entry(key(NOW.toLocalDate(), EventType.TODO_STARTED), 2L),
+                Map.entry(key(NOW.toLocalDate(), EventType.TODO_COMPLETED), 1L));
+    }
+
+    @Test
+    @DisplayName("events of a rolled-back transaction are never counted")
+    void increment_rollbackNotCounted() {
+        TransactionSynchronizationManager.initSynchronization();
+        rollupService.increment(workspaceId, NOW, EventType.TODO_STARTED);
+        TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(),
+                TransactionSynchronization.STATUS_ROLLED_BACK);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        rollupService.flush();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("counts that failed to apply are kept for the next flush")
+    void flush_failureKeepsCounts() {
+        rollupService.increment(workspaceId, NOW, EventType.TODO_STARTED);
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(), any()))
+                .thenThrow(new QueryTimeoutException("lock timeout"))
+                .thenReturn(new int[][]{{1}});
+
+        assertThatThrownBy(() -> rollupService.flush()).isInstanceOf(QueryTimeoutException.class);
+        rollupService.increment(workspaceId, NOW, EventType.TODO_STARTED);
+        rollupService.flush();
+
+        assertThat(appliedDeltas(2)).containsOnly(Map.entry(key(NOW.toLocalDate(), EventType.TODO_STARTED), 2L));
+    }
+
+    @Test
+    @DisplayName("with flushing disabled an event is upserted immediately in the caller's transaction")
+    void increment_flushDisabled() {
+        timelineConfig.getRollup().setFlushIntervalMs(0);
+
+        rollupService.increment(workspaceId, NOW, EventType.TODO_FAILED);
+
+        assertThat(appliedDeltas()).containsOnly(Map.entry(key(NOW.toLocalDate(), EventType.TODO_FAILED), 1L));
+    }
+
+    @Test
+    @DisplayName("the backfill counts events before the recorded tracking start, even if rollups already exist")
+    void backfill_countsEventsBeforeTrackingStart() throws Exception {
+        LocalDateTime trackingSince = NOW.minusMinutes(5);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq(TimelineRollupService.BACKFILL_KEY)))
+                .thenReturn(List.of(trackingSince.toString()));
+        ResultSet row = mock(ResultSet.class);
+        when(row.getObject("workspace_id", UUID.class)).thenReturn(workspaceId);
+        when(row.getDate("event_date")).thenReturn(Date.valueOf(NOW.toLocalDate()));
+        when(row.getString("event_type")).thenReturn(EventType.COMMENT_ADDED.name());
+        when(row.getLong("cnt")).thenReturn(7L);
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(row);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any());
+
+        assertThat(rollupService.backfill()).isTrue();
+
+        verify(jdbcTemplate).query(contains("created_at < ?"), any(RowCallbackHandler.class),
+                eq(Timestamp.valueOf(trackingSince)));
+        assertThat(appliedDeltas()).containsOnly(Map.entry(key(NOW.toLocalDate(), EventType.COMMENT_ADDED), 7L));
+        verify(jdbcTemplate).update(startsWith("UPDATE system_settings"),
+                eq(TimelineRollupService.BACKFILL_DONE), eq(TimelineRollupService.BACKFILL_KEY));
+        verifyNoInteractions(rollupRepository);
+    }
+
+    @Test
+    @DisplayName("a node that finds the backfill done does nothing")
+    void backfill_skippedOnceDone() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq(TimelineRollupService.BACKFILL_KEY)))
+                .thenReturn(List.of(TimelineRollupService.BACKFILL_DONE));
+
+        assertThat(rollupService.backfill()).isFalse();
+
+        verify(jdbcTemplate, never()).query(anyString(), any(RowCallbackHandler.class), any());
+        verify(jdbcTemplate, never()).update(anyString(), any(), any());
+    }
+
+    @Test
+    @DisplayName("the tracking start is recorded once; later starts keep the first one")
+    void recordTrackingStart_keepsExistingMarker() {
+        when(jdbcTemplate.update(startsWith("INSERT INTO system_settings"), eq(TimelineRollupService.BACKFILL_KEY), any()))
+                .thenReturn(1)
+                .thenThrow(new DuplicateKeyException("duplicate key"));
+
+        rollupService.recordTrackingStart();
+        rollupService.recordTrackingStart();
+
+        verify(jdbcTemplate, times(2)).update(startsWith("INSERT INTO system_settings"),
+                eq(TimelineRollupService.BACKFILL_KEY), any());
+    }
+
+    @Test
+    @DisplayName("events purged from the archive are subtracted per day and type")
+    void subtractArchived_groupsPerRollupRow() {
+        List<TimelineArchiveService.ArchivedEvent> purged = List.of(
+                archived(NOW, EventType.AI_ACTIVITY),
+                archived(NOW.plusHours(2), EventType.AI_ACTIVITY),
+                archived(NOW.minusDays(1), EventType.AI_ACTIVITY));
+
+        rollupService.subtractArchived(workspaceId, purged);
+
+        ArgumentCaptor<Collection<Map.Entry<TimelineRollupService.RollupKey, Long>>> entries = entriesCaptor();
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE timeline_daily_rollup"), entries.capture(), eq(2), any());
+        assertThat(entries.getValue()).containsOnly(
+                Map.entry(key(NOW.toLocalDate(), EventType.AI_ACTIVITY), 2L),
+                Map.entry(key(NOW.toLocalDate().minusDays(1), EventType.AI_ACTIVITY), 1L));
+    }
+
+    @Test
+    @DisplayName("a deleted todo's live events are counted per rollup row and subtracted")
+    void subtractTodo_subtractsGroupedCounts() throws Exception {
+        UUID todoId = UUID.randomUUID();
+        ResultSet row = mock(ResultSet.class);
+        when(row.getObject("workspace_id", UUID.class)).thenReturn(workspaceId);
+        when(row.getDate("event_date")).thenReturn(Date.valueOf(NOW.toLocalDate()));
+        when(row.getString("event_type")).thenReturn(EventType.STEP_COMPLETED.name());
+        when(row.getLong("cnt")).thenReturn(3L);
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(row);
+            return null;
+        }).when(jdbcTemplate).query(contains("todo_id = ?"), any(RowCallbackHandler.class), eq(todoId));
+
+        rollupService.subtractTodo(todoId);
+
+        ArgumentCaptor<Collection<Map.Entry<TimelineRollupService.RollupKey, Long>>> entries = entriesCaptor();
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE timeline_daily_rollup"), entries.capture(), eq(1), any());
+        assertThat(entries.getValue()).containsOnly(Map.entry(key(NOW.toLocalDate(), EventType.STEP_COMPLETED), 3L));
+    }
+
+    private Collection<Map.Entry<TimelineRollupService.RollupKey, Long>> appliedDeltas() {
+        return appliedDeltas(1);
+    }
+
+    private Collection<Map.Entry<TimelineRollupService.RollupKey, Long>> appliedDeltas(int calls) {
+        ArgumentCaptor<Collection<Map.Entry<TimelineRollupService.RollupKey, Long>>> entries = entriesCaptor();
+        verify(jdbcTemplate, times(calls)).batchUpdate(anyString(), entries.capture(), anyInt(), any());
+        return entries.getValue();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ArgumentCaptor<Collection<Map.Entry<TimelineRollupService.RollupKey, Long>>> entriesCaptor() {
+        return (ArgumentCaptor) ArgumentCaptor.forClass(Collection.class);
+    }
+
+    private TimelineRollupService.RollupKey key(LocalDate day, EventType eventType) {
+        return new TimelineRollupService.RollupKey(workspaceId, day, eventType);
+    }
+
+    private static TimelineArchiveService.ArchivedEvent archived(LocalDateTime createdAt, EventType eventType) {
+        return new TimelineArchiveService.ArchivedEvent(UUID.randomUUID(), null, null, null, null,
+                eventType, ActorType.AI, "event", null, createdAt);
+    }
+}
@@ -0,0 +1,129 @@
+package io.threadcast.service.webhook;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.threadcast.dto.request.SwiftcastWebhookRequest;
+import io.threadcast.dto.response.WebhookBatchResponse;
+import io.threadcast.repository.TodoRepository;
+import io.threadcast.service.PmAgentService;
+import io.threadcast.service.StepProgressService;
+import io.threadcast.service.TimelineService;
+import io.threadcast.service.WebSocketService;
+import io.threadcast.service.terminal.TodoTerminalService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SwiftcastWebhookProcessorTest {
+
+    @Mock
+    private TodoTerminalService terminalService;
+
+    @Mock
+    private StepProgressService stepProgressService;
+
+    @Mock
+    private TimelineService timelineService;
+
+    @Mock
+    private TodoRepository todoRepository;
+
+    @Mock
+    private WebSocketService webSocketService;
+
+    @Mock
+    private PmAgentService pmAgentService;
+
+    @Mock
+    private WebhookDeduplicator deduplicator;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String todoId = UUID.randomUUID().toString();
+    private SwiftcastWebhookProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:webhook-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        processor = new SwiftcastWebhookProcessor(terminalService, stepProgressService, timelineService,
+                todoRepository, webSocketService, pmAgentService,
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)), deduplicator);
+        lenient().when(deduplicator.claim(any())).thenReturn(true);
+        lenient().when(deduplicator.persist(any(), any())).thenReturn(true);
+    }
+
+    @Test
+    @DisplayName("a failing event rolls the group back; the rest are applied and pushed once each")
+    void processGroup_failedEventRollsBackGroup() {
+        SwiftcastWebhookRequest usage = usage("usage-1");
+        SwiftcastWebhookRequest question = event("question-1", "ai_question_detected");
+
+        List<WebhookBatchResponse.Status> statuses = processor.processGroup(List.of(usage, question));
+
+        assertThat(statuses).containsExactly(WebhookBatchResponse.Status.PROCESSED, WebhookBatchResponse.Status.FAILED);
+        verify(webSocketService, times(1)).notifyUsageUpdate(todoId, "opus", 12, 3);
+        verify(deduplicator).release(WebhookDeduplicator.keyOf(question));
+        verify(deduplicator, never()).release(WebhookDeduplicator.keyOf(usage));
+    }
+
+    @Test
+    @DisplayName("usage pushes wait until the group's transaction commits")
+    void processGroup_pushesAfterCommit() {
+        doAnswer(invocation -> {
+            verify(webSocketService, never()).notifyUsageUpdate(anyString(), anyString(), anyLong(), anyLong());
+            return null;
+        }).when(terminalService).addTokenUsage(eq(todoId), anyLong(), anyLong());
+
+        List<WebhookBatchResponse.Status> statuses = processor.processGroup(List.of(usage("usage-1"), usage("usage-2")));
+
+        assertThat(statuses).containsOnly(WebhookBatchResponse.Status.PROCESSED);
+        verify(webSocketService, times(2)).notifyUsageUpdate(todoId, "opus", 12, 3);
+        verify(deduplicator, never()).release(any());
+    }
+
+    @Test
+    @DisplayName("a session_complete whose key was stored before a restart is not applied again")
+    void process_persistedKeyIsDuplicate() {
+        SwiftcastWebhookRequest complete = event("complete-1", "session_complete");
+        complete.setSessionId("claude-session");
+        when(deduplicator.persist(WebhookDeduplicator.keyOf(complete), "session_complete")).thenReturn(false);
+
+        assertThat(processor.process(complete)).isEqualTo(WebhookBatchResponse.Status.DUPLICATE);
+
+        verifyNoInteractions(stepProgressService);
+        verify(deduplicator, never()).release(any());
+    }
+
+    private SwiftcastWebhookRequest usage(String eventId) {
+        SwiftcastWebhookRequest request = event(eventId, "usage_logged");
+        request.setData(objectMapper.createObjectNode()
+                .put("model", "opus")
+                .put("input_tokens", 12)
+                .put("output_tokens", 3));
+        return request;
+    }
+
+    private SwiftcastWebhookRequest event(String eventId, String event) {
+        SwiftcastWebhookRequest request = new SwiftcastWebhookRequest();
+        request.setEvent(event);
+        request.setEventId(eventId);
+        request.setTodoId(todoId);
+        return request;
+    }
+}
@@ -0,0 +1,152 @@
+package io.threadcast.service.webhook;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.threadcast.config.WebhookConfig;
+import io.threadcast.dto.request.SwiftcastWebhookRequest;
+import io.threadcast.repository.ProcessedWebhookEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WebhookDeduplicatorTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ProcessedWebhookEventRepository repository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private WebhookConfig config;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        config = new WebhookConfig();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @DisplayName("a retried event is recognised from memory; claiming never touches the database")
+    void claim_memoryHit() {
+        WebhookDeduplicator deduplicator = deduplicator();
+        String key = WebhookDeduplicator.keyOf(event("evt-1"));
+
+        assertThat(deduplicator.claim(key)).isTrue();
+        assertThat(deduplicator.claim(key)).isFalse();
+
+        verifyNoInteractions(jdbcTemplate);
+        assertThat(lookups("hit", "memory")).isEqualTo(1);
+        assertThat(lookups("miss", "none")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("a state-advancing event stores its key; one stored before a restart is recognised from the table")
+    void persist_storesStateAdvancingEvents() {
+        WebhookDeduplicator deduplicator = deduplicator();
+        String key = WebhookDeduplicator.keyOf(event("evt-1"));
+        when(jdbcTemplate.queryForObject(startsWith("SELECT"), eq(Integer.class), eq(key)))
+                .thenReturn(0)
+                .thenReturn(1);
+
+        assertThat(deduplicator.persist(key, "session_complete")).isTrue();
+        assertThat(deduplicator.persist(key, WebhookDeduplicator.STEP_UPDATE_EVENT)).isFalse();
+
+        verify(jdbcTemplate, times(1)).update(startsWith("INSERT"), eq(key), any());
+        assertThat(lookups("hit", "database")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("high-volume events such as usage_logged are deduplicated in memory only")
+    void persist_skipsOtherEvents() {
+        WebhookDeduplicator deduplicator = deduplicator();
+
+        assertThat(deduplicator.persist(WebhookDeduplicator.keyOf(event("evt-1")), "usage_logged")).isTrue();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("a released event is applied again on retry")
+    void release_allowsRetry() {
+        WebhookDeduplicator deduplicator = deduplicator();
+        String key = WebhookDeduplicator.keyOf(event("evt-1"));
+
+        deduplicator.claim(key);
+        deduplicator.release(key);
+
+        assertThat(deduplicator.claim(key)).isTrue();
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("the in-memory cache is bounded and evicts the least recently used key")
+    void claim_lruBounded() {
+        config.getDedup().setCacheSize(2);
+        WebhookDeduplicator deduplicator = deduplicator();
+
+        deduplicator.claim("a");
+        deduplicator.claim("b");
+        deduplicator.claim("a");
+        deduplicator.claim("c");
+
+        assertThat(meterRegistry.get("threadcast.webhook.dedup.cached").gauge().value()).isEqualTo(2);
+        assertThat(deduplicator.claim("a")).isFalse();
+        assertThat(deduplicator.claim("b")).isTrue();
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("events without an id are keyed by content and timestamp, and skipped without a timestamp")
+    void keyOf_fallsBackToContent() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        SwiftcastWebhookRequest first = event(null);
+        first.setTimestamp(1_700_000_000_000L);
+        first.setData(objectMapper.readTree("{\"input_tokens\":10}"));
+        SwiftcastWebhookRequest retry = event(null);
+        retry.setTimestamp(1_700_000_000_000L);
+        retry.setData(objectMapper.readTree("{\"input_tokens\":10}"));
+        SwiftcastWebhookRequest later = event(null);
+        later.setTimestamp(1_700_000_000_001L);
+        later.setData(objectMapper.readTree("{\"input_tokens\":10}"));
+
+        assertThat(WebhookDeduplicator.keyOf(first)).isEqualTo(WebhookDeduplicator.keyOf(retry)).hasSize(64);
+        assertThat(WebhookDeduplicator.keyOf(later)).isNotEqualTo(WebhookDeduplicator.keyOf(first));
+        assertThat(WebhookDeduplicator.keyOf(event(null))).isNull();
+        assertThat(deduplicator().claim(null)).isTrue();
+    }
+
+    private WebhookDeduplicator deduplicator() {
+        return new WebhookDeduplicator(jdbcTemplate, repository, transactionTemplate, config, meterRegistry);
+    }
+
+    private double lookups(String result, String source) {
+        return meterRegistry.get("threadcast.webhook.dedup.lookups")
+                .tag("result", result)
+                .tag("source", source)
+                .counter()
+                .count();
+    }
+
+    private static SwiftcastWebhookRequest event(String eventId) {
+        SwiftcastWebhookRequest request = new SwiftcastWebhookRequest();
+        request.setEventId(eventId);
+        request.setEvent("usage_logged");
+        request.setTodoId("todo-1");
+        request.setSessionId("session-1");
+        return request;
+    }
+}
@@ -0,0 +1,264 @@
+package io.threadcast.service.webhook;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.threadcast.config.TerminalConfig;
+import io.threadcast.config.WebhookConfig;
+import io.threadcast.dto.request.SwiftcastWebhookRequest;
+import io.threadcast.dto.response.WebhookBatchResponse;
+import io.threadcast.service.terminal.SessionRouteCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WebhookIngestionQueueTest {
+
+    @Mock
+    private SwiftcastWebhookProcessor processor;
+
+    private WebhookConfig config;
+    private SimpleMeterRegistry meterRegistry;
+    private WebhookIngestionQueue queue;
+
+    // Events in the order the processor saw them, as "todoId:event"
+    private final List<String> processed = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        config = new WebhookConfig();
+        config.getIngest().setMode(WebhookConfig.IngestMode.ASYNC);
+        meterRegistry = new SimpleMeterRegistry();
+        lenient().doAnswer(invocation -> {
+            SwiftcastWebhookRequest request = invocation.getArgument(0);
+            processed.add(request.getTodoId() + ":" + request.getEvent());
+            return WebhookBatchResponse.Status.PROCESSED;
+        }).when(processor).process(any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (queue != null) {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("a todo's events keep their order while a slow todo does not hold up others")
+    void submit_orderedPerTodoParallelAcrossTodos() throws Exception {
+        config.getIngest().setLanes(4);
+        String slowTodo = "slow";
+        String fastTodo = keyOnOtherLane(slowTodo, 4);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            SwiftcastWebhookRequest request = invocation.getArgument(0);
+            if (slowTodo.equals(request.getTodoId()) && "first".equals(request.getEvent())) {
+                release.await(5, TimeUnit.SECONDS);
+            }
+            processed.add(request.getTodoId() + ":" + request.getEvent());
+            return WebhookBatchResponse.Status.PROCESSED;
+        }).when(processor).process(any());
+        start();
+
+        queue.submit(event(slowTodo, "first"));
+        queue.submit(event(slowTodo, "second"));
+        for (int i = 0; i < 50; i++) {
+            queue.submit(event(fastTodo, "e" + i));
+        }
+
+        waitFor(() -> processed.size() == 50);
+        assertThat(processed).allMatch(entry -> entry.startsWith(fastTodo + ":"));
+        release.countDown();
+        waitFor(() -> processed.size() == 52);
+
+        assertThat(processed.subList(50, 52)).containsExactly(slowTodo + ":first", slowTodo + ":second");
+        List<String> fast = processed.stream().filter(entry -> entry.startsWith(fastTodo + ":")).toList();
+        for (int i = 0; i < 50; i++) {
+            assertThat(fast.get(i)).isEqualTo(fastTodo + ":e" + i);
+        }
+    }
+
+    @Test
+    @DisplayName("with the DROP policy a full lane drops new events instead of blocking the request")
+    void submit_dropWhenLaneFull() throws Exception {
+        config.getIngest().setLanes(1);
+        config.getIngest().setLaneCapacity(1);
+        config.getIngest().setOverflowPolicy(WebhookConfig.OverflowPolicy.DROP);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            processed.add(((SwiftcastWebhookRequest) invocation.getArgument(0)).getEvent());
+            return WebhookBatchResponse.Status.PROCESSED;
+        }).when(processor).process(any());
+        start();
+
+        queue.submit(event("a", "running"));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        queue.submit(event("a", "queued"));
+        queue.submit(event("a", "dropped"));
+        release.countDown();
+        waitFor(() -> processed.size() == 2);
+
+        assertThat(processed).containsExactly("running", "queued");
+        assertThat(meterRegistry.get("threadcast.webhook.ingest.dropped").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("shutdown processes every queued event before returning")
+    void shutdown_drainsLanes() {
+        config.getIngest().setLanes(2);
+        start();
+
+        for (int i = 0; i < 200; i++) {
+            queue.submit(event("todo-" + (i % 5), "e" + i));
+        }
+        queue.shutdown();
+
+        assertThat(processed).hasSize(200);
+        assertThat(queue.getQueueDepth()).isZero();
+    }
+
+    @Test
+    @DisplayName("SYNC mode processes the event before submit returns")
+    void submit_syncProcessesInline() {
+        config.getIngest().setMode(WebhookConfig.IngestMode.SYNC);
+        start();
+
+        queue.submit(event("a", "usage_logged"));
+
+        assertThat(processed).containsExactly("a:usage_logged");
+    }
+
+    @Test
+    @DisplayName("an event with only a registered session ID waits behind its todo's queued events")
+    void submit_sessionIdRoutedToTodoLane() throws Exception {
+        config.getIngest().setLanes(8);
+        SessionRouteCache routeCache = new SessionRouteCache(new TerminalConfig(), meterRegistry);
+        UUID todoId = UUID.randomUUID();
+        routeCache.put(new SessionRouteCache.Route(todoId, UUID.randomUUID(), UUID.randomUUID(),
+                "title", "todo-" + todoId, "claude-session"));
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            SwiftcastWebhookRequest request = invocation.getArgument(0);
+            if ("session_complete".equals(request.getEvent())) {
+                release.await(5, TimeUnit.SECONDS);
+            }
+            processed.add(request.getEvent());
+            return WebhookBatchResponse.Status.PROCESSED;
+        }).when(processor).process(any());
+        queue = new WebhookIngestionQueue(processor, routeCache, config, meterRegistry);
+        queue.start();
+
+        queue.submit(event(todoId.toString(), "session_complete"));
+        SwiftcastWebhookRequest bySession = new SwiftcastWebhookRequest();
+        bySession.setEvent("usage_logged");
+        bySession.setSessionId("claude-session");
+        queue.submit(bySession);
+
+        Thread.sleep(100);
+        assertThat(processed).isEmpty();
+        release.countDown();
+        waitFor(() -> processed.size() == 2);
+        assertThat(processed).containsExactly("session_complete", "usage_logged");
+    }
+
+    @Test
+    @DisplayName("a batch is handled as one ordered group per todo and reports each event in request order")
+    void submitBatch_groupsPerTodo() {
+        config.getIngest().setMode(WebhookConfig.IngestMode.SYNC);
+        when(processor.processGroup(anyList())).thenAnswer(invocation -> {
+            List<SwiftcastWebhookRequest> group = invocation.getArgument(0);
+            group.forEach(request -> processed.add(request.getTodoId() + ":" + request.getEvent()));
+            return group.stream()
+                    .map(request -> "unknown".equals(request.getEvent())
+                            ? WebhookBatchResponse.Status.SKIPPED
+                            : WebhookBatchResponse.Status.PROCESSED)
+                    .toList();
+        });
+        start();
+
+        List<WebhookBatchResponse.Status> statuses = queue.submitBatch(List.of(
+                event("a", "first"),
+                event("b", "only"),
+                event("a", "unknown"),
+                event("a", "third")));
+
+        assertThat(statuses).containsExactly(
+                WebhookBatchResponse.Status.PROCESSED,
+                WebhookBatchResponse.Status.PROCESSED,
+                WebhookBatchResponse.Status.SKIPPED,
+                WebhookBatchResponse.Status.PROCESSED);
+        assertThat(processed).containsExactly("a:first", "a:unknown", "a:third", "b:only");
+        verify(processor, times(1)).processGroup(anyList());
+        verify(processor, times(1)).process(any());
+    }
+
+    @Test
+    @DisplayName("queued batch groups are reported as QUEUED and processed on their lanes")
+    void submitBatch_async() throws Exception {
+        when(processor.processGroup(anyList())).thenAnswer(invocation -> {
+            List<SwiftcastWebhookRequest> group = invocation.getArgument(0);
+            group.forEach(request -> processed.add(request.getTodoId() + ":" + request.getEvent()));
+            return Collections.nCopies(group.size(), WebhookBatchResponse.Status.PROCESSED);
+        });
+        start();
+
+        List<WebhookBatchResponse.Status> statuses = queue.submitBatch(List.of(
+                event("a", "1"), event("a", "2"), event("b", "1")));
+
+        assertThat(statuses).containsOnly(WebhookBatchResponse.Status.QUEUED);
+        waitFor(() -> processed.size() == 3);
+        assertThat(processed).containsSubsequence("a:1", "a:2");
+    }
+
+    private void start() {
+        queue = new WebhookIngestionQueue(processor, new SessionRouteCache(new TerminalConfig(), meterRegistry), config, meterRegistry);
+        queue.start();
+    }
+
+    private static SwiftcastWebhookRequest event(String todoId, String event) {
+        SwiftcastWebhookRequest request = new SwiftcastWebhookRequest();
+        request.setTodoId(todoId);
+        request.setEvent(event);
+        return request;
+    }
+
+    /**
+     * A todo key that hashes to a different lane than {@code todoId}.
+     */
+    private static String keyOnOtherLane(String todoId, int lanes) {
+        int lane = Math.floorMod(todoId.hashCode(), lanes);
+        for (int i = 0; ; i++) {
+            String candidate = "fast-" + i;
+            if (Math.floorMod(candidate.hashCode(), lanes) != lane) {
+                return candidate;
+            }
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+}
@@ -0,0 +1,159 @@
+package io.threadcast.service.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.threadcast.config.WebSocketBrokerConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class ConflatingWebSocketSessionTest {
+
+    private WebSocketBrokerConfig brokerConfig;
+    private SimpleMeterRegistry meterRegistry;
+    private WebSocketOutboundConflator conflator;
+    private WebSocketSession delegate;
+
+    private final List<String> delivered = new CopyOnWriteArrayList<>();
+    private final CountDownLatch firstSendStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseFirstSend = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        brokerConfig = new WebSocketBrokerConfig();
+        meterRegistry = new SimpleMeterRegistry();
+        delegate = mock(WebSocketSession.class);
+        when(delegate.getId()).thenReturn("session-1");
+
+        // The first send blocks until released, simulating a slow client
+        doAnswer(invocation -> {
+            TextMessage message = invocation.getArgument(0);
+            if (delivered.isEmpty()) {
+                delivered.add(message.getPayload());
+                firstSendStarted.countDown();
+                releaseFirstSend.await(5, TimeUnit.SECONDS);
+            } else {
+                delivered.add(message.getPayload());
+            }
+            return null;
+        }).when(delegate).sendMessage(any(WebSocketMessage.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseFirstSend.countDown();
+        if (conflator != null) {
+            conflator.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("while a client is behind only the newest frame per key is sent, in arrival order")
+    void sendMessage_conflatesLatestValueWhileBehind() throws Exception {
+        ConflatingWebSocketSession session = newSession();
+
+        session.sendMessage(frame("sub-0", null, "first"));
+        assertThat(firstSendStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        session.sendMessage(frame("sub-0", "STEP_PROGRESS:t1", "progress-10"));
+        session.sendMessage(frame("sub-0", null, "status-changed"));
+        session.sendMessage(frame("sub-0", "STEP_PROGRESS:t1", "progress-50"));
+        session.sendMessage(frame("sub-1", "STEP_PROGRESS:t1", "other-subscription"));
+        session.sendMessage(frame("sub-0", "STEP_PROGRESS:t1", "progress-90"));
+        releaseFirstSend.countDown();
+
+        awaitDelivered(4);
+        assertThat(delivered).extracting(ConflatingWebSocketSessionTest::body)
+                .containsExactly("first", "status-changed", "other-subscription", "progress-90");
+        assertThat(meterRegistry.counter("threadcast.websocket.outbound.conflated").count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("a full buffer drops the oldest frames under the DROP policy")
+    void sendMessage_dropsOldestWhenBufferFull() throws Exception {
+        brokerConfig.getSession().setSendBufferSizeLimit(frame("sub-0", null, "m0").getPayloadLength() * 2);
+        ConflatingWebSocketSession session = newSession();
+
+        session.sendMessage(frame("sub-0", null, "first"));
+        assertThat(firstSendStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        for (int i = 0; i < 5; i++) {
+            session.sendMessage(frame("sub-0", null, "m" + i));
+        }
+        releaseFirstSend.countDown();
+
+        awaitDelivered(3);
+        assertThat(delivered).extracting(ConflatingWebSocketSessionTest::body)
+                .containsExactly("first", "m3", "m4");
+        assertThat(meterRegistry.counter("threadcast.websocket.outbound.dropped").count()).isEqualTo(3);
+        verify(delegate, never()).close(any(CloseStatus.class));
+    }
+
+    @Test
+    @DisplayName("a full buffer closes the session under the TERMINATE policy")
+    void sendMessage_terminatesWhenBufferFull() throws Exception {
+        brokerConfig.getSession().setSendBufferSizeLimit(frame("sub-0", null, "m0").getPayloadLength() * 2);
+        brokerConfig.getSession().setOverflow(WebSocketBrokerConfig.OverflowPolicy.TERMINATE);
+        ConflatingWebSocketSession session = newSession();
+
+        session.sendMessage(frame("sub-0", null, "first"));
+        assertThat(firstSendStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i < 3; i++) {
+            session.sendMessage(frame("sub-0", null, "m" + i));
+        }
+
+        verify(delegate).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertThat(session.getPendingCount()).isZero();
+        assertThat(meterRegistry.counter("threadcast.websocket.outbound.terminated").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("conflation key is read from the STOMP headers and scoped to the subscription")
+    void conflationKey_readsHeaderBlockOnly() {
+        assertThat(ConflatingWebSocketSession.conflationKey(frame("sub-3", "USAGE_UPDATE:t1", "{}")))
+                .isEqualTo("sub-3|USAGE_UPDATE:t1");
+        assertThat(ConflatingWebSocketSession.conflationKey(frame("sub-3", null, "conflation-key:x\n")))
+                .isNull();
+        assertThat(ConflatingWebSocketSession.conflationKey(new TextMessage("\n"))).isNull();
+    }
+
+    private ConflatingWebSocketSession newSession() {
+        conflator = new WebSocketOutboundConflator(brokerConfig, meterRegistry);
+        return new ConflatingWebSocketSession(delegate, conflator);
+    }
+
+    private void awaitDelivered(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (delivered.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        // Give a wrongly queued extra frame the chance to show up
+        Thread.sleep(50);
+    }
+
+    private static TextMessage frame(String subscription, String conflationKey, String body) {
+        StringBuilder frame = new StringBuilder("MESSAGE\n")
+                .append("destination:/topic/todos/t1\n")
+                .append("subscription:").append(subscription).append('\n');
+        if (conflationKey != null) {
+            frame.append(WebSocketOutboundConflator.CONFLATION_KEY_HEADER).append(':').append(conflationKey).append('\n');
+        }
+        return new TextMessage(frame.append('\n').append(body).append('\0').toString());
+    }
+
+    private static String body(String frame) {
+        return frame.substring(frame.indexOf("\n\n") + 2, frame.length() - 1);
+    }
+}
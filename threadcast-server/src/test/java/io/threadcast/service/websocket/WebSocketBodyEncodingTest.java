@@ -0,0 +1,107 @@
+package io.threadcast.service.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.threadcast.config.WebSocketBrokerConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class WebSocketBodyEncodingTest {
+
+    private static final byte[] JSON = """
+            {"eventId":"e1","eventType":"STEP_PROGRESS","timestamp":"2026-01-02T03:04:05.123","payload":{"progress":42}}
+            """.getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MessageChannel channel = mock(MessageChannel.class);
+    private WebSocketBodyEncoding encoding;
+
+    @BeforeEach
+    void setUp() {
+        encoding = new WebSocketBodyEncoding(new WebSocketBrokerConfig(), objectMapper, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("a session that negotiated CBOR gets a binary body equal to the JSON document")
+    void preSend_cborSession_transcodesBody() throws Exception {
+        connect("cbor-session", "cbor", true);
+
+        Message<?> sent = encoding.preSend(message("cbor-session", JSON), channel);
+
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(sent);
+        assertThat(headers.getContentType()).isEqualTo(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        assertThat(headers.getFirstNativeHeader(WebSocketBodyEncoding.ENCODING_HEADER)).isEqualTo("cbor");
+        assertThat(new CBORMapper().readTree((byte[]) sent.getPayload())).isEqualTo(objectMapper.readTree(JSON));
+        assertThat(((byte[]) sent.getPayload()).length).isLessThan(JSON.length);
+    }
+
+    @Test
+    @DisplayName("the same event body is transcoded once for every CBOR session")
+    void preSend_sharedBody_transcodedOnce() throws Exception {
+        connect("a", "cbor", true);
+        connect("b", "cbor", true);
+
+        Object first = encoding.preSend(message("a", JSON), channel).getPayload();
+        Object second = encoding.preSend(message("b", JSON), channel).getPayload();
+
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    @DisplayName("JSON stays the default, and SockJS or disconnected sessions are never switched")
+    void preSend_otherSessions_keepJson() throws Exception {
+        connect("json-session", null, true);
+        connect("sockjs-session", "cbor", false);
+        connect("gone-session", "cbor", true);
+        encoding.onDisconnect(new SessionDisconnectEvent(this, message("gone-session", new byte[0]),
+                "gone-session", CloseStatus.NORMAL));
+
+        for (String sessionId : new String[]{"json-session", "sockjs-session", "gone-session"}) {
+            Message<?> message = message(sessionId, JSON);
+            assertThat(encoding.preSend(message, channel)).isSameAs(message);
+        }
+    }
+
+    private void connect(String sessionId, String bodyEncoding, boolean binaryCapable) throws Exception {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.setSessionId(sessionId);
+        if (bodyEncoding != null) {
+            accessor.setNativeHeader(WebSocketBodyEncoding.ENCODING_HEADER, bodyEncoding);
+        }
+        Map<String, Object> attributes = new HashMap<>();
+        if (binaryCapable) {
+            encoding.binaryCapableHandshake().beforeHandshake(null, null, null, attributes);
+        }
+        accessor.setSessionAttributes(attributes);
+        encoding.onConnect(new SessionConnectEvent(this,
+                MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders())));
+    }
+
+    private static Message<byte[]> message(String sessionId, byte[] body) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination("/topic/todos/t1");
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        return MessageBuilder.createMessage(body, accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,126 @@
+package io.threadcast.service.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.threadcast.config.WebSocketBrokerConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WebSocketEventLogTest {
+
+    private static final String TOPIC = "/topic/missions/m1";
+
+    private WebSocketBrokerConfig brokerConfig;
+    private WebSocketEventLog eventLog;
+    private final List<Long> sentSeqs = new ArrayList<>();
+    private String epoch;
+
+    @BeforeEach
+    void setUp() {
+        brokerConfig = new WebSocketBrokerConfig();
+        brokerConfig.getReplay().setCapacityPerTopic(4);
+        eventLog = new WebSocketEventLog(brokerConfig, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("sequence numbers increase per topic, independently of other topics")
+    void publish_assignsPerTopicSequence() {
+        publish(TOPIC, "a");
+        publish(TOPIC, "b");
+        publish("/topic/todos/t1", "c");
+        publish(TOPIC, "d");
+
+        assertThat(sentSeqs).containsExactly(1L, 2L, 1L, 3L);
+    }
+
+    @Test
+    @DisplayName("a resume returns only the events after the client's last sequence")
+    void since_returnsGap() {
+        for (String body : List.of("a", "b", "c", "d")) {
+            publish(TOPIC, body);
+        }
+
+        WebSocketEventLog.Replay replay = resume(epoch, 2);
+
+        assertThat(replay.snapshotRequired()).isFalse();
+        assertThat(replay.currentSeq()).isEqualTo(4);
+        assertThat(replay.entries()).extracting(WebSocketEventLog.Entry::seq).containsExactly(3L, 4L);
+        assertThat(replay.entries()).extracting(e -> new String(e.body(), StandardCharsets.UTF_8))
+                .containsExactly("c", "d");
+        assertThat(resume(epoch, 4).entries()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("a gap that fell out of the ring buffer requires a snapshot")
+    void since_gapOutOfBuffer_requiresSnapshot() {
+        for (int i = 0; i < 10; i++) {
+            publish(TOPIC, "e" + i);
+        }
+
+        WebSocketEventLog.Replay replay = resume(epoch, 5);
+
+        assertThat(replay.snapshotRequired()).isTrue();
+        assertThat(replay.currentSeq()).isEqualTo(10);
+        assertThat(resume(epoch, 6).snapshotRequired()).isFalse();
+    }
+
+    @Test
+    @DisplayName("a sequence from another epoch (restart or evicted topic) requires a snapshot")
+    void since_otherEpoch_requiresSnapshot() {
+        publish(TOPIC, "a");
+        String oldEpoch = epoch;
+
+        brokerConfig.getReplay().setTopicIdleTtlMs(-1);
+        eventLog.evictIdle();
+        publish(TOPIC, "b");
+
+        assertThat(epoch).isNotEqualTo(oldEpoch);
+        assertThat(sentSeqs).containsExactly(1L, 1L);
+        assertThat(resume(oldEpoch, 0).snapshotRequired()).isTrue();
+        assertThat(resume(epoch, 0).entries()).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("events published while nobody watches are buffered and replayed")
+    void since_unwatchedEventsReplayed() {
+        publish(TOPIC, "a");
+        eventLog.publish(TOPIC, () -> false, (e, seq, watched) -> {
+            assertThat(watched).isFalse();
+            return "b".getBytes(StandardCharsets.UTF_8);
+        });
+
+        assertThat(resume(epoch, 1).entries()).extracting(e -> new String(e.body(), StandardCharsets.UTF_8))
+                .containsExactly("b");
+    }
+
+    @Test
+    @DisplayName("a gap containing an event whose body could not be built requires a snapshot")
+    void since_gapWithSkippedEvent_requiresSnapshot() {
+        publish(TOPIC, "a");
+        publish(TOPIC, null);
+        publish(TOPIC, "c");
+
+        assertThat(resume(epoch, 1).snapshotRequired()).isTrue();
+        assertThat(resume(epoch, 2).entries()).extracting(WebSocketEventLog.Entry::seq).containsExactly(3L);
+    }
+
+    private void publish(String destination, String body) {
+        eventLog.publish(destination, () -> true, (e, seq, watched) -> {
+            epoch = e;
+            sentSeqs.add(seq);
+            return body != null ? body.getBytes(StandardCharsets.UTF_8) : null;
+        });
+    }
+
+    private WebSocketEventLog.Replay resume(String epoch, long lastSeq) {
+        try (WebSocketEventLog.Resume resume = eventLog.lockForResume(TOPIC)) {
+            return resume.since(epoch, lastSeq);
+        }
+    }
+}